@@ -0,0 +1,8 @@
+# Compile the game and the benchmarks
+javac src/main/*.java src/main/bakery/*.java src/main/util/*.java -d ./bin/
+javac -cp .:junit-platform-console-standalone.jar --source-path ./src/main/ ./src/test/test/benchmark/*.java -d ./bin/
+
+# Run every benchmark, keeping a copy of the results
+for benchmark in ./src/test/test/benchmark/*Benchmark.java; do
+    java -cp ./bin/ test.benchmark.$(basename "$benchmark" .java)
+done | tee bench_output.txt
@@ -3,15 +3,25 @@ import javafx.scene.Scene;
 import javafx.scene.layout.StackPane;
 import javafx.scene.control.Label;
 import javafx.stage.Stage;
+import ui.ImageManager;
 import ui.StartScreenUI;
 
 public class BakeryApplication extends Application {
 
     @Override
     public void start(Stage primaryStage) {
+        // Decode the card pictures while the player is still on the start screen
+        ImageManager.getInstance().preloadInBackground();
         new StartScreenUI(primaryStage);
     }
 
+    @Override
+    public void stop() {
+        if (Boolean.getBoolean("bakery.ui.stats")) {
+            System.err.println(ImageManager.getInstance().getStats());
+        }
+    }
+
     public static void main(String[] args) {
         // Launch the application
         launch(args);
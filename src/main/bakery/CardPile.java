@@ -0,0 +1,383 @@
+package bakery;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.EmptyStackException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Represents a face-down pile of cards such as the pantry deck, the pantry itself, the discard pile or the customer deck.
+ * The pile is backed by a plain array with the top card stored at the end, so pushing, popping and peeking are all O(1)
+ * and, unlike {@link java.util.Stack}, no operation pays for synchronisation.
+ *
+ * Iteration runs from the bottom of the pile to the top, which matches the order a {@link java.util.Stack} would report.
+ * Whole piles can be moved onto one another in a single array copy, and the pile can be shuffled in place using the same
+ * Fisher–Yates sequence as {@link java.util.Collections#shuffle(java.util.List, Random)}, so seeded games deal identically.
+ *
+ * A pile can also be shuffled lazily. Rather than ordering every card up front, each draw from a lazily shuffled pile swaps
+ * a uniformly chosen remaining card onto the top, so the cost is proportional to the number of cards drawn rather than the
+ * size of the pile. The shuffle is statistically the same as an eager one: every order of the cards is equally likely.
+ * The random numbers are taken from the supplied generator at draw time, though, so the cards come out in the order an
+ * eager shuffle with the same generator would have given only if nothing else uses that generator until the shuffle is
+ * complete. A game that shares its generator between the pile and anything else deals differently, though still the
+ * same way every time for the same seed and the same moves. Anything that observes the order of the whole pile
+ * (iteration, copying, equality) first completes the shuffle.
+ *
+ * This class is not thread safe; a pile belongs to exactly one game.
+ *
+ * @param <E> the type of card held in the pile.
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public class CardPile<E> extends AbstractCollection<E> implements java.io.Serializable {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final long serialVersionUID = 11085168;
+
+    private Object[] cards;
+    private int size;
+    private int unsettled;
+    private Random lazyRandom;
+    private transient int modCount;
+
+    /**
+     * Creates a new, empty card pile.
+     */
+    public CardPile() {
+        cards = new Object[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Creates a new card pile containing the given cards. The first card of the collection ends up at the bottom of the pile.
+     *
+     * @param cards the cards to place in the pile, in bottom-to-top order.
+     */
+    public CardPile(Collection<? extends E> cards) {
+        this.cards = cards.toArray(new Object[Math.max(cards.size(), DEFAULT_CAPACITY)]);
+        this.size = cards.size();
+    }
+
+    // A copy for playing ahead on, with each card replaced in place by the function; a lazy shuffle still under way carries
+    // on in the copy, taking its numbers from the given generator
+    <F> CardPile<F> copy(Function<? super E, ? extends F> card, Random random) {
+        CardPile<F> copy = new CardPile<>();
+        copy.cards = new Object[cards.length];
+        for (int i = 0; i < size; i++) {
+            @SuppressWarnings("unchecked")
+            E original = (E) cards[i];
+            copy.cards[i] = card.apply(original);
+        }
+        copy.size = size;
+        copy.unsettled = unsettled;
+        copy.lazyRandom = lazyRandom == null ? null : random;
+        return copy;
+    }
+
+    /**
+     * Places a card on the top of the pile.
+     *
+     * @param card the card to place on the pile.
+     * @return the card that was pushed.
+     */
+    public E push(E card) {
+        ensureCapacity(size + 1);
+        cards[size++] = card;
+        modCount++;
+        return card;
+    }
+
+    /**
+     * Removes and returns the card on the top of the pile.
+     *
+     * @return the card that was on the top of the pile.
+     * @throws EmptyStackException if the pile is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E pop() throws EmptyStackException {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+        settleTop();
+        E card = (E) cards[--size];
+        cards[size] = null;
+        unsettled = Math.min(unsettled, size);
+        modCount++;
+        return card;
+    }
+
+    /**
+     * Returns the card on the top of the pile without removing it.
+     *
+     * @return the card on the top of the pile, or null if the pile is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        if (size == 0) {
+            return null;
+        }
+        settleTop();
+        return (E) cards[size - 1];
+    }
+
+    /**
+     * Moves every card in this pile onto the top of another pile, leaving this pile empty. The relative order of the moved
+     * cards is preserved. This is the bulk operation used when a discard pile is turned back into a deck.
+     *
+     * @param target the pile that receives the cards.
+     */
+    public void transferTo(CardPile<E> target) {
+        if (target == this || size == 0) {
+            return;
+        }
+        settleAll();
+        target.appendAll(cards, size);
+        Arrays.fill(cards, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Shuffles the pile in place using the supplied source of randomness.
+     *
+     * @param random the source of randomness used to order the cards.
+     */
+    public void shuffle(Random random) {
+        for (int i = size; i > 1; i--) {
+            swap(i - 1, random.nextInt(i));
+        }
+        unsettled = 0;
+        lazyRandom = null;
+        modCount++;
+    }
+
+    /**
+     * Marks the whole pile as shuffled without reordering it yet. Each subsequent draw picks a uniformly random card from
+     * those not yet drawn, taking one number from the supplied source of randomness as {@link #shuffle(Random)} would have
+     * for that position. The draws match an eager shuffle only while nothing else takes numbers from the same source.
+     * Cards pushed afterwards sit on top of the shuffled cards, as they would on a real pile.
+     *
+     * @param random the source of randomness used as cards are drawn.
+     */
+    public void shuffleLazily(Random random) {
+        unsettled = size;
+        lazyRandom = random;
+        modCount++;
+    }
+
+    /**
+     * Adds a card to the top of the pile.
+     *
+     * @param card the card to add.
+     * @return always true.
+     */
+    @Override
+    public boolean add(E card) {
+        push(card);
+        return true;
+    }
+
+    /**
+     * Adds every card of the given collection to the top of the pile, in iteration order. Copying from another
+     * {@code CardPile} is a single array copy.
+     *
+     * @param other the cards to add.
+     * @return true if the pile changed.
+     */
+    @Override
+    public boolean addAll(Collection<? extends E> other) {
+        if (other instanceof CardPile) {
+            CardPile<?> pile = (CardPile<?>) other;
+            pile.settleAll();
+            appendAll(pile.cards, pile.size);
+        } else {
+            Object[] added = other.toArray();
+            appendAll(added, added.length);
+        }
+        return !other.isEmpty();
+    }
+
+    /**
+     * Removes the lowest copy of the given card from the pile, keeping the order of the remaining cards.
+     *
+     * @param card the card to remove.
+     * @return true if a matching card was found and removed.
+     */
+    @Override
+    public boolean remove(Object card) {
+        for (int i = 0; i < size; i++) {
+            if (card == null ? cards[i] == null : card.equals(cards[i])) {
+                removeAt(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the pile holds a copy of the given card.
+     *
+     * @param card the card to look for.
+     * @return true if the pile contains the card.
+     */
+    @Override
+    public boolean contains(Object card) {
+        for (int i = 0; i < size; i++) {
+            if (card == null ? cards[i] == null : card.equals(cards[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes every card from the pile.
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(cards, 0, size, null);
+        size = 0;
+        unsettled = 0;
+        modCount++;
+    }
+
+    /**
+     * Returns the number of cards in the pile.
+     *
+     * @return the number of cards in the pile.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Compares this pile with another object. Two piles are equal when they hold equal cards in the same order.
+     *
+     * @param obj the object to compare against.
+     * @return true if the object is a card pile with the same cards in the same order.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof CardPile)) {
+            return false;
+        }
+        CardPile<?> other = (CardPile<?>) obj;
+        settleAll();
+        other.settleAll();
+        return size == other.size && Arrays.equals(cards, 0, size, other.cards, 0, other.size);
+    }
+
+    /**
+     * Returns a hash code derived from the cards in the pile and their order, computed as for a {@link java.util.List}.
+     *
+     * @return a hash code value for this pile.
+     */
+    @Override
+    public int hashCode() {
+        settleAll();
+        int hash = 1;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + (cards[i] == null ? 0 : cards[i].hashCode());
+        }
+        return hash;
+    }
+
+    /**
+     * Returns an iterator over the cards from the bottom of the pile to the top.
+     *
+     * @return an iterator over the cards in the pile.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        settleAll();
+        return new Iterator<E>() {
+            private int next = 0;
+            private int last = -1;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                last = next++;
+                return (E) cards[last];
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                removeAt(last);
+                next = last;
+                last = -1;
+                expectedModCount = modCount;
+            }
+        };
+    }
+
+    private void appendAll(Object[] source, int count) {
+        ensureCapacity(size + count);
+        System.arraycopy(source, 0, cards, size, count);
+        size += count;
+        modCount++;
+    }
+
+    private void removeAt(int index) {
+        System.arraycopy(cards, index + 1, cards, index, size - index - 1);
+        cards[--size] = null;
+        if (index < unsettled) {
+            unsettled--;
+        }
+        modCount++;
+    }
+
+    // Fixes the top card of a lazily shuffled pile once every card above the shuffled region has been drawn
+    private void settleTop() {
+        if (unsettled > 0 && unsettled == size) {
+            swap(unsettled - 1, lazyRandom.nextInt(unsettled));
+            unsettled--;
+        }
+    }
+
+    // Completes a lazy shuffle so the pile can be copied in a well-defined order
+    private void settleAll() {
+        for (int i = unsettled; i > 1; i--) {
+            swap(i - 1, lazyRandom.nextInt(i));
+        }
+        unsettled = 0;
+    }
+
+    private void swap(int i, int j) {
+        Object tmp = cards[i];
+        cards[i] = cards[j];
+        cards[j] = tmp;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > cards.length) {
+            cards = Arrays.copyOf(cards, Math.max(capacity, cards.length * 2));
+        }
+    }
+}
@@ -13,6 +13,9 @@ import java.util.Map;
  *
  * Usage involves creating an instance with specific ingredients and requirements, after which the order can be processed based on the available stock and customer needs.
  *
+ * The name, level, recipe and garnish are fixed when the order is created and the recipe and garnish lists cannot be
+ * modified; only the status changes as a game is played.
+ *
  * @author Adam Aly
  * @version 1.1
  * @since 2023
@@ -36,10 +39,10 @@ public class CustomerOrder implements java.io.Serializable {
     }
 
     private CustomerOrderStatus status;
-    private List<Ingredient> garnish = new ArrayList<>();
-    private int level;
-    private String name;
-    private List<Ingredient> recipe = new ArrayList<>();
+    private final List<Ingredient> garnish;
+    private final int level;
+    private final String name;
+    private final List<Ingredient> recipe;
     private static final long serialVersionUID = 11085168;
 
     /**
@@ -48,20 +51,42 @@ public class CustomerOrder implements java.io.Serializable {
      *
      * @param name The name of the customer or the order identifier.
      * @param recipe A list of ingredients required to prepare the order.
-     * @param garnish A list of ingredients used as garnish.
+     * @param garnish A list of ingredients used as garnish, or null for none.
      * @param level The priority level of the order.
      */
     public CustomerOrder(String name, List<Ingredient> recipe, List<Ingredient> garnish, int level) {
         if(recipe == null || recipe.isEmpty())  {
             throw new WrongIngredientsException(name + " must have at least one ingredient in the recipe");
         }
+        if(hasNull(recipe) || (garnish != null && hasNull(garnish))) {
+            throw new WrongIngredientsException(name + " cannot have null in the recipe or garnish");
+        }
         this.name = name;
-        this.recipe = recipe;
-        this.garnish = garnish;
+        this.recipe = List.copyOf(recipe);
+        this.garnish = garnish == null ? List.of() : List.copyOf(garnish);
         this.level = level;
         this.status = CustomerOrderStatus.WAITING;
     }
+
+    // A copy for playing ahead on, whose status changes without affecting the original; the recipe and garnish are shared
+    CustomerOrder(CustomerOrder other) {
+        this.name = other.name;
+        this.recipe = other.recipe;
+        this.garnish = other.garnish;
+        this.level = other.level;
+        this.status = other.status;
+    }
     
+    // Immutable lists throw rather than answer when asked whether they contain null
+    private static boolean hasNull(List<Ingredient> cards) {
+        for (Ingredient card : cards) {
+            if (card == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Determines if the order can be fulfilled based on the available ingredients.
      *
@@ -142,6 +167,15 @@ public class CustomerOrder implements java.io.Serializable {
         if(!canFulfill(ingredients)) {
             throw new WrongIngredientsException("Cannot fulfill order");
         }
+        return use(ingredients, garnish, true);
+    }
+
+    // The ingredients fulfill would use, without changing the order's status
+    List<Ingredient> ingredientsUsed(List<Ingredient> ingredients, boolean garnish) {
+        return use(ingredients, garnish, false);
+    }
+
+    private List<Ingredient> use(List<Ingredient> ingredients, boolean garnish, boolean apply) {
         List<Ingredient> availableIngredients = new ArrayList<>(ingredients);
         int helpfulDuckCount = Collections.frequency(availableIngredients, Ingredient.HELPFUL_DUCK);
         List<Ingredient> usedIngredients = new ArrayList<>();
@@ -157,7 +191,9 @@ public class CustomerOrder implements java.io.Serializable {
             }
         }
 
-        setStatus(CustomerOrderStatus.FULFILLED);
+        if(apply) {
+            setStatus(CustomerOrderStatus.FULFILLED);
+        }
 
         if(garnish && canGarnish(availableIngredients) && this.garnish.size() > 0){
             for(Ingredient ingredient : this.garnish) {
@@ -170,7 +206,9 @@ public class CustomerOrder implements java.io.Serializable {
                     usedIngredients.add(Ingredient.HELPFUL_DUCK);
                 }
             }
-            setStatus(CustomerOrderStatus.GARNISHED);
+            if(apply) {
+                setStatus(CustomerOrderStatus.GARNISHED);
+            }
         }
 
         return usedIngredients;
@@ -179,7 +217,7 @@ public class CustomerOrder implements java.io.Serializable {
     /**
      * Returns the garnish ingredients associated with this order.
      *
-     * @return A list of Ingredient objects used as garnish.
+     * @return An unmodifiable list of Ingredient objects used as garnish.
      */
     public List<Ingredient> getGarnish(){
         return garnish;
@@ -191,16 +229,16 @@ public class CustomerOrder implements java.io.Serializable {
      * @return A string describing the garnish ingredients.
      */
     public String getGarnishDescription() {
-        String result = "";
+        StringBuilder result = new StringBuilder();
         if(garnish.size() > 1) {
             for(int i=0; i<garnish.size()-1; i++) {
-                result += garnish.get(i).toString() + ", ";
+                result.append(garnish.get(i).toString()).append(", ");
             }
         }
         if(garnish.size() > 0) {
-            result += garnish.get(garnish.size()-1).toString();
+            result.append(garnish.get(garnish.size()-1).toString());
         }
-        return result;
+        return result.toString();
     }
 
     /**
@@ -215,7 +253,7 @@ public class CustomerOrder implements java.io.Serializable {
     /**
      * Returns the recipe ingredients of the order.
      *
-     * @return A list of Ingredient objects used for the recipe.
+     * @return An unmodifiable list of Ingredient objects used for the recipe.
      */
     public List<Ingredient> getRecipe() {
         return recipe;
@@ -227,12 +265,12 @@ public class CustomerOrder implements java.io.Serializable {
      * @return A string describing the recipe ingredients.
      */
     public String getRecipeDescription() {
-        String result = "";
+        StringBuilder result = new StringBuilder();
         for(int i=0; i<recipe.size()-1; i++) {
-            result += recipe.get(i).toString() + ", ";
+            result.append(recipe.get(i).toString()).append(", ");
         }
-        result += recipe.get(recipe.size()-1).toString();
-        return result;
+        result.append(recipe.get(recipe.size()-1).toString());
+        return result.toString();
     }
 
     /**
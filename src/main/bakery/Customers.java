@@ -1,14 +1,18 @@
 package bakery;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EmptyStackException;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
-import java.util.Stack;
 
 import util.CardUtils;
 
@@ -32,6 +36,13 @@ public class Customers implements java.io.Serializable {
     private Collection<CustomerOrder> customerDeck;
     private List<CustomerOrder> inactiveCustomers;
     private Random random;
+    private int slots;
+    // How many customers have left with each status, kept up to date as they leave, and how long the list was when they
+    // were counted. A list that has since been added to or cleared some other way is counted again when next asked
+    private transient int[] inactiveCounts;
+    private transient int inactiveCounted;
+    // The customers who left with each status, listed when first asked for and dropped when another joins them
+    private transient Map<CustomerOrderStatus, List<CustomerOrder>> inactiveByStatus;
 
     private static final long serialVersionUID = 11085168;
 
@@ -47,10 +58,26 @@ public class Customers implements java.io.Serializable {
      * @throws FileNotFoundException if the deck file cannot be found.
      */
     public Customers(String deckFile, Random random, Collection<Layer> layers, int numPlayers) throws FileNotFoundException {
+        this(deckFile, random, layers, numPlayers, 3);
+    }
+
+    /**
+     * Initializes a new Customers instance with a row of a given number of places at the counter. Customers join the row
+     * at the front and move along it each round; the customer in the last place is the next to leave.
+     *
+     * @param deckFile the path to the file containing the deck of customer orders.
+     * @param random a Random object for shuffling the customer deck.
+     * @param layers a collection of layers to be used in initializing customer orders.
+     * @param numPlayers the number of players in the game, influencing initial order setup.
+     * @param slots the number of customers who can wait at once.
+     * @throws FileNotFoundException if the deck file cannot be found.
+     */
+    public Customers(String deckFile, Random random, Collection<Layer> layers, int numPlayers, int slots) throws FileNotFoundException {
         this.random = random;
+        this.slots = slots;
         initialiseCustomerDeck(deckFile, layers, numPlayers);
         activeCustomers = new ArrayList<>();
-        for(int i = 0; i < 3; i++) {
+        for(int i = 0; i < slots; i++) {
             activeCustomers.add(null);
         }
         //activeCustomers.add(null);
@@ -64,6 +91,27 @@ public class Customers implements java.io.Serializable {
         inactiveCustomers = new ArrayList<>();
     }
 
+    // A copy for playing ahead on, taking its random numbers from the given generator. Every customer is copied, since
+    // their statuses change as they wait and leave
+    Customers(Customers other, Random random) {
+        this.random = random;
+        this.slots = other.slots;
+        Map<CustomerOrder, CustomerOrder> copies = new IdentityHashMap<>();
+        activeCustomers = other.activeCustomers instanceof LinkedList ? new LinkedList<>() : new ArrayList<>();
+        for (CustomerOrder customer : other.activeCustomers) {
+            activeCustomers.add(copy(customer, copies));
+        }
+        customerDeck = ((CardPile<CustomerOrder>) other.customerDeck).copy(customer -> copy(customer, copies), random);
+        inactiveCustomers = new ArrayList<>(other.inactiveCustomers.size());
+        for (CustomerOrder customer : other.inactiveCustomers) {
+            inactiveCustomers.add(copy(customer, copies));
+        }
+    }
+
+    private static CustomerOrder copy(CustomerOrder customer, Map<CustomerOrder, CustomerOrder> copies) {
+        return customer == null ? null : copies.computeIfAbsent(customer, CustomerOrder::new);
+    }
+
    /**
      * Adds a new customer order to the active customer list from the preloaded customer deck. This method is typically
      * called to process and activate new orders at regular intervals or specific triggers within the system.
@@ -77,7 +125,7 @@ public class Customers implements java.io.Serializable {
         CustomerOrder c = timePasses();
         if(!customerDeck.isEmpty()) {
             ((LinkedList<CustomerOrder>) activeCustomers).add(0, drawCustomer());
-            if(c != null && size() == 3) {
+            if(c != null && size() == width()) {
                 customerWillLeaveSoon();
             }
         } else {
@@ -93,26 +141,37 @@ public class Customers implements java.io.Serializable {
      * @return true if there is a customer who will soon leave, false otherwise.
      */
     public boolean customerWillLeaveSoon() {
-        if(!isEmpty()) {
-            if(activeCustomers.size() > 2) {
-                if(customerDeck.size() == 0 && activeCustomers.toArray()[1] != null && activeCustomers.toArray()[2] != null) {
-                    ((CustomerOrder) activeCustomers.toArray()[2]).setStatus(CustomerOrderStatus.IMPATIENT);
-                    return true;
-                } else if(customerDeck.size() == 0 && activeCustomers.toArray()[0] == null && activeCustomers.toArray()[1] == null && activeCustomers.toArray()[2] != null) {
-                    ((CustomerOrder) activeCustomers.toArray()[2]).setStatus(CustomerOrderStatus.IMPATIENT);
-                    return true;
-                } else if(customerDeck.size() == 0 && activeCustomers.toArray()[0] == null && activeCustomers.toArray()[1] != null && activeCustomers.toArray()[2] != null) {
-                    ((CustomerOrder) activeCustomers.toArray()[2]).setStatus(CustomerOrderStatus.IMPATIENT);
-                    return true;
-                } else if(activeCustomers.toArray()[2] != null && activeCustomers.toArray()[1] != null && activeCustomers.toArray()[0] != null) {
-                    ((CustomerOrder) activeCustomers.toArray()[2]).setStatus(CustomerOrderStatus.IMPATIENT);
-                    return true;
-                }
+        if(!isEmpty() && activeCustomers.size() >= width()) {
+            // The last customer leaves at the next tick unless the row has a gap for everyone to move into
+            CustomerOrder last = ((List<CustomerOrder>) activeCustomers).get(activeCustomers.size() - 1);
+            if(last != null && firstGap(activeCustomers, customerDeck.isEmpty()) < 0) {
+                last.setStatus(CustomerOrderStatus.IMPATIENT);
+                return true;
             }
         }
         return false;
     }
 
+    // Where the row closes up when time passes: the first empty place, or while no more customers are coming the first
+    // empty place behind a customer; -1 if the row cannot close up and the last customer has to leave
+    private static int firstGap(Collection<CustomerOrder> row, boolean deckEmpty) {
+        boolean customerAhead = false;
+        int place = 0;
+        for(CustomerOrder customerOrder : row) {
+            if(customerOrder == null && (customerAhead || !deckEmpty)) {
+                return place;
+            }
+            customerAhead |= customerOrder != null;
+            place++;
+        }
+        return -1;
+    }
+
+    // Customers saved with Stack piles, before the row width was recorded, have the standard row of three
+    private int width() {
+        return slots == 0 ? 3 : slots;
+    }
+
     /**
      * Draws the next customer from the customer deck to become active. If the customer deck is empty, this method will handle
      * the situation appropriately, possibly by reshuffling inactive customers into the deck.
@@ -121,7 +180,7 @@ public class Customers implements java.io.Serializable {
      */
     public CustomerOrder drawCustomer() {
         if(!customerDeck.isEmpty()) {
-            CustomerOrder customerOrder = ((Stack<CustomerOrder>) customerDeck).pop();
+            CustomerOrder customerOrder = ((CardPile<CustomerOrder>) customerDeck).pop();
             return customerOrder;
         }
         return null;
@@ -164,19 +223,73 @@ public class Customers implements java.io.Serializable {
     /**
      * Fetches all inactive customers that match a specific order status.
      * This is useful for processing or displaying orders that have been abandoned or are in a specific state.
+     * The collection is unmodifiable and is shared between calls until another customer with that status leaves.
      *
      * @param status the CustomerOrderStatus to filter the inactive customers by.
      * @return a Collection of CustomerOrder objects that are inactive and match the given status.
      */
     public Collection<CustomerOrder> getInactiveCustomersWithStatus(CustomerOrderStatus status) {
-        Collection<CustomerOrder> result = new ArrayList<>();
-        for(CustomerOrder customerOrder : inactiveCustomers) {
-            if (customerOrder.getStatus().equals(status)) {
-                result.add(customerOrder);
+        if (getInactiveCount(status) == 0) {
+            return Collections.emptyList();
+        }
+        List<CustomerOrder> result = inactiveByStatus.get(status);
+        if (result == null) {
+            result = new ArrayList<>(inactiveCounts[status.ordinal()]);
+            for (CustomerOrder customerOrder : inactiveCustomers) {
+                if (customerOrder != null && customerOrder.getStatus() == status) {
+                    result.add(customerOrder);
+                }
             }
+            result = Collections.unmodifiableList(result);
+            inactiveByStatus.put(status, result);
         }
         return result;
     }
+
+    /**
+     * Counts the inactive customers that left with a specific order status, without listing them. Customers are counted
+     * under the status they had when they left.
+     *
+     * @param status the CustomerOrderStatus to count the inactive customers by.
+     * @return the number of inactive customers with the given status.
+     */
+    public int getInactiveCount(CustomerOrderStatus status) {
+        return status == null ? 0 : inactiveCounts()[status.ordinal()];
+    }
+
+    // The counts are not saved, so a loaded or copied list is counted the first time it is asked about
+    private int[] inactiveCounts() {
+        if (inactiveCounts == null || inactiveCounted != inactiveCustomers.size()) {
+            inactiveCounts = new int[CustomerOrderStatus.values().length];
+            inactiveByStatus = new EnumMap<>(CustomerOrderStatus.class);
+            for (CustomerOrder customerOrder : inactiveCustomers) {
+                if (customerOrder != null && customerOrder.getStatus() != null) {
+                    inactiveCounts[customerOrder.getStatus().ordinal()]++;
+                }
+            }
+            inactiveCounted = inactiveCustomers.size();
+        }
+        return inactiveCounts;
+    }
+
+    // Games saved before the piles were card piles hold the customer deck as a stack
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (!(customerDeck instanceof CardPile)) {
+            customerDeck = new CardPile<>(customerDeck);
+        }
+    }
+
+    // Moves a customer to the list of those who have left, counting them under the status they leave with
+    private void leave(CustomerOrder customer) {
+        boolean counted = inactiveCounts != null && inactiveCounted == inactiveCustomers.size();
+        inactiveCustomers.add(customer);
+        if (counted) {
+            inactiveCounts[customer.getStatus().ordinal()]++;
+            inactiveByStatus.remove(customer.getStatus());
+            inactiveCounted++;
+        }
+    }
     
     /**
      * Initializes the customer deck from a specified file and arranges the deck based on the number of players.
@@ -192,9 +305,9 @@ public class Customers implements java.io.Serializable {
         /*
          * 2 players: x4 Level 1, x2 Level 2, x1 Level 3
          * 3&4 players: x1 Level 1, x2 Level 2, x4 Level 3
-         * 5 players: x1 Level 2, x6 Level 3
+         * 5 or more players: x1 Level 2, x6 Level 3
          */
-        customerDeck = new Stack<>();
+        customerDeck = new CardPile<>();
         List<CustomerOrder> tempCustomerDeck = new ArrayList<>();
         try {
             tempCustomerDeck.addAll(CardUtils.readCustomerFile(deckFile, layers));
@@ -222,6 +335,7 @@ public class Customers implements java.io.Serializable {
         // Collections.shuffle(level3CustomerOrders, random);
 
         switch(numPlayers) {
+            case 1:
             case 2:
                 customerDeck.add(level1CustomerOrders.get(0));
                 customerDeck.add(level1CustomerOrders.get(1));
@@ -249,7 +363,7 @@ public class Customers implements java.io.Serializable {
                 customerDeck.add(level3CustomerOrders.get(2));
                 customerDeck.add(level3CustomerOrders.get(3));
                 break;
-            case 5:
+            default:
                 customerDeck.add(level2CustomerOrders.get(0));
                 customerDeck.add(level3CustomerOrders.get(0));
                 customerDeck.add(level3CustomerOrders.get(1));
@@ -259,7 +373,7 @@ public class Customers implements java.io.Serializable {
                 customerDeck.add(level3CustomerOrders.get(5));
                 break;
         }
-        Collections.shuffle((Stack<CustomerOrder>) customerDeck, random);
+        ((CardPile<CustomerOrder>) customerDeck).shuffle(random);
     }
 
     /**
@@ -286,15 +400,15 @@ public class Customers implements java.io.Serializable {
         if(isEmpty()) {
             return null;
         }
-        if(activeCustomers.size() > 1) {
+        if(activeCustomers.size() > 1 || width() == 1) {
             return ((LinkedList<CustomerOrder>) activeCustomers).getLast();
         }
         return null;
     }
 
     /**
-     * Removes a specified customer order from the active customers and moves it to the inactive list, marking it as given up.
-     * This method is used to manage customers who are no longer active in the system.
+     * Removes a specified customer order from the active customers and moves it to the inactive list, marking it as given up
+     * unless it has been fulfilled or garnished. This method is used to manage customers who are no longer active in the system.
      *
      * @param customer the CustomerOrder to be removed and marked as inactive.
      */
@@ -304,8 +418,11 @@ public class Customers implements java.io.Serializable {
         ((LinkedList<CustomerOrder>) activeCustomers).set(customerIndex, null);
         
         //activeCustomers.remove(customer);
-        inactiveCustomers.add(customer);
-        customer.setStatus(CustomerOrderStatus.GIVEN_UP);
+        // A served customer leaves happy and is counted as served
+        if (customer.getStatus() != CustomerOrderStatus.FULFILLED && customer.getStatus() != CustomerOrderStatus.GARNISHED) {
+            customer.setStatus(CustomerOrderStatus.GIVEN_UP);
+        }
+        leave(customer);
     }
 
     /**
@@ -334,48 +451,22 @@ public class Customers implements java.io.Serializable {
         CustomerOrder leavingCustomer = null;
         customerWillLeaveSoon();
         
-        // Check if the customerDeck is empty
-        if (customerDeck.isEmpty()) {
-            if (activeCustomerDeck.size() >= 3) {
-                if(activeCustomerDeck.get(0) != null && activeCustomerDeck.get(1) != null && activeCustomerDeck.get(2) != null) {
-                    activeCustomerDeck.add(0, null);
-                    leavingCustomer = activeCustomerDeck.removeLast();
-                } else if(activeCustomerDeck.get(0) != null && activeCustomerDeck.get(1) != null && activeCustomerDeck.get(2) == null) {
-                    leavingCustomer = activeCustomerDeck.removeLast();
-                    activeCustomerDeck.add(0, null);
-                } else if(activeCustomerDeck.get(0) != null && activeCustomerDeck.get(1) == null && activeCustomerDeck.get(2) != null) {
-                    activeCustomerDeck.set(1, activeCustomerDeck.get(0));
-                    activeCustomerDeck.set(0, null);
-                } else if(activeCustomerDeck.get(0) == null && activeCustomerDeck.get(1) != null && activeCustomerDeck.get(2) != null) {
-                    leavingCustomer = activeCustomerDeck.removeLast();
-                    activeCustomerDeck.add(0, null);
-                } else {
-                    leavingCustomer = activeCustomerDeck.removeLast();
-                    activeCustomerDeck.addFirst(null);
-                }
-            }
-        } else {
-            // Start from the rightmost position and shift every card to the right until you find an empty space
-            if(activeCustomerDeck.size() >= 3) {
-                if(activeCustomerDeck.get(0) == null) {
-                    activeCustomerDeck.remove(0);
-                } else if(activeCustomerDeck.get(1) == null) {
-                    activeCustomerDeck.set(1, activeCustomerDeck.get(0));
-                    activeCustomerDeck.remove(0);
-                } else if(activeCustomerDeck.get(2) == null) {
-                    activeCustomerDeck.set(2, activeCustomerDeck.get(1));
-                    activeCustomerDeck.set(1, activeCustomerDeck.get(0));
-                    activeCustomerDeck.remove(0);
-                } else {
-                    leavingCustomer = activeCustomerDeck.removeLast();
-                }
+        // Everyone ahead of the first gap moves along into it; with no gap the last customer leaves and the row moves along
+        if(activeCustomerDeck.size() >= width()) {
+            int gap = firstGap(activeCustomerDeck, customerDeck.isEmpty());
+            if(gap < 0) {
+                leavingCustomer = activeCustomerDeck.removeLast();
             } else {
-                //activeCustomerDeck.addLast(null);
+                activeCustomerDeck.remove(gap);
+            }
+            // The front place is left empty when no customer is left to fill it
+            if(customerDeck.isEmpty()) {
+                activeCustomerDeck.addFirst(null);
             }
         }
         if(leavingCustomer != null) {
-            inactiveCustomers.add(leavingCustomer);
             leavingCustomer.setStatus(CustomerOrderStatus.GIVEN_UP);
+            leave(leavingCustomer);
         }
         
         activeCustomers = activeCustomerDeck;
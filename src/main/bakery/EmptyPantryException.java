@@ -24,5 +24,14 @@ public class EmptyPantryException extends java.lang.RuntimeException {
     public EmptyPantryException(String msg, Throwable e) {
         super();
     }
-    
+
+    /**
+     * Records the stack trace, unless {@link MagicBakery#setExceptionStackTraces(boolean)} has turned recording off.
+     *
+     * @return this exception.
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return MagicBakery.isRecordingExceptionStackTraces() ? super.fillInStackTrace() : this;
+    }
 }
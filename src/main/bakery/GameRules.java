@@ -0,0 +1,209 @@
+package bakery;
+
+/**
+ * The sizes a game of {@link MagicBakery} is played with: how many players may sit at the table, how many customers fit in
+ * the row at the counter, how many cards the pantry shows, how many copies of each layer can be baked, how many cards each
+ * player is dealt and how many actions make a turn.
+ *
+ * {@link #STANDARD} holds the rules of the card game. {@link #LARGE_TABLE} lets dozens of players share one game with a
+ * wider row of customers, a bigger pantry and more layers to go round. Other sizes are made from either with the
+ * {@code with} methods; rules cannot be changed once created, so one set can be shared by any number of games.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public final class GameRules implements java.io.Serializable {
+    private static final long serialVersionUID = 11085168;
+
+    /**
+     * The rules of the card game: two to five players, three customers, a pantry of five cards, four copies of each
+     * layer, three cards each to start and three actions a turn, or two at a table of four or more.
+     */
+    public static final GameRules STANDARD = new GameRules(2, 5, 3, 5, 4, 3, 3, 2, 4);
+
+    /**
+     * Rules for up to 64 players: a row of twelve customers, a pantry of eight cards and sixteen copies of each layer,
+     * with two actions a turn from four players up as in the standard game.
+     */
+    public static final GameRules LARGE_TABLE = new GameRules(2, 64, 12, 8, 16, 3, 3, 2, 4);
+
+    private final int minPlayers;
+    private final int maxPlayers;
+    private final int customerSlots;
+    private final int pantrySize;
+    private final int layerCopies;
+    private final int handSize;
+    private final int actionsPermitted;
+    private final int largeTableActions;
+    private final int largeTableFrom;
+
+    private GameRules(int minPlayers, int maxPlayers, int customerSlots, int pantrySize, int layerCopies, int handSize,
+                      int actionsPermitted, int largeTableActions, int largeTableFrom) throws IllegalArgumentException {
+        if (minPlayers < 2 || maxPlayers < minPlayers) {
+            throw new IllegalArgumentException("A game needs at least two players and room for them.");
+        }
+        if (customerSlots < 1 || pantrySize < 1 || layerCopies < 1 || handSize < 0) {
+            throw new IllegalArgumentException("The customer row, pantry and layers need at least one card each.");
+        }
+        if (actionsPermitted < 1 || largeTableActions < 1) {
+            throw new IllegalArgumentException("A turn needs at least one action.");
+        }
+        this.minPlayers = minPlayers;
+        this.maxPlayers = maxPlayers;
+        this.customerSlots = customerSlots;
+        this.pantrySize = pantrySize;
+        this.layerCopies = layerCopies;
+        this.handSize = handSize;
+        this.actionsPermitted = actionsPermitted;
+        this.largeTableActions = largeTableActions;
+        this.largeTableFrom = largeTableFrom;
+    }
+
+    /**
+     * Returns these rules with a different number of players allowed.
+     *
+     * @param min the fewest players a game may start with, at least two.
+     * @param max the most players a game may start with.
+     * @return the new rules.
+     * @throws IllegalArgumentException if fewer than two players are allowed or the maximum is below the minimum.
+     */
+    public GameRules withPlayers(int min, int max) throws IllegalArgumentException {
+        return new GameRules(min, max, customerSlots, pantrySize, layerCopies, handSize, actionsPermitted,
+            largeTableActions, largeTableFrom);
+    }
+
+    /**
+     * Returns these rules with a different number of places in the customer row.
+     *
+     * @param slots the number of customers who can wait at once, at least one.
+     * @return the new rules.
+     * @throws IllegalArgumentException if there is no room for a customer.
+     */
+    public GameRules withCustomerSlots(int slots) throws IllegalArgumentException {
+        return new GameRules(minPlayers, maxPlayers, slots, pantrySize, layerCopies, handSize, actionsPermitted,
+            largeTableActions, largeTableFrom);
+    }
+
+    /**
+     * Returns these rules with a different number of cards face up in the pantry. The pantry deck is restored from the
+     * discard pile only while the discard pile holds more cards than this.
+     *
+     * @param size the number of cards in the pantry, at least one.
+     * @return the new rules.
+     * @throws IllegalArgumentException if the pantry would be empty.
+     */
+    public GameRules withPantrySize(int size) throws IllegalArgumentException {
+        return new GameRules(minPlayers, maxPlayers, customerSlots, size, layerCopies, handSize, actionsPermitted,
+            largeTableActions, largeTableFrom);
+    }
+
+    /**
+     * Returns these rules with a different number of copies of each layer on the table.
+     *
+     * @param copies the copies of each layer, at least one.
+     * @return the new rules.
+     * @throws IllegalArgumentException if there would be no copies.
+     */
+    public GameRules withLayerCopies(int copies) throws IllegalArgumentException {
+        return new GameRules(minPlayers, maxPlayers, customerSlots, pantrySize, copies, handSize, actionsPermitted,
+            largeTableActions, largeTableFrom);
+    }
+
+    /**
+     * Returns these rules with a different number of cards dealt to each player at the start.
+     *
+     * @param size the cards dealt to each player, possibly none.
+     * @return the new rules.
+     * @throws IllegalArgumentException if the size is negative.
+     */
+    public GameRules withHandSize(int size) throws IllegalArgumentException {
+        return new GameRules(minPlayers, maxPlayers, customerSlots, pantrySize, layerCopies, size, actionsPermitted,
+            largeTableActions, largeTableFrom);
+    }
+
+    /**
+     * Returns these rules with a different number of actions a turn.
+     *
+     * @param actions the actions a turn at a small table.
+     * @param largeTableActions the actions a turn at a large table.
+     * @param largeTableFrom the number of players from which a table counts as large.
+     * @return the new rules.
+     * @throws IllegalArgumentException if a turn would have no actions.
+     */
+    public GameRules withActions(int actions, int largeTableActions, int largeTableFrom) throws IllegalArgumentException {
+        return new GameRules(minPlayers, maxPlayers, customerSlots, pantrySize, layerCopies, handSize, actions,
+            largeTableActions, largeTableFrom);
+    }
+
+    /**
+     * Returns the fewest players a game may start with.
+     *
+     * @return the minimum number of players.
+     */
+    public int getMinPlayers() {
+        return minPlayers;
+    }
+
+    /**
+     * Returns the most players a game may start with.
+     *
+     * @return the maximum number of players.
+     */
+    public int getMaxPlayers() {
+        return maxPlayers;
+    }
+
+    /**
+     * Returns the number of places in the customer row.
+     *
+     * @return the number of customer slots.
+     */
+    public int getCustomerSlots() {
+        return customerSlots;
+    }
+
+    /**
+     * Returns the number of cards face up in the pantry.
+     *
+     * @return the pantry size.
+     */
+    public int getPantrySize() {
+        return pantrySize;
+    }
+
+    /**
+     * Returns the number of copies of each layer on the table at the start.
+     *
+     * @return the copies of each layer.
+     */
+    public int getLayerCopies() {
+        return layerCopies;
+    }
+
+    /**
+     * Returns the number of cards dealt to each player at the start.
+     *
+     * @return the starting hand size.
+     */
+    public int getHandSize() {
+        return handSize;
+    }
+
+    /**
+     * Returns how many actions a turn has at a table of a given size.
+     *
+     * @param players the number of players in the game.
+     * @return the actions permitted each turn.
+     */
+    public int getActionsPermitted(int players) {
+        return players >= largeTableFrom ? largeTableActions : actionsPermitted;
+    }
+
+    @Override
+    public String toString() {
+        return minPlayers + "-" + maxPlayers + " players, " + customerSlots + " customers, pantry of " + pantrySize + ", "
+            + layerCopies + " copies of each layer, hands of " + handSize + ", " + actionsPermitted + " actions ("
+            + largeTableActions + " from " + largeTableFrom + " players)";
+    }
+}
@@ -0,0 +1,202 @@
+package bakery;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import bakery.CustomerOrder.CustomerOrderStatus;
+
+/**
+ * An unchangeable copy of the table of a {@link MagicBakery} game as it stood after one action. The game publishes a new
+ * snapshot after every move, end of turn and start of game, and {@link MagicBakery#getSnapshot()} hands out the latest
+ * one, so threads other than the one playing the game (a user interface, spectators, metrics) can read a consistent
+ * view without locking the game and without holding it up.
+ *
+ * Every list in a snapshot is a private read-only copy. Cards and customers are shared with the game, which never
+ * changes a card; a customer's status can change, so the status it had when the snapshot was taken is kept alongside it.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public final class GameSnapshot {
+    private final long version;
+    private final List<String> playerNames;
+    private final List<List<Ingredient>> hands;
+    private final int currentPlayerIndex;
+    private final int actionsRemaining;
+    private final List<Ingredient> pantry;
+    private final int pantryDeckSize;
+    private final List<Layer> layers;
+    private final List<CustomerOrder> activeCustomers;
+    private final List<CustomerOrderStatus> customerStatuses;
+    private final int customerDeckSize;
+    private final Map<CustomerOrderStatus, Integer> inactiveCounts;
+    // The players the hands were copied from and how often each hand had changed, so the next snapshot can reuse them
+    private final List<Player> players;
+    private final int[] handChanges;
+
+    // Called by the game on the thread that changes it, once the change is complete. Hands that have not changed since the
+    // previous snapshot are shared with it, so an action only copies the hands it changed
+    GameSnapshot(MagicBakery game, long version, int currentPlayerIndex, GameSnapshot previous) {
+        this.version = version;
+        this.players = new ArrayList<>(game.getPlayers());
+        this.handChanges = new int[players.size()];
+        List<String> names = new ArrayList<>(players.size());
+        List<List<Ingredient>> hands = new ArrayList<>(players.size());
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            names.add(player.toString());
+            handChanges[i] = player.getHandChanges();
+            if (previous != null && i < previous.players.size() && previous.players.get(i) == player
+                && previous.handChanges[i] == handChanges[i]) {
+                hands.add(previous.hands.get(i));
+            } else {
+                hands.add(Collections.unmodifiableList(player.sortedCopyOfHand()));
+            }
+        }
+        this.playerNames = Collections.unmodifiableList(names);
+        this.hands = Collections.unmodifiableList(hands);
+        this.currentPlayerIndex = names.isEmpty() ? -1 : currentPlayerIndex;
+        this.actionsRemaining = names.isEmpty() ? 0 : game.getActionsRemaining();
+        this.pantry = Collections.unmodifiableList(new ArrayList<>(game.getPantry()));
+        this.pantryDeckSize = game.getPantryDeck().size();
+        // The game's list of layers cannot be modified and is replaced rather than changed, so it is shared
+        this.layers = (List<Layer>) game.getLayers();
+
+        List<CustomerOrder> customers = new ArrayList<>();
+        List<CustomerOrderStatus> statuses = new ArrayList<>();
+        Map<CustomerOrderStatus, Integer> inactive = new EnumMap<>(CustomerOrderStatus.class);
+        int deck = 0;
+        if (game.getCustomers() != null) {
+            for (CustomerOrder customer : game.getCustomers().getActiveCustomers()) {
+                customers.add(customer);
+                statuses.add(customer == null ? null : customer.getStatus());
+            }
+            deck = game.getCustomers().getCustomerDeck().size();
+            for (CustomerOrderStatus status : CustomerOrderStatus.values()) {
+                inactive.put(status, game.getCustomers().getInactiveCount(status));
+            }
+        }
+        this.activeCustomers = Collections.unmodifiableList(customers);
+        this.customerStatuses = Collections.unmodifiableList(statuses);
+        this.customerDeckSize = deck;
+        this.inactiveCounts = Collections.unmodifiableMap(inactive);
+    }
+
+    /**
+     * Returns the state version of the game when this snapshot was taken, as given by {@link MagicBakery#getStateVersion()}.
+     * A later snapshot always has a higher version.
+     *
+     * @return the state version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the names of the players in turn order.
+     *
+     * @return the player names, read only.
+     */
+    public List<String> getPlayerNames() {
+        return playerNames;
+    }
+
+    /**
+     * Returns the cards a player was holding, sorted as {@link Player#getHand()} sorts them.
+     *
+     * @param player the player's position in turn order.
+     * @return the player's hand, read only.
+     * @throws IndexOutOfBoundsException if there is no player at that position.
+     */
+    public List<Ingredient> getHand(int player) throws IndexOutOfBoundsException {
+        return hands.get(player);
+    }
+
+    /**
+     * Returns the position in turn order of the player whose turn it was.
+     *
+     * @return the current player's position, or -1 if the game had not started.
+     */
+    public int getCurrentPlayerIndex() {
+        return currentPlayerIndex;
+    }
+
+    /**
+     * Returns how many actions the current player had left this turn.
+     *
+     * @return the actions remaining.
+     */
+    public int getActionsRemaining() {
+        return actionsRemaining;
+    }
+
+    /**
+     * Returns the cards face up in the pantry.
+     *
+     * @return the pantry, read only.
+     */
+    public List<Ingredient> getPantry() {
+        return pantry;
+    }
+
+    /**
+     * Returns how many cards were left in the face-down pantry deck.
+     *
+     * @return the size of the pantry deck.
+     */
+    public int getPantryDeckSize() {
+        return pantryDeckSize;
+    }
+
+    /**
+     * Returns the layers that could be baked, one of each kind in sorted order, as {@link MagicBakery#getLayers()} does.
+     *
+     * @return the layers, read only.
+     */
+    public List<Layer> getLayers() {
+        return layers;
+    }
+
+    /**
+     * Returns the customers waiting at the counter, slot by slot; an empty slot is null.
+     *
+     * @return the active customers, read only.
+     */
+    public List<CustomerOrder> getActiveCustomers() {
+        return activeCustomers;
+    }
+
+    /**
+     * Returns the status a waiting customer had when the snapshot was taken.
+     *
+     * @param slot the customer's slot, as in {@link #getActiveCustomers()}.
+     * @return the customer's status, or null if the slot was empty.
+     * @throws IndexOutOfBoundsException if there is no such slot.
+     */
+    public CustomerOrderStatus getCustomerStatus(int slot) throws IndexOutOfBoundsException {
+        return customerStatuses.get(slot);
+    }
+
+    /**
+     * Returns how many customers were left in the customer deck.
+     *
+     * @return the size of the customer deck.
+     */
+    public int getCustomerDeckSize() {
+        return customerDeckSize;
+    }
+
+    /**
+     * Returns how many customers had left the bakery with a status: served, garnished or given up.
+     *
+     * @param status the status to count.
+     * @return the number of customers that left with that status.
+     */
+    public int getInactiveCount(CustomerOrderStatus status) {
+        return inactiveCounts.getOrDefault(status, 0);
+    }
+}
@@ -11,7 +11,7 @@ package bakery;
  * @since 2024
  */
 public class Ingredient implements java.io.Serializable, java.lang.Comparable<Ingredient> {
-    private String name;
+    private final String name;
     // Below is the helpful duck card
     public static final Ingredient HELPFUL_DUCK = new Ingredient("helpful duck 𓅭");
     private static final long serialVersionUID = 11085168;
@@ -0,0 +1,348 @@
+package bakery;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps count of how many copies of each card are in the pantry deck, the pantry, the discard pile and the players'
+ * hands, and answers questions about what the coming draws are likely to bring. {@link MagicBakery} updates the counts
+ * as part of every move, so no question ever has to look through the piles themselves.
+ *
+ * Nobody knows the order of the face-down pantry deck, but everyone can work out what is in it, so the chances below
+ * are hypergeometric: the draws are taken without replacement from exactly the cards left in the deck. Draws beyond the
+ * end of the deck come from the discard pile, which is what the game shuffles into a new deck when the old one runs out.
+ * A question about a recipe only reads the counts of the ingredients the recipe still needs, the helpful ducks and the
+ * totals, so its cost depends on the recipe and the number of draws, never on the size of the piles.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public class IngredientCounts implements java.io.Serializable {
+    private static final long serialVersionUID = 11085168;
+
+    /**
+     * The places a card can be while it is in play.
+     */
+    public enum Zone {
+        DECK, PANTRY, DISCARD, HANDS
+    }
+
+    private final Map<Ingredient, Integer> kinds = new HashMap<>();
+    private final List<Ingredient> cards = new ArrayList<>();
+    private int[][] counts = new int[Zone.values().length][0];
+    private final int[] totals = new int[Zone.values().length];
+    private final int pantrySize;
+
+    /**
+     * Creates counts with every zone empty, for a game with the standard pantry of five cards.
+     */
+    public IngredientCounts() {
+        this(GameRules.STANDARD.getPantrySize());
+    }
+
+    /**
+     * Creates counts with every zone empty, for a game whose pantry holds a given number of cards.
+     *
+     * @param pantrySize the number of cards a refresh deals into the pantry.
+     */
+    public IngredientCounts(int pantrySize) {
+        this.pantrySize = pantrySize;
+    }
+
+    // A copy for playing ahead on, counting separately from the original
+    IngredientCounts(IngredientCounts other) {
+        kinds.putAll(other.kinds);
+        cards.addAll(other.cards);
+        counts = new int[other.counts.length][];
+        for (int zone = 0; zone < counts.length; zone++) {
+            counts[zone] = other.counts[zone].clone();
+        }
+        System.arraycopy(other.totals, 0, totals, 0, totals.length);
+        pantrySize = other.pantrySize;
+    }
+
+    /**
+     * Returns how many copies of a card are in a zone.
+     *
+     * @param zone the zone to count.
+     * @param card the card to count; any copy with the same name counts.
+     * @return the number of copies.
+     */
+    public int getCount(Zone zone, Ingredient card) {
+        Integer kind = kinds.get(card);
+        return kind == null ? 0 : counts[zone.ordinal()][kind];
+    }
+
+    /**
+     * Returns how many cards are in a zone.
+     *
+     * @param zone the zone to count.
+     * @return the number of cards.
+     */
+    public int getTotal(Zone zone) {
+        return totals[zone.ordinal()];
+    }
+
+    /**
+     * Returns one card of every kind that has been counted, in the order they were first seen.
+     *
+     * @return the kinds of card, read only.
+     */
+    public List<Ingredient> getKinds() {
+        return Collections.unmodifiableList(cards);
+    }
+
+    /**
+     * Returns the chance that the next draws from the pantry deck turn up at least one copy of a card.
+     *
+     * @param card the card hoped for.
+     * @param draws how many cards will be drawn.
+     * @return the probability, between 0 and 1.
+     */
+    public double chanceToDraw(Ingredient card, int draws) {
+        int[] missing = new int[counts[0].length];
+        Integer kind = kinds.get(card);
+        if (kind == null) {
+            return 0;
+        }
+        missing[kind] = 1;
+        return chanceToCover(missing, -1, draws, false);
+    }
+
+    /**
+     * Returns the chance that refreshing the pantry now would put at least one copy of a card into it. A refresh deals a
+     * new pantry from the deck with the discard pile shuffled in, as many cards as the game's pantry holds.
+     *
+     * @param card the card hoped for.
+     * @return the probability, between 0 and 1.
+     */
+    public double chanceInRefreshedPantry(Ingredient card) {
+        int[] missing = new int[counts[0].length];
+        Integer kind = kinds.get(card);
+        if (kind == null) {
+            return 0;
+        }
+        missing[kind] = 1;
+        return chanceToCover(missing, -1, pantrySize, true);
+    }
+
+    /**
+     * Returns the chance that a hand can bake a layer once the next draws from the pantry deck have been added to it.
+     * Helpful ducks in the hand or among the draws stand in for missing ingredients.
+     *
+     * @param layer the layer to bake.
+     * @param hand the cards already held.
+     * @param draws how many cards will be drawn.
+     * @return the probability, between 0 and 1.
+     */
+    public double chanceToComplete(Layer layer, List<Ingredient> hand, int draws) {
+        return chanceToComplete(layer.getRecipe(), hand, draws);
+    }
+
+    /**
+     * Returns the chance that a hand can fulfil a customer's order, not counting the garnish, once the next draws from the
+     * pantry deck have been added to it. Layers are baked rather than drawn, so an order needing a layer the hand does not
+     * hold has no chance. Helpful ducks in the hand or among the draws stand in for missing ingredients.
+     *
+     * @param customer the customer whose order to fulfil.
+     * @param hand the cards already held.
+     * @param draws how many cards will be drawn.
+     * @return the probability, between 0 and 1.
+     */
+    public double chanceToComplete(CustomerOrder customer, List<Ingredient> hand, int draws) {
+        return chanceToComplete(customer.getRecipe(), hand, draws);
+    }
+
+    private double chanceToComplete(List<Ingredient> recipe, List<Ingredient> hand, int draws) {
+        Map<Ingredient, Integer> held = new HashMap<>();
+        for (Ingredient card : hand) {
+            held.merge(card, 1, Integer::sum);
+        }
+        int[] missing = new int[counts[0].length];
+        for (Ingredient card : recipe) {
+            int have = held.getOrDefault(card, 0);
+            if (have > 0) {
+                held.put(card, have - 1);
+            } else if (card instanceof Layer) {
+                return 0;
+            } else {
+                Integer kind = kinds.get(card);
+                if (kind == null) {
+                    // Not a card in play, so only a duck can stand in for it
+                    missing = Arrays.copyOf(missing, missing.length + 1);
+                    missing[missing.length - 1]++;
+                } else {
+                    missing[kind]++;
+                }
+            }
+        }
+        return chanceToCover(missing, held.getOrDefault(Ingredient.HELPFUL_DUCK, 0), draws, false);
+    }
+
+    /*
+     * The chance that the draws bring enough of each kind, with ducks covering any shortfall; ducks is -1 when ducks may
+     * not stand in, as when hoping for one particular card. The draws are dealt from the deck, or from the deck and discard
+     * pile together for a refresh; whatever the deck cannot supply comes from the discard pile. The joint chance is summed
+     * over how many of each needed kind are drawn, keeping only the running number of draws and the running shortfall,
+     * and then over the ducks drawn, with every other card lumped together.
+     */
+    private double chanceToCover(int[] missing, int ducks, int draws, boolean refresh) {
+        int duckKind = ducks < 0 ? -1 : kinds.getOrDefault(Ingredient.HELPFUL_DUCK, -1);
+        ducks = Math.max(ducks, 0);
+        int[] pool = counts[Zone.DECK.ordinal()].clone();
+        int size = totals[Zone.DECK.ordinal()];
+        int[] discard = counts[Zone.DISCARD.ordinal()];
+        if (refresh) {
+            for (int kind = 0; kind < pool.length; kind++) {
+                pool[kind] += discard[kind];
+            }
+            size += totals[Zone.DISCARD.ordinal()];
+        } else if (draws > size) {
+            // The whole deck is drawn, then the rest comes from the reshuffled discard pile
+            missing = missing.clone();
+            for (int kind = 0; kind < pool.length; kind++) {
+                int used = Math.min(missing[kind], pool[kind]);
+                missing[kind] -= used;
+                if (kind == duckKind) {
+                    ducks += pool[kind] - used;
+                }
+            }
+            draws -= size;
+            pool = discard.clone();
+            size = totals[Zone.DISCARD.ordinal()];
+        }
+        draws = Math.max(0, Math.min(draws, size));
+
+        int shortfall = 0;
+        for (int need : missing) {
+            shortfall += need;
+        }
+        if (shortfall <= ducks) {
+            return 1;
+        }
+        int duckCount = duckKind >= 0 && duckKind < pool.length ? pool[duckKind] : 0;
+        int others = size - duckCount;
+
+        // ways[drawn][short]: the weighted number of ways to draw that many of the needed kinds so far, leaving that shortfall
+        double[][] ways = new double[draws + 1][shortfall + 1];
+        // A duck that is itself needed can only be covered by drawing ducks, so it starts out short
+        ways[0][duckKind >= 0 && duckKind < missing.length ? missing[duckKind] : 0] = 1;
+        for (int kind = 0; kind < missing.length; kind++) {
+            if (missing[kind] == 0 || kind == duckKind) {
+                continue;
+            }
+            int available = kind < pool.length ? pool[kind] : 0;
+            others -= available;
+            double[][] next = new double[draws + 1][shortfall + 1];
+            for (int drawn = 0; drawn <= draws; drawn++) {
+                for (int gap = 0; gap <= shortfall; gap++) {
+                    if (ways[drawn][gap] == 0) {
+                        continue;
+                    }
+                    for (int copies = 0; copies <= available && drawn + copies <= draws; copies++) {
+                        int stillShort = Math.min(shortfall, gap + Math.max(0, missing[kind] - copies));
+                        next[drawn + copies][stillShort] += ways[drawn][gap] * binomial(available, copies);
+                    }
+                }
+            }
+            ways = next;
+        }
+
+        double favourable = 0;
+        for (int drawn = 0; drawn <= draws; drawn++) {
+            for (int gap = 0; gap <= shortfall; gap++) {
+                if (ways[drawn][gap] == 0) {
+                    continue;
+                }
+                for (int drawnDucks = 0; drawnDucks <= duckCount && drawn + drawnDucks <= draws; drawnDucks++) {
+                    if (gap <= ducks + drawnDucks) {
+                        favourable += ways[drawn][gap] * binomial(duckCount, drawnDucks) * binomial(others, draws - drawn - drawnDucks);
+                    }
+                }
+            }
+        }
+        return Math.min(1, favourable / binomial(size, draws));
+    }
+
+    private static double binomial(int n, int k) {
+        if (k < 0 || k > n) {
+            return 0;
+        }
+        k = Math.min(k, n - k);
+        double result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return result;
+    }
+
+    // Called by MagicBakery as cards move; a card not seen before becomes a new kind
+
+    void add(Zone zone, Ingredient card) {
+        int kind = kind(card);
+        counts[zone.ordinal()][kind]++;
+        totals[zone.ordinal()]++;
+    }
+
+    void remove(Zone zone, Ingredient card) {
+        int kind = kind(card);
+        if (counts[zone.ordinal()][kind] > 0) {
+            counts[zone.ordinal()][kind]--;
+            totals[zone.ordinal()]--;
+        }
+    }
+
+    void move(Ingredient card, Zone from, Zone to) {
+        remove(from, card);
+        add(to, card);
+    }
+
+    void moveAll(Zone from, Zone to) {
+        int[] source = counts[from.ordinal()];
+        int[] target = counts[to.ordinal()];
+        for (int kind = 0; kind < source.length; kind++) {
+            target[kind] += source[kind];
+            source[kind] = 0;
+        }
+        totals[to.ordinal()] += totals[from.ordinal()];
+        totals[from.ordinal()] = 0;
+    }
+
+    // Like moveAll, but the cards stay counted where they were too, as when the pantry deck adds a copy of the discard pile
+    void copyAll(Zone from, Zone to) {
+        int[] source = counts[from.ordinal()];
+        int[] target = counts[to.ordinal()];
+        for (int kind = 0; kind < source.length; kind++) {
+            target[kind] += source[kind];
+        }
+        totals[to.ordinal()] += totals[from.ordinal()];
+    }
+
+    void clear() {
+        for (int[] zone : counts) {
+            Arrays.fill(zone, 0);
+        }
+        Arrays.fill(totals, 0);
+    }
+
+    private int kind(Ingredient card) {
+        Integer kind = kinds.get(card);
+        if (kind == null) {
+            kind = kinds.size();
+            kinds.put(card, kind);
+            cards.add(card);
+            if (kind == counts[0].length) {
+                // Doubling keeps a deck of many kinds linear to count; the spare kinds are zero everywhere
+                for (int zone = 0; zone < counts.length; zone++) {
+                    counts[zone] = Arrays.copyOf(counts[zone], Math.max(8, 2 * kind));
+                }
+            }
+        }
+        return kind;
+    }
+}
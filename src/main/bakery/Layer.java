@@ -25,15 +25,20 @@ import java.util.List;
  * @since 2023-04-01
  */
 public class Layer extends Ingredient{
-    private List<Ingredient> recipe;
+    private final List<Ingredient> recipe;
+    // Worked out once from the recipe; 0 until then, as after loading a saved game
+    private transient int hash;
     private static final long serialVersionUID = 11085168;
      
     /**
      * Constructs a new Layer with the specified name and recipe. It initializes the Layer with a list of ingredients
      * required to create it. If the recipe is null or empty, a WrongIngredientsException is thrown.
      *
+     * The layer keeps an unmodifiable copy of the recipe, so later changes to the given list do not affect it. Layers made
+     * from the same unmodifiable recipe share it rather than copying it again.
+     *
      * @param name The name of the layer, which is also used as the name of the base ingredient.
-     * @param recipe A list of ingredients required to bake the layer. Must not be null or empty.
+     * @param recipe A list of ingredients required to bake the layer. Must not be null or empty, or hold null.
      * @throws WrongIngredientsException if the recipe is null or empty, indicating invalid or insufficient specifications for the layer.
      */
     public Layer(String name, List<Ingredient> recipe) throws WrongIngredientsException {
@@ -41,10 +46,16 @@ public class Layer extends Ingredient{
         if(recipe == null) {
             throw new WrongIngredientsException("Recipe cannot be null");
         }
-        this.recipe = recipe;
         if(recipe.isEmpty()) {
             throw new WrongIngredientsException("Recipe cannot be empty");
         }
+        for(Ingredient ingredient : recipe) {
+            if(ingredient == null) {
+                throw new WrongIngredientsException("Recipe cannot contain null");
+            }
+        }
+        this.recipe = List.copyOf(recipe);
+        this.hash = recipeHash();
     }
 
     /**
@@ -67,7 +78,7 @@ public class Layer extends Ingredient{
     
     /** Getter for recipe
     *   @param none
-    *   @return Returns a list of ingredients in recipe
+    *   @return Returns an unmodifiable list of ingredients in recipe
     */
     public List<Ingredient> getRecipe() {
         return recipe;
@@ -78,21 +89,31 @@ public class Layer extends Ingredient{
     *   @return Returns a comma separated list (String) of ingredients in recipe
     */
     public String getRecipeDescription() {
-        String result = "";
+        StringBuilder result = new StringBuilder();
         for(int i=0; i<recipe.size()-1; i++) {
-            result += recipe.get(i).toString() + ", ";
+            result.append(recipe.get(i).toString()).append(", ");
         }
-        result += recipe.get(recipe.size()-1).toString();
-        return result;
+        result.append(recipe.get(recipe.size()-1).toString());
+        return result.toString();
     }
 
-    /** Generate a hash code for the layer
+    /** Generate a hash code for the layer, the same for any order of the same recipe
      * @param none
      * @return Returns a hash code for the layer
      */
     public int hashCode() {
-        recipe.sort(null);
-        return recipe.hashCode();
+        int h = hash;
+        if (h == 0) {
+            h = recipeHash();
+            hash = h;
+        }
+        return h;
+    }
+
+    private int recipeHash() {
+        List<Ingredient> sorted = new ArrayList<>(recipe);
+        sorted.sort(null);
+        return sorted.hashCode();
     }
 
 }
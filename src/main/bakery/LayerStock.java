@@ -0,0 +1,188 @@
+package bakery;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/*
+ * The layers on the table, held as a count for each kind of layer rather than one entry per card. The kinds are kept in
+ * name order, each with an id that is its place in that order, so finding, taking and returning a layer and counting the
+ * copies left are constant time, and the kinds still available are a list kept up to date as kinds run out or come back.
+ *
+ * As a collection it holds every card: iterating visits each kind in name order once per copy left, so code written
+ * against a list of layer cards still sees the same cards. A kind seen for the first time is slotted into place, which
+ * renumbers the kinds after it; the deck itself is sorted once when the stock is made.
+ */
+final class LayerStock extends AbstractCollection<Layer> implements java.io.Serializable {
+    private static final long serialVersionUID = 11085168;
+
+    private final List<Layer> kinds = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private int[] counts = new int[0];
+    private int size;
+    // The kinds with at least one copy left, in name order; rebuilt only when a kind runs out or comes back
+    private transient List<Layer> available;
+
+    LayerStock(Collection<Layer> layers) {
+        // The first card of each kind stands for it
+        Map<String, Layer> firsts = new HashMap<>();
+        for (Layer layer : layers) {
+            firsts.putIfAbsent(layer.toString(), layer);
+        }
+        kinds.addAll(firsts.values());
+        Collections.sort(kinds);
+        counts = new int[kinds.size()];
+        for (int id = 0; id < kinds.size(); id++) {
+            ids.put(kinds.get(id).toString(), id);
+        }
+        for (Layer layer : layers) {
+            counts[ids.get(layer.toString())]++;
+        }
+        size = layers.size();
+    }
+
+    // A copy for playing ahead on; kinds that have run out are kept, so they can come back
+    LayerStock(LayerStock other) {
+        kinds.addAll(other.kinds);
+        ids.putAll(other.ids);
+        counts = other.counts.clone();
+        size = other.size;
+    }
+
+    // The id of a card's kind, or -1 if it is not a layer on this table
+    int id(Object card) {
+        if (!(card instanceof Layer)) {
+            return -1;
+        }
+        Integer id = ids.get(card.toString());
+        return id == null ? -1 : id;
+    }
+
+    int count(Object card) {
+        int id = id(card);
+        return id < 0 ? 0 : counts[id];
+    }
+
+    List<Layer> available() {
+        if (available == null) {
+            List<Layer> result = new ArrayList<>();
+            for (int id = 0; id < kinds.size(); id++) {
+                if (counts[id] > 0) {
+                    result.add(kinds.get(id));
+                }
+            }
+            available = Collections.unmodifiableList(result);
+        }
+        return available;
+    }
+
+    @Override
+    public boolean add(Layer layer) {
+        int id = id(layer);
+        if (id < 0) {
+            id = insertKind(layer);
+        }
+        if (counts[id]++ == 0) {
+            available = null;
+        }
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object card) {
+        int id = id(card);
+        if (id < 0 || counts[id] == 0) {
+            return false;
+        }
+        if (--counts[id] == 0) {
+            available = null;
+        }
+        size--;
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object card) {
+        return count(card) > 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        counts = new int[kinds.size()];
+        size = 0;
+        available = null;
+    }
+
+    @Override
+    public Iterator<Layer> iterator() {
+        return new Iterator<Layer>() {
+            private int id = -1;
+            private int left;
+            private boolean removable;
+
+            @Override
+            public boolean hasNext() {
+                if (left > 0) {
+                    return true;
+                }
+                for (int next = id + 1; next < kinds.size(); next++) {
+                    if (counts[next] > 0) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public Layer next() {
+                if (left == 0) {
+                    do {
+                        id++;
+                        if (id >= kinds.size()) {
+                            throw new NoSuchElementException();
+                        }
+                    } while (counts[id] == 0);
+                    left = counts[id];
+                }
+                left--;
+                removable = true;
+                return kinds.get(id);
+            }
+
+            @Override
+            public void remove() {
+                if (!removable) {
+                    throw new IllegalStateException();
+                }
+                removable = false;
+                LayerStock.this.remove(kinds.get(id));
+            }
+        };
+    }
+
+    private int insertKind(Layer layer) {
+        int id = Collections.binarySearch(kinds, layer);
+        id = id < 0 ? -id - 1 : id;
+        kinds.add(id, layer);
+        int[] grown = new int[kinds.size()];
+        System.arraycopy(counts, 0, grown, 0, id);
+        System.arraycopy(counts, id, grown, id + 1, counts.length - id);
+        counts = grown;
+        for (int i = id; i < kinds.size(); i++) {
+            ids.put(kinds.get(i).toString(), i);
+        }
+        return id;
+    }
+}
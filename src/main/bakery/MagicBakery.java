@@ -2,16 +2,13 @@ package bakery;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
-import java.util.Set;
-import java.util.Stack;
 import java.io.*;
 
 import bakery.CustomerOrder.CustomerOrderStatus;
+import bakery.IngredientCounts.Zone;
 import util.*;
 
 /**
@@ -40,6 +37,22 @@ public class MagicBakery implements java.io.Serializable {
 
     private int currentPlayerIndex;
     private int actionsUsed;
+    private int pantryRestores;
+    private IngredientCounts ingredientCounts;
+    private GameRules rules;
+    private volatile long stateVersion;
+    private transient CardRenderer renderer;
+    // Plans are remembered per hand, so the planner is rebuilt rather than serialised
+    private transient OrderPlanner planner;
+    private transient SpectatorChannel spectators;
+    // Set on the private copies that turns are tried on and searches play ahead on, which publish nothing
+    private transient boolean privateCopy;
+    // Set while a submitted turn is played, which is published once when it is over
+    private transient boolean playingTurn;
+    private transient volatile GameSnapshot snapshot;
+
+    // Read by the game's exceptions each time one is created
+    private static volatile boolean exceptionStackTraces = !Boolean.getBoolean("bakery.stacklessExceptions");
 
     /**
      * Defines the types of actions that players can perform during their turn in the game.
@@ -50,6 +63,14 @@ public class MagicBakery implements java.io.Serializable {
         DRAW_INGREDIENT, PASS_INGREDIENT, BAKE_LAYER, FULFIL_ORDER, REFRESH_PANTRY
     }
 
+    /**
+     * The outcomes of the {@code try} versions of the actions. Each failure stands for the exception that the ordinary
+     * version of the action would have thrown.
+     */
+    public enum ActionResult {
+        OK, TOO_MANY_ACTIONS, WRONG_INGREDIENTS, EMPTY_PANTRY
+    }
+
     /**
      * Initializes a new MagicBakery game with specified seed values and deck files for ingredients and layers.
      * This constructor sets up the game environment by loading layers and ingredients from specified files,
@@ -61,24 +82,65 @@ public class MagicBakery implements java.io.Serializable {
      * @throws FileNotFoundException if the specified deck files cannot be found, preventing game initialization.
      */
     public MagicBakery(long seed, String ingredientDeckFile, String layerDeckFile) throws FileNotFoundException {
+        this(seed, ingredientDeckFile, layerDeckFile, GameRules.STANDARD);
+    }
+
+    /**
+     * Initializes a new MagicBakery game played by the given rules, for tables, customer rows, pantries or layer stocks of
+     * other sizes than the standard game.
+     *
+     * @param seed the seed value used for randomizing game elements, ensuring varied game play.
+     * @param ingredientDeckFile the file path for the ingredient deck, used to populate the game's ingredient stock.
+     * @param layerDeckFile the file path for the layer deck, used to define available layers for players to bake.
+     * @param rules the sizes the game is played with.
+     * @throws FileNotFoundException if the specified deck files cannot be found, preventing game initialization.
+     */
+    public MagicBakery(long seed, String ingredientDeckFile, String layerDeckFile, GameRules rules) throws FileNotFoundException {
+        this.rules = rules;
         try {
-            layers = CardUtils.readLayerFile(layerDeckFile);
+            layers = new LayerStock(CardUtils.readLayerFile(layerDeckFile, rules.getLayerCopies()));
         } catch (Exception e) {
             throw new FileNotFoundException("Layer deck file not found.");
         }
         players = new LinkedList<Player>();
-        pantryDeck = new Stack<Ingredient>();
+        pantryDeck = new CardPile<Ingredient>();
         try {
             pantryDeck.addAll(CardUtils.readIngredientFile(ingredientDeckFile));
         } catch (Exception e) {
             throw new FileNotFoundException("Ingredient deck file not found.");
         }
-        pantry = new Stack<>();
-        pantryDiscard = new Stack<>();
+        pantry = new CardPile<>();
+        pantryDiscard = new CardPile<>();
         random = new Random(seed);
+        ingredientCounts = new IngredientCounts(rules.getPantrySize());
+        for(Ingredient ingredient : pantryDeck) {
+            ingredientCounts.add(Zone.DECK, ingredient);
+        }
 
         currentPlayerIndex = 0;
         actionsUsed = 0;
+        snapshot = new GameSnapshot(this, stateVersion, currentPlayerIndex, null);
+    }
+
+    // The copy made by copy(Random)
+    private MagicBakery(MagicBakery game, Random random) {
+        this.random = random;
+        rules = game.rules;
+        customers = game.customers == null ? null : new Customers(game.customers, random);
+        layers = new LayerStock(game.stock());
+        players = new LinkedList<Player>();
+        for (Player player : game.players) {
+            players.add(new Player(player));
+        }
+        pantry = ((CardPile<Ingredient>) game.pantry).copy(card -> card, random);
+        pantryDeck = game.getPantryDeck().copy(card -> card, random);
+        pantryDiscard = ((CardPile<Ingredient>) game.pantryDiscard).copy(card -> card, random);
+        currentPlayerIndex = game.currentPlayerIndex;
+        actionsUsed = game.actionsUsed;
+        pantryRestores = game.pantryRestores;
+        ingredientCounts = new IngredientCounts(game.getIngredientCounts());
+        stateVersion = game.stateVersion;
+        privateCopy = true;
     }
 
     /**
@@ -102,15 +164,19 @@ public class MagicBakery implements java.io.Serializable {
                 if (currentPlayer.getHand().contains(ingredient)) {
                     currentPlayer.removeFromHand(ingredient);
                     pantryDiscard.add(ingredient);
+                    getIngredientCounts().move(ingredient, Zone.HANDS, Zone.DISCARD);
                 } else if (currentPlayer.helpfulDuckCount() >= 1 && !(ingredient instanceof Layer)) {
                     pantryDiscard.add(currentPlayer.removeHelpfulDuckFromHand());
+                    getIngredientCounts().move(Ingredient.HELPFUL_DUCK, Zone.HANDS, Zone.DISCARD);
                 } else {
                     throw new WrongIngredientsException("Incorrect ingredients to bake this layer.");
                 }
             }
             currentPlayer.addToHand(layer);
+            getIngredientCounts().add(Zone.HANDS, layer);
             this.layers.remove(layer);
             actionsUsed++;
+            notifySpectators();
         } else {
             throw new WrongIngredientsException("Layer not bakeable.");
         }
@@ -131,7 +197,8 @@ public class MagicBakery implements java.io.Serializable {
             restorePantry();
             //throw new EmptyPantryException(null, null);
         }
-        Ingredient ingredient = ((Stack<Ingredient>) pantryDeck).pop();
+        Ingredient ingredient = getPantryDeck().pop();
+        getIngredientCounts().remove(Zone.DECK, ingredient);
         return ingredient;
     }
 
@@ -152,8 +219,9 @@ public class MagicBakery implements java.io.Serializable {
             if(ingredient.toString().equalsIgnoreCase(ingredientName)) {
                 getCurrentPlayer().addToHand(ingredient);
                 pantry.remove(ingredient);
+                getIngredientCounts().move(ingredient, Zone.PANTRY, Zone.HANDS);
                 found = true;
-                pantry.add(drawFromPantryDeck());
+                addToPantry(drawFromPantryDeck());
                 break;
             }
         }
@@ -161,6 +229,7 @@ public class MagicBakery implements java.io.Serializable {
             throw new WrongIngredientsException(null);
         }
         actionsUsed++;
+        notifySpectators();
     }
 
      /**
@@ -178,11 +247,13 @@ public class MagicBakery implements java.io.Serializable {
         if(pantry.contains(ingredient)) {
             getCurrentPlayer().addToHand(ingredient);
             pantry.remove(ingredient);
-            pantry.add(drawFromPantryDeck());
+            getIngredientCounts().move(ingredient, Zone.PANTRY, Zone.HANDS);
+            addToPantry(drawFromPantryDeck());
         } else {
             throw new WrongIngredientsException(null);
         }
         actionsUsed++;
+        notifySpectators();
     }
 
     /**
@@ -195,16 +266,17 @@ public class MagicBakery implements java.io.Serializable {
         currentPlayerIndex = (currentPlayerIndex + 1) % players.size();
         actionsUsed = 0;
     
+        boolean moreCustomers = true;
         if (currentPlayerIndex == 0) {
             if(customers.getCustomerDeck().isEmpty()) {
                 customers.timePasses();
-                return false;
+                moreCustomers = false;
             } else {
                 customers.addCustomerOrder();
             }
-            return true;
         }
-        return true;
+        notifySpectators();
+        return moreCustomers;
     }
 
     /**
@@ -228,8 +300,10 @@ public class MagicBakery implements java.io.Serializable {
             currentPlayer.removeFromHand(ingredient);
             if(!(layers.contains(ingredient))) {
                 pantryDiscard.add(ingredient);
+                getIngredientCounts().move(ingredient, Zone.HANDS, Zone.DISCARD);
             } else {
                 layers.add((Layer) ingredient);
+                getIngredientCounts().remove(Zone.HANDS, ingredient);
             }
         }
         actionsUsed++;
@@ -238,6 +312,8 @@ public class MagicBakery implements java.io.Serializable {
             Ingredient ingredient2 = drawFromPantryDeck();
             currentPlayer.addToHand(ingredient1);
             currentPlayer.addToHand(ingredient2);
+            getIngredientCounts().add(Zone.HANDS, ingredient1);
+            getIngredientCounts().add(Zone.HANDS, ingredient2);
             drawnIngredients.add(ingredient1);
             drawnIngredients.add(ingredient2);
         }
@@ -245,9 +321,70 @@ public class MagicBakery implements java.io.Serializable {
         if(!customers.customerWillLeaveSoon() && customers.peek() != null) {
             customers.peek().setStatus(CustomerOrderStatus.WAITING);
         }
+        notifySpectators();
         return drawnIngredients;
     }
 
+    /**
+     * Carries out a whole turn for the current player in one call: a list of actions, optionally followed by the end of
+     * the turn. The turn is first tried on a private copy of the game that deals the same cards, with the players and
+     * customers the actions name matched to the copy's by their place in the game. Only if every action succeeds there is
+     * the turn played on this game, so either the whole turn happens or none of it does. Spectators see the turn as a
+     * single update.
+     *
+     * The actions may refer to cards that only reach the pantry or the player's hand part way through the turn.
+     *
+     * @param actions the actions to take, in order; no more than {@link #getActionsRemaining()}.
+     * @param endTurn true to end the turn once the actions have been taken.
+     * @return the result of {@link #endTurn()} if the turn was ended, otherwise true.
+     * @throws TurnRejectedException if any action cannot be carried out; the exception names the failing action.
+     */
+    public boolean submitTurn(List<TurnAction> actions, boolean endTurn) throws TurnRejectedException {
+        if (actions.size() > getActionsRemaining()) {
+            int step = getActionsRemaining();
+            throw new TurnRejectedException(step, actions.get(step), new TooManyActionsException());
+        }
+
+        MagicBakery trial = copy(copyOf(random));
+        for (int step = 0; step < actions.size(); step++) {
+            try {
+                actions.get(step).forCopy(this, trial).applyTo(trial);
+            } catch (RuntimeException e) {
+                throw new TurnRejectedException(step, actions.get(step), e);
+            }
+        }
+        playingTurn = true;
+        try {
+            for (TurnAction action : actions) {
+                action.applyTo(this);
+            }
+        } finally {
+            playingTurn = false;
+        }
+
+        if (endTurn) {
+            return endTurn();
+        }
+        notifySpectators();
+        return true;
+    }
+
+    // A generator that goes on to give the same numbers as the given one, which is left as it was. Random keeps its
+    // state private, so it is copied through serialisation; only the generator itself is written
+    private static Random copyOf(Random random) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+                oos.writeObject(random);
+            }
+            try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                return (Random) ois.readObject();
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Could not copy the game to validate the turn.", e);
+        }
+    }
+
     /**
      * Determines the number of actions a player is permitted to take in their turn based on the number of players in the game.
      * Fewer players allow for more actions per player to maintain game balance.
@@ -255,10 +392,16 @@ public class MagicBakery implements java.io.Serializable {
      * @return the maximum number of actions a player can take in a turn.
      */
     public int getActionsPermitted() {
-        if(players.size() >= 4) {
-            return 2;
-        }
-        return 3;
+        return getRules().getActionsPermitted(players.size());
+    }
+
+    /**
+     * Retrieves the rules the game is played with.
+     *
+     * @return the game's rules.
+     */
+    public GameRules getRules() {
+        return rules == null ? GameRules.STANDARD : rules;
     }
 
     /**
@@ -278,23 +421,20 @@ public class MagicBakery implements java.io.Serializable {
      */
     public Collection<Layer> getBakeableLayers() {
         Collection<Layer> bakeableLayers = new ArrayList<>();
-        for(Layer layer : layers) {
+        List<Ingredient> hand = getCurrentPlayer().getHand();
+        int ducks = getCurrentPlayer().helpfulDuckCount();
+        // One check per kind of layer left, rather than one per card
+        for(Layer layer : stock().available()) {
             int missingIngredients = 0;
-            if(getCurrentPlayer().getHand().containsAll(layer.getRecipe())) {
-                if(!bakeableLayers.contains(layer)) {
-                    bakeableLayers.add(layer);
-                }
-            } else {
+            if(!hand.containsAll(layer.getRecipe())) {
                 for(Ingredient ingredient : layer.getRecipe()) {
-                    if(!getCurrentPlayer().getHand().contains(ingredient)) {
+                    if(!hand.contains(ingredient)) {
                         missingIngredients++;
                     }
                 }
             }
-            if(getCurrentPlayer().helpfulDuckCount() >= missingIngredients) {
-                if(!bakeableLayers.contains(layer)) {
-                    bakeableLayers.add(layer);
-                }
+            if(ducks >= missingIngredients) {
+                bakeableLayers.add(layer);
             }
         }
         return bakeableLayers;
@@ -347,35 +487,57 @@ public class MagicBakery implements java.io.Serializable {
      * Identifies and returns a collection of customer orders that can be garnished based on the remaining ingredients in the
      * current player's hand after fulfilling their main requirements.
      *
+     * Each order is checked on its own, with helpful ducks standing in for missing ingredients but not for layers, so an
+     * order is listed if the hand could fulfil and garnish it whichever other orders wait beside it. An order with no
+     * garnish is never listed. The collection cannot be modified.
+     *
      * @return a collection of garnishable customer orders.
      */
     public Collection<CustomerOrder> getGarnishableCustomers() {
-        Collection<CustomerOrder> garnishableCustomers = new ArrayList<>();
-        ArrayList<Ingredient> availableIngredients = new ArrayList<>(getCurrentPlayer().getHand());
-        for(CustomerOrder customer : customers.getActiveCustomers()) {
-            if(customer.canFulfill(availableIngredients)) {
-                availableIngredients.removeAll(customer.getRecipe());
-            }
-        }
-        for(CustomerOrder customerOrder : customers.getActiveCustomers()) {
-            if(customerOrder.canGarnish(availableIngredients)) {
-                garnishableCustomers.add(customerOrder);
-            }
+        return getOrderPlan().getGarnishable();
+    }
+
+    /**
+     * Works out the best orders for the current player to fulfil with the actions left this turn, and which of them to
+     * garnish, trying every way of serving the customers in the row. The plan is remembered for as long as the hand and the
+     * row stay the same, so asking again costs nothing.
+     *
+     * @return the best plan for the current player's hand.
+     * @see OrderPlanner
+     */
+    public OrderPlanner.Plan getOrderPlan() {
+        if (planner == null) {
+            planner = new OrderPlanner();
         }
-        return garnishableCustomers;
+        return planner.plan(getCurrentPlayer().getHand(), customers.getActiveCustomers(), getActionsRemaining());
     }
 
     /**
      * Retrieves a sorted collection of all bakeable layers available in the game. The sorting ensures that the layers
      * are presented in a consistent order, typically based on some attribute such as name or difficulty.
      *
-     * @return a sorted collection of layers.
+     * The collection cannot be modified and is shared until a kind of layer runs out or comes back, so asking for it
+     * again costs nothing.
+     *
+     * @return a sorted collection of layers, one of each kind with a copy left.
      */
     public Collection<Layer> getLayers() {
-        Set<Layer> layers = new HashSet<>(this.layers);
-        ArrayList<Layer> result = new ArrayList<>(layers);
-        Collections.sort(result);
-        return result;
+        return stock().available();
+    }
+
+    // The layers kept as counts; a game saved before they were counted holds a plain list, replaced when it is loaded
+    private LayerStock stock() {
+        return (LayerStock) layers;
+    }
+
+    /**
+     * Retrieves how many copies of a layer are left on the table to be baked.
+     *
+     * @param layer the layer to count; any copy with the same name counts.
+     * @return the number of copies left.
+     */
+    public int getLayerCount(Layer layer) {
+        return stock().count(layer);
     }
 
     /**
@@ -402,6 +564,7 @@ public class MagicBakery implements java.io.Serializable {
                 getCurrentPlayer().removeFromHand(ingredient);
                 recipient.addToHand(ingredient);
                 actionsUsed++;
+                notifySpectators();
             } else {
                 throw new WrongIngredientsException("Player does not have the ingredient to pass.");
             }
@@ -410,15 +573,245 @@ public class MagicBakery implements java.io.Serializable {
         }
     }
 
+    /**
+     * Bakes a layer like {@link #bakeLayer(Layer)}, but reports an illegal bake as a result instead of throwing. Nothing
+     * changes unless the result is {@link ActionResult#OK}.
+     *
+     * @param layer the layer to be baked.
+     * @return OK if the layer was baked, otherwise the reason it could not be.
+     */
+    public ActionResult tryBakeLayer(Layer layer) {
+        if(getActionsRemaining() <= 0) {
+            return ActionResult.TOO_MANY_ACTIONS;
+        }
+        if(!layers.contains(layer)) {
+            return ActionResult.WRONG_INGREDIENTS;
+        }
+        // Trying the recipe card by card implies the bakeable check, without scanning every other layer as well
+        List<Ingredient> hand = new ArrayList<>(getCurrentPlayer().getHand());
+        for(Ingredient ingredient : layer.getRecipe()) {
+            if(!hand.remove(ingredient) && (ingredient instanceof Layer || !hand.remove(Ingredient.HELPFUL_DUCK))) {
+                return ActionResult.WRONG_INGREDIENTS;
+            }
+        }
+        bakeLayer(layer);
+        return ActionResult.OK;
+    }
+
+    /**
+     * Draws an ingredient by name from the pantry like {@link #drawFromPantry(String)}, but reports an illegal draw as a
+     * result instead of throwing. Nothing changes unless the result is {@link ActionResult#OK}.
+     *
+     * @param ingredientName the name of the ingredient to draw from the pantry.
+     * @return OK if the ingredient was drawn, otherwise the reason it could not be.
+     */
+    public ActionResult tryDrawFromPantry(String ingredientName) {
+        if(getActionsRemaining() <= 0) {
+            return ActionResult.TOO_MANY_ACTIONS;
+        }
+        for(Ingredient ingredient : pantry) {
+            if(ingredient.toString().equalsIgnoreCase(ingredientName)) {
+                if(!canDrawFromPantryDeck(pantryDeck.size(), pantryDiscard.size(), 1)) {
+                    return ActionResult.EMPTY_PANTRY;
+                }
+                drawFromPantry(ingredientName);
+                return ActionResult.OK;
+            }
+        }
+        return ActionResult.WRONG_INGREDIENTS;
+    }
+
+    /**
+     * Draws an ingredient from the pantry like {@link #drawFromPantry(Ingredient)}, but reports an illegal draw as a result
+     * instead of throwing. Nothing changes unless the result is {@link ActionResult#OK}.
+     *
+     * @param ingredient the ingredient to draw from the pantry.
+     * @return OK if the ingredient was drawn, otherwise the reason it could not be.
+     */
+    public ActionResult tryDrawFromPantry(Ingredient ingredient) {
+        if(getActionsRemaining() <= 0) {
+            return ActionResult.TOO_MANY_ACTIONS;
+        }
+        if(!pantry.contains(ingredient)) {
+            return ActionResult.WRONG_INGREDIENTS;
+        }
+        if(!canDrawFromPantryDeck(pantryDeck.size(), pantryDiscard.size(), 1)) {
+            return ActionResult.EMPTY_PANTRY;
+        }
+        drawFromPantry(ingredient);
+        return ActionResult.OK;
+    }
+
+    /**
+     * Fulfils a customer order like {@link #fulfillOrder(CustomerOrder, boolean)}, but reports an illegal order as a result
+     * instead of throwing. Nothing changes unless the result is {@link ActionResult#OK}; the ingredients drawn for a
+     * garnish are in the player's hand afterwards.
+     *
+     * @param customer the customer order to be fulfilled.
+     * @param garnish a boolean indicating whether to garnish the order if possible.
+     * @return OK if the order was fulfilled, otherwise the reason it could not be.
+     */
+    public ActionResult tryFulfillOrder(CustomerOrder customer, boolean garnish) {
+        if(getActionsRemaining() <= 0) {
+            return ActionResult.TOO_MANY_ACTIONS;
+        }
+        List<Ingredient> hand = getCurrentPlayer().getHand();
+        if(!customer.canFulfill(hand)) {
+            return ActionResult.WRONG_INGREDIENTS;
+        }
+        if(garnish) {
+            // The used ingredients reach the discard pile before the garnish draws; the layers go back to the table
+            int discarded = 0;
+            for(Ingredient ingredient : customer.ingredientsUsed(hand, garnish)) {
+                if(!layers.contains(ingredient)) {
+                    discarded++;
+                }
+            }
+            if(!canDrawFromPantryDeck(pantryDeck.size(), pantryDiscard.size() + discarded, 2)) {
+                return ActionResult.EMPTY_PANTRY;
+            }
+        }
+        fulfillOrder(customer, garnish);
+        return ActionResult.OK;
+    }
+
+    /**
+     * Passes an ingredient to another player like {@link #passCard(Ingredient, Player)}, but reports an illegal pass as a
+     * result instead of throwing. Nothing changes unless the result is {@link ActionResult#OK}.
+     *
+     * @param ingredient the ingredient to be passed to another player.
+     * @param recipient the player who will receive the ingredient.
+     * @return OK if the ingredient was passed, otherwise the reason it could not be.
+     */
+    public ActionResult tryPassCard(Ingredient ingredient, Player recipient) {
+        if(getActionsRemaining() <= 0) {
+            return ActionResult.TOO_MANY_ACTIONS;
+        }
+        if(!getCurrentPlayer().getHand().contains(ingredient)) {
+            return ActionResult.WRONG_INGREDIENTS;
+        }
+        passCard(ingredient, recipient);
+        return ActionResult.OK;
+    }
+
+    /**
+     * Refreshes the pantry like {@link #refreshPantry()}, but reports an illegal refresh as a result instead of throwing.
+     * Nothing changes unless the result is {@link ActionResult#OK}.
+     *
+     * @return OK if the pantry was refreshed, otherwise the reason it could not be.
+     */
+    public ActionResult tryRefreshPantry() {
+        if(getActionsRemaining() <= 0) {
+            return ActionResult.TOO_MANY_ACTIONS;
+        }
+        // The discard pile is copied into the deck but also keeps its cards, and the old pantry joins it
+        int discard = pantryDiscard.size();
+        if(!canDrawFromPantryDeck(pantryDeck.size() + discard, discard + pantry.size(), getRules().getPantrySize())) {
+            return ActionResult.EMPTY_PANTRY;
+        }
+        refreshPantry();
+        return ActionResult.OK;
+    }
+
+    /*
+     * Whether that many draws from a deck and discard pile of the given sizes would all succeed. An empty deck is restored
+     * from the discard pile, but the restore keeps drawing into the pantry until more cards are left in the deck than the
+     * pantry holds, so it fails unless the discard pile holds more than that.
+     */
+    private boolean canDrawFromPantryDeck(int deck, int discard, int draws) {
+        for(int i = 0; i < draws; i++) {
+            if(deck == 0) {
+                if(discard <= getRules().getPantrySize()) {
+                    return false;
+                }
+                deck = discard;
+                discard = 0;
+            }
+            deck--;
+        }
+        return true;
+    }
+
+    /**
+     * Chooses whether the game's exceptions record the stack trace where they were thrown. Recording it is the most
+     * expensive part of throwing, and players that try many illegal actions rarely need it. Stack traces are recorded
+     * unless the {@code bakery.stacklessExceptions} system property is {@code true}.
+     *
+     * @param record true to record stack traces, false to leave them empty.
+     */
+    public static void setExceptionStackTraces(boolean record) {
+        exceptionStackTraces = record;
+    }
+
+    /**
+     * Tells whether the game's exceptions record the stack trace where they were thrown.
+     *
+     * @return true if stack traces are recorded.
+     */
+    public static boolean isRecordingExceptionStackTraces() {
+        return exceptionStackTraces;
+    }
+
     /**
      * Prints a summary of customer service records, including the number of customers served, garnished, and those who left.
      * This method is used for reporting and game analysis purposes.
      */
     public void printCustomerServiceRecord() {
-        int garnished = customers.getInactiveCustomersWithStatus(CustomerOrderStatus.GARNISHED).size();
-        int fulfilled = customers.getInactiveCustomersWithStatus(CustomerOrderStatus.FULFILLED).size() + garnished;
-        int left = customers.getInactiveCustomersWithStatus(CustomerOrderStatus.GIVEN_UP).size();
-        System.out.printf("\nHappy customers eating baked goods: %d (%d Garnished) \nGone to greggs instead : %d\n", fulfilled, garnished, left);
+        StringBuilder out = new StringBuilder();
+        try {
+            getRenderer().appendCustomerServiceRecord(out, this);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // a StringBuilder never throws
+        }
+        System.out.print(out);
+    }
+
+    /**
+     * Streams this game to spectators: after the game starts and after every action and end of turn, the channel is sent
+     * whatever changed on the table. The channel belongs to the running game and is not saved with it.
+     *
+     * @param channel the channel to publish to, or null to stop publishing.
+     */
+    public void setSpectatorChannel(SpectatorChannel channel) {
+        this.spectators = channel;
+        notifySpectators();
+    }
+
+    private void notifySpectators() {
+        // Every move ends here, so this is also where the game marks that it has changed
+        stateVersion++;
+        // A submitted turn is published once, when the whole of it has been played
+        if (!privateCopy && !playingTurn) {
+            snapshot = new GameSnapshot(this, stateVersion, currentPlayerIndex, snapshot);
+            if (spectators != null) {
+                spectators.publish(this);
+            }
+        }
+    }
+
+    // The snapshot is not saved with the game, so a loaded game publishes a fresh one. Games saved before the piles were
+    // card piles hold them as stacks and the layers as one list entry per card, which are turned into the current kinds
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        pantry = asCardPile(pantry);
+        pantryDeck = asCardPile(pantryDeck);
+        pantryDiscard = asCardPile(pantryDiscard);
+        if (!(layers instanceof LayerStock)) {
+            layers = new LayerStock(layers);
+        }
+        snapshot = new GameSnapshot(this, stateVersion, currentPlayerIndex, null);
+    }
+
+    private static CardPile<Ingredient> asCardPile(Collection<Ingredient> pile) {
+        return pile instanceof CardPile ? (CardPile<Ingredient>) pile : new CardPile<>(pile);
+    }
+
+    // The renderer is a cache of formatted card text, so it is rebuilt rather than serialised
+    private CardRenderer getRenderer() {
+        if (renderer == null) {
+            renderer = new CardRenderer();
+        }
+        return renderer;
     }
 
     /**
@@ -426,12 +819,14 @@ public class MagicBakery implements java.io.Serializable {
      * of customer orders. This method provides a comprehensive view of the game's progress and is crucial for player decision-making.
      */
     public void printGameState() {
-        System.out.printf("Layers:\n  %s\n", StringUtils.layersToStrings(getLayers()));
-        System.out.printf("Pantry\n  %s\n", StringUtils.ingredientsToStrings(getPantry()));
-        if(customers.size() > 0)System.out.printf("Waiting for service:\n  %s\n", StringUtils.customerOrdersToStrings(customers.getActiveCustomers()));
-        else System.out.println("No customers waiting -- time for a brew :).");
-        printCustomerServiceRecord();
-        System.out.printf("\n%s it's your turn. Your hand contains: %s", getCurrentPlayer().toString(), getCurrentPlayer().getHandStr());
+        // Build the whole frame first so it reaches the console in a single write
+        StringBuilder out = new StringBuilder(4096);
+        try {
+            getRenderer().appendGameState(out, this);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // a StringBuilder never throws
+        }
+        System.out.print(out);
         // System.out.println(StringUtils.customerOrdersToStrings(customers.getActiveCustomers()));
         // System.out.printf("Current player: %s\n", getCurrentPlayer().toString());
         // System.out.printf("%s, your hand contains: %s\n", getCurrentPlayer().toString(), getCurrentPlayer().getHand().toString());
@@ -445,7 +840,8 @@ public class MagicBakery implements java.io.Serializable {
 
     /**
      * Refreshes the pantry by shuffling all discarded ingredients back into the pantry deck. This action is counted against
-     * the current player's available actions.
+     * the current player's available actions. The deck is shuffled lazily, so only the cards dealt into the new pantry
+     * are actually placed.
      *
      * @throws TooManyActionsException if no actions are remaining for the current player to perform this task.
      */
@@ -454,26 +850,27 @@ public class MagicBakery implements java.io.Serializable {
             throw new TooManyActionsException();
         }
         pantryDeck.addAll(pantryDiscard);
-        pantryDiscard.addAll(pantry);
-        pantry.clear();
-        Collections.shuffle((List<Ingredient>) pantryDeck, random);
-        for(int i=0; i<5; i++) {
-            pantry.add(drawFromPantryDeck());
+        getIngredientCounts().copyAll(Zone.DISCARD, Zone.DECK);
+        ((CardPile<Ingredient>) pantry).transferTo((CardPile<Ingredient>) pantryDiscard);
+        getIngredientCounts().moveAll(Zone.PANTRY, Zone.DISCARD);
+        getPantryDeck().shuffleLazily(random);
+        for(int i=0; i<getRules().getPantrySize(); i++) {
+            addToPantry(drawFromPantryDeck());
         }
         actionsUsed++;
+        notifySpectators();
     }
 
     /**
      * Saves the current game state to a file. This method serializes the entire game environment allowing the game
-     * to be paused and resumed at a later time.
+     * to be paused and resumed at a later time. The new save replaces the old one in a single rename, so an interrupted
+     * save never leaves a half-written file behind.
      *
      * @param file the file to which the game state will be saved.
      * @throws IOException if there is an error writing to the file.
      */
     public void saveState(File file) throws IOException {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(file))) {
-            oos.writeObject(this);
-        }
+        SaveService.writeAtomically(SaveService.snapshot(this), file);
     }
 
     /**
@@ -498,24 +895,25 @@ public class MagicBakery implements java.io.Serializable {
      * @param playerNames a list of names for players participating in the game.
      * @param customerDeckFile the file path to load customer orders from.
      * @throws FileNotFoundException if the customer deck file cannot be found.
-     * @throws IllegalArgumentException if the number of players is not between 2 and 5.
+     * @throws IllegalArgumentException if the number of players is not between the minimum and maximum of the game's rules,
+     * 2 and 5 in the standard game.
      */
     public void startGame(List<String> playerNames, String customerDeckFile) throws FileNotFoundException, IllegalArgumentException {
         // Instantiate players list
         for (String name : playerNames) {
             players.add(new Player(name));
         }
-        if(players.size() < 2 || players.size() > 5) {
-            throw new IllegalArgumentException("Number of players must be between 2 and 5.");
+        if(players.size() < getRules().getMinPlayers() || players.size() > getRules().getMaxPlayers()) {
+            throw new IllegalArgumentException("Number of players must be between " + getRules().getMinPlayers() + " and " + getRules().getMaxPlayers() + ".");
         }
         try {
-            customers = new Customers(customerDeckFile, random, layers, players.size());
+            customers = new Customers(customerDeckFile, random, layers, players.size(), getRules().getCustomerSlots());
         } catch (Exception e) {
             throw new FileNotFoundException("Customer deck file not found.");
         }
-        Collections.shuffle((List<Ingredient>) pantryDeck, random);
-        for(int i=0; i<5; i++) {
-            pantry.add(drawFromPantryDeck());
+        getPantryDeck().shuffle(random);
+        for(int i=0; i<getRules().getPantrySize(); i++) {
+            addToPantry(drawFromPantryDeck());
         }
         if(players.size() == 2 || players.size() == 4) {
             customers.addCustomerOrder();
@@ -525,10 +923,13 @@ public class MagicBakery implements java.io.Serializable {
         }
 
         for(Player player : players) {
-            for(int i=0; i<3; i++) {
-                player.addToHand(drawFromPantryDeck());
+            for(int i=0; i<getRules().getHandSize(); i++) {
+                Ingredient ingredient = drawFromPantryDeck();
+                player.addToHand(ingredient);
+                getIngredientCounts().add(Zone.HANDS, ingredient);
             }
         }
+        notifySpectators();
 
         // System.out.println("\nWelcome to Kim Joy's Magic Bakery!");
 
@@ -586,16 +987,22 @@ public class MagicBakery implements java.io.Serializable {
 
     /**
      * Restores the pantry by moving all ingredients from the discard pile back to the pantry.
-     * Shuffles the pantry after restoring.
+     * Shuffles the pantry after restoring; the shuffle is lazy, so each card is only placed when it is drawn.
      */
     public void restorePantry() {
-        pantryDeck.addAll(pantryDiscard);
-        pantryDiscard.clear();
-        Collections.shuffle((Stack<Ingredient>) pantryDeck, random);
-        while(pantryDeck.size() <= 5) {
-            pantry.add(drawFromPantryDeck());
+        pantryRestores++;
+        ((CardPile<Ingredient>) pantryDiscard).transferTo(getPantryDeck());
+        getIngredientCounts().moveAll(Zone.DISCARD, Zone.DECK);
+        getPantryDeck().shuffleLazily(random);
+        while(pantryDeck.size() <= getRules().getPantrySize()) {
+            addToPantry(drawFromPantryDeck());
         }
     }
+
+    private void addToPantry(Ingredient ingredient) {
+        pantry.add(ingredient);
+        getIngredientCounts().add(Zone.PANTRY, ingredient);
+    }
     /**
      * Retrieves a collection of actions that are currently available to the active player based on the game state.
      * This method assesses the player's situation, including remaining actions and game conditions, to determine which actions
@@ -625,17 +1032,86 @@ public class MagicBakery implements java.io.Serializable {
     }
 
     /**
-     * Retrieves a collection of actions that are currently available to the active player based on the game state.
-     * This method assesses the player's situation, including remaining actions and game conditions, to determine which actions
-     * the player can perform next. It dynamically compiles a list of possible actions such as drawing ingredients,
-     * passing them to another player, baking a layer, fulfilling an order, or refreshing the pantry, contingent upon the
-     * feasibility of each action at the moment of invocation.
+     * Retrieves how many times the pantry deck has been restored from the discard pile during this game, whether by a
+     * direct call to {@link #restorePantry()} or because a draw found the deck empty.
      *
-     * @return a collection of {@link ActionType} representing the actions available to the current player. If no actions
-     * are possible due to game rules or conditions, this collection will be empty.
+     * @return the number of pantry restores so far.
+     */
+    public int getPantryRestoreCount() {
+        return pantryRestores;
+    }
+
+    /**
+     * Retrieves the face-down pantry deck from which new ingredients are drawn. The top card of the deck is the next
+     * ingredient to be drawn.
+     *
+     * @return the pantry deck as a card pile.
      */
-    public Stack<Ingredient> getPantryDeck() {
-        return (Stack<Ingredient>) pantryDeck;
+    public CardPile<Ingredient> getPantryDeck() {
+        return (CardPile<Ingredient>) pantryDeck;
+    }
+
+    /**
+     * Retrieves a number that changes every time a move, an end of turn or the start of the game changes this game. Other
+     * threads may read it to tell whether work they started on an earlier state is out of date.
+     *
+     * @return the current state version.
+     */
+    public long getStateVersion() {
+        return stateVersion;
+    }
+
+    /**
+     * Retrieves the latest snapshot of the table, published after the most recent move, end of turn or start of the game.
+     * Unlike the other getters, which hand out the game's own collections, this may be called from any thread while
+     * another thread plays the game: it never waits and always returns a complete, unchanging view.
+     *
+     * @return the latest snapshot.
+     */
+    public GameSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Creates an independent copy of the game to play ahead on, such as in a search, far more cheaply than saving and
+     * loading it. Moves made on the copy do not affect this game. The copy takes its random numbers from the given
+     * generator, so the cards it deals from here on may differ from this game's. A copy publishes nothing: it has no
+     * spectators and {@link #getSnapshot()} returns null for it.
+     *
+     * @param random the source of randomness for the copy.
+     * @return the copy.
+     */
+    public MagicBakery copy(Random random) {
+        return new MagicBakery(this, random);
+    }
+
+    /**
+     * Retrieves the running count of every card in the pantry deck, the pantry, the discard pile and the players' hands,
+     * which also answers questions about the chances of the coming draws. The counts are kept up to date by every move,
+     * so reading them never scans the piles.
+     *
+     * @return the card counts for this game.
+     */
+    public IngredientCounts getIngredientCounts() {
+        // Games saved with Stack piles, before the counts were kept, have none, so they are worked out once from the piles
+        if (ingredientCounts == null) {
+            ingredientCounts = new IngredientCounts(getRules().getPantrySize());
+            for (Ingredient ingredient : pantryDeck) {
+                ingredientCounts.add(Zone.DECK, ingredient);
+            }
+            for (Ingredient ingredient : pantry) {
+                ingredientCounts.add(Zone.PANTRY, ingredient);
+            }
+            for (Ingredient ingredient : pantryDiscard) {
+                ingredientCounts.add(Zone.DISCARD, ingredient);
+            }
+            for (Player player : players) {
+                for (Ingredient ingredient : player.getHand()) {
+                    ingredientCounts.add(Zone.HANDS, ingredient);
+                }
+            }
+        }
+        return ingredientCounts;
     }
 
 }
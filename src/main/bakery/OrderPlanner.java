@@ -0,0 +1,381 @@
+package bakery;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Works out the best orders to fulfil, and which of them to garnish, from one hand of cards. Several customers often
+ * want the same cards, and a helpful duck can stand in for any ingredient but not for a layer, so serving the customers
+ * one at a time in the order they wait can spend cards another customer needed. The planner instead tries every way of
+ * serving the customers in the row, each one either left, fulfilled or fulfilled and garnished, and keeps the best.
+ *
+ * The best plan serves the most customers, then garnishes the most of them, then spends the fewest helpful ducks and then
+ * the fewest cards; of plans that are still level, the one serving the customers nearest the end of the row, who will
+ * leave first, wins. A plan can be limited to a number of orders, such as the actions left in a turn.
+ *
+ * Plans are remembered by the hand they were made for, counted card by card whatever order the cards are held in, so
+ * asking again for the same hand costs only the lookup. What is remembered is forgotten as soon as a different row of
+ * customers is planned for.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public final class OrderPlanner {
+    // Plans kept for one row of customers; once there are this many they are all forgotten
+    private static final int MAX_PLANS = 1024;
+
+    private List<CustomerOrder> row = Collections.emptyList();
+    private final Map<String, Plan> plans = new HashMap<>();
+
+    /**
+     * The orders to fulfil from a hand and which of them to garnish.
+     *
+     * @author Adam Aly
+     * @version 1.0
+     * @since 2024
+     */
+    public static final class Plan {
+        private final List<CustomerOrder> fulfilled;
+        private final List<CustomerOrder> garnished;
+        private final List<CustomerOrder> garnishable;
+        private final int ducksUsed;
+        private final int cardsUsed;
+
+        private Plan(List<CustomerOrder> fulfilled, List<CustomerOrder> garnished, List<CustomerOrder> garnishable,
+                int ducksUsed, int cardsUsed) {
+            this.fulfilled = Collections.unmodifiableList(fulfilled);
+            this.garnished = Collections.unmodifiableList(garnished);
+            this.garnishable = Collections.unmodifiableList(garnishable);
+            this.ducksUsed = ducksUsed;
+            this.cardsUsed = cardsUsed;
+        }
+
+        /**
+         * Returns the orders to fulfil, in the order they wait in the row.
+         *
+         * @return the orders to fulfil, which cannot be modified.
+         */
+        public List<CustomerOrder> getFulfilled() {
+            return fulfilled;
+        }
+
+        /**
+         * Returns the orders to garnish as they are fulfilled, in the order they wait in the row.
+         *
+         * @return the orders to garnish, all of which are also fulfilled, which cannot be modified.
+         */
+        public List<CustomerOrder> getGarnished() {
+            return garnished;
+        }
+
+        /**
+         * Returns every order in the row that the hand could fulfil and garnish if it were the only order served, in the
+         * order they wait in the row.
+         *
+         * @return the orders that could be garnished on their own, which cannot be modified.
+         */
+        public List<CustomerOrder> getGarnishable() {
+            return garnishable;
+        }
+
+        /**
+         * Tells whether the plan garnishes an order.
+         *
+         * @param order the order to look for.
+         * @return true if the order is fulfilled and garnished by the plan.
+         */
+        public boolean isGarnished(CustomerOrder order) {
+            return garnished.contains(order);
+        }
+
+        /**
+         * Returns how many helpful ducks the plan spends in place of ingredients.
+         *
+         * @return the number of helpful ducks used.
+         */
+        public int getDucksUsed() {
+            return ducksUsed;
+        }
+
+        /**
+         * Returns how many cards of the hand the plan spends, helpful ducks included.
+         *
+         * @return the number of cards used.
+         */
+        public int getCardsUsed() {
+            return cardsUsed;
+        }
+
+        /**
+         * Returns the orders the plan fulfils, with the garnished ones marked.
+         *
+         * @return a description of the plan.
+         */
+        @Override
+        public String toString() {
+            List<String> orders = new ArrayList<>();
+            for (CustomerOrder order : fulfilled) {
+                orders.add(garnished.contains(order) ? order + " (garnished)" : order.toString());
+            }
+            return orders.toString();
+        }
+    }
+
+    /**
+     * Creates a planner that has not planned anything yet.
+     */
+    public OrderPlanner() {
+    }
+
+    /**
+     * Finds the best orders to fulfil and garnish from a hand.
+     *
+     * @param hand the cards that can be spent.
+     * @param row the customers waiting, with null for an empty place.
+     * @param maxOrders the most orders that may be fulfilled.
+     * @return the best plan, which fulfils nothing if no order can be fulfilled.
+     */
+    public Plan plan(List<Ingredient> hand, Collection<CustomerOrder> row, int maxOrders) {
+        if (!sameRow(row)) {
+            this.row = new ArrayList<>(row);
+            plans.clear();
+        }
+        String key = signature(hand, maxOrders);
+        Plan plan = plans.get(key);
+        if (plan == null) {
+            if (plans.size() >= MAX_PLANS) {
+                plans.clear();
+            }
+            plan = new Search(hand, this.row, Math.max(0, maxOrders)).run();
+            plans.put(key, plan);
+        }
+        return plan;
+    }
+
+    // The row is compared customer by customer, as the same customers may have moved along
+    private boolean sameRow(Collection<CustomerOrder> row) {
+        if (row.size() != this.row.size()) {
+            return false;
+        }
+        Iterator<CustomerOrder> customers = row.iterator();
+        for (CustomerOrder customer : this.row) {
+            if (customers.next() != customer) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The cards of a hand by name, sorted so any order of the same cards gives the same key
+    private static String signature(List<Ingredient> hand, int maxOrders) {
+        String[] names = new String[hand.size()];
+        for (int i = 0; i < names.length; i++) {
+            Ingredient card = hand.get(i);
+            names[i] = (card instanceof Layer ? "L" : "I") + card;
+        }
+        Arrays.sort(names);
+        StringBuilder key = new StringBuilder().append(maxOrders);
+        for (String name : names) {
+            key.append('\n').append(name);
+        }
+        return key.toString();
+    }
+
+    // One search over the row for one hand. Cards are numbered by kind; a hand is a count for each kind, and an order is
+    // the kinds it wants, one entry per card, with its garnish after its recipe
+    private static final class Search {
+        private final List<CustomerOrder> row;
+        private final int maxOrders;
+        private final int[] have;
+        private final boolean[] layer;
+        private final int ducks;
+        private final int[][] recipes;
+        private final int[][] garnishes;
+
+        private final int[] need;
+        private int ducksNeeded;
+        private int cards;
+        private final byte[] choice;
+
+        private byte[] best;
+        private int bestFulfilled = -1;
+        private int bestGarnished;
+        private int bestDucks;
+        private int bestCards;
+        private int bestPlaces;
+
+        Search(List<Ingredient> hand, List<CustomerOrder> row, int maxOrders) {
+            this.row = row;
+            this.maxOrders = maxOrders;
+            Map<Ingredient, Integer> kinds = new HashMap<>();
+            List<Ingredient> cards = new ArrayList<>();
+            int duckCount = 0;
+            for (Ingredient card : hand) {
+                if (card.equals(Ingredient.HELPFUL_DUCK)) {
+                    duckCount++;
+                } else if (kinds.putIfAbsent(card, kinds.size()) == null) {
+                    cards.add(card);
+                }
+            }
+            this.ducks = duckCount;
+            recipes = new int[row.size()][];
+            garnishes = new int[row.size()][];
+            for (int i = 0; i < row.size(); i++) {
+                CustomerOrder order = row.get(i);
+                if (order != null) {
+                    recipes[i] = kinds(order.getRecipe(), kinds, cards);
+                    garnishes[i] = kinds(order.getGarnish(), kinds, cards);
+                }
+            }
+            have = new int[cards.size()];
+            layer = new boolean[cards.size()];
+            for (int k = 0; k < cards.size(); k++) {
+                layer[k] = cards.get(k) instanceof Layer;
+            }
+            for (Ingredient card : hand) {
+                if (!card.equals(Ingredient.HELPFUL_DUCK)) {
+                    have[kinds.get(card)]++;
+                }
+            }
+            need = new int[cards.size()];
+            choice = new byte[row.size()];
+        }
+
+        // A helpful duck asked for by name is numbered -1, as only a duck can be spent on it
+        private static int[] kinds(List<Ingredient> cards, Map<Ingredient, Integer> kinds, List<Ingredient> known) {
+            int[] result = new int[cards.size()];
+            for (int i = 0; i < result.length; i++) {
+                Ingredient card = cards.get(i);
+                if (card.equals(Ingredient.HELPFUL_DUCK)) {
+                    result[i] = -1;
+                } else {
+                    Integer kind = kinds.get(card);
+                    if (kind == null) {
+                        kind = kinds.size();
+                        kinds.put(card, kind);
+                        known.add(card);
+                    }
+                    result[i] = kind;
+                }
+            }
+            return result;
+        }
+
+        Plan run() {
+            search(row.size() - 1, 0, 0, 0);
+            List<CustomerOrder> fulfilled = new ArrayList<>();
+            List<CustomerOrder> garnished = new ArrayList<>();
+            List<CustomerOrder> garnishable = new ArrayList<>();
+            for (int i = 0; i < row.size(); i++) {
+                if (best != null && best[i] > 0) {
+                    fulfilled.add(row.get(i));
+                    if (best[i] == 2) {
+                        garnished.add(row.get(i));
+                    }
+                }
+                if (garnishable(i)) {
+                    garnishable.add(row.get(i));
+                }
+            }
+            return new Plan(fulfilled, garnished, garnishable, Math.max(0, bestDucks), Math.max(0, bestCards));
+        }
+
+        // Decides the customers from the end of the row, who leave first, to the front
+        private void search(int slot, int fulfilled, int garnished, int places) {
+            if (fulfilled + slot + 1 < bestFulfilled) {
+                return; // even serving everyone left could not catch up
+            }
+            if (slot < 0 || fulfilled == maxOrders) {
+                consider(fulfilled, garnished, places);
+                return;
+            }
+            choice[slot] = 0;
+            if (recipes[slot] != null) {
+                if (take(recipes[slot])) {
+                    if (garnishes[slot].length > 0) {
+                        if (take(garnishes[slot])) {
+                            choice[slot] = 2;
+                            search(slot - 1, fulfilled + 1, garnished + 1, places + slot);
+                        }
+                        give(garnishes[slot]);
+                    }
+                    choice[slot] = 1;
+                    search(slot - 1, fulfilled + 1, garnished, places + slot);
+                }
+                give(recipes[slot]);
+                choice[slot] = 0;
+            }
+            search(slot - 1, fulfilled, garnished, places);
+        }
+
+        private void consider(int fulfilled, int garnished, int places) {
+            int compare = Integer.compare(fulfilled, bestFulfilled);
+            if (compare == 0) {
+                compare = Integer.compare(garnished, bestGarnished);
+            }
+            if (compare == 0) {
+                compare = Integer.compare(bestDucks, ducksNeeded);
+            }
+            if (compare == 0) {
+                compare = Integer.compare(bestCards, cards);
+            }
+            if (compare == 0) {
+                compare = Integer.compare(places, bestPlaces);
+            }
+            if (compare > 0) {
+                best = choice.clone();
+                bestFulfilled = fulfilled;
+                bestGarnished = garnished;
+                bestDucks = ducksNeeded;
+                bestCards = cards;
+                bestPlaces = places;
+            }
+        }
+
+        // Spends the cards an order wants, a matching card first and a helpful duck after; false if the hand runs out
+        private boolean take(int[] wants) {
+            boolean enough = true;
+            for (int kind : wants) {
+                cards++;
+                if (kind < 0) {
+                    ducksNeeded++;
+                } else if (need[kind]++ >= have[kind]) {
+                    if (layer[kind]) {
+                        enough = false;
+                    } else {
+                        ducksNeeded++;
+                    }
+                }
+            }
+            return enough && ducksNeeded <= ducks;
+        }
+
+        private void give(int[] wants) {
+            for (int kind : wants) {
+                cards--;
+                if (kind < 0) {
+                    ducksNeeded--;
+                } else if (--need[kind] >= have[kind] && !layer[kind]) {
+                    ducksNeeded--;
+                }
+            }
+        }
+
+        private boolean garnishable(int slot) {
+            if (recipes[slot] == null || garnishes[slot].length == 0) {
+                return false;
+            }
+            boolean result = take(recipes[slot]) & take(garnishes[slot]);
+            give(garnishes[slot]);
+            give(recipes[slot]);
+            return result;
+        }
+    }
+}
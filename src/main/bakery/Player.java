@@ -22,6 +22,8 @@ public class Player implements java.io.Serializable{
     private List<Ingredient> hand;
     private String name;
     private static final long serialVersionUID = 11085168;
+    // Counts changes to the hand, so a snapshot can tell whether the copy it took last time is still current
+    private transient int handChanges;
 
     /**
      * Constructs a new Player with the given name. The player's hand is initialized as an empty list of ingredients.
@@ -34,6 +36,12 @@ public class Player implements java.io.Serializable{
         hand = new ArrayList<>();
     }
 
+    // A copy for playing ahead on, with a hand of its own
+    Player(Player other) {
+        this.name = other.name;
+        hand = new ArrayList<>(other.hand);
+    }
+
     /**
      * Adds multiple ingredients to the player's hand. This method is typically used when the player acquires new ingredients.
      *
@@ -41,6 +49,7 @@ public class Player implements java.io.Serializable{
      */
     public void addToHand(List<Ingredient> ingredients) {
         hand.addAll(ingredients);
+        handChanges++;
     }
 
     /**
@@ -50,6 +59,7 @@ public class Player implements java.io.Serializable{
      */
     public void addToHand(Ingredient ingredient) {
         hand.add(ingredient);
+        handChanges++;
     }
 
     /** Check if the player has a specific ingredient in their hand
@@ -73,6 +83,7 @@ public class Player implements java.io.Serializable{
         if(!hand.remove(ingredient)) {
             throw new WrongIngredientsException(name + " does not have " + ingredient + " in their hand");
         }
+        handChanges++;
     }
 
     /** Getter for name
@@ -84,6 +95,17 @@ public class Player implements java.io.Serializable{
         return hand;
     }
 
+    // A sorted copy of the hand that leaves the hand itself in the order it was dealt, for snapshots taken after every move
+    List<Ingredient> sortedCopyOfHand() {
+        List<Ingredient> copy = new ArrayList<>(hand);
+        copy.sort(Comparator.comparing(Ingredient::toString, String.CASE_INSENSITIVE_ORDER));
+        return copy;
+    }
+
+    int getHandChanges() {
+        return handChanges;
+    }
+
     /** Count the number of helpful ducks in the player's hand (NOT IN UML/SPEC)
      *   @param none
      *   @return Returns the number of helpful ducks in the player's hand
@@ -103,6 +125,7 @@ public class Player implements java.io.Serializable{
      *   @return none
      */
     public Ingredient removeHelpfulDuckFromHand() {
+        handChanges++;
         return hand.remove(hand.indexOf(Ingredient.HELPFUL_DUCK));
     }
 
@@ -21,4 +21,13 @@ public class TooManyActionsException extends java.lang.IllegalStateException {
         super();
     }
 
+    /**
+     * Records the stack trace, unless {@link MagicBakery#setExceptionStackTraces(boolean)} has turned recording off.
+     *
+     * @return this exception.
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return MagicBakery.isRecordingExceptionStackTraces() ? super.fillInStackTrace() : this;
+    }
 }
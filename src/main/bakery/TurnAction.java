@@ -0,0 +1,191 @@
+package bakery;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.function.UnaryOperator;
+
+import bakery.MagicBakery.ActionType;
+
+/**
+ * Represents one action in a turn submitted as a whole with {@link MagicBakery#submitTurn(java.util.List, boolean)}.
+ * Each action names its type and the cards or players it applies to, exactly as they would be passed to the matching
+ * {@link MagicBakery} method (drawFromPantry, passCard, bakeLayer, fulfillOrder or refreshPantry).
+ *
+ * Actions are created with the static factory methods and cannot be changed once created.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public final class TurnAction implements java.io.Serializable {
+    private static final long serialVersionUID = 11085168;
+
+    private final ActionType type;
+    private final Ingredient ingredient;
+    private final Player recipient;
+    private final CustomerOrder customer;
+    private final boolean garnish;
+
+    private TurnAction(ActionType type, Ingredient ingredient, Player recipient, CustomerOrder customer, boolean garnish) {
+        this.type = type;
+        this.ingredient = ingredient;
+        this.recipient = recipient;
+        this.customer = customer;
+        this.garnish = garnish;
+    }
+
+    /**
+     * Creates an action that draws an ingredient from the pantry into the current player's hand.
+     *
+     * @param ingredient the ingredient to take from the pantry.
+     * @return the draw action.
+     */
+    public static TurnAction draw(Ingredient ingredient) {
+        return new TurnAction(ActionType.DRAW_INGREDIENT, ingredient, null, null, false);
+    }
+
+    /**
+     * Creates an action that passes an ingredient from the current player's hand to another player.
+     *
+     * @param ingredient the ingredient to pass.
+     * @param recipient the player who receives it.
+     * @return the pass action.
+     */
+    public static TurnAction pass(Ingredient ingredient, Player recipient) {
+        return new TurnAction(ActionType.PASS_INGREDIENT, ingredient, recipient, null, false);
+    }
+
+    /**
+     * Creates an action that bakes a layer from the current player's hand.
+     *
+     * @param layer the layer to bake.
+     * @return the bake action.
+     */
+    public static TurnAction bake(Layer layer) {
+        return new TurnAction(ActionType.BAKE_LAYER, layer, null, null, false);
+    }
+
+    /**
+     * Creates an action that fulfils a customer's order from the current player's hand.
+     *
+     * @param customer the customer whose order is fulfilled.
+     * @param garnish true to garnish the order as well.
+     * @return the fulfil action.
+     */
+    public static TurnAction fulfil(CustomerOrder customer, boolean garnish) {
+        return new TurnAction(ActionType.FULFIL_ORDER, null, null, customer, garnish);
+    }
+
+    /**
+     * Creates an action that refreshes the pantry.
+     *
+     * @return the refresh action.
+     */
+    public static TurnAction refreshPantry() {
+        return new TurnAction(ActionType.REFRESH_PANTRY, null, null, null, false);
+    }
+
+    /**
+     * Retrieves the type of the action.
+     *
+     * @return the action type.
+     */
+    public ActionType getType() {
+        return type;
+    }
+
+    /**
+     * Retrieves the ingredient drawn or passed, or the layer baked.
+     *
+     * @return the ingredient the action applies to, or null for fulfil and refresh actions.
+     */
+    public Ingredient getIngredient() {
+        return ingredient;
+    }
+
+    /**
+     * Retrieves the player an ingredient is passed to.
+     *
+     * @return the recipient, or null unless this is a pass action.
+     */
+    public Player getRecipient() {
+        return recipient;
+    }
+
+    /**
+     * Retrieves the customer whose order is fulfilled.
+     *
+     * @return the customer, or null unless this is a fulfil action.
+     */
+    public CustomerOrder getCustomer() {
+        return customer;
+    }
+
+    /**
+     * Tells whether a fulfilled order is also garnished.
+     *
+     * @return true if the order is garnished.
+     */
+    public boolean isGarnish() {
+        return garnish;
+    }
+
+    // The same action on a copy of a game, naming the copy's player and customer at the places this one's have in the
+    // game. One that is not in the game is copied, so trying the action on the copy changes nothing outside it
+    TurnAction forCopy(MagicBakery game, MagicBakery copy) {
+        Player copiedRecipient = recipient == null ? null
+            : samePlace(recipient, game.getPlayers(), copy.getPlayers(), Player::new);
+        CustomerOrder copiedCustomer = customer == null ? null
+            : samePlace(customer, game.getCustomers().getActiveCustomers(), copy.getCustomers().getActiveCustomers(),
+                CustomerOrder::new);
+        return new TurnAction(type, ingredient, copiedRecipient, copiedCustomer, garnish);
+    }
+
+    private static <T> T samePlace(T item, Collection<T> original, Collection<T> copied, UnaryOperator<T> copyItem) {
+        Iterator<T> copies = copied.iterator();
+        for (T candidate : original) {
+            T copy = copies.next();
+            if (candidate == item) {
+                return copy;
+            }
+        }
+        return copyItem.apply(item);
+    }
+
+    // Carries the action out on a game; the arguments must belong to that game
+    void applyTo(MagicBakery bakery) {
+        switch (type) {
+            case DRAW_INGREDIENT:
+                bakery.drawFromPantry(ingredient);
+                break;
+            case PASS_INGREDIENT:
+                bakery.passCard(ingredient, recipient);
+                break;
+            case BAKE_LAYER:
+                bakery.bakeLayer((Layer) ingredient);
+                break;
+            case FULFIL_ORDER:
+                bakery.fulfillOrder(customer, garnish);
+                break;
+            case REFRESH_PANTRY:
+                bakery.refreshPantry();
+                break;
+        }
+    }
+
+    @Override
+    public String toString() {
+        switch (type) {
+            case DRAW_INGREDIENT:
+                return "draw " + ingredient;
+            case PASS_INGREDIENT:
+                return "pass " + ingredient + " to " + recipient;
+            case BAKE_LAYER:
+                return "bake " + ingredient;
+            case FULFIL_ORDER:
+                return (garnish ? "fulfil and garnish " : "fulfil ") + customer;
+            default:
+                return "refresh pantry";
+        }
+    }
+}
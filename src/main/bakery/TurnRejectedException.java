@@ -0,0 +1,51 @@
+package bakery;
+
+/**
+ * Signals that a turn submitted with {@link MagicBakery#submitTurn(java.util.List, boolean)} was rejected because one of
+ * its actions could not be carried out. None of the turn has been applied when this exception is thrown. The exception
+ * records which action failed and, as its cause, the exception that action raised (such as a
+ * {@link WrongIngredientsException} or {@link TooManyActionsException}).
+ * Extending {@link IllegalArgumentException}, it indicates that the turn passed in is not valid for the current game.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public class TurnRejectedException extends java.lang.IllegalArgumentException {
+    private static final long serialVersionUID = 11085168;
+
+    private final int step;
+    private final TurnAction action;
+
+    /**
+     * Constructs a new TurnRejectedException for the action that failed.
+     *
+     * @param step the position of the failing action in the turn, counting from 0.
+     * @param action the action that failed.
+     * @param cause the exception the failing action raised.
+     */
+    public TurnRejectedException(int step, TurnAction action, Throwable cause) {
+        super("Turn rejected at step " + (step + 1) + " (" + action + ")"
+            + (cause == null || cause.getMessage() == null ? "" : ": " + cause.getMessage()), cause);
+        this.step = step;
+        this.action = action;
+    }
+
+    /**
+     * Retrieves the position of the failing action in the submitted turn.
+     *
+     * @return the index of the failing action, counting from 0.
+     */
+    public int getStep() {
+        return step;
+    }
+
+    /**
+     * Retrieves the action that failed.
+     *
+     * @return the failing action.
+     */
+    public TurnAction getAction() {
+        return action;
+    }
+}
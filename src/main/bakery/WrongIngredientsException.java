@@ -21,4 +21,14 @@ public class WrongIngredientsException extends java.lang.IllegalArgumentExceptio
     public WrongIngredientsException(String msg) {
         super(msg);
     }
+
+    /**
+     * Records the stack trace, unless {@link MagicBakery#setExceptionStackTraces(boolean)} has turned recording off.
+     *
+     * @return this exception.
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return MagicBakery.isRecordingExceptionStackTraces() ? super.fillInStackTrace() : this;
+    }
 }
@@ -0,0 +1,208 @@
+package ui;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+
+/**
+ * Packs every card picture into a single texture, with each picture already scaled to the size it is drawn at on the
+ * board. Card image views then show a rectangle (viewport) of the shared texture instead of shrinking their own full-size
+ * picture every time they are drawn, and the board only has one texture to upload.
+ *
+ * An atlas is built for one output scale. On a HiDPI screen with a scale of 2 each picture is decoded at twice its on-screen
+ * size and drawn into its on-screen size, so it stays sharp. Pictures are placed on shelves (rows) from left to right, in
+ * the order they are given.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public class CardAtlas {
+    private static final double MAX_ROW_WIDTH = 512;
+
+    private final Image texture;
+    private final Map<String, Region> regions;
+    private final double scale;
+
+    /**
+     * A card picture inside an atlas: the shared texture, the rectangle of it holding the picture, and the on-screen size
+     * to draw it at.
+     */
+    public static final class Region {
+        private final Image image;
+        private final Rectangle2D viewport;
+        private final double width;
+        private final double height;
+
+        /**
+         * Creates a region covering part of an image.
+         *
+         * @param image the texture holding the picture.
+         * @param viewport the part of the texture to show, or null for the whole image.
+         * @param width the width to draw the picture at.
+         * @param height the height to draw the picture at.
+         */
+        public Region(Image image, Rectangle2D viewport, double width, double height) {
+            this.image = image;
+            this.viewport = viewport;
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * Makes an image view show this picture, only touching the properties that differ from what it already shows.
+         *
+         * @param view the image view to update.
+         */
+        public void applyTo(ImageView view) {
+            if (view.getImage() != image) {
+                view.setImage(image);
+            }
+            if (view.getViewport() != viewport) {
+                view.setViewport(viewport);
+            }
+            view.setFitWidth(width);
+            view.setFitHeight(height);
+        }
+    }
+
+    /**
+     * The picture for one key and the size it is drawn at.
+     */
+    public static final class Entry {
+        private final String path;
+        private final double width;
+        private final double height;
+
+        /**
+         * Creates an atlas entry.
+         *
+         * @param path the picture file, relative to the images folder.
+         * @param width the on-screen width of the picture.
+         * @param height the on-screen height of the picture.
+         */
+        public Entry(String path, double width, double height) {
+            this.path = path;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    /**
+     * Builds an atlas by decoding each entry at its on-screen size multiplied by the output scale. Keys that share a
+     * picture file and size share one rectangle of the texture.
+     *
+     * @param entries the pictures to pack, by key.
+     * @param scale the output scale of the screen (1 for a standard display, 2 for a typical HiDPI display).
+     * @param decoder decodes a picture file at the requested pixel width and height.
+     */
+    public CardAtlas(Map<String, Entry> entries, double scale, Decoder decoder) {
+        this.scale = scale;
+
+        // Lay out one rectangle per distinct picture on shelves, then draw each picture into its rectangle
+        Map<String, Rectangle2D> placed = new LinkedHashMap<>();
+        List<Entry> toDraw = new ArrayList<>();
+        double x = 0;
+        double y = 0;
+        double shelfHeight = 0;
+        double atlasWidth = 0;
+        for (Entry entry : entries.values()) {
+            String id = entry.path + "@" + entry.width + "x" + entry.height;
+            if (placed.containsKey(id)) {
+                continue;
+            }
+            double w = Math.ceil(entry.width * scale);
+            double h = Math.ceil(entry.height * scale);
+            if (x > 0 && x + w > MAX_ROW_WIDTH * scale) {
+                x = 0;
+                y += shelfHeight;
+                shelfHeight = 0;
+            }
+            placed.put(id, new Rectangle2D(x, y, w, h));
+            toDraw.add(entry);
+            x += w;
+            shelfHeight = Math.max(shelfHeight, h);
+            atlasWidth = Math.max(atlasWidth, x);
+        }
+
+        WritableImage atlas = new WritableImage((int) Math.max(atlasWidth, 1), (int) Math.max(y + shelfHeight, 1));
+        PixelWriter writer = atlas.getPixelWriter();
+        Map<String, Rectangle2D> viewports = new HashMap<>();
+        for (Entry entry : toDraw) {
+            String id = entry.path + "@" + entry.width + "x" + entry.height;
+            Rectangle2D slot = placed.get(id);
+            Image picture = decoder.decode(entry.path, slot.getWidth(), slot.getHeight());
+            if (picture == null || picture.isError()) {
+                continue;
+            }
+            int w = (int) Math.min(picture.getWidth(), slot.getWidth());
+            int h = (int) Math.min(picture.getHeight(), slot.getHeight());
+            writer.setPixels((int) slot.getMinX(), (int) slot.getMinY(), w, h, picture.getPixelReader(), 0, 0);
+            viewports.put(id, new Rectangle2D(slot.getMinX(), slot.getMinY(), w, h));
+        }
+
+        Map<String, Region> result = new HashMap<>();
+        for (Map.Entry<String, Entry> named : entries.entrySet()) {
+            Entry entry = named.getValue();
+            Rectangle2D viewport = viewports.get(entry.path + "@" + entry.width + "x" + entry.height);
+            if (viewport != null) {
+                result.put(named.getKey(), new Region(atlas, viewport, entry.width, entry.height));
+            }
+        }
+        this.texture = atlas;
+        this.regions = Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Decodes a picture file straight to a given pixel size.
+     */
+    @FunctionalInterface
+    public interface Decoder {
+        /**
+         * Decodes a picture.
+         *
+         * @param path the picture file, relative to the images folder.
+         * @param width the width in pixels to decode at.
+         * @param height the height in pixels to decode at.
+         * @return the decoded picture, or null if the file does not exist.
+         */
+        Image decode(String path, double width, double height);
+    }
+
+    /**
+     * Returns the picture for a key.
+     *
+     * @param key the name of the picture, as listed in the manifest.
+     * @return the region of the atlas holding the picture, or null if the atlas has no picture for the key.
+     */
+    public Region get(String key) {
+        return regions.get(key);
+    }
+
+    /**
+     * Returns the single texture holding every picture in the atlas.
+     *
+     * @return the atlas texture.
+     */
+    public Image getTexture() {
+        return texture;
+    }
+
+    /**
+     * Returns the output scale the atlas was built for.
+     *
+     * @return the output scale.
+     */
+    public double getScale() {
+        return scale;
+    }
+}
@@ -0,0 +1,170 @@
+package ui;
+
+import java.util.function.Consumer;
+
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.StackPane;
+import javafx.scene.paint.Color;
+
+/**
+ * One reusable card position on the game board. A slot owns its nodes for the lifetime of the board and is rebound to
+ * whatever card currently occupies that position, so updating the board only touches the properties that actually changed
+ * (image, count text, disabled state, visibility) instead of building new buttons and image views after every action.
+ *
+ * A slot shows either a clickable card, a plain image (an empty position or the top of a deck), or nothing at all.
+ *
+ * @param <T> the type of card shown in the slot.
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public class CardSlot<T> {
+    private static long nodesCreated;
+
+    private final StackPane root;
+    private final Button button;
+    private final ImageView buttonImage;
+    private final ImageView plainImage;
+    private final Label countLabel;
+
+    private T card;
+    private boolean showingCard;
+    private boolean showingImage;
+    private boolean visible = true;
+
+    /**
+     * Creates an empty slot.
+     *
+     * @param onSelect called with the card in the slot when its button is clicked.
+     */
+    public CardSlot(Consumer<T> onSelect) {
+        buttonImage = new ImageView();
+        button = new Button();
+        button.setGraphic(buttonImage);
+        button.setOnAction(e -> {
+            if (card != null) {
+                onSelect.accept(card);
+            }
+        });
+        plainImage = new ImageView();
+        countLabel = new Label();
+        countLabel.getStyleClass().add("count-label");
+        countLabel.setStyle("-fx-font-weight: bold;");
+        countLabel.setTextFill(Color.RED);
+        StackPane.setAlignment(countLabel, Pos.TOP_RIGHT);
+        root = new StackPane(button, plainImage, countLabel);
+        nodesCreated += 5;
+
+        setShown(button, false);
+        setShown(plainImage, false);
+        setShown(countLabel, false);
+    }
+
+    /**
+     * Returns the node to place on the board for this slot.
+     *
+     * @return the root node of the slot.
+     */
+    public Node getNode() {
+        return root;
+    }
+
+    /**
+     * Shows a clickable card in the slot.
+     *
+     * @param card the card now in this position.
+     * @param image the picture of the card.
+     * @param disabled true if the card cannot currently be chosen.
+     */
+    public void showCard(T card, CardAtlas.Region image, boolean disabled) {
+        this.card = card;
+        if (!showingCard) {
+            setShown(button, true);
+            setShown(plainImage, false);
+            showingCard = true;
+            showingImage = false;
+        }
+        if (image != null) {
+            image.applyTo(buttonImage);
+        } else if (buttonImage.getImage() != null) {
+            buttonImage.setImage(null);
+        }
+        if (button.isDisable() != disabled) {
+            button.setDisable(disabled);
+        }
+        setVisible(true);
+    }
+
+    /**
+     * Shows a picture that cannot be clicked, such as an empty position or the top of a deck.
+     *
+     * @param image the picture to show.
+     */
+    public void showImage(CardAtlas.Region image) {
+        this.card = null;
+        if (!showingImage) {
+            setShown(plainImage, true);
+            setShown(button, false);
+            showingImage = true;
+            showingCard = false;
+        }
+        if (image != null) {
+            image.applyTo(plainImage);
+        } else if (plainImage.getImage() != null) {
+            plainImage.setImage(null);
+        }
+        setVisible(true);
+    }
+
+    /**
+     * Shows a count in the top right corner of the slot, such as the number of cards left in a deck.
+     *
+     * @param text the text to show, or null to hide the count.
+     */
+    public void setCount(String text) {
+        if (text == null) {
+            setShown(countLabel, false);
+            return;
+        }
+        if (!text.equals(countLabel.getText())) {
+            countLabel.setText(text);
+        }
+        setShown(countLabel, true);
+    }
+
+    /**
+     * Hides the slot without discarding its nodes, so it can be shown again later.
+     */
+    public void hide() {
+        card = null;
+        setVisible(false);
+    }
+
+    /**
+     * Returns how many nodes have been created by slots so far. Comparing this before and after a board update shows how
+     * many nodes the update had to allocate.
+     *
+     * @return the number of nodes created by all slots.
+     */
+    public static long getNodesCreated() {
+        return nodesCreated;
+    }
+
+    private void setVisible(boolean visible) {
+        if (this.visible != visible) {
+            setShown(root, visible);
+            this.visible = visible;
+        }
+    }
+
+    private static void setShown(Node node, boolean shown) {
+        if (node.isVisible() != shown) {
+            node.setVisible(shown);
+            node.setManaged(shown);
+        }
+    }
+}
@@ -4,15 +4,25 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Stack;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
 import java.util.stream.Collectors;
 
 import ui.StartScreenUI;
+import bakery.CardPile;
+import util.HintService;
+import util.SaveService;
 import bakery.CustomerOrder;
 import bakery.Customers;
 import bakery.Ingredient;
@@ -21,6 +31,7 @@ import bakery.MagicBakery;
 import bakery.MagicBakery.ActionType;
 import bakery.Player;
 import bakery.CustomerOrder.CustomerOrderStatus;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -55,7 +66,7 @@ public class GameBoardUI {
     private Button fulfillOrderButton;
     private Button passCardButton;
     private Button refreshPantryButton;
-    private ImageManager imageManager = new ImageManager();
+    private ImageManager imageManager = ImageManager.getInstance();
     private GridPane gameBoardGrid;
     private Label turnInfoLabel;
     
@@ -77,6 +88,27 @@ public class GameBoardUI {
     final double targetHeight = 20; 
     private Button saveButton;
     private Button quitButton;
+    private Label saveStatusLabel;
+    private CardSlot<Ingredient> pantryDeckSlot;
+    private List<CardSlot<Ingredient>> pantrySlots = new ArrayList<>();
+    private CardSlot<Layer> layerDeckSlot;
+    private List<CardSlot<Layer>> layerSlots = new ArrayList<>();
+    private CardSlot<CustomerOrder> customerDeckSlot;
+    private List<CardSlot<CustomerOrder>> customerSlots = new ArrayList<>();
+    private List<CardSlot<Ingredient>> handSlots = new ArrayList<>();
+    private List<Label> playerLabels = new ArrayList<>();
+    private Map<ActionType, Button> actionButtons = new EnumMap<>(ActionType.class);
+    private Label hintLabel;
+    private HintService.Hint hint;
+
+    // Run with -Dbakery.ui.stats=true to log how long each board update takes and how many nodes it creates
+    private static final boolean SHOW_UPDATE_STATS = Boolean.getBoolean("bakery.ui.stats");
+    // Run with -Dbakery.ui.hintMillis=<ms> to change how long the hint button searches for
+    private static final long HINT_MILLIS = Long.getLong("bakery.ui.hintMillis", 3000);
+
+    static final String SAVE_FILE = "savefile.txt";
+    static final String AUTOSAVE_FILE = "autosave.txt";
+    private static final DateTimeFormatter SAVE_TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
 
     public GameBoardUI(Stage stage, MagicBakery game) {
         this.stage = stage;
@@ -128,88 +160,22 @@ public class GameBoardUI {
         ingredientSection.setAlignment(Pos.CENTER);
         Label pantryLabel = new Label("Pantry");
         pantryLabel.setStyle("-fx-font-weight: bold;");
-        ingredientSection.getChildren().add(pantryLabel);
+        pantryDeckSlot = new CardSlot<>(ingredient -> { });
+        ingredientSection.getChildren().addAll(pantryLabel, pantryDeckSlot.getNode());
 
-        Ingredient topIngredient = game.getPantryDeck().peek();
-        if (topIngredient != null) {
-            Image topImage = imageManager.getImage(topIngredient.toString());
-            ImageView topImageView = new ImageView(topImage);
-            topImageView.setFitWidth(50);
-            topImageView.setFitHeight(70);
-            StackPane stackPane = new StackPane();
-            stackPane.getChildren().add(topImageView);
-    
-            Label countLabel = new Label("x" + game.getPantryDeck().size());
-            countLabel.getStyleClass().add("count-label");
-            countLabel.setStyle("-fx-font-weight: bold;");
-            countLabel.setTextFill(Color.RED);
-            StackPane.setAlignment(countLabel, Pos.TOP_RIGHT);
-            stackPane.getChildren().add(countLabel);
-    
-            ingredientSection.getChildren().add(stackPane);
-        }
-    
-        for (Ingredient ingredient : game.getPantry()) {
-            Image image = imageManager.getImage(ingredient.toString());
-            ImageView imageView = new ImageView(image);
-            imageView.setFitWidth(targetWidth);
-            imageView.setFitHeight(targetHeight);
-            Button ingredientButton = new Button();
-            ingredientButton.setGraphic(new ImageView(image));
-            ingredientButton.setOnAction(e -> handleIngredientSelection(ingredient));
-            ingredientSection.getChildren().add(ingredientButton);
-        }
-        
+        updateIngredientsSection();
         gameBoardGrid.add(ingredientSection, 0, 0); // Column 0, Row 1
     }
     
-    
-    
     private void setupLayersSection() {
         layerSection = new HBox(10);
         layerSection.setAlignment(Pos.CENTER);
         Label layersLabel = new Label("Layers");
         layersLabel.setStyle("-fx-font-weight: bold;");
-        layerSection.getChildren().add(layersLabel);
-    
-        List<Layer> layersList = new ArrayList<>(game.getLayers());
-        Layer topLayer = layersList.get(layersList.size() - 1); 
-        if (topLayer != null) {
-            Image layerImage = imageManager.getImage(topLayer.toString());
-            ImageView layerImageView = new ImageView(layerImage);
-            layerImageView.setFitWidth(45);
-            layerImageView.setFitHeight(60);
-    
-            StackPane stackPane = new StackPane(layerImageView);
-            Label countLabel = new Label("x" + (game.getLayers().size() - game.getBakeableLayers().size()));
-            countLabel.getStyleClass().add("count-label");
-            countLabel.setStyle("-fx-font-weight: bold;");
-            countLabel.setTextFill(Color.RED);
-            StackPane.setAlignment(countLabel, Pos.TOP_RIGHT);
-    
-            stackPane.getChildren().add(countLabel);
-            layerSection.getChildren().add(stackPane);
-        }
-    
-        for (Layer layer : game.getBakeableLayers()) {
-            Image image = imageManager.getImage(layer.toString());
-            ImageView imageView = new ImageView(image);
-            
-            imageView.setFitWidth(targetWidth);
-            imageView.setFitHeight(targetHeight);
-            
-            Button layerButton = new Button();
-            layerButton.setGraphic(new ImageView(image));
-            layerButton.setOnAction(e -> handleLayerSelection(layer));
-            layerSection.getChildren().add(layerButton);
-        }
+        layerDeckSlot = new CardSlot<>(layer -> { });
+        layerSection.getChildren().addAll(layersLabel, layerDeckSlot.getNode());
 
-        for(int i = game.getBakeableLayers().size(); i < 5; i++) {
-            Image image = imageManager.getImage("null_layer");
-            ImageView imageView = new ImageView(image);
-            layerSection.getChildren().add(imageView);
-        }
-    
+        updateLayersSection();
         gameBoardGrid.add(layerSection, 0, 1);
     }
     
@@ -217,30 +183,21 @@ public class GameBoardUI {
         playersSection = new VBox(1);
         playersSection.setPadding(new Insets(10, 0, 0, 20));
     
+        // The players never change during a game, so their nodes are built once and only the labels are updated
         int count = 1;
         for (Player player : game.getPlayers()) {
-            String curr = " (Current Player)";
-            if(player != game.getCurrentPlayer()) {
-                curr = "";
-            }
-            String playerLabelStr = String.format("%s%s", player.toString(), curr);
-            Label playerLabel = new Label(playerLabelStr);
+            Label playerLabel = new Label();
             playerLabel.setStyle("-fx-font-weight: bold;");
-            String playerStr = String.format("player%d", count);
+            playerLabels.add(playerLabel);
             playersSection.getChildren().add(playerLabel);
-            Image image = imageManager.getImage(playerStr);
-            ImageView imageView = new ImageView(image);
-            
-            imageView.setFitWidth(targetWidth);
-            imageView.setFitHeight(targetHeight);
-            
-            Button playerButton = new Button();
-            playerButton.setGraphic(new ImageView(image));
-            playerButton.setOnAction(e -> handlePlayerSelection(player));
-            playersSection.getChildren().add(playerButton);
+
+            CardSlot<Player> playerSlot = new CardSlot<>(this::handlePlayerSelection);
+            playerSlot.showCard(player, imageManager.getCardRegion(String.format("player%d", count)), false);
+            playersSection.getChildren().add(playerSlot.getNode());
             count++;
         }
-        
+
+        updatePlayersSection();
         gameBoardGrid.add(playersSection, 2, 0, 1, GridPane.REMAINING);
     }
 
@@ -258,51 +215,16 @@ public class GameBoardUI {
         customerSection.setAlignment(Pos.CENTER);
         Label customersLabel = new Label("Customers");
         customersLabel.setStyle("-fx-font-weight: bold;");
-        customerSection.getChildren().add(customersLabel);
-    
-        if (!game.getCustomers().getActiveCustomers().isEmpty()) {
-            Customers customer = game.getCustomers();
-            Stack<CustomerOrder> customerDeck = (Stack<CustomerOrder>)customer.getCustomerDeck();
-            CustomerOrder topCustomer = customerDeck.peek();
-            Image customerImage = imageManager.getImage(topCustomer.toString());
-            ImageView customerImageView = new ImageView(customerImage);
-            StackPane stackPane = new StackPane(customerImageView);
-            Label countLabel = new Label("x" + (customerDeck.size()));
-            countLabel.getStyleClass().add("count-label");
-            countLabel.setStyle("-fx-font-weight: bold;");
-            countLabel.setTextFill(Color.RED);
-            StackPane.setAlignment(countLabel, Pos.TOP_RIGHT);
-
-            stackPane.getChildren().add(countLabel);
-            customerSection.getChildren().add(stackPane);
-        }
-    
-        for (CustomerOrder customerOrder : game.getCustomers().getActiveCustomers()) {
-            if(customerOrder != null) {
-                Image image = imageManager.getImage(customerOrder.toString());
-                ImageView imageView = new ImageView(image);
-                Button customerButton = new Button();
-                customerButton.setGraphic(new ImageView(image));
-                if (!customerOrder.canFulfill(game.getCurrentPlayer().getHand())) {
-                    customerButton.setDisable(true);
-                } else {
-                    customerButton.setDisable(false);
-                }
-                customerButton.setOnAction(e -> handleCustomerSelection(customerOrder));
-                customerSection.getChildren().add(customerButton);
-            } else {
-                Image image = imageManager.getImage("null");
-                ImageView imageView = new ImageView(image);
-                customerSection.getChildren().add(imageView);
-            }
-        }
-    
+        customerDeckSlot = new CardSlot<>(customerOrder -> { });
+        customerSection.getChildren().addAll(customersLabel, customerDeckSlot.getNode());
+
+        updateCustomersSection();
         gameBoardGrid.add(customerSection, 0, 2);
     }
 
     private void handleCustomerSelection(CustomerOrder customerOrder) {
         if(isFulfillMode) {
-            if(customerOrder.canGarnish(game.getCurrentPlayer().getHand())) {
+            if(game.getGarnishableCustomers().contains(customerOrder)) {
                 Alert alert = new Alert(AlertType.CONFIRMATION);
                 alert.setTitle("Confirmation Dialog");
                 alert.setHeaderText("Garnish Order?");
@@ -336,7 +258,7 @@ public class GameBoardUI {
         actionButtonsSection.setAlignment(Pos.CENTER);
     
         Button refreshButton = new Button("Refresh");
-        refreshButton.setOnAction(e -> isRefreshMode = true);
+        refreshButton.setOnAction(e -> handleRefreshPantry());
         Button drawButton = new Button("Draw");
         drawButton.setOnAction(e -> isDrawMode = true);
         Button passButton = new Button("Pass Card");
@@ -345,76 +267,31 @@ public class GameBoardUI {
         bakeButton.setOnAction(e -> isBakeMode = true);
         Button fulfillButton = new Button("Fulfil Order");
         fulfillButton.setOnAction(e -> isFulfillMode = true);
+        Button hintButton = new Button("Hint");
+        hintButton.setOnAction(e -> handleHint());
 
-        if (!game.getAvailableActions().contains(ActionType.REFRESH_PANTRY)) {
-            refreshButton.setStyle("-fx-background-color: red; -fx-opacity: 1;");
-            refreshButton.setDisable(true);
-        }
-
-        if (!game.getAvailableActions().contains(ActionType.DRAW_INGREDIENT)) {
-            drawButton.setStyle("-fx-background-color: red; -fx-opacity: 1;");
-            drawButton.setDisable(true);
-        }
+        actionButtons.put(ActionType.REFRESH_PANTRY, refreshButton);
+        actionButtons.put(ActionType.DRAW_INGREDIENT, drawButton);
+        actionButtons.put(ActionType.PASS_INGREDIENT, passButton);
+        actionButtons.put(ActionType.BAKE_LAYER, bakeButton);
+        actionButtons.put(ActionType.FULFIL_ORDER, fulfillButton);
+        actionButtonsSection.getChildren().addAll(refreshButton, drawButton, passButton, bakeButton, fulfillButton, hintButton);
 
-        if (!game.getAvailableActions().contains(ActionType.PASS_INGREDIENT)) {
-            passButton.setStyle("-fx-background-color: red; -fx-opacity: 1;");
-            passButton.setDisable(true);
-        }
-
-        if (!game.getAvailableActions().contains(ActionType.BAKE_LAYER)) {
-            bakeButton.setStyle("-fx-background-color: red; -fx-opacity: 1;");
-            bakeButton.setDisable(true);
-        }
-
-        if (!game.getAvailableActions().contains(ActionType.FULFIL_ORDER)) {
-            fulfillButton.setStyle("-fx-background-color: red; -fx-opacity: 1;");
-            fulfillButton.setDisable(true);
-        }
-    
-        actionButtonsSection.getChildren().addAll(refreshButton, drawButton, passButton, bakeButton, fulfillButton);
-        playerHandSection = new HBox(10);
-        playerHandSection.setAlignment(Pos.CENTER);
-        bottomSection = new VBox(10);
-        bottomSection.setAlignment(Pos.CENTER);
-        bottomSection.getChildren().addAll(actionButtonsSection, playerHandSection);
-        String turnInfo = String.format("%s's turn. Actions Remaining: %d/%d", game.getCurrentPlayer().toString(), game.getActionsRemaining(), game.getActionsPermitted());
-        turnInfoLabel = new Label(turnInfo); 
-        bottomSection.getChildren().add(0, turnInfoLabel); 
+        turnInfoLabel = new Label();
+        turnInfoLabel.setStyle("-fx-font-weight: bold;");
+        hintLabel = new Label();
 
         playerHandSection = new HBox(10);
         playerHandSection.setAlignment(Pos.CENTER);
-
         Label handLabel = new Label("Hand:");
         handLabel.setStyle("-fx-font-weight: bold;");
         playerHandSection.getChildren().add(handLabel);
 
-        Map<Ingredient, Integer> handMap = new HashMap<>();
-        for (Ingredient ingredient : game.getCurrentPlayer().getHand()) {
-            handMap.put(ingredient, handMap.getOrDefault(ingredient, 0) + 1);
-        }
-
-        for (Ingredient ingredient : handMap.keySet()) {
-            Image image = imageManager.getImage(ingredient.toString());
-            Button ingredientButton = new Button();
-            ingredientButton.setGraphic(new ImageView(image));
-            ingredientButton.setOnAction(e -> {
-                if (isPassMode) {
-                    selectedIngredient = ingredient;
-                }
-            });
-            Label countLabel = new Label("x" + handMap.get(ingredient));
-            countLabel.setTextFill(Color.RED);
-            countLabel.setStyle("-fx-font-weight: bold;");
-
-            StackPane stackPane = new StackPane();
-            stackPane.getChildren().addAll(ingredientButton, countLabel);
-            StackPane.setAlignment(countLabel, Pos.TOP_RIGHT); 
-
-            playerHandSection.getChildren().add(stackPane);
-        }
+        bottomSection = new VBox(10);
+        bottomSection.setAlignment(Pos.CENTER);
+        bottomSection.getChildren().addAll(turnInfoLabel, actionButtonsSection, hintLabel, playerHandSection);
 
-        bottomSection.getChildren().add(playerHandSection);
-    
+        updateBottomSection();
         gameBoardGrid.add(bottomSection, 0, 3);
     }
     
@@ -423,6 +300,33 @@ public class GameBoardUI {
         turnInfoLabel.setText(turnInfo);
     }
 
+    // The search runs in the background; suggestions arrive on the FX thread as the search improves on them
+    private void handleHint() {
+        HintService.Hint asked;
+        try {
+            asked = HintService.getInstance().suggest(game, HINT_MILLIS, Platform::runLater, suggestion -> {
+                hintLabel.setText((suggestion.isFinished() ? "Hint: " : "Thinking... ") + suggestion.getDescription());
+            });
+        } catch (IllegalArgumentException e) {
+            hintLabel.setText("No hint: " + e.getMessage());
+            return;
+        }
+        hintLabel.setText("Thinking...");
+        hint = asked;
+        // A hint that fails or finds no move would otherwise leave the label thinking; a cancelled one is cleared by the move
+        asked.getResult().whenComplete((suggestion, error) -> Platform.runLater(() -> {
+            if (hint != asked || error instanceof CancellationException) {
+                return;
+            }
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                hintLabel.setText("No hint: " + cause.getMessage());
+            } else if (suggestion == null) {
+                hintLabel.setText("No hint: there is no move to make");
+            }
+        }));
+    }
+
     private void handleIngredientSelection(Ingredient ingredient) {
         if (isDrawMode) {
             game.drawFromPantry(ingredient.toString());
@@ -442,6 +346,14 @@ public class GameBoardUI {
     }
 
     private void updateGameState() {
+        long start = System.nanoTime();
+        long nodesBefore = CardSlot.getNodesCreated();
+        // Any hint was for the board before this move
+        if (hint != null && !hint.isCurrent()) {
+            hint.cancel();
+            hint = null;
+            hintLabel.setText("");
+        }
         if(game.getCustomers().getCustomerDeck().size() < 1) {
             Alert alert = new Alert(AlertType.INFORMATION);
             alert.setTitle("Game Over");
@@ -452,267 +364,141 @@ public class GameBoardUI {
         if(game.getActionsRemaining() < 1) {
             updateTurnInfo();
             game.endTurn();
+            autosave();
         }
         updateIngredientsSection();
         updateLayersSection();
         updateCustomersSection();
         updateBottomSection();
         updatePlayersSection();
+        if (SHOW_UPDATE_STATS) {
+            System.err.printf("Board update: %.3f ms, %d nodes created%n",
+                (System.nanoTime() - start) / 1e6, CardSlot.getNodesCreated() - nodesBefore);
+        }
+    }
+
+    // Grows the pool of slots in a section until it has at least the number needed; extra slots are hidden, not removed
+    private <T> void ensureSlots(HBox section, List<CardSlot<T>> slots, int needed, Consumer<T> onSelect) {
+        while (slots.size() < needed) {
+            CardSlot<T> slot = new CardSlot<>(onSelect);
+            slots.add(slot);
+            section.getChildren().add(slot.getNode());
+        }
+        for (int i = needed; i < slots.size(); i++) {
+            slots.get(i).hide();
+        }
     }
     
     private void updateIngredientsSection() {
-        ingredientSection.getChildren().clear();
-    
-        Label pantryLabel = new Label("Pantry");
-        pantryLabel.setStyle("-fx-font-weight: bold;");
-        ingredientSection.getChildren().add(pantryLabel);
-    
         Ingredient topIngredient = game.getPantryDeck().peek();
         if (topIngredient != null) {
-            Image topImage = imageManager.getImage(topIngredient.toString());
-            ImageView topImageView = new ImageView(topImage);
-            topImageView.setFitWidth(45);
-            topImageView.setFitHeight(60);
-            StackPane stackPane = new StackPane();
-            stackPane.getChildren().add(topImageView);
-    
-            Label countLabel = new Label("x" + game.getPantryDeck().size());
-            countLabel.getStyleClass().add("count-label");
-            countLabel.setStyle("-fx-font-weight: bold;");
-            countLabel.setTextFill(Color.RED);
-            StackPane.setAlignment(countLabel, Pos.TOP_RIGHT);
-            stackPane.getChildren().add(countLabel);
-    
-            ingredientSection.getChildren().add(stackPane);
+            pantryDeckSlot.showImage(imageManager.getCardRegion(topIngredient.toString()));
+            pantryDeckSlot.setCount("x" + game.getPantryDeck().size());
+        } else {
+            pantryDeckSlot.hide();
         }
-    
+
+        ensureSlots(ingredientSection, pantrySlots, game.getPantry().size(), this::handleIngredientSelection);
+        int i = 0;
         for (Ingredient ingredient : game.getPantry()) {
-            Image image = imageManager.getImage(ingredient.toString());
-            ImageView imageView = new ImageView(image);
-            imageView.setFitWidth(targetWidth);
-            imageView.setFitHeight(targetHeight);
-            Button ingredientButton = new Button();
-            ingredientButton.setGraphic(new ImageView(image));
-            ingredientButton.setOnAction(e -> handleIngredientSelection(ingredient));
-            ingredientSection.getChildren().add(ingredientButton);
+            pantrySlots.get(i++).showCard(ingredient, imageManager.getCardRegion(ingredient.toString()), false);
         }
     }
 
     private void updateBottomSection() {
-        bottomSection.getChildren().clear();
-        actionButtonsSection.getChildren().clear();
-        playerHandSection.getChildren().clear();
-    
-        Button refreshButton = new Button("Refresh");
-        refreshButton.setOnAction(e -> isRefreshMode = true);
-        Button drawButton = new Button("Draw");
-        drawButton.setOnAction(e -> isDrawMode = true);
-        Button passButton = new Button("Pass Card");
-        passButton.setOnAction(e -> isPassMode = true);
-        Button bakeButton = new Button("Bake Layer");
-        bakeButton.setOnAction(e -> isBakeMode = true);
-        Button fulfillButton = new Button("Fulfil Order");
-        fulfillButton.setOnAction(e -> isFulfillMode = true);
-
-        if (!game.getAvailableActions().contains(ActionType.REFRESH_PANTRY)) {
-            refreshButton.setStyle("-fx-background-color: red; -fx-opacity: 1;");
-            refreshButton.setDisable(true);
-        }
-
-        if (!game.getAvailableActions().contains(ActionType.DRAW_INGREDIENT)) {
-            drawButton.setStyle("-fx-background-color: red; -fx-opacity: 1;");
-            drawButton.setDisable(true);
-        }
-
-        if (!game.getAvailableActions().contains(ActionType.PASS_INGREDIENT)) {
-            passButton.setStyle("-fx-background-color: red; -fx-opacity: 1;");
-            passButton.setDisable(true);
-        }
-
-        if (!game.getAvailableActions().contains(ActionType.BAKE_LAYER)) {
-            bakeButton.setStyle("-fx-background-color: red; -fx-opacity: 1;");
-            bakeButton.setDisable(true);
-        }
-
-        if (!game.getAvailableActions().contains(ActionType.FULFIL_ORDER)) {
-            fulfillButton.setStyle("-fx-background-color: red; -fx-opacity: 1;");
-            fulfillButton.setDisable(true);
+        updateTurnInfo();
+
+        Collection<Object> availableActions = game.getAvailableActions();
+        for (Map.Entry<ActionType, Button> entry : actionButtons.entrySet()) {
+            Button button = entry.getValue();
+            boolean disable = !availableActions.contains(entry.getKey());
+            if (button.isDisable() != disable) {
+                button.setStyle(disable ? "-fx-background-color: red; -fx-opacity: 1;" : "");
+                button.setDisable(disable);
+            }
         }
-    
-        actionButtonsSection.getChildren().addAll(refreshButton, drawButton, passButton, bakeButton, fulfillButton);
-    
-        playerHandSection = new HBox(10);
-        playerHandSection.setAlignment(Pos.CENTER);
-        // Populate playerHandSection with cards...
-    
-        bottomSection = new VBox(10);
-        bottomSection.setAlignment(Pos.CENTER);
-        bottomSection.getChildren().addAll(actionButtonsSection, playerHandSection);
-    
-        // Add the turn information at the top of the bottom section
-        String turnInfo = String.format("%s's turn. Actions Remaining: %d/%d", game.getCurrentPlayer().toString(), game.getActionsRemaining(), game.getActionsPermitted());
-        turnInfoLabel = new Label(turnInfo); 
-        turnInfoLabel.setStyle("-fx-font-weight: bold;");
-        bottomSection.getChildren().add(0, turnInfoLabel); 
-
-        // Add a label for the player's hand
-        Label handLabel = new Label("Hand:");
-        handLabel.setStyle("-fx-font-weight: bold;");
-        playerHandSection.getChildren().add(handLabel);
 
-        Map<Ingredient, Integer> handMap = new HashMap<>();
+        // Count each ingredient in the hand, keeping the order they were drawn in so slots stay put between updates
+        Map<Ingredient, Integer> handMap = new LinkedHashMap<>();
         for (Ingredient ingredient : game.getCurrentPlayer().getHand()) {
             handMap.put(ingredient, handMap.getOrDefault(ingredient, 0) + 1);
         }
 
-        // Add buttons for each ingredient in the player's hand
-        for (Ingredient ingredient : handMap.keySet()) {
-            Image image = imageManager.getImage(ingredient.toString());
-            Button ingredientButton = new Button();
-            ingredientButton.setGraphic(new ImageView(image));
-            ingredientButton.setOnAction(e -> {
-                if (isPassMode) {
-                    selectedIngredient = ingredient;
-                }
-            });
-            // Add a label with the count to the top right corner of the button
-            Label countLabel = new Label("x" + handMap.get(ingredient));
-            countLabel.setTextFill(Color.RED);
-            countLabel.setStyle("-fx-font-weight: bold;");
-
-            // Create a StackPane to layer the Button and Label on top of each other
-            StackPane stackPane = new StackPane();
-            stackPane.getChildren().addAll(ingredientButton, countLabel);
-            StackPane.setAlignment(countLabel, Pos.TOP_RIGHT); 
-            // Position the Label at the top right corner of the StackPane
-
-            playerHandSection.getChildren().add(stackPane);
+        ensureSlots(playerHandSection, handSlots, handMap.size(), ingredient -> {
+            if (isPassMode) {
+                selectedIngredient = ingredient;
+            }
+        });
+        int i = 0;
+        for (Map.Entry<Ingredient, Integer> entry : handMap.entrySet()) {
+            CardSlot<Ingredient> slot = handSlots.get(i++);
+            slot.showCard(entry.getKey(), imageManager.getCardRegion(entry.getKey().toString()), false);
+            slot.setCount("x" + entry.getValue());
         }
-
-        refreshButton.setOnAction(e -> handleRefreshPantry());
-
-        gameBoardGrid.add(bottomSection, 0, 3); 
-        // Add the bottom section to the GridPane at the bottom
     }
 
     private void updateLayersSection() {
-        layerSection.getChildren().clear();
-
-        Label layersLabel = new Label("Layers");
-        layersLabel.setStyle("-fx-font-weight: bold;");
-        layerSection.getChildren().add(layersLabel);
-    
+        Collection<Layer> bakeableLayers = game.getBakeableLayers();
         List<Layer> layersList = new ArrayList<>(game.getLayers());
         Layer topLayer = layersList.get(layersList.size() - 1); 
         if (topLayer != null) {
-            Image layerImage = imageManager.getImage(topLayer.toString());
-            ImageView layerImageView = new ImageView(layerImage);
-            layerImageView.setFitWidth(45);
-            layerImageView.setFitHeight(60);
-    
-            StackPane stackPane = new StackPane(layerImageView);
-            Label countLabel = new Label("x" + (game.getLayers().size() - game.getBakeableLayers().size()));
-            countLabel.setTextFill(Color.RED);
-            countLabel.getStyleClass().add("count-label");
-            countLabel.setStyle("-fx-font-weight: bold;");
-            StackPane.setAlignment(countLabel, Pos.TOP_RIGHT);
-    
-            stackPane.getChildren().add(countLabel);
-            layerSection.getChildren().add(stackPane);
-        }
-    
-        for (Layer layer : game.getBakeableLayers()) {
-            Image image = imageManager.getImage(layer.toString());
-            ImageView imageView = new ImageView(image);
-            
-            imageView.setFitWidth(targetWidth);
-            imageView.setFitHeight(targetHeight);
-            
-            Button layerButton = new Button();
-            layerButton.setGraphic(new ImageView(image));
-            layerButton.setOnAction(e -> handleLayerSelection(layer));
-            layerSection.getChildren().add(layerButton);
+            layerDeckSlot.showImage(imageManager.getCardRegion(topLayer.toString()));
+            layerDeckSlot.setCount("x" + (layersList.size() - bakeableLayers.size()));
+        } else {
+            layerDeckSlot.hide();
         }
 
-        for(int i = game.getBakeableLayers().size(); i < 5; i++) {
-            Image image = imageManager.getImage("null_layer");
-            ImageView imageView = new ImageView(image);
-            layerSection.getChildren().add(imageView);
+        // Bakeable layers first, then empty places so there are always at least five cards showing
+        ensureSlots(layerSection, layerSlots, Math.max(bakeableLayers.size(), 5), this::handleLayerSelection);
+        int i = 0;
+        for (Layer layer : bakeableLayers) {
+            CardSlot<Layer> slot = layerSlots.get(i++);
+            slot.showCard(layer, imageManager.getCardRegion(layer.toString()), false);
+            slot.setCount("x" + game.getLayerCount(layer));
+        }
+        for (; i < 5; i++) {
+            layerSlots.get(i).showImage(imageManager.getCardRegion("null_layer"));
+            layerSlots.get(i).setCount(null);
         }
     }
 
     private void updatePlayersSection() {
-        playersSection.getChildren().clear();
-    
-        int count = 1;
+        int i = 0;
         for (Player player : game.getPlayers()) {
             String curr = " (Current Player)";
             if(player != game.getCurrentPlayer()) {
                 curr = "";
             }
             String playerLabelStr = String.format("%s%s", player.toString(), curr);
-            Label playerLabel = new Label(playerLabelStr);
-            playerLabel.setStyle("-fx-font-weight: bold;");
-            String playerStr = String.format("player%d", count);
-            playersSection.getChildren().add(playerLabel);
-            Image image = imageManager.getImage(playerStr);
-            ImageView imageView = new ImageView(image);
-            
-            imageView.setFitWidth(targetWidth);
-            imageView.setFitHeight(targetHeight);
-            
-            Button playerButton = new Button();
-            playerButton.setGraphic(new ImageView(image));
-            playerButton.setOnAction(e -> handlePlayerSelection(player));
-            playersSection.getChildren().add(playerButton);
-            count++;
+            Label playerLabel = playerLabels.get(i++);
+            if (!playerLabelStr.equals(playerLabel.getText())) {
+                playerLabel.setText(playerLabelStr);
+            }
         }
     }
 
     private void updateCustomersSection() {
-        customerSection.getChildren().clear();
-        Label customersLabel = new Label("Customers");
-        customersLabel.setStyle("-fx-font-weight: bold;");
-        customerSection.getChildren().add(customersLabel);
         Customers customer = game.getCustomers();
     
-        if (!game.getCustomers().getCustomerDeck().isEmpty()) {
-            Stack<CustomerOrder> customerDeck = (Stack<CustomerOrder>)customer.getCustomerDeck();
-            CustomerOrder topCustomer = customerDeck.peek();
-            Image customerImage = imageManager.getImage(topCustomer.toString());
-            ImageView customerImageView = new ImageView(customerImage);
-            StackPane stackPane = new StackPane(customerImageView);
-            Label countLabel = new Label("x" + (customerDeck.size()));
-            countLabel.setStyle("-fx-font-weight: bold;");
-            countLabel.setTextFill(Color.RED);
-            countLabel.getStyleClass().add("count-label");
-            StackPane.setAlignment(countLabel, Pos.TOP_RIGHT);
-
-            stackPane.getChildren().add(countLabel);
-            customerSection.getChildren().add(stackPane);
+        CardPile<CustomerOrder> customerDeck = (CardPile<CustomerOrder>)customer.getCustomerDeck();
+        CustomerOrder topCustomer = customerDeck.peek();
+        if (topCustomer != null) {
+            customerDeckSlot.showImage(imageManager.getCardRegion(topCustomer.toString()));
+            customerDeckSlot.setCount("x" + (customerDeck.size()));
+        } else {
+            customerDeckSlot.hide();
         }
     
+        List<Ingredient> hand = game.getCurrentPlayer().getHand();
+        ensureSlots(customerSection, customerSlots, customer.getActiveCustomers().size(), this::handleCustomerSelection);
+        int i = 0;
         for (CustomerOrder customerOrder : customer.getActiveCustomers()) {
+            CardSlot<CustomerOrder> slot = customerSlots.get(i++);
             if(customerOrder != null) {
-                Image image = imageManager.getImage(customerOrder.toString());
-                ImageView imageView = new ImageView(image);
-                
-                //imageView.setPreserveRatio(true);
-                Button customerButton = new Button();
-                customerButton.setGraphic(new ImageView(image));
                 // Disable the button if the customerOrder is not fulfillable
-                if (!customerOrder.canFulfill(game.getCurrentPlayer().getHand())) {
-                    customerButton.setDisable(true);
-                } else {
-                    customerButton.setDisable(false);
-                }
-                // Set the action to perform when the ingredient button is clicked
-                customerButton.setOnAction(e -> handleCustomerSelection(customerOrder));
-                customerSection.getChildren().add(customerButton);
+                slot.showCard(customerOrder, imageManager.getCardRegion(customerOrder.toString()), !customerOrder.canFulfill(hand));
             } else {
-                Image image = imageManager.getImage("null");
-                ImageView imageView = new ImageView(image);
-                customerSection.getChildren().add(imageView);
+                slot.showImage(imageManager.getCardRegion("null"));
             }
         }
     }
@@ -730,14 +516,7 @@ private void setupSave() throws IOException{
     quitButton.setOnMouseExited(e -> quitButton.setStyle("-fx-background-color: #FF0000; -fx-text-fill: #FFFFFF;"));
 
     // Set the actions for the buttons
-    saveButton.setOnAction(e -> {
-        try {
-            handleSave();
-        } catch (IOException e1) {
-            // TODO Auto-generated catch block
-            e1.printStackTrace();
-        }
-    });
+    saveButton.setOnAction(e -> handleSave());
     quitButton.setOnAction(e -> {
         handleQuit();
     });
@@ -782,9 +561,9 @@ private void setupSave() throws IOException{
         Alert alert = new Alert(AlertType.INFORMATION);
         alert.setTitle("Fulfilled");
         alert.setHeaderText("Fulfilled Customers");
-        int garnished = game.getCustomers().getInactiveCustomersWithStatus(CustomerOrderStatus.GARNISHED).size();
-        int completed = game.getCustomers().getInactiveCustomersWithStatus(CustomerOrderStatus.FULFILLED).size() + garnished;
-        int left = game.getCustomers().getInactiveCustomersWithStatus(CustomerOrderStatus.GIVEN_UP).size();
+        int garnished = game.getCustomers().getInactiveCount(CustomerOrderStatus.GARNISHED);
+        int completed = game.getCustomers().getInactiveCount(CustomerOrderStatus.FULFILLED) + garnished;
+        int left = game.getCustomers().getInactiveCount(CustomerOrderStatus.GIVEN_UP);
         String result = String.format("\nHappy customers eating baked goods: %d (%d Garnished) \nGone to greggs instead : %d\n", completed, garnished, left);
         alert.setContentText(result);
         DialogPane dialogPane = alert.getDialogPane();
@@ -793,8 +572,9 @@ private void setupSave() throws IOException{
         alert.showAndWait();
     });
 
+    saveStatusLabel = new Label();
     HBox buttonBox = new HBox(10); 
-    buttonBox.getChildren().addAll(saveButton, quitButton, infoButton, fulfilled);
+    buttonBox.getChildren().addAll(saveButton, quitButton, infoButton, fulfilled, saveStatusLabel);
 
     AnchorPane anchorPane = new AnchorPane(buttonBox);
 
@@ -804,13 +584,31 @@ private void setupSave() throws IOException{
     gameBoardGrid.add(anchorPane, 3, 0);
 }
 
-private void handleSave() throws IOException{
-    // Save the game
-    File file = new File("savefile.txt");
-    game.saveState(file);
+private void handleSave() {
+    // The game is captured here on the FX thread; only the disk write happens in the background
+    saveStatusLabel.setText("Saving...");
+    SaveService.getInstance().saveAsync(game, new File(SAVE_FILE))
+        .whenComplete((file, error) -> Platform.runLater(() -> showSaveResult("Saved", error)));
+}
+
+private void autosave() {
+    SaveService.getInstance().saveAsync(game, new File(AUTOSAVE_FILE))
+        .whenComplete((file, error) -> Platform.runLater(() -> showSaveResult("Autosaved", error)));
+}
+
+private void showSaveResult(String done, Throwable error) {
+    if (error == null) {
+        saveStatusLabel.setText(String.format("%s at %s", done, LocalTime.now().format(SAVE_TIME_FORMAT)));
+        saveStatusLabel.setTextFill(Color.BLACK);
+    } else {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        saveStatusLabel.setText("Save failed: " + cause.getMessage());
+        saveStatusLabel.setTextFill(Color.RED);
+    }
 }
 
 private void handleQuit() {
+    HintService.getInstance().cancel();
     new StartScreenUI(stage);
 }
 
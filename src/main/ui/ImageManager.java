@@ -1,107 +1,237 @@
 package ui;
-import java.util.Map;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import javafx.scene.image.Image;
+import javafx.stage.Screen;
+
+/**
+ * Supplies the card, player and background pictures used by the game screens. There is one image manager for the whole
+ * process: every screen and every board shares the same decoded images.
+ *
+ * The images that exist are listed in images/manifest.csv, which maps each key (a card name, "player1", "start", ...) to
+ * the picture file to use. Pictures are decoded the first time they are asked for, or ahead of time on a background thread
+ * (see {@link #preloadInBackground()}). Decoded pictures are kept in a least-recently-used cache bounded by
+ * the memory they take up (16 MB by default, set with -Dbakery.ui.imageCacheMB), and keys that share a file share one
+ * decoded picture.
+ *
+ * Card pictures also come packed into a {@link CardAtlas}, decoded at the size the manifest gives for them on the board
+ * (scaled up for HiDPI screens); {@link #getCardRegion(String)} hands out pictures from the atlas for the primary screen.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public class ImageManager {
+    private static final String IMAGE_ROOT = "/ui/images/";
+    private static final String MANIFEST = IMAGE_ROOT + "manifest.csv";
+    private static final long DEFAULT_CACHE_MB = 16;
+
+    private static ImageManager instance;
 
-    public class ImageManager {
-        private Map<String, Image> imageCache = new HashMap<>();
-    
-        public ImageManager() {
-            loadImages();
+    private final Map<String, String> manifest;
+    private final Map<String, CardAtlas.Entry> atlasEntries = new LinkedHashMap<>();
+    private final Map<Double, CardAtlas> atlases = new HashMap<>();
+    private final LinkedHashMap<String, Image> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private final long maxBytes;
+    private final long startNanos = System.nanoTime();
+    private final long manifestNanos;
+    private long firstImageNanos = -1;
+    private long cachedBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long decoded;
+    private long decodeNanos;
+    private long atlasNanos;
+
+    private ImageManager(long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.manifest = readManifest(atlasEntries);
+        this.manifestNanos = System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Returns the image manager shared by the whole application, reading the image manifest the first time it is called.
+     *
+     * @return the shared image manager.
+     */
+    public static synchronized ImageManager getInstance() {
+        if (instance == null) {
+            instance = new ImageManager(Long.getLong("bakery.ui.imageCacheMB", DEFAULT_CACHE_MB) * 1024 * 1024);
         }
-    
-        private void loadImages() {
-            // Load and cache images
-
-            // start game image
-            imageCache.put("start", new Image(getClass().getResourceAsStream("/ui/images/SHOP.jpg")));
-
-            // player images
-            imageCache.put("player1", new Image(getClass().getResourceAsStream("/ui/images/Players/player1.jpg")));
-            imageCache.put("player2", new Image(getClass().getResourceAsStream("/ui/images/Players/player2.jpg")));
-            imageCache.put("player3", new Image(getClass().getResourceAsStream("/ui/images/Players/player3.jpg")));
-            imageCache.put("player4", new Image(getClass().getResourceAsStream("/ui/images/Players/player4.jpg")));
-            imageCache.put("player5", new Image(getClass().getResourceAsStream("/ui/images/Players/player1.jpg")));
-
-            /*
-             *  1, chocolate bombe, biscuit; butter; chocolate, chocolate
-                1, chocolate chip scones, chocolate; pastry, fruit
-                1, crumpets, butter; eggs; flour, jam
-                1, fondant fancies, icing; sponge, chocolate
-                1, millionaire's shortbread, biscuit; butter; chocolate; sugar,
-                1, pistachio ganache macarons, biscuit; chocolate,
-                1, raspberry pavlova, eggs; fruit; sugar,
-                1, shortbread biscuits, biscuit; icing,
-                2, bakewell slice, icing; jam; pastry,
-                2, chocolate tea cake, biscuit; chocolate; fruit, chocolate
-                2, custard tart, crème pât; pastry, fruit
-                2, fruit tart, crème pât; fruit; pastry,
-                2, jaffa cakes, chocolate; jam; sponge,
-                2, lemon drizzle cake, fruit; icing; sponge, fruit
-                2, mille feuille, crème pât; fruit; pastry, fruit
-                2, profiteroles, chocolate; crème pât; pastry,
-                2, swiss roll, jam; sponge,
-                3, almond & chocolate torte, chocolate; icing; sponge, chocolate
-                3, cocoa crème doughnuts, chocolate; crème pât; sponge; chocolate
-                3, danish pastries, crème pât; icing; pastry, fruit
-                3, empire biscuit, biscuit; fruit; icing; jam,
-                3, frasier cake, crème pât; icing; sponge, fruit
-                3, old fashioned trifle, crème pât; jam; sponge, fruit
-                3, showstopper cake (2 tiered), icing; sponge; sponge, chocolate; fruit
-                3, viennese whirls, biscuit, icing; jam
-             */
-
-            // customer images
-            imageCache.put("null", new Image(getClass().getResourceAsStream("/ui/images/Customers/null.jpg")));
-            imageCache.put("chocolate bombe", new Image(getClass().getResourceAsStream("/ui/images/Customers/bombe.jpg")));
-            imageCache.put("chocolate chip scones", new Image(getClass().getResourceAsStream("/ui/images/Customers/scone.jpg")));
-            imageCache.put("crumpets", new Image(getClass().getResourceAsStream("/ui/images/Customers/crumpet.jpg")));
-            imageCache.put("fondant fancies", new Image(getClass().getResourceAsStream("/ui/images/Customers/fondant.jpg")));
-            imageCache.put("millionaire's shortbread", new Image(getClass().getResourceAsStream("/ui/images/Customers/shortbread.jpg")));
-            imageCache.put("pistachio ganache macarons", new Image(getClass().getResourceAsStream("/ui/images/Customers/macaron.jpg")));
-            imageCache.put("raspberry pavlova", new Image(getClass().getResourceAsStream("/ui/images/Customers/pavlova.jpg")));
-            imageCache.put("shortbread biscuits", new Image(getClass().getResourceAsStream("/ui/images/Customers/shortbread_biscuit.jpg")));
-            imageCache.put("bakewell slice", new Image(getClass().getResourceAsStream("/ui/images/Customers/bakewell.jpg")));
-            imageCache.put("chocolate tea cake", new Image(getClass().getResourceAsStream("/ui/images/Customers/choc_cake.jpg")));
-            imageCache.put("custard tart", new Image(getClass().getResourceAsStream("/ui/images/Customers/tart.jpg")));
-            imageCache.put("fruit tart", new Image(getClass().getResourceAsStream("/ui/images/Customers/fruit_tart.jpg")));
-            imageCache.put("jaffa cakes", new Image(getClass().getResourceAsStream("/ui/images/Customers/jaffa.jpg")));
-            imageCache.put("lemon drizzle cake", new Image(getClass().getResourceAsStream("/ui/images/Customers/drizzle.jpg")));
-            imageCache.put("mille feuille", new Image(getClass().getResourceAsStream("/ui/images/Customers/mille.jpg")));
-            imageCache.put("profiteroles", new Image(getClass().getResourceAsStream("/ui/images/Customers/profiteroles.jpg")));
-            imageCache.put("swiss roll", new Image(getClass().getResourceAsStream("/ui/images/Customers/swiss.jpg")));
-            imageCache.put("almond & chocolate torte", new Image(getClass().getResourceAsStream("/ui/images/Customers/shortbread.jpg")));
-            imageCache.put("cocoa crème doughnuts", new Image(getClass().getResourceAsStream("/ui/images/Customers/donut.jpg")));
-            imageCache.put("danish pastries", new Image(getClass().getResourceAsStream("/ui/images/Customers/danish.jpg")));
-            imageCache.put("empire biscuit", new Image(getClass().getResourceAsStream("/ui/images/Customers/empire.jpg")));
-            imageCache.put("frasier cake", new Image(getClass().getResourceAsStream("/ui/images/Customers/cake.jpg")));
-            imageCache.put("old fashioned trifle", new Image(getClass().getResourceAsStream("/ui/images/Customers/trifle.jpg")));
-            imageCache.put("showstopper cake (2 tiered)", new Image(getClass().getResourceAsStream("/ui/images/Customers/showstopper.jpg")));
-            imageCache.put("viennese whirls", new Image(getClass().getResourceAsStream("/ui/images/Customers/viennese.jpg")));
-
-            
-
-            // ingredient images
-            imageCache.put("butter", new Image(getClass().getResourceAsStream("/ui/images/Ingredients/BUTTER.jpg")));
-            imageCache.put("helpful duck 𓅭", new Image(getClass().getResourceAsStream("/ui/images/Ingredients/DUCK.jpg")));
-            imageCache.put("eggs", new Image(getClass().getResourceAsStream("/ui/images/Ingredients/EGG.jpg")));
-            imageCache.put("flour", new Image(getClass().getResourceAsStream("/ui/images/Ingredients/FLOUR.jpg")));
-            imageCache.put("fruit", new Image(getClass().getResourceAsStream("/ui/images/Ingredients/FRUIT.jpg")));
-            imageCache.put("chocolate", new Image(getClass().getResourceAsStream("/ui/images/Ingredients/CHOCOLATE.jpg")));
-            imageCache.put("sugar", new Image(getClass().getResourceAsStream("/ui/images/Ingredients/SUGAR.jpg")));
-        
-            // layer images
-            imageCache.put("null_layer", new Image(getClass().getResourceAsStream("/ui/images/Layers/null_layer.jpg")));
-            imageCache.put("biscuit", new Image(getClass().getResourceAsStream("/ui/images/Layers/BISCUIT.jpg")));
-            imageCache.put("crème pât", new Image(getClass().getResourceAsStream("/ui/images/Layers/CREME_PAT.jpg")));
-            imageCache.put("icing", new Image(getClass().getResourceAsStream("/ui/images/Layers/ICING.jpg")));
-            imageCache.put("jam", new Image(getClass().getResourceAsStream("/ui/images/Layers/JAM.jpg")));
-            imageCache.put("pastry", new Image(getClass().getResourceAsStream("/ui/images/Layers/PASTRY.jpg")));
-            imageCache.put("sponge", new Image(getClass().getResourceAsStream("/ui/images/Layers/SPONGE.jpg")));
+        return instance;
+    }
+
+    /**
+     * Returns the picture for a key, decoding it if it is not already cached.
+     *
+     * @param key the name of the picture, as listed in the manifest.
+     * @return the picture, or null if the manifest has no picture for the key.
+     */
+    public Image getImage(String key) {
+        String path = manifest.get(key);
+        if (path == null) {
+            return null;
         }
-    
-        public Image getImage(String key) {
-            return imageCache.get(key);
+        synchronized (this) {
+            Image image = cache.get(path);
+            if (image != null) {
+                hits++;
+                return image;
+            }
+            misses++;
         }
-}
+        return load(path);
+    }
+
+    /**
+     * Returns the picture for a card, taken from the card atlas built for the primary screen's output scale. Keys that are
+     * not part of the atlas fall back to the full picture, drawn at its natural size.
+     *
+     * @param key the name of the picture, as listed in the manifest.
+     * @return the picture, or null if the manifest has no picture for the key.
+     */
+    public CardAtlas.Region getCardRegion(String key) {
+        Screen screen = Screen.getPrimary();
+        CardAtlas.Region region = getCardAtlas(screen == null ? 1 : screen.getOutputScaleX()).get(key);
+        if (region == null) {
+            Image image = getImage(key);
+            return image == null ? null : new CardAtlas.Region(image, null, image.getWidth(), image.getHeight());
+        }
+        return region;
+    }
+
+    /**
+     * Returns the card atlas for an output scale, building it the first time that scale is asked for.
+     *
+     * @param scale the output scale of the screen the cards are shown on.
+     * @return the card atlas for that scale.
+     */
+    public synchronized CardAtlas getCardAtlas(double scale) {
+        CardAtlas atlas = atlases.get(scale);
+        if (atlas == null) {
+            long start = System.nanoTime();
+            atlas = new CardAtlas(atlasEntries, scale, this::decodeAtSize);
+            atlasNanos += System.nanoTime() - start;
+            atlases.put(scale, atlas);
+        }
+        return atlas;
+    }
+
+    /**
+     * Starts building the card atlas for the primary screen on a background thread, so the first board can be shown without
+     * waiting for its pictures to be decoded.
+     */
+    public void preloadInBackground() {
+        Screen screen = Screen.getPrimary();
+        double scale = screen == null ? 1 : screen.getOutputScaleX();
+        Thread preloader = new Thread(() -> getCardAtlas(scale), "image-preload");
+        preloader.setDaemon(true);
+        preloader.start();
+    }
 
+    /**
+     * Describes how well the cache has done so far: how long the manifest took to read and the first picture took to
+     * arrive, the hit rate, and how many pictures have been decoded and evicted.
+     *
+     * @return a one-line summary of the cache statistics.
+     */
+    public synchronized String getStats() {
+        long lookups = hits + misses;
+        return String.format("Images: manifest %.1f ms, first image %.1f ms, %d/%d hits (%.1f%%), %d decoded in %.1f ms, "
+            + "%d evicted, %d cached (%d KB), %d atlas(es) built in %.1f ms",
+            manifestNanos / 1e6, firstImageNanos < 0 ? 0 : firstImageNanos / 1e6, hits, lookups,
+            lookups == 0 ? 0 : 100.0 * hits / lookups, decoded, decodeNanos / 1e6, evictions, cache.size(), cachedBytes / 1024,
+            atlases.size(), atlasNanos / 1e6);
+    }
+
+    // Decodes outside the lock so one slow picture never blocks lookups of cached ones
+    private Image load(String path) {
+        long start = System.nanoTime();
+        Image image;
+        try (InputStream in = getClass().getResourceAsStream(IMAGE_ROOT + path)) {
+            if (in == null) {
+                return null;
+            }
+            image = new Image(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long end = System.nanoTime();
+
+        synchronized (this) {
+            decoded++;
+            decodeNanos += end - start;
+            if (firstImageNanos < 0) {
+                firstImageNanos = end - startNanos;
+            }
+            Image existing = cache.get(path);
+            if (existing != null) {
+                return existing;
+            }
+            cache.put(path, image);
+            cachedBytes += sizeOf(image);
+            evictToBudget();
+        }
+        return image;
+    }
+
+    private Image decodeAtSize(String path, double width, double height) {
+        try (InputStream in = getClass().getResourceAsStream(IMAGE_ROOT + path)) {
+            return in == null ? null : new Image(in, width, height, false, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void evictToBudget() {
+        Iterator<Image> eldest = cache.values().iterator();
+        while (cachedBytes > maxBytes && cache.size() > 1) {
+            Image image = eldest.next();
+            cachedBytes -= sizeOf(image);
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    private static long sizeOf(Image image) {
+        return (long) image.getWidth() * (long) image.getHeight() * 4;
+    }
+
+    // Reads KEY, PATH[, WIDTH, HEIGHT] lines; entries with an on-screen size also go into the card atlas
+    private static Map<String, String> readManifest(Map<String, CardAtlas.Entry> atlasEntries) {
+        Map<String, String> result = new LinkedHashMap<>();
+        InputStream in = ImageManager.class.getResourceAsStream(MANIFEST);
+        if (in == null) {
+            throw new IllegalStateException("Image manifest not found: " + MANIFEST);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",");
+                if (line.startsWith("KEY") || fields.length < 2) {
+                    continue;
+                }
+                String key = fields[0].strip();
+                String path = fields[1].strip();
+                result.put(key, path);
+                if (fields.length >= 4) {
+                    atlasEntries.put(key, new CardAtlas.Entry(path,
+                        Double.parseDouble(fields[2].strip()), Double.parseDouble(fields[3].strip())));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+}
@@ -26,7 +26,7 @@ import java.io.FileNotFoundException;
 
 public class PlayerNameInputUI {
     private Stage stage;
-    private ImageManager imageManager = new ImageManager();
+    private ImageManager imageManager = ImageManager.getInstance();
 
     public PlayerNameInputUI(Stage stage) {
         this.stage = stage;
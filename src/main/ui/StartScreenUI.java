@@ -1,7 +1,9 @@
 package ui;
 
 import javafx.scene.Scene;
+import javafx.application.Platform;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.image.Image;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.BackgroundImage;
@@ -12,15 +14,14 @@ import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 
 import java.io.File;
-import java.io.IOException;
 
-import bakery.MagicBakery;
+import util.SaveService;
 import javafx.geometry.Pos;
 import javafx.geometry.Rectangle2D;
 import javafx.stage.Screen;
 
 public class StartScreenUI {
-    ImageManager imageManager = new ImageManager();
+    ImageManager imageManager = ImageManager.getInstance();
 
     public StartScreenUI(Stage stage) {
         VBox root = new VBox(10);
@@ -34,24 +35,46 @@ public class StartScreenUI {
         Button startButton = new Button("New Game");
         Button loadButton = new Button("Load Game");
         startButton.setOnAction(e -> new PlayerNameInputUI(stage).show());
+        Label loadStatus = new Label();
         loadButton.setOnAction(e -> {
-            try {
-                File saveFile = new File("savefile.txt");
-                new GameBoardUI(stage, MagicBakery.loadState(saveFile)).show();
-            } catch (ClassNotFoundException e1) {
-                // TODO Auto-generated catch block
-                e1.printStackTrace();
-            } catch (IOException e1) {
-                // TODO Auto-generated catch block
-                e1.printStackTrace();
+            File saveFile = latestSave();
+            if (saveFile == null) {
+                loadStatus.setText("No saved game found");
+                return;
             }
+            // Read the save in the background so the window keeps responding while it loads
+            loadButton.setDisable(true);
+            loadStatus.setText("Loading...");
+            SaveService.getInstance().loadAsync(saveFile).whenComplete((game, error) -> Platform.runLater(() -> {
+                loadButton.setDisable(false);
+                if (error == null) {
+                    new GameBoardUI(stage, game).show();
+                } else {
+                    Throwable cause = error.getCause() != null ? error.getCause() : error;
+                    loadStatus.setText("Could not load " + saveFile.getName() + ": " + cause.getMessage());
+                }
+            }));
         });
         root.getChildren().add(startButton);
         root.getChildren().add(loadButton);
+        root.getChildren().add(loadStatus);
         Scene scene = new Scene(root, 1000, 400);
         stage.setScene(scene);
         stage.setTitle("Kim Joy's Magic Bakery");
         stage.show();
     }
+
+    // The manual save or the autosave, whichever was written last
+    private static File latestSave() {
+        File save = new File(GameBoardUI.SAVE_FILE);
+        File autosave = new File(GameBoardUI.AUTOSAVE_FILE);
+        if (!autosave.exists()) {
+            return save.exists() ? save : null;
+        }
+        if (!save.exists()) {
+            return autosave;
+        }
+        return autosave.lastModified() > save.lastModified() ? autosave : save;
+    }
 }
 
@@ -0,0 +1,346 @@
+package util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import bakery.CustomerOrder;
+import bakery.CustomerOrder.CustomerOrderStatus;
+import bakery.Ingredient;
+import bakery.Layer;
+import bakery.MagicBakery;
+import bakery.Player;
+
+/**
+ * Renders the ASCII card rows used by the console version of the game, writing directly into any {@link Appendable}.
+ * The text for each card (its centred name, wrapped recipe lines and garnish) never changes, as cards cannot be modified,
+ * so it is built once, cached and reused; a render then only copies cached cells into the output.
+ *
+ * The layout is identical to the one produced by {@link StringUtils#customerOrdersToStrings(Collection)},
+ * {@link StringUtils#ingredientsToStrings(Collection)} and {@link StringUtils#layersToStrings(Collection)}, which delegate
+ * to this class. A single renderer should be reused for as long as possible (for example one per game) so its cache stays
+ * warm. Instances are not thread safe.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public final class CardRenderer {
+    private static final int CUSTOMER_CARD_WIDTH_INNER = 36;
+    private static final int INGREDIENT_CARD_WIDTH_INNER = 20;
+    private static final int LAYER_CARD_WIDTH_INNER = 16;
+    private static final int MAX_CACHED_CARDS = 1024;
+
+    private static final String INDENT = "  ";
+    private static final String CARD_VERTICAL_LEFT = "| ";
+    private static final String CARD_VERTICAL_RIGHT = " |";
+    private static final char NEWLINE = '\n';
+
+    private static final String CUSTOMER_BORDER = cell("-".repeat(CUSTOMER_CARD_WIDTH_INNER));
+    private static final String CUSTOMER_BLANK = cell(" ".repeat(CUSTOMER_CARD_WIDTH_INNER));
+    private static final String INGREDIENT_BORDER = cell("-".repeat(INGREDIENT_CARD_WIDTH_INNER));
+    private static final String LAYER_BORDER = cell("-".repeat(LAYER_CARD_WIDTH_INNER));
+    private static final String LAYER_BLANK = cell(" ".repeat(LAYER_CARD_WIDTH_INNER));
+    private static final String LAYER_RECIPE_HEAD = cell(padRight(LAYER_CARD_WIDTH_INNER, "Recipe: "));
+
+    private final Map<CustomerOrder, CustomerBlock> customerBlocks = new IdentityHashMap<>();
+    private final Map<String, LayerBlock> layerBlocks = new HashMap<>();
+    private final Map<String, String> ingredientCells = new HashMap<>();
+    private final List<Object> rowScratch = new ArrayList<>();
+
+    /**
+     * Creates a renderer with an empty card cache.
+     */
+    public CardRenderer() {
+    }
+
+    /**
+     * Writes the rows for a row of customer cards. Null entries are drawn as empty card slots, and the cards are laid out
+     * from the last entry to the first so the customer closest to leaving appears on the right.
+     *
+     * @param out the destination for the rendered rows, one line per row.
+     * @param customerOrders the customer slots to render.
+     * @throws IOException if the destination cannot be written to.
+     */
+    public void appendCustomerOrders(Appendable out, Collection<CustomerOrder> customerOrders) throws IOException {
+        List<Object> blocks = rowScratch;
+        blocks.clear();
+        int maxRecipeLines = 0;
+        Object[] slots = customerOrders.toArray();
+        for (int i = slots.length - 1; i >= 0; i--) {
+            CustomerOrder customer = (CustomerOrder) slots[i];
+            CustomerBlock block = customer == null ? null : customerBlock(customer);
+            if (block != null) {
+                maxRecipeLines = Math.max(maxRecipeLines, block.recipeLineCount);
+            }
+            blocks.add(block);
+        }
+
+        appendRepeatedRow(out, blocks.size(), CUSTOMER_BORDER);
+        out.append(INDENT);
+        for (Object block : blocks) {
+            CustomerBlock customer = (CustomerBlock) block;
+            if (customer == null) {
+                out.append(CUSTOMER_BLANK);
+            } else if (customer.order.getStatus() == CustomerOrderStatus.IMPATIENT) {
+                out.append(customer.impatientName);
+            } else {
+                out.append(customer.name);
+            }
+        }
+        out.append(NEWLINE);
+        out.append(INDENT);
+        for (Object block : blocks) {
+            out.append(block == null ? CUSTOMER_BLANK : ((CustomerBlock) block).recipeHead);
+        }
+        out.append(NEWLINE);
+        for (int line = 0; line < maxRecipeLines; line++) {
+            out.append(INDENT);
+            for (Object block : blocks) {
+                String[] recipe = block == null ? null : ((CustomerBlock) block).recipe;
+                out.append(recipe == null || line >= recipe.length ? CUSTOMER_BLANK : recipe[line]);
+            }
+            out.append(NEWLINE);
+        }
+        out.append(INDENT);
+        for (Object block : blocks) {
+            out.append(block == null ? CUSTOMER_BLANK : ((CustomerBlock) block).garnishHead);
+        }
+        out.append(NEWLINE);
+        out.append(INDENT);
+        for (Object block : blocks) {
+            out.append(block == null ? CUSTOMER_BLANK : ((CustomerBlock) block).garnish);
+        }
+        out.append(NEWLINE);
+        appendRepeatedRow(out, blocks.size(), CUSTOMER_BORDER);
+        blocks.clear();
+    }
+
+    /**
+     * Writes the rows for a row of ingredient cards, in iteration order.
+     *
+     * @param out the destination for the rendered rows, one line per row.
+     * @param ingredients the ingredients to render.
+     * @throws IOException if the destination cannot be written to.
+     */
+    public void appendIngredients(Appendable out, Collection<Ingredient> ingredients) throws IOException {
+        appendRepeatedRow(out, ingredients.size(), INGREDIENT_BORDER);
+        out.append(INDENT);
+        for (Ingredient ingredient : ingredients) {
+            out.append(ingredientCell(ingredient));
+        }
+        out.append(NEWLINE);
+        appendRepeatedRow(out, ingredients.size(), INGREDIENT_BORDER);
+    }
+
+    /**
+     * Writes the rows for a row of layer cards, sorted alphabetically by name.
+     *
+     * @param out the destination for the rendered rows, one line per row.
+     * @param layers the layers to render.
+     * @throws IOException if the destination cannot be written to.
+     */
+    public void appendLayers(Appendable out, Collection<Layer> layers) throws IOException {
+        List<Object> blocks = rowScratch;
+        blocks.clear();
+        int maxRecipeLines = 0;
+        for (Layer layer : layers) {
+            LayerBlock block = layerBlock(layer);
+            maxRecipeLines = Math.max(maxRecipeLines, block.recipe.length);
+            blocks.add(block);
+        }
+        blocks.sort((o1, o2) -> ((LayerBlock) o1).sortKey.compareTo(((LayerBlock) o2).sortKey));
+
+        appendRepeatedRow(out, blocks.size(), LAYER_BORDER);
+        out.append(INDENT);
+        for (Object block : blocks) {
+            out.append(((LayerBlock) block).name);
+        }
+        out.append(NEWLINE);
+        appendRepeatedRow(out, blocks.size(), LAYER_RECIPE_HEAD);
+        for (int line = 0; line < maxRecipeLines; line++) {
+            out.append(INDENT);
+            for (Object block : blocks) {
+                String[] recipe = ((LayerBlock) block).recipe;
+                out.append(line < recipe.length ? recipe[line] : LAYER_BLANK);
+            }
+            out.append(NEWLINE);
+        }
+        appendRepeatedRow(out, blocks.size(), LAYER_BORDER);
+        blocks.clear();
+    }
+
+    /**
+     * Writes the complete console view of a game in a single pass: the layers, the pantry, the waiting customers, the
+     * customer service record and the current player's hand.
+     *
+     * @param out the destination for the rendered game state.
+     * @param bakery the game to render.
+     * @throws IOException if the destination cannot be written to.
+     */
+    public void appendGameState(Appendable out, MagicBakery bakery) throws IOException {
+        out.append("Layers:").append(NEWLINE);
+        appendLayers(out, bakery.getLayers());
+        out.append("Pantry:").append(NEWLINE);
+        appendIngredients(out, bakery.getPantry());
+        if (bakery.getCustomers().size() > 0) {
+            out.append("Waiting for service:").append(NEWLINE);
+            appendCustomerOrders(out, bakery.getCustomers().getActiveCustomers());
+        } else {
+            out.append("No customers waiting -- time for a brew :).").append(NEWLINE);
+        }
+        appendCustomerServiceRecord(out, bakery);
+        Player player = bakery.getCurrentPlayer();
+        out.append(NEWLINE).append(player.toString()).append(" it's your turn. Your hand contains: ").append(player.getHandStr());
+    }
+
+    /**
+     * Writes the customer service record: how many customers were served (and how many of those garnished) and how many
+     * gave up waiting.
+     *
+     * @param out the destination for the record.
+     * @param bakery the game whose record is written.
+     * @throws IOException if the destination cannot be written to.
+     */
+    public void appendCustomerServiceRecord(Appendable out, MagicBakery bakery) throws IOException {
+        int garnished = bakery.getCustomers().getInactiveCount(CustomerOrderStatus.GARNISHED);
+        int fulfilled = bakery.getCustomers().getInactiveCount(CustomerOrderStatus.FULFILLED) + garnished;
+        int left = bakery.getCustomers().getInactiveCount(CustomerOrderStatus.GIVEN_UP);
+        out.append(NEWLINE).append("Happy customers eating baked goods: ").append(Integer.toString(fulfilled))
+            .append(" (").append(Integer.toString(garnished)).append(" Garnished) ").append(NEWLINE)
+            .append("Gone to greggs instead : ").append(Integer.toString(left)).append(NEWLINE);
+    }
+
+    private CustomerBlock customerBlock(CustomerOrder customer) {
+        CustomerBlock block = customerBlocks.get(customer);
+        if (block == null) {
+            if (customerBlocks.size() >= MAX_CACHED_CARDS) {
+                customerBlocks.clear();
+            }
+            block = new CustomerBlock(customer);
+            customerBlocks.put(customer, block);
+        }
+        return block;
+    }
+
+    private LayerBlock layerBlock(Layer layer) {
+        String key = layer.toString();
+        LayerBlock block = layerBlocks.get(key);
+        // Two games may have layers of the same name with different recipes; a shared recipe list compares by identity
+        if (block == null || !block.recipeCards.equals(layer.getRecipe())) {
+            if (layerBlocks.size() >= MAX_CACHED_CARDS) {
+                layerBlocks.clear();
+            }
+            block = new LayerBlock(layer);
+            layerBlocks.put(key, block);
+        }
+        return block;
+    }
+
+    private String ingredientCell(Ingredient ingredient) {
+        String key = ingredient.toString();
+        String cell = ingredientCells.get(key);
+        if (cell == null) {
+            if (ingredientCells.size() >= MAX_CACHED_CARDS) {
+                ingredientCells.clear();
+            }
+            cell = cell(centre(INGREDIENT_CARD_WIDTH_INNER, key).toUpperCase());
+            ingredientCells.put(key, cell);
+        }
+        return cell;
+    }
+
+    private static void appendRepeatedRow(Appendable out, int n, String cell) throws IOException {
+        out.append(INDENT);
+        for (int i = 0; i < n; i++) {
+            out.append(cell);
+        }
+        out.append(NEWLINE);
+    }
+
+    private static String cell(String text) {
+        return CARD_VERTICAL_LEFT + text + CARD_VERTICAL_RIGHT;
+    }
+
+    private static String[] centredCells(int width, List<String> lines, boolean titleCase) {
+        String[] cells = new String[lines.size()];
+        for (int i = 0; i < cells.length; i++) {
+            String line = titleCase ? StringUtils.toTitleCase(lines.get(i)) : lines.get(i);
+            cells[i] = cell(centre(width, line));
+        }
+        return cells;
+    }
+
+    // Matches the historic String.format based centring, including the width corrections for the wide hourglass and duck glyphs
+    static String centre(int width, String s) {
+        if (s.endsWith("⌛")) {
+            width--;
+        }
+        if (s.equals(Ingredient.HELPFUL_DUCK.toString())) {
+            ++width;
+        }
+        int left = width > s.length() ? (width - s.length()) / 2 : 0;
+        int right = Math.max(width - left - s.length(), 0);
+        StringBuilder sb = new StringBuilder(left + s.length() + right);
+        for (int i = 0; i < left; i++) {
+            sb.append(' ');
+        }
+        sb.append(s);
+        for (int i = 0; i < right; i++) {
+            sb.append(' ');
+        }
+        return sb.toString();
+    }
+
+    static String padRight(int width, String s) {
+        return s + " ".repeat(Math.max(width - s.length(), 0));
+    }
+
+    // Cached, pre-formatted cells for one customer card
+    private static final class CustomerBlock {
+        private final CustomerOrder order;
+        private final String name;
+        private final String impatientName;
+        private final String recipeHead;
+        private final String[] recipe;
+        private final int recipeLineCount;
+        private final String garnishHead;
+        private final String garnish;
+
+        private CustomerBlock(CustomerOrder order) {
+            this.order = order;
+            String upperName = order.toString().toUpperCase();
+            this.name = cell(centre(CUSTOMER_CARD_WIDTH_INNER, upperName));
+            this.impatientName = cell(centre(CUSTOMER_CARD_WIDTH_INNER, upperName + "⌛"));
+            String description = order.getRecipeDescription();
+            this.recipeHead = cell(padRight(CUSTOMER_CARD_WIDTH_INNER, description.length() > 0 ? "Recipe: " : ""));
+            this.recipe = centredCells(CUSTOMER_CARD_WIDTH_INNER,
+                StringUtils.splitString(CUSTOMER_CARD_WIDTH_INNER, StringUtils.toTitleCase(description), ","), false);
+            this.recipeLineCount = StringUtils.splitString(CUSTOMER_CARD_WIDTH_INNER, description, ",").size();
+            String garnishDescription = order.getGarnishDescription();
+            this.garnishHead = cell(padRight(CUSTOMER_CARD_WIDTH_INNER, garnishDescription.length() > 0 ? "Garnish: " : ""));
+            this.garnish = cell(centre(CUSTOMER_CARD_WIDTH_INNER,
+                garnishDescription.length() > 0 ? StringUtils.toTitleCase(garnishDescription) : ""));
+        }
+    }
+
+    // Cached, pre-formatted cells for one layer card
+    private static final class LayerBlock {
+        private final String sortKey;
+        private final List<Ingredient> recipeCards;
+        private final String name;
+        private final String[] recipe;
+
+        private LayerBlock(Layer layer) {
+            this.sortKey = layer.toString();
+            this.recipeCards = layer.getRecipe();
+            this.name = cell(centre(LAYER_CARD_WIDTH_INNER, sortKey.toUpperCase()));
+            this.recipe = centredCells(LAYER_CARD_WIDTH_INNER,
+                StringUtils.splitString(LAYER_CARD_WIDTH_INNER, layer.getRecipeDescription(), ","), true);
+        }
+    }
+}
@@ -38,11 +38,12 @@ public class CardUtils {
     public static List<CustomerOrder> readCustomerFile(String path, Collection<Layer> layers) throws FileNotFoundException {
         ArrayList<CustomerOrder> result = new ArrayList<>();
         try {
+            HashMap<String, Layer> layerMap = buildLayerMap(new ArrayList<>(layers));
             BufferedReader reader = new BufferedReader(new FileReader(path));
             String line;
             while((line = reader.readLine()) != null) {
                 if(!line.startsWith("LEVEL")) {
-                    result.add(stringToCustomerOrder(line, layers));
+                    result.add(stringToCustomerOrder(line, layerMap));
                 }
             }
             reader.close();
@@ -88,13 +89,25 @@ public class CardUtils {
      * @throws FileNotFoundException if the specified file could not be found
      */
     public static List<Layer> readLayerFile (String path) throws FileNotFoundException {
+        return readLayerFile(path, 4);
+    }
+
+    /**
+     * Reads a file containing layers and returns a list of Layer objects, with a given number of copies of each layer.
+     *
+     * @param path the file path of the layer data file
+     * @param copies the number of copies of each layer
+     * @return a list of Layer objects parsed from the file
+     * @throws FileNotFoundException if the specified file could not be found
+     */
+    public static List<Layer> readLayerFile(String path, int copies) throws FileNotFoundException {
         ArrayList<Layer> result = new ArrayList<>();
         try {
             BufferedReader reader = new BufferedReader(new FileReader(path));
             String line;
             while((line = reader.readLine()) != null) {
                 if(!line.startsWith("NAME")) {
-                    for (Layer layer : stringToLayers(line)) {
+                    for (Layer layer : stringToLayers(line, copies)) {
                         result.add(layer);
                     }
                 }
@@ -117,7 +130,11 @@ public class CardUtils {
     }
  
     private static CustomerOrder stringToCustomerOrder(String str, Collection<Layer> layers) {
-        HashMap<String, Layer> layerMap = buildLayerMap((ArrayList<Layer>) layers);
+        return stringToCustomerOrder(str, buildLayerMap((ArrayList<Layer>) layers));
+    }
+
+    // The map is built once per file, as rebuilding it for every line made reading a deck quadratic in its size
+    private static CustomerOrder stringToCustomerOrder(String str, HashMap<String, Layer> layerMap) {
         String[] fileString = str.split(",");
         int level = Integer.parseInt(fileString[0].strip());
         String name = fileString[1].strip();
@@ -161,6 +178,10 @@ public class CardUtils {
     }
 
     private static List<Layer> stringToLayers(String str) {
+        return stringToLayers(str, 4);
+    }
+
+    private static List<Layer> stringToLayers(String str, int count) {
         ArrayList<Layer> result = new ArrayList<>();
         ArrayList<Ingredient> recipe = new ArrayList<>();
         String[] nameRecipe = str.split(",");
@@ -169,9 +190,10 @@ public class CardUtils {
         for (String string : recipeList) {
             recipe.add(new Ingredient(string.strip()));
         }
-        int count = 4;
+        // Every copy of the layer shares one unmodifiable recipe
+        List<Ingredient> shared = List.copyOf(recipe);
         for(int i = 0; i < count; i++) {
-            result.add(new Layer(layerName, recipe));
+            result.add(new Layer(layerName, shared));
         }
         return result;
     }
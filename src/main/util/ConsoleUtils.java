@@ -1,6 +1,8 @@
 package util;
 import java.io.Console;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -28,6 +30,7 @@ import bakery.MagicBakery.ActionType;
  */
 public class ConsoleUtils {
     private Console console;
+    private TerminalRenderer terminal;
 
     /**
      * Constructs a new ConsoleUtils object and initializes the console for user interaction.
@@ -60,6 +63,23 @@ public class ConsoleUtils {
             return console.readLine(fmt, args);
         }
 
+    /**
+     * Displays the current state of the game, repainting only the parts of the board that changed since it was last shown.
+     * Everything is sent to the terminal in a single write, which keeps play responsive over slow connections.
+     *
+     * @param bakery The MagicBakery instance whose state is displayed.
+     */
+    public void printGameState(MagicBakery bakery) {
+        if (terminal == null) {
+            terminal = new TerminalRenderer();
+        }
+        try {
+            terminal.paintGameState(bakery);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * Prompts the user to choose an action from a list of available actions in the bakery.
      * This method displays each available action and expects the user to enter a selection corresponding to one of them.
@@ -0,0 +1,181 @@
+package util;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import bakery.Ingredient;
+
+/**
+ * Writes synthetic ingredient, layer and customer decks of any size, in the formats {@link CardUtils} reads, so the game
+ * can be measured with decks far larger than the ones shipped in {@code io/}.
+ *
+ * The decks are made from numbered cards: ingredients are called {@code ingredient 1}, {@code ingredient 2} and so on,
+ * layers {@code layer 1} onwards and customers {@code cake 1} onwards. Each layer is baked from two up to the recipe size
+ * of different ingredients. Each customer wants at least one layer and up to the recipe size of layers and ingredients,
+ * and every other customer also wants a garnish of up to two layers and ingredients. Customers are spread evenly across
+ * the three levels, and the ingredient deck holds one helpful duck for every 64 cards.
+ *
+ * The same seed always writes the same decks.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public final class DeckGenerator {
+
+    private static final int GARNISH_SIZE = 2;
+    private static final int CARDS_PER_DUCK = 64;
+
+    /** The fewest customers a deck may hold: enough of each level for a table of any size. */
+    public static final int MIN_CUSTOMERS = 18;
+
+    private final int ingredientKinds;
+    private final int layerKinds;
+    private final int recipeSize;
+
+    /**
+     * Creates a generator for decks with a given number of different cards.
+     *
+     * @param ingredientKinds the number of different ingredients, at least two.
+     * @param layerKinds the number of different layers, at least one.
+     * @param recipeSize the most cards in a layer or customer recipe, at least two.
+     * @throws IllegalArgumentException if there are too few ingredients or layers, or recipes would be too small.
+     */
+    public DeckGenerator(int ingredientKinds, int layerKinds, int recipeSize) throws IllegalArgumentException {
+        if (ingredientKinds < 2 || layerKinds < 1 || recipeSize < 2) {
+            throw new IllegalArgumentException("Decks need two ingredients, a layer and recipes of at least two cards.");
+        }
+        this.ingredientKinds = ingredientKinds;
+        this.layerKinds = layerKinds;
+        this.recipeSize = recipeSize;
+    }
+
+    /**
+     * Writes all three decks into a directory as {@code ingredients.csv}, {@code layers.csv} and {@code customers.csv}.
+     *
+     * @param directory the directory to write to, which must exist.
+     * @param seed the seed for the recipes.
+     * @param ingredientCards the number of cards in the ingredient deck.
+     * @param customers the number of customers.
+     * @throws IOException if a file cannot be written.
+     * @throws IllegalArgumentException if there are too few ingredient cards or customers.
+     */
+    public void writeDecks(Path directory, long seed, int ingredientCards, int customers) throws IOException, IllegalArgumentException {
+        Random random = new Random(seed);
+        writeIngredientFile(directory.resolve("ingredients.csv"), ingredientCards);
+        writeLayerFile(directory.resolve("layers.csv"), random.nextLong());
+        writeCustomerFile(directory.resolve("customers.csv"), random.nextLong(), customers);
+    }
+
+    /**
+     * Writes an ingredient deck, with the cards shared as evenly as possible between the ingredients.
+     *
+     * @param file the file to write.
+     * @param cards the number of cards in the deck, including the helpful ducks.
+     * @throws IOException if the file cannot be written.
+     * @throws IllegalArgumentException if there are too few cards for one of each ingredient and a helpful duck.
+     */
+    public void writeIngredientFile(Path file, int cards) throws IOException, IllegalArgumentException {
+        if (cards <= ingredientKinds) {
+            throw new IllegalArgumentException("The deck needs one of each ingredient and a helpful duck.");
+        }
+        int ducks = Math.max(1, cards / CARDS_PER_DUCK);
+        int each = (cards - ducks) / ingredientKinds;
+        int extra = (cards - ducks) % ingredientKinds;
+        try (PrintWriter out = writer(file)) {
+            out.println("NAME, COUNT");
+            for (int i = 0; i < ingredientKinds; i++) {
+                out.println(ingredientName(i) + ", " + (i < extra ? each + 1 : each));
+            }
+            out.println(Ingredient.HELPFUL_DUCK + ", " + ducks);
+        }
+    }
+
+    /**
+     * Writes a layer deck with one line for every layer.
+     *
+     * @param file the file to write.
+     * @param seed the seed for the recipes.
+     * @throws IOException if the file cannot be written.
+     */
+    public void writeLayerFile(Path file, long seed) throws IOException {
+        Random random = new Random(seed);
+        try (PrintWriter out = writer(file)) {
+            out.println("NAME, RECIPE");
+            for (int i = 0; i < layerKinds; i++) {
+                int size = 2 + random.nextInt(Math.min(recipeSize, ingredientKinds) - 1);
+                List<String> recipe = new ArrayList<>();
+                while (recipe.size() < size) {
+                    String ingredient = ingredientName(random.nextInt(ingredientKinds));
+                    if (!recipe.contains(ingredient)) {
+                        recipe.add(ingredient);
+                    }
+                }
+                out.println(layerName(i) + ", " + String.join("; ", recipe));
+            }
+        }
+    }
+
+    /**
+     * Writes a customer deck, with the customers spread evenly across the three levels.
+     *
+     * @param file the file to write.
+     * @param seed the seed for the recipes.
+     * @param customers the number of customers.
+     * @throws IOException if the file cannot be written.
+     * @throws IllegalArgumentException if there are fewer than {@link #MIN_CUSTOMERS} customers.
+     */
+    public void writeCustomerFile(Path file, long seed, int customers) throws IOException, IllegalArgumentException {
+        if (customers < MIN_CUSTOMERS) {
+            throw new IllegalArgumentException("The deck needs at least " + MIN_CUSTOMERS + " customers.");
+        }
+        Random random = new Random(seed);
+        try (PrintWriter out = writer(file)) {
+            out.println("LEVEL, NAME, RECIPE, GARNISH");
+            for (int i = 0; i < customers; i++) {
+                List<String> recipe = new ArrayList<>();
+                recipe.add(layerName(random.nextInt(layerKinds)));
+                int size = 1 + random.nextInt(recipeSize);
+                while (recipe.size() < size) {
+                    recipe.add(anyCard(random));
+                }
+                List<String> garnish = new ArrayList<>();
+                if (i % 2 == 1) {
+                    int garnishSize = 1 + random.nextInt(GARNISH_SIZE);
+                    while (garnish.size() < garnishSize) {
+                        garnish.add(anyCard(random));
+                    }
+                }
+                // A customer without a garnish ends with a bare comma, as in the shipped deck
+                out.println((i % 3 + 1) + ", cake " + (i + 1) + ", " + String.join("; ", recipe) + ","
+                    + (garnish.isEmpty() ? "" : " " + String.join("; ", garnish)));
+            }
+        }
+    }
+
+    // A layer or an ingredient, each as likely as the other
+    private String anyCard(Random random) {
+        if (random.nextBoolean()) {
+            return layerName(random.nextInt(layerKinds));
+        }
+        return ingredientName(random.nextInt(ingredientKinds));
+    }
+
+    private static String ingredientName(int i) {
+        return "ingredient " + (i + 1);
+    }
+
+    private static String layerName(int i) {
+        return "layer " + (i + 1);
+    }
+
+    private static PrintWriter writer(Path file) throws IOException {
+        return new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,761 @@
+package util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import bakery.CustomerOrder;
+import bakery.Ingredient;
+import bakery.Layer;
+import bakery.MagicBakery;
+import bakery.MagicBakery.ActionType;
+import bakery.Player;
+
+/**
+ * Solves the end of a game exactly. Once the customer deck is empty no new customers arrive, the customers still waiting
+ * leave within a few rounds, and the game reduces to a small, bounded puzzle: how many of the remaining orders can the
+ * players, working together, still fulfil and garnish? The solver searches every sequence of moves from the current
+ * position and returns the best result along with the move that leads to it.
+ *
+ * The solver only counts on cards the players can see: their hands, the pantry and the layers. A card that will be drawn
+ * from the pantry deck (to refill the pantry, or after a garnish) is treated as a card nobody can use, so the result is
+ * what the players can guarantee however the deck is ordered, and it never peeks at hidden cards. Refreshing the pantry
+ * only swaps visible cards for unknown ones, so it is never part of a solution.
+ *
+ * Positions are reduced before they are searched: cards beyond what the remaining orders could use, directly or by baking
+ * a layer, are left out, so positions that differ only in useless cards are solved once. Moves are searched most promising
+ * first, and a move is skipped when even fulfilling every order its visible cards allow could not beat the best move
+ * found so far. Every position solved is remembered for
+ * the lifetime of the solver and, if a {@link EndgameTablebase} is given, stored there so later runs can look it up
+ * instead of searching again.
+ *
+ * A solver is used by one thread at a time; a tablebase can be shared by several solvers.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public class EndgameSolver {
+    /**
+     * The best move reported when the current player should end their turn.
+     */
+    public static final short END_TURN = -1;
+
+    private static final int DEFAULT_MEMORY = 1 << 18;
+    // Every way of serving the row is tried when bounding a position, so wider rows are not solved
+    private static final int MAX_SLOTS = 8;
+
+    // Thrown to unwind the search when it runs over budget; it carries no stack trace, as nothing is ever reported
+    private static final RuntimeException OVER_BUDGET = new RuntimeException("Over budget", null, false, false) {
+        private static final long serialVersionUID = 1L;
+    };
+
+    // Layout of a position: whose turn it is, actions left, the customer slots, then hands, pantry and layers
+    private static final int CURRENT = 0;
+    private static final int ACTIONS = 1;
+    private static final int SLOTS = 2;
+
+    private final SelfPlay moves;
+    private final EndgameTablebase tablebase;
+    private final int memory;
+    private final int kinds;
+    private final int duck;
+    private final boolean[] isLayer;
+    private final int[][] layerRecipes;
+    private final List<String> customerNames = new ArrayList<>();
+    private final List<int[]> customerRecipes = new ArrayList<>();
+    private final List<int[]> customerGarnishes = new ArrayList<>();
+    private final Map<String, Integer> customerIds = new HashMap<>();
+    private final Map<String, Integer> solved = new HashMap<>();
+    private long tablebaseHits;
+
+    // The shape of positions in the game being solved
+    private int players;
+    private int actionsPermitted;
+    private int width;
+    // What fulfilling an order is worth in a result; one more than the most orders that could be garnished, so serving
+    // more customers always comes first
+    private int scale;
+    // Every way of serving the row (nothing, the order, or the order and garnish for each slot, in base 3), best first
+    private int[] combinations = new int[0];
+    private int handsAt;
+    private int pantryAt;
+    private int layersAt;
+    private int[] limit;
+    private long searched;
+    private long budget;
+
+    /**
+     * The result of solving a position.
+     *
+     * @author Adam Aly
+     * @version 1.0
+     */
+    public static final class Solution {
+        private final int fulfilled;
+        private final int garnished;
+        private final short bestMove;
+
+        private Solution(int result, int scale) {
+            this.fulfilled = (result & 0xff) / scale;
+            this.garnished = (result & 0xff) % scale;
+            this.bestMove = (short) (result >>> 8);
+        }
+
+        /**
+         * Returns how many more orders can be fulfilled with best play.
+         *
+         * @return the number of orders, garnished or not.
+         */
+        public int getFulfilled() {
+            return fulfilled;
+        }
+
+        /**
+         * Returns how many of those orders can also be garnished. Fulfilling more orders always comes first.
+         *
+         * @return the number of garnished orders.
+         */
+        public int getGarnished() {
+            return garnished;
+        }
+
+        /**
+         * Returns a move that achieves the best result.
+         *
+         * @return the move code, as used by {@link SelfPlay#play(MagicBakery, short)}, or {@link #END_TURN}.
+         */
+        public short getBestMove() {
+            return bestMove;
+        }
+
+        @Override
+        public String toString() {
+            return fulfilled + " fulfilled, " + garnished + " garnished";
+        }
+    }
+
+    /**
+     * Creates a solver that remembers up to a quarter of a million positions in memory and has no tablebase.
+     *
+     * @param moves the self-play helper whose vocabulary and move codes the solver uses.
+     */
+    public EndgameSolver(SelfPlay moves) {
+        this(moves, null, DEFAULT_MEMORY);
+    }
+
+    /**
+     * Creates a solver.
+     *
+     * @param moves the self-play helper whose vocabulary and move codes the solver uses.
+     * @param tablebase where to look up and store solved positions, or null to keep them in memory only.
+     * @param memory the number of positions to remember in memory; when it is reached they are forgotten and solving
+     * starts to fill memory again.
+     */
+    public EndgameSolver(SelfPlay moves, EndgameTablebase tablebase, int memory) {
+        this.moves = moves;
+        this.tablebase = tablebase;
+        this.memory = memory;
+        this.kinds = moves.getVocabulary().size();
+        this.duck = moves.getVocabulary().indexOf(Ingredient.HELPFUL_DUCK.toString());
+        this.isLayer = new boolean[kinds];
+        this.layerRecipes = new int[kinds][];
+    }
+
+    /**
+     * Solves a game from its current position, however long it takes.
+     *
+     * @param game a started game whose customer deck is empty.
+     * @return the best result the players can guarantee, and a move that achieves it.
+     * @throws IllegalArgumentException if the game has not started, customers are still to arrive, the customer row has
+     * more than eight places, or the game holds a card the solver's vocabulary does not know.
+     */
+    public Solution solve(MagicBakery game) throws IllegalArgumentException {
+        return solve(game, Long.MAX_VALUE);
+    }
+
+    /**
+     * Solves a game from its current position, giving up if that means searching more than a given number of positions.
+     * Positions solved before giving up are still remembered, so asking again with a larger budget carries on from there.
+     *
+     * @param game a started game whose customer deck is empty.
+     * @param budget the most positions to search, not counting those already remembered or found in the tablebase.
+     * @return the best result the players can guarantee and a move that achieves it, or null if the budget ran out.
+     * @throws IllegalArgumentException if the game has not started, customers are still to arrive, the customer row has
+     * more than eight places, or the game holds a card the solver's vocabulary does not know.
+     */
+    public Solution solve(MagicBakery game, long budget) throws IllegalArgumentException {
+        if (game.getPlayers().isEmpty() || !game.getCustomers().getCustomerDeck().isEmpty()) {
+            throw new IllegalArgumentException("Only games with an empty customer deck can be solved.");
+        }
+        int slots = game.getCustomers().getActiveCustomers().size();
+        if (slots > MAX_SLOTS) {
+            throw new IllegalArgumentException("Only customer rows of up to " + MAX_SLOTS + " places can be solved.");
+        }
+        // Positions remembered for a game of another shape would be read with the wrong layout
+        if (players != game.getPlayers().size() || actionsPermitted != game.getActionsPermitted() || width != slots) {
+            solved.clear();
+        }
+        players = game.getPlayers().size();
+        actionsPermitted = game.getActionsPermitted();
+        if (width != slots) {
+            width = slots;
+            scale = width + 1;
+            combinations = combinations(width, scale);
+        }
+        handsAt = SLOTS + width;
+        pantryAt = handsAt + players * kinds;
+        layersAt = pantryAt + kinds;
+
+        byte[] position = new byte[layersAt + kinds];
+        position[CURRENT] = (byte) SelfPlay.playerIndex(game);
+        position[ACTIONS] = (byte) Math.max(game.getActionsRemaining(), 0);
+        int slot = 0;
+        for (CustomerOrder customer : game.getCustomers().getActiveCustomers()) {
+            position[SLOTS + slot++] = (byte) (customer == null ? 0 : customerId(customer) + 1);
+        }
+        for (Layer layer : game.getLayers()) {
+            learnLayer(layer);
+        }
+        limit = usefulCounts(position);
+        int player = 0;
+        for (Player p : game.getPlayers()) {
+            for (Ingredient card : p.getHand()) {
+                if (card instanceof Layer) {
+                    learnLayer((Layer) card);
+                }
+                count(position, handsAt + player * kinds, card);
+            }
+            player++;
+        }
+        for (Ingredient card : game.getPantry()) {
+            count(position, pantryAt, card);
+        }
+        for (Layer layer : game.getLayers()) {
+            count(position, layersAt, layer);
+        }
+        trim(position);
+        this.searched = 0;
+        this.budget = budget;
+        try {
+            return new Solution(search(position, upperBound(position)), scale);
+        } catch (RuntimeException e) {
+            if (e != OVER_BUDGET) {
+                throw e;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Returns how many positions the solver currently remembers in memory.
+     *
+     * @return the number of positions.
+     */
+    public int getPositionsSolved() {
+        return solved.size();
+    }
+
+    /**
+     * Returns how many positions were found in the tablebase instead of being searched.
+     *
+     * @return the number of tablebase hits.
+     */
+    public long getTablebaseHits() {
+        return tablebaseHits;
+    }
+
+    // Results are packed as fulfilled * scale + garnished in the low byte, where scale is one more than the row width, with
+    // the best move code above it
+    private int search(byte[] position, int bound) {
+        if (bound == 0) {
+            return pack(0, END_TURN);
+        }
+        String key = new String(position, StandardCharsets.ISO_8859_1);
+        Integer known = solved.get(key);
+        if (known != null) {
+            return known;
+        }
+        long fingerprint = 0;
+        long check = 0;
+        if (tablebase != null) {
+            fingerprint = fingerprint(position, 0xcbf29ce484222325L, 0x100000001b3L);
+            check = fingerprint(position, 0x6a09e667f3bcc908L, 0x9e3779b97f4a7c15L);
+            int stored = tablebase.get(fingerprint, check);
+            if (stored >= 0) {
+                tablebaseHits++;
+                remember(key, stored);
+                return stored;
+            }
+        }
+        if (++searched > budget) {
+            throw OVER_BUDGET;
+        }
+
+        int[] best = {-1, bound};
+        int current = position[CURRENT];
+        int hand = handsAt + current * kinds;
+        if (position[ACTIONS] > 0) {
+            // The most promising moves go first, so the search can stop as soon as nothing better is possible
+            for (int slot = 0; slot < width; slot++) {
+                int id = position[SLOTS + slot] - 1;
+                for (int garnish = 1; id >= 0 && garnish >= 0; garnish--) {
+                    if (garnish == 0 || customerGarnishes.get(id).length > 0) {
+                        byte[] next = fulfil(position, hand, id, garnish == 1);
+                        if (next != null) {
+                            next[SLOTS + slot] = 0;
+                            trim(next);
+                        }
+                        consider(best, next, scale + garnish, SelfPlay.move(ActionType.FULFIL_ORDER, slot << 1 | garnish));
+                    }
+                }
+            }
+            for (int layer = 0; layer < kinds; layer++) {
+                if (position[layersAt + layer] > 0) {
+                    consider(best, bake(position, hand, layer), 0, SelfPlay.move(ActionType.BAKE_LAYER, layer));
+                }
+            }
+            for (int card = 0; card < kinds; card++) {
+                if (position[pantryAt + card] > 0) {
+                    byte[] next = act(position);
+                    next[pantryAt + card]--;
+                    add(next, hand + card);
+                    consider(best, next, 0, SelfPlay.move(ActionType.DRAW_INGREDIENT, card));
+                }
+            }
+            // Passing to a player with no turn left only throws a card away, which can never help
+            int rounds = lastRound(position);
+            for (int card = 0; card < kinds; card++) {
+                for (int recipient = 0; position[hand + card] > 0 && recipient < players; recipient++) {
+                    if (recipient != current && actionsUntil(position, recipient, rounds) > 0) {
+                        byte[] next = act(position);
+                        next[hand + card]--;
+                        add(next, handsAt + recipient * kinds + card);
+                        consider(best, next, 0, SelfPlay.move(ActionType.PASS_INGREDIENT, card << 3 | recipient));
+                    }
+                }
+            }
+        }
+        consider(best, endTurn(position), 0, END_TURN);
+
+        int result = best[0];
+        remember(key, result);
+        if (tablebase != null) {
+            tablebase.put(fingerprint, check, result);
+        }
+        return result;
+    }
+
+    // Searches a move unless it cannot beat the best move found so far, or the best move already reaches the bound of the
+    // position. The best result so far and the bound are kept in a two element array shared by the moves of a position
+    private void consider(int[] best, byte[] next, int gain, int move) {
+        if (next == null || (best[0] & 0xff) >= best[1] && best[0] >= 0) {
+            return;
+        }
+        int bound = upperBound(next);
+        if (best[0] >= 0 && gain + bound <= (best[0] & 0xff)) {
+            return;
+        }
+        int value = gain + (search(next, bound) & 0xff);
+        if (best[0] < 0 || value > (best[0] & 0xff)) {
+            best[0] = pack(value, move);
+        }
+    }
+
+    // Cards beyond what the remaining orders could ever use are dropped as they arrive
+    private void add(byte[] position, int index) {
+        if (position[index] < limit[(index - handsAt) % kinds]) {
+            position[index]++;
+        }
+    }
+
+    private void remember(String key, int result) {
+        if (solved.size() >= memory) {
+            solved.clear();
+        }
+        solved.put(key, result);
+    }
+
+    // Every remaining order that could be made from all the visible cards pooled together, and that some player could
+    // gather the cards for and serve before the customer leaves, garnished if that could be done too. No position can do
+    // better, so a move whose bound is no better than the best move found so far is skipped
+    private int upperBound(byte[] position) {
+        int[] pool = new int[kinds];
+        int[] layers = new int[kinds];
+        for (int card = 0; card < kinds; card++) {
+            for (int player = 0; player < players; player++) {
+                pool[card] += position[handsAt + player * kinds + card];
+            }
+            pool[card] += position[pantryAt + card];
+        }
+        // What each customer could contribute on its own: nothing, its order, or its order and garnish
+        int[][] reach = new int[width][];
+        for (int slot = 0; slot < width; slot++) {
+            int id = position[SLOTS + slot] - 1;
+            if (id < 0) {
+                continue;
+            }
+            int rounds = rounds(position, slot);
+            int[] recipe = customerRecipes.get(id);
+            int[] garnish = customerGarnishes.get(id);
+            if (inTime(position, pool, rounds, recipe, null)) {
+                reach[slot] = garnish.length > 0 && inTime(position, pool, rounds, recipe, garnish) ? concat(recipe, garnish) : recipe;
+            }
+        }
+        // The best combination whose cards can all be found among the visible ones at once
+        for (int choice : combinations) {
+            int value = 0;
+            int[] left = pool.clone();
+            for (int layer = 0; layer < kinds; layer++) {
+                layers[layer] = position[layersAt + layer];
+            }
+            boolean possible = true;
+            for (int slot = 0, rest = choice; slot < width && possible; slot++, rest /= 3) {
+                int option = rest % 3;
+                if (option > 0) {
+                    int id = position[SLOTS + slot] - 1;
+                    int[] recipe = id < 0 ? null : customerRecipes.get(id);
+                    possible = reach[slot] != null && (option == 1 || reach[slot] != recipe)
+                        && pooled(left, layers, option == 2 ? reach[slot] : recipe);
+                    value += scale - 1 + option;
+                }
+            }
+            if (possible) {
+                return value;
+            }
+        }
+        return 0;
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        int[] both = new int[first.length + second.length];
+        System.arraycopy(first, 0, both, 0, first.length);
+        System.arraycopy(second, 0, both, first.length, second.length);
+        return both;
+    }
+
+    // Whether some player has a turn before the customer leaves with time to collect the missing cards and serve the
+    // order. Every missing card takes at least one action (a draw, a pass, or a bake and perhaps a pass for a layer)
+    private boolean inTime(byte[] position, int[] pool, int rounds, int[] recipe, int[] garnish) {
+        for (int player = 0; player < players; player++) {
+            int actions = actionsUntil(position, player, rounds);
+            if (actions <= 0) {
+                continue;
+            }
+            int[] hand = new int[kinds];
+            for (int card = 0; card < kinds; card++) {
+                hand[card] = position[handsAt + player * kinds + card];
+            }
+            int needed = 1 + missing(hand, pool, recipe) + (garnish == null ? 0 : missing(hand, pool, garnish));
+            if (needed <= actions) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The actions all players have between now and the end of a player's last turn before the customers next move along
+    // the given number of times, or 0 if the player has no turn left before then
+    private int actionsUntil(byte[] position, int player, int rounds) {
+        int current = position[CURRENT];
+        if (rounds == 1) {
+            return player < current ? 0 : position[ACTIONS] + (player - current) * actionsPermitted;
+        }
+        return position[ACTIONS] + (players - 1 - current + (rounds - 2) * players + player + 1) * actionsPermitted;
+    }
+
+    // The most times the customers can move along before the customer in a slot leaves. Each time they move along, a
+    // customer moves one place towards the end of the row and leaves from the last place, unless the row closes up at a
+    // gap ahead of them. A gap only closes behind a customer, and the customer nearest the front moves along as it closes,
+    // so a customer can wait in place at most once for every place between them and the customer nearest the front
+    private int rounds(byte[] position, int slot) {
+        int front = 0;
+        while (front < slot && position[SLOTS + front] == 0) {
+            front++;
+        }
+        return width - slot + Math.max(0, slot - 1 - front);
+    }
+
+    private int missing(int[] hand, int[] pool, int[] cards) {
+        int missing = 0;
+        for (int card : cards) {
+            if (hand[card] > 0) {
+                hand[card]--;
+            } else if (isLayer[card]) {
+                // Passed over by whoever holds one, or baked: by this player from their own cards, or by another and passed
+                missing += pool[card] > 0 || covers(hand, layerRecipes[card]) ? 1 : 2;
+            } else if (duck >= 0 && hand[duck] > 0) {
+                hand[duck]--;
+            } else {
+                missing++;
+            }
+        }
+        return missing;
+    }
+
+    private boolean covers(int[] hand, int[] recipe) {
+        int[] left = hand.clone();
+        for (int card : recipe) {
+            if (left[card] > 0) {
+                left[card]--;
+            } else if (duck >= 0 && left[duck] > 0) {
+                left[duck]--;
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean pooled(int[] pool, int[] layers, int[] cards) {
+        for (int card : cards) {
+            if (pool[card] > 0) {
+                pool[card]--;
+            } else if (isLayer[card]) {
+                if (layers[card] == 0 || !pooled(pool, layers, layerRecipes[card])) {
+                    return false;
+                }
+                layers[card]--;
+            } else if (duck >= 0 && pool[duck] > 0) {
+                pool[duck]--;
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Mirrors MagicBakery.fulfillOrder: recipe cards come from the hand, with a helpful duck standing in for a missing
+    // plain ingredient, and a used layer goes back to the layers only if a copy of it is still there
+    private byte[] fulfil(byte[] position, int hand, int id, boolean garnish) {
+        byte[] next = act(position);
+        List<Integer> usedLayers = new ArrayList<>(4);
+        if (!take(next, hand, customerRecipes.get(id), usedLayers)
+            || garnish && !take(next, hand, customerGarnishes.get(id), usedLayers)) {
+            return null;
+        }
+        for (int layer : usedLayers) {
+            if (next[layersAt + layer] > 0) {
+                next[layersAt + layer]++;
+            }
+        }
+        return next;
+    }
+
+    private byte[] bake(byte[] position, int hand, int layer) {
+        byte[] next = act(position);
+        if (!take(next, hand, layerRecipes[layer], null)) {
+            return null;
+        }
+        next[layersAt + layer]--;
+        next[hand + layer]++;
+        return next;
+    }
+
+    private boolean take(byte[] position, int hand, int[] cards, List<Integer> usedLayers) {
+        for (int card : cards) {
+            if (position[hand + card] > 0) {
+                position[hand + card]--;
+                if (usedLayers != null && isLayer[card]) {
+                    usedLayers.add(card);
+                }
+            } else if (!isLayer[card] && duck >= 0 && position[hand + duck] > 0) {
+                position[hand + duck]--;
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] act(byte[] position) {
+        byte[] next = position.clone();
+        next[ACTIONS]--;
+        return next;
+    }
+
+    // Mirrors MagicBakery.endTurn and Customers.timePasses once the customer deck is empty
+    private byte[] endTurn(byte[] position) {
+        byte[] next = position.clone();
+        next[CURRENT] = (byte) ((position[CURRENT] + 1) % players);
+        next[ACTIONS] = (byte) actionsPermitted;
+        if (next[CURRENT] == 0) {
+            // Everyone ahead of the first empty place behind a customer moves into it; with none the last customer
+            // leaves and the whole row moves along
+            int gap = width - 1;
+            boolean customerAhead = false;
+            for (int slot = 0; slot < width; slot++) {
+                if (position[SLOTS + slot] == 0 && customerAhead) {
+                    gap = slot;
+                    break;
+                }
+                customerAhead |= position[SLOTS + slot] != 0;
+            }
+            System.arraycopy(position, SLOTS, next, SLOTS + 1, gap);
+            next[SLOTS] = 0;
+        }
+        trim(next);
+        return next;
+    }
+
+    // How many of each card the waiting orders could ever use: their recipes and garnishes, what their layers are baked
+    // from, and a helpful duck for every plain ingredient. Any card beyond that can make no difference
+    private int[] usefulCounts(byte[] position) {
+        int[] useful = new int[kinds];
+        for (int slot = 0; slot < width; slot++) {
+            int id = position[SLOTS + slot] - 1;
+            if (id >= 0) {
+                for (int card : customerRecipes.get(id)) {
+                    useful[card]++;
+                }
+                for (int card : customerGarnishes.get(id)) {
+                    useful[card]++;
+                }
+            }
+        }
+        for (int card = 0; card < kinds; card++) {
+            if (isLayer[card] && layerRecipes[card] != null) {
+                for (int ingredient : layerRecipes[card]) {
+                    useful[ingredient] += useful[card];
+                }
+            }
+        }
+        if (duck >= 0) {
+            for (int card = 0; card < kinds; card++) {
+                if (!isLayer[card] && card != duck) {
+                    useful[duck] += useful[card];
+                }
+            }
+        }
+        for (int card = 0; card < kinds; card++) {
+            useful[card] = Math.min(useful[card], Byte.MAX_VALUE);
+        }
+        return useful;
+    }
+
+    // Drops the cards that became useless when a customer was served or left, and the hands of players who will not have
+    // another turn before the last customer leaves
+    private void trim(byte[] position) {
+        int[] useful = usefulCounts(position);
+        int rounds = lastRound(position);
+        for (int offset = handsAt; offset < position.length; offset += kinds) {
+            int player = (offset - handsAt) / kinds;
+            boolean idle = player < players && (rounds == 0 || actionsUntil(position, player, rounds) == 0);
+            for (int card = 0; card < kinds; card++) {
+                if (idle) {
+                    position[offset + card] = 0;
+                } else if (position[offset + card] > useful[card]) {
+                    position[offset + card] = (byte) useful[card];
+                }
+            }
+        }
+    }
+
+    // How many more times the customers can move along before the last of them has left
+    private int lastRound(byte[] position) {
+        int rounds = 0;
+        for (int slot = 0; slot < width; slot++) {
+            if (position[SLOTS + slot] != 0) {
+                rounds = Math.max(rounds, rounds(position, slot));
+            }
+        }
+        return rounds;
+    }
+
+    private void count(byte[] position, int offset, Ingredient card) {
+        int code = moves.code(card);
+        if (position[offset + code] < limit[code]) {
+            position[offset + code]++;
+        }
+    }
+
+    private int customerId(CustomerOrder customer) {
+        Integer id = customerIds.get(customer.toString());
+        if (id == null) {
+            if (customerNames.size() >= Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many different customers to solve.");
+            }
+            id = customerNames.size();
+            customerIds.put(customer.toString(), id);
+            customerNames.add(customer.toString());
+            customerRecipes.add(codes(customer.getRecipe()));
+            customerGarnishes.add(codes(customer.getGarnish()));
+        }
+        return id;
+    }
+
+    private int[] codes(List<Ingredient> cards) {
+        int[] codes = new int[cards.size()];
+        for (int i = 0; i < codes.length; i++) {
+            Ingredient card = cards.get(i);
+            codes[i] = moves.code(card);
+            if (card instanceof Layer) {
+                learnLayer((Layer) card);
+            }
+        }
+        return codes;
+    }
+
+    private void learnLayer(Layer layer) {
+        int code = moves.code(layer);
+        if (layerRecipes[code] == null) {
+            isLayer[code] = true;
+            int[] recipe = new int[layer.getRecipe().size()];
+            for (int i = 0; i < recipe.length; i++) {
+                recipe[i] = moves.code(layer.getRecipe().get(i));
+            }
+            layerRecipes[code] = recipe;
+        }
+    }
+
+    // Customer slots hold ids that only mean something to this solver, so the fingerprint uses the customers' names. The
+    // rules that shape the search, the width of the row and the actions a turn, are part of it, as the same cards can
+    // be worth a different result under other rules. Hashing with two seeds and multipliers gives the tablebase both a
+    // fingerprint and an independent check
+    private long fingerprint(byte[] position, long seed, long multiplier) {
+        long hash = seed ^ players;
+        hash = (hash ^ width) * multiplier;
+        hash = (hash ^ actionsPermitted) * multiplier;
+        for (int i = 0; i < position.length; i++) {
+            int value = position[i];
+            if (i >= SLOTS && i < handsAt && value != 0) {
+                value = customerNames.get(value - 1).hashCode();
+            }
+            hash = (hash ^ value) * multiplier;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        return hash ^ (hash >>> 33);
+    }
+
+    private static int[] combinations(int width, int scale) {
+        int count = 1;
+        for (int slot = 0; slot < width; slot++) {
+            count *= 3;
+        }
+        List<Integer> choices = new ArrayList<>();
+        for (int choice = 1; choice < count; choice++) {
+            choices.add(choice);
+        }
+        choices.sort((a, b) -> Integer.compare(worth(b, width, scale), worth(a, width, scale)));
+        int[] combinations = new int[choices.size()];
+        for (int i = 0; i < combinations.length; i++) {
+            combinations[i] = choices.get(i);
+        }
+        return combinations;
+    }
+
+    private static int worth(int choice, int width, int scale) {
+        int worth = 0;
+        for (int slot = 0; slot < width; slot++, choice /= 3) {
+            worth += choice % 3 == 0 ? 0 : scale - 1 + choice % 3;
+        }
+        return worth;
+    }
+
+    private static int pack(int value, int move) {
+        return value | (move & 0xffff) << 8;
+    }
+}
@@ -0,0 +1,197 @@
+package util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * A file of solved endgame positions that is mapped straight into memory, so a position solved once by the
+ * {@link EndgameSolver} (in this run or an earlier one) can be looked up instantly by bots and hints.
+ *
+ * The file is a fixed-size hash table. After a 32 byte header come {@code capacity} slots of 24 bytes, each holding two
+ * independent 64-bit hashes of a position, its fingerprint and a check, and its solved result. Positions are placed by
+ * their fingerprint and collisions are resolved by trying the following slots in turn. An entry is only returned when
+ * both hashes match, so two positions that share a fingerprint are kept apart; positions that share both hashes, a one
+ * in 2<sup>128</sup> chance, are an accepted risk. The table accepts entries until it is three quarters full; after that
+ * new positions are simply not stored. The header records a hash of the card vocabulary, so a table built with a
+ * different set of cards is refused rather than misread.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public class EndgameTablebase implements Closeable {
+    private static final int MAGIC = 0x424b4547; // "BKEG"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 32;
+    private static final int SLOT_BYTES = 24;
+    private static final int SIZE_OFFSET = 24;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer table;
+    private final int capacity;
+    private int size;
+
+    private EndgameTablebase(FileChannel channel, MappedByteBuffer table, int capacity, int size) {
+        this.channel = channel;
+        this.table = table;
+        this.capacity = capacity;
+        this.size = size;
+    }
+
+    /**
+     * Opens a tablebase file, creating it if it does not exist.
+     *
+     * @param file the tablebase file.
+     * @param capacity the number of slots for a new file; a power of two. An existing file keeps its own capacity.
+     * @param vocabulary the card names of the games the positions come from, in move code order.
+     * @return the open tablebase.
+     * @throws IOException if the file cannot be opened, or was built for another vocabulary or by another version.
+     * @throws IllegalArgumentException if the capacity is not a positive power of two small enough to map.
+     */
+    public static EndgameTablebase open(Path file, int capacity, List<String> vocabulary) throws IOException, IllegalArgumentException {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1 || capacity > (Integer.MAX_VALUE - HEADER_BYTES) / SLOT_BYTES) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        long vocabularyHash = vocabularyHash(vocabulary);
+        boolean exists = Files.exists(file) && Files.size(file) > 0;
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (exists) {
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                    throw new IOException("Not an endgame tablebase: " + file);
+                }
+                if (header.getLong(8) != vocabularyHash) {
+                    throw new IOException("Endgame tablebase was built for different cards: " + file);
+                }
+                capacity = header.getInt(16);
+                if (channel.size() != HEADER_BYTES + (long) capacity * SLOT_BYTES) {
+                    throw new IOException("Endgame tablebase is truncated: " + file);
+                }
+            }
+            MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * SLOT_BYTES);
+            if (!exists) {
+                table.putInt(0, MAGIC);
+                table.putInt(4, VERSION);
+                table.putLong(8, vocabularyHash);
+                table.putInt(16, capacity);
+                table.putInt(SIZE_OFFSET, 0);
+            }
+            return new EndgameTablebase(channel, table, capacity, table.getInt(SIZE_OFFSET));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param fingerprint the position's fingerprint.
+     * @param check a second hash of the position, independent of the fingerprint.
+     * @return the stored result, or -1 if the position is not in the table.
+     */
+    public synchronized int get(long fingerprint, long check) {
+        long key = nonZero(fingerprint);
+        for (int slot = slotOf(key), probes = 0; probes < capacity; slot = (slot + 1) & (capacity - 1), probes++) {
+            long stored = table.getLong(offset(slot));
+            if (stored == key && table.getLong(offset(slot) + 8) == check) {
+                return table.getInt(offset(slot) + 16);
+            }
+            if (stored == 0) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Stores the result of a position, replacing any result already stored for it.
+     *
+     * @param fingerprint the position's fingerprint.
+     * @param check a second hash of the position, independent of the fingerprint.
+     * @param result the solved result; must not be negative.
+     * @return true if the result was stored, false if the table is too full to take another position.
+     */
+    public synchronized boolean put(long fingerprint, long check, int result) {
+        long key = nonZero(fingerprint);
+        int slot = slotOf(key);
+        while (true) {
+            long stored = table.getLong(offset(slot));
+            if (stored == key && table.getLong(offset(slot) + 8) == check) {
+                table.putInt(offset(slot) + 16, result);
+                return true;
+            }
+            if (stored == 0) {
+                break;
+            }
+            slot = (slot + 1) & (capacity - 1);
+        }
+        if (size >= capacity / 4 * 3) {
+            return false;
+        }
+        table.putLong(offset(slot), key);
+        table.putLong(offset(slot) + 8, check);
+        table.putInt(offset(slot) + 16, result);
+        table.putInt(SIZE_OFFSET, ++size);
+        return true;
+    }
+
+    /**
+     * Returns the number of positions stored.
+     *
+     * @return the number of positions.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of slots in the table.
+     *
+     * @return the capacity of the table.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Writes every stored position through to the file.
+     */
+    public synchronized void force() {
+        table.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        table.force();
+        channel.close();
+    }
+
+    private int slotOf(long key) {
+        return (int) (key ^ (key >>> 32)) & (capacity - 1);
+    }
+
+    private static int offset(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    // An empty slot holds 0, so no position may have that fingerprint
+    private static long nonZero(long fingerprint) {
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    private static long vocabularyHash(List<String> vocabulary) {
+        long hash = 0xcbf29ce484222325L;
+        for (String name : vocabulary) {
+            hash = (hash ^ name.hashCode()) * 0x100000001b3L;
+        }
+        return hash;
+    }
+}
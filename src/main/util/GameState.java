@@ -0,0 +1,850 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import bakery.CustomerOrder;
+import bakery.CustomerOrder.CustomerOrderStatus;
+import bakery.Ingredient;
+import bakery.IngredientCounts;
+import bakery.IngredientCounts.Zone;
+import bakery.Layer;
+import bakery.MagicBakery;
+import bakery.MagicBakery.ActionType;
+import bakery.Player;
+
+/**
+ * An unchangeable position of a {@link MagicBakery} game, for searches that explore many lines of play at once. Making
+ * a move or ending the turn returns a new state and leaves the old one as it was, so any number of threads can share
+ * states and branch from them without copying the game and without locking.
+ *
+ * A state is built from counts rather than card objects: each hand, the pantry, the discard pile and the layers left to
+ * bake are arrays of how many of each card they hold, indexed by the {@link SelfPlay} vocabulary, and the pantry deck and
+ * customer deck are linked lists with the top card first. A new state copies only the arrays the move changed and shares
+ * everything else with the state it came from; drawing from a deck simply points at the rest of the same list. What
+ * every state of a game has in common, the recipes and the customers, is kept once and shared.
+ *
+ * The rules are those of {@link MagicBakery}, including how customers move along and lose patience, and moves use the
+ * same codes as {@link SelfPlay}. The one difference is the order of the pantry deck, which nobody at the table knows:
+ * a state deals it from its own seed, and shuffles the discard pile back in the same way, so two states built with the
+ * same seed play out identically. Moves that would run the pantry deck and discard pile dry part way through are not
+ * legal in a state, as the game itself would throw.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public final class GameState {
+    private static final byte WAITING = (byte) CustomerOrderStatus.WAITING.ordinal();
+    private static final byte IMPATIENT = (byte) CustomerOrderStatus.IMPATIENT.ordinal();
+
+    private final Rules rules;
+    private final int[][] hands;
+    private final int[] pantry;
+    private final Pile deck;
+    private final int[] discard;
+    private final int discardSize;
+    private final int[] layers;
+    // The customer in each slot as its id plus one, or 0 for an empty slot, and its status
+    private final byte[] slots;
+    private final byte[] statuses;
+    private final Pile customerDeck;
+    private final int current;
+    private final int actionsUsed;
+    private final int served;
+    private final int garnished;
+    private final int walkedOut;
+    private final long seed;
+
+    // What every state of one game shares: the cards, the recipes and the customers
+    private static final class Rules {
+        final SelfPlay moves;
+        final int kinds;
+        final int duck;
+        final int players;
+        final int actionsPermitted;
+        final int slots;
+        final int pantrySize;
+        final int[][] layerRecipes;
+        final List<String> customerNames = new ArrayList<>();
+        final List<int[]> customerRecipes = new ArrayList<>();
+        final List<int[]> customerGarnishes = new ArrayList<>();
+        final Map<String, Integer> customerIds = new HashMap<>();
+
+        Rules(SelfPlay moves, int players, int actionsPermitted, int slots, int pantrySize) {
+            this.moves = moves;
+            this.kinds = moves.getVocabulary().size();
+            this.duck = moves.getVocabulary().indexOf(Ingredient.HELPFUL_DUCK.toString());
+            this.players = players;
+            this.actionsPermitted = actionsPermitted;
+            this.slots = slots;
+            this.pantrySize = pantrySize;
+            this.layerRecipes = new int[kinds][];
+        }
+
+        boolean isLayer(int card) {
+            return layerRecipes[card] != null;
+        }
+
+        int card(Ingredient card) {
+            int code = moves.code(card);
+            if (card instanceof Layer && layerRecipes[code] == null) {
+                layerRecipes[code] = codes(((Layer) card).getRecipe());
+            }
+            return code;
+        }
+
+        int customer(CustomerOrder customer) {
+            Integer id = customerIds.get(customer.toString());
+            if (id == null) {
+                if (customerNames.size() >= Byte.MAX_VALUE) {
+                    throw new IllegalArgumentException("Too many different customers.");
+                }
+                id = customerNames.size();
+                customerIds.put(customer.toString(), id);
+                customerNames.add(customer.toString());
+                customerRecipes.add(codes(customer.getRecipe()));
+                customerGarnishes.add(codes(customer.getGarnish()));
+            }
+            return id;
+        }
+
+        int[] codes(List<Ingredient> cards) {
+            int[] codes = new int[cards.size()];
+            for (int i = 0; i < codes.length; i++) {
+                codes[i] = card(cards.get(i));
+            }
+            return codes;
+        }
+    }
+
+    // A deck as a linked list, top card first; the rest of a deck is shared by every deck drawn from it
+    private static final class Pile {
+        final int card;
+        final Pile next;
+        final int size;
+
+        Pile(int card, Pile next) {
+            this.card = card;
+            this.next = next;
+            this.size = next == null ? 1 : next.size + 1;
+        }
+
+        static int size(Pile pile) {
+            return pile == null ? 0 : pile.size;
+        }
+
+        static Pile of(int[] cards) {
+            Pile pile = null;
+            for (int i = cards.length - 1; i >= 0; i--) {
+                pile = new Pile(cards[i], pile);
+            }
+            return pile;
+        }
+    }
+
+    private GameState(Rules rules, int[][] hands, int[] pantry, Pile deck, int[] discard, int discardSize, int[] layers,
+                      byte[] slots, byte[] statuses, Pile customerDeck, int current, int actionsUsed, int served,
+                      int garnished, int walkedOut, long seed) {
+        this.rules = rules;
+        this.hands = hands;
+        this.pantry = pantry;
+        this.deck = deck;
+        this.discard = discard;
+        this.discardSize = discardSize;
+        this.layers = layers;
+        this.slots = slots;
+        this.statuses = statuses;
+        this.customerDeck = customerDeck;
+        this.current = current;
+        this.actionsUsed = actionsUsed;
+        this.served = served;
+        this.garnished = garnished;
+        this.walkedOut = walkedOut;
+        this.seed = seed;
+    }
+
+    /**
+     * Takes the position of a game. The game is only read, apart from its hands being sorted as reading them always does.
+     * The pantry deck is dealt from the seed, since its real order is hidden; the counts of customers served and walked
+     * out start from nothing.
+     *
+     * @param game a started game.
+     * @param moves the self-play helper whose vocabulary and move codes the state uses.
+     * @param seed the seed for dealing the pantry deck and for every later shuffle.
+     * @return the state.
+     * @throws IllegalArgumentException if the game has not started, has more than {@link SelfPlay#MAX_PLAYERS} players or
+     * more customer slots than move codes have room for, or holds a card the vocabulary does not know.
+     */
+    public static GameState of(MagicBakery game, SelfPlay moves, long seed) throws IllegalArgumentException {
+        if (game.getPlayers().isEmpty()) {
+            throw new IllegalArgumentException("Only a started game has a position.");
+        }
+        // Move codes have three bits for the player a card is passed to and nine for the customer slot
+        SelfPlay.checkPlayers(game.getPlayers().size());
+        int width = game.getCustomers().getActiveCustomers().size();
+        if (width > 512) {
+            throw new IllegalArgumentException("Move codes have room for 512 customer slots, not " + width + ".");
+        }
+        Rules rules = new Rules(moves, game.getPlayers().size(), game.getActionsPermitted(),
+            width, game.getRules().getPantrySize());
+        int kinds = rules.kinds;
+        int[][] hands = new int[rules.players][kinds];
+        int player = 0;
+        for (Player p : game.getPlayers()) {
+            for (Ingredient card : p.getHand()) {
+                hands[player][rules.card(card)]++;
+            }
+            player++;
+        }
+        int[] pantry = new int[kinds];
+        for (Ingredient card : game.getPantry()) {
+            pantry[rules.card(card)]++;
+        }
+        int[] layers = new int[kinds];
+        for (Layer layer : game.getLayers()) {
+            layers[rules.card(layer)] = game.getLayerCount(layer);
+        }
+        // The counts give the deck's contents without turning over its lazily shuffled cards
+        IngredientCounts counts = game.getIngredientCounts();
+        int[] deckCounts = new int[kinds];
+        int[] discard = new int[kinds];
+        for (Ingredient card : counts.getKinds()) {
+            deckCounts[rules.card(card)] += counts.getCount(Zone.DECK, card);
+            discard[rules.card(card)] += counts.getCount(Zone.DISCARD, card);
+        }
+
+        byte[] slots = new byte[rules.slots];
+        byte[] statuses = new byte[rules.slots];
+        int slot = 0;
+        for (CustomerOrder customer : game.getCustomers().getActiveCustomers()) {
+            if (customer != null) {
+                slots[slot] = (byte) (rules.customer(customer) + 1);
+                statuses[slot] = (byte) customer.getStatus().ordinal();
+            }
+            slot++;
+        }
+        List<Integer> waiting = new ArrayList<>();
+        for (CustomerOrder customer : game.getCustomers().getCustomerDeck()) {
+            waiting.add(rules.customer(customer));
+        }
+        // The customer deck lists its cards from the bottom up
+        Pile customerDeck = null;
+        for (int id : waiting) {
+            customerDeck = new Pile(id, customerDeck);
+        }
+
+        Random random = new Random(seed);
+        Pile deck = shuffled(deckCounts, null, random);
+        return new GameState(rules, hands, pantry, deck, discard, total(discard), layers, slots, statuses, customerDeck,
+            SelfPlay.playerIndex(game), game.getActionsPermitted() - Math.max(game.getActionsRemaining(), 0), 0, 0, 0,
+            random.nextLong());
+    }
+
+    /**
+     * Returns this state with the pantry deck in a given order, for a search that wants to play out particular deals.
+     *
+     * @param topFirst the card names of the pantry deck, top card first: exactly the cards this state's deck holds.
+     * @return the state with its deck in that order.
+     * @throws IllegalArgumentException if the cards are not the ones in this state's deck.
+     */
+    public GameState withPantryDeck(List<String> topFirst) throws IllegalArgumentException {
+        int[] cards = new int[topFirst.size()];
+        int[] counts = new int[rules.kinds];
+        for (int i = 0; i < cards.length; i++) {
+            cards[i] = rules.moves.code(new Ingredient(topFirst.get(i)));
+            counts[cards[i]]++;
+        }
+        for (Pile pile = deck; pile != null; pile = pile.next) {
+            counts[pile.card]--;
+        }
+        for (int count : counts) {
+            if (count != 0) {
+                throw new IllegalArgumentException("Not the cards in the pantry deck: " + topFirst);
+            }
+        }
+        return new GameState(rules, hands, pantry, Pile.of(cards), discard, discardSize, layers, slots, statuses,
+            customerDeck, current, actionsUsed, served, garnished, walkedOut, seed);
+    }
+
+    /**
+     * Lists the codes of every move the current player could make, in the same form as
+     * {@link SelfPlay#legalMoves(MagicBakery)}: draws, then passes, bakes, fulfils and finally refreshing the pantry.
+     *
+     * @return the legal move codes.
+     */
+    public short[] legalMoves() {
+        if (getActionsRemaining() <= 0) {
+            return new short[0];
+        }
+        short[] moves = new short[rules.kinds * (rules.players + 1) + 2 * rules.slots + 1];
+        int count = 0;
+        int[] hand = hands[current];
+        for (int card = 0; card < rules.kinds; card++) {
+            if (canDraw(card)) {
+                moves[count++] = (short) SelfPlay.move(ActionType.DRAW_INGREDIENT, card);
+            }
+        }
+        for (int card = 0; card < rules.kinds; card++) {
+            for (int recipient = 0; hand[card] > 0 && recipient < rules.players; recipient++) {
+                if (recipient != current) {
+                    moves[count++] = (short) SelfPlay.move(ActionType.PASS_INGREDIENT, card << 3 | recipient);
+                }
+            }
+        }
+        for (int card = 0; card < rules.kinds; card++) {
+            if (canBake(card)) {
+                moves[count++] = (short) SelfPlay.move(ActionType.BAKE_LAYER, card);
+            }
+        }
+        for (int slot = 0; slot < rules.slots; slot++) {
+            for (int garnish = 0; garnish <= 1; garnish++) {
+                if (canFulfil(slot, garnish == 1)) {
+                    moves[count++] = (short) SelfPlay.move(ActionType.FULFIL_ORDER, slot << 1 | garnish);
+                }
+            }
+        }
+        if (canRefresh()) {
+            moves[count++] = (short) SelfPlay.move(ActionType.REFRESH_PANTRY, 0);
+        }
+        short[] result = new short[count];
+        System.arraycopy(moves, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     * Makes a move for the current player.
+     *
+     * @param move the move code, as returned by {@link #legalMoves()}.
+     * @return the state after the move.
+     * @throws IllegalArgumentException if the move is not legal in this state.
+     */
+    public GameState apply(short move) throws IllegalArgumentException {
+        int type = move >> 10;
+        int argument = move & 0x3ff;
+        if (getActionsRemaining() > 0 && type >= 0 && type < ActionType.values().length) {
+            switch (ActionType.values()[type]) {
+                case DRAW_INGREDIENT:
+                    if (canDraw(argument)) {
+                        return draw(argument);
+                    }
+                    break;
+                case PASS_INGREDIENT:
+                    if (canPass(argument >> 3, argument & 7)) {
+                        return pass(argument >> 3, argument & 7);
+                    }
+                    break;
+                case BAKE_LAYER:
+                    if (canBake(argument)) {
+                        return bake(argument);
+                    }
+                    break;
+                case FULFIL_ORDER:
+                    if (canFulfil(argument >> 1, (argument & 1) == 1)) {
+                        return fulfil(argument >> 1, (argument & 1) == 1);
+                    }
+                    break;
+                default:
+                    if (argument == 0 && canRefresh()) {
+                        return refresh();
+                    }
+            }
+        }
+        throw new IllegalArgumentException("Not a legal move: " + move);
+    }
+
+    /**
+     * Ends the current player's turn. When every player has had a turn the customers move along, as in
+     * {@link MagicBakery#endTurn()}.
+     *
+     * @return the state at the start of the next player's turn.
+     */
+    public GameState endTurn() {
+        int next = (current + 1) % rules.players;
+        if (next != 0) {
+            return new GameState(rules, hands, pantry, deck, discard, discardSize, layers, slots, statuses, customerDeck,
+                next, 0, served, garnished, walkedOut, seed);
+        }
+        byte[] slots = this.slots.clone();
+        byte[] statuses = this.statuses.clone();
+        boolean deckEmpty = customerDeck == null;
+        boolean left = timePasses(slots, statuses, deckEmpty);
+        Pile customerDeck = this.customerDeck;
+        if (!deckEmpty) {
+            slots[0] = (byte) (customerDeck.card + 1);
+            statuses[0] = WAITING;
+            customerDeck = customerDeck.next;
+            if (left && occupied(slots) == slots.length) {
+                willLeaveSoon(slots, statuses, customerDeck == null);
+            }
+        }
+        return new GameState(rules, hands, pantry, deck, discard, discardSize, layers, slots, statuses, customerDeck,
+            next, 0, served, garnished, walkedOut + (left ? 1 : 0), seed);
+    }
+
+    /**
+     * Tells whether the game has finished: no customers are waiting and none are left to arrive.
+     *
+     * @return true if the game is over.
+     */
+    public boolean isOver() {
+        return customerDeck == null && occupied(slots) == 0;
+    }
+
+    /**
+     * Returns the number of players.
+     *
+     * @return the number of players.
+     */
+    public int getPlayerCount() {
+        return rules.players;
+    }
+
+    /**
+     * Returns the position in turn order of the player whose turn it is.
+     *
+     * @return the current player's position, counting from 0.
+     */
+    public int getCurrentPlayer() {
+        return current;
+    }
+
+    /**
+     * Returns how many actions the current player has left this turn.
+     *
+     * @return the actions remaining.
+     */
+    public int getActionsRemaining() {
+        return rules.actionsPermitted - actionsUsed;
+    }
+
+    /**
+     * Returns how many of each card a player holds.
+     *
+     * @param player the player's position in turn order.
+     * @return a new array of counts, indexed by the vocabulary.
+     */
+    public int[] getHand(int player) {
+        return hands[player].clone();
+    }
+
+    /**
+     * Returns how many of each card are face up in the pantry.
+     *
+     * @return a new array of counts, indexed by the vocabulary.
+     */
+    public int[] getPantry() {
+        return pantry.clone();
+    }
+
+    /**
+     * Returns how many copies of a layer are left to bake.
+     *
+     * @param card the layer's position in the vocabulary.
+     * @return the number of copies.
+     */
+    public int getLayerCount(int card) {
+        return layers[card];
+    }
+
+    /**
+     * Returns how many cards are left in the pantry deck.
+     *
+     * @return the size of the pantry deck.
+     */
+    public int getPantryDeckSize() {
+        return Pile.size(deck);
+    }
+
+    /**
+     * Returns how many cards are in the discard pile.
+     *
+     * @return the size of the discard pile.
+     */
+    public int getDiscardSize() {
+        return discardSize;
+    }
+
+    /**
+     * Returns the name of the customer waiting in a slot.
+     *
+     * @param slot the slot, counting from 0; the customer in the last slot leaves first.
+     * @return the customer's name, or null if the slot is empty.
+     */
+    public String getCustomer(int slot) {
+        return slots[slot] == 0 ? null : rules.customerNames.get(slots[slot] - 1);
+    }
+
+    /**
+     * Returns the status of the customer waiting in a slot.
+     *
+     * @param slot the slot, counting from 0.
+     * @return the customer's status, or null if the slot is empty.
+     */
+    public CustomerOrderStatus getCustomerStatus(int slot) {
+        return slots[slot] == 0 ? null : CustomerOrderStatus.values()[statuses[slot]];
+    }
+
+    /**
+     * Returns the number of places in the customer row.
+     *
+     * @return the number of customer slots.
+     */
+    public int getCustomerSlots() {
+        return rules.slots;
+    }
+
+    /**
+     * Returns how many customers are still to arrive.
+     *
+     * @return the size of the customer deck.
+     */
+    public int getCustomerDeckSize() {
+        return Pile.size(customerDeck);
+    }
+
+    /**
+     * Returns how many orders have been fulfilled since the state was taken from a game, garnished or not.
+     *
+     * @return the number of orders fulfilled.
+     */
+    public int getServed() {
+        return served;
+    }
+
+    /**
+     * Returns how many of the fulfilled orders were also garnished.
+     *
+     * @return the number of orders garnished.
+     */
+    public int getGarnished() {
+        return garnished;
+    }
+
+    /**
+     * Returns how many customers have left without being served since the state was taken from a game.
+     *
+     * @return the number of customers who gave up.
+     */
+    public int getWalkedOut() {
+        return walkedOut;
+    }
+
+    private boolean canDraw(int card) {
+        return card < rules.kinds && pantry[card] > 0 && canDeal(Pile.size(deck), discardSize, 1);
+    }
+
+    private boolean canPass(int card, int recipient) {
+        return card < rules.kinds && hands[current][card] > 0 && recipient < rules.players && recipient != current;
+    }
+
+    private boolean canBake(int layer) {
+        return layer < rules.kinds && rules.isLayer(layer) && layers[layer] > 0 && covers(hands[current].clone(), rules.layerRecipes[layer]);
+    }
+
+    private boolean canFulfil(int slot, boolean garnish) {
+        if (slot >= rules.slots || slots[slot] == 0) {
+            return false;
+        }
+        int id = slots[slot] - 1;
+        int[] hand = hands[current].clone();
+        if (!covers(hand, rules.customerRecipes.get(id))) {
+            return false;
+        }
+        if (!garnish) {
+            return true;
+        }
+        int[] extra = rules.customerGarnishes.get(id);
+        if (extra.length == 0 || !covers(hand, extra)) {
+            return false;
+        }
+        // The used cards reach the discard pile before the two garnish draws
+        int discarded = 0;
+        for (int card : used(hands[current].clone(), id, true)) {
+            if (!rules.isLayer(card) || layers[card] == 0) {
+                discarded++;
+            }
+        }
+        return canDeal(Pile.size(deck), discardSize + discarded, 2);
+    }
+
+    private boolean canRefresh() {
+        return canDeal(Pile.size(deck) + discardSize, discardSize + total(pantry), rules.pantrySize);
+    }
+
+    // Mirrors MagicBakery.drawFromPantryDeck: an empty deck is restored from the discard pile, but the restore keeps drawing
+    // into the pantry until the deck holds more cards than the pantry, so it fails unless the discard pile holds more
+    private boolean canDeal(int deck, int discard, int draws) {
+        for (int i = 0; i < draws; i++) {
+            if (deck == 0) {
+                if (discard <= rules.pantrySize) {
+                    return false;
+                }
+                deck = discard;
+                discard = 0;
+            }
+            deck--;
+        }
+        return true;
+    }
+
+    // Whether the cards can be taken from the hand, with a helpful duck standing in for a missing plain ingredient; what is
+    // left of the hand stays in the array
+    private boolean covers(int[] hand, int[] cards) {
+        for (int card : cards) {
+            if (hand[card] > 0) {
+                hand[card]--;
+            } else if (!rules.isLayer(card) && rules.duck >= 0 && hand[rules.duck] > 0) {
+                hand[rules.duck]--;
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Mirrors CustomerOrder.fulfill: the cards the order takes from the hand, garnish included if it can still be made
+    private List<Integer> used(int[] hand, int id, boolean garnish) {
+        List<Integer> used = new ArrayList<>();
+        take(hand, rules.customerRecipes.get(id), used);
+        int[] extra = rules.customerGarnishes.get(id);
+        if (garnish && extra.length > 0 && covers(hand.clone(), extra)) {
+            take(hand, extra, used);
+        }
+        return used;
+    }
+
+    private void take(int[] hand, int[] cards, List<Integer> used) {
+        for (int card : cards) {
+            if (hand[card] > 0) {
+                hand[card]--;
+                used.add(card);
+            } else if (rules.duck >= 0 && hand[rules.duck] > 0) {
+                hand[rules.duck]--;
+                used.add(rules.duck);
+            }
+        }
+    }
+
+    private GameState draw(int card) {
+        int[] pantry = this.pantry.clone();
+        pantry[card]--;
+        int[][] hands = this.hands.clone();
+        hands[current] = hands[current].clone();
+        hands[current][card]++;
+        Dealer dealer = new Dealer();
+        pantry[dealer.deal()]++;
+        return new GameState(rules, hands, pantry, dealer.deck, dealer.discard, dealer.discardSize, layers, slots,
+            statuses, customerDeck, current, actionsUsed + 1, served, garnished, walkedOut, dealer.seed);
+    }
+
+    private GameState pass(int card, int recipient) {
+        int[][] hands = this.hands.clone();
+        hands[current] = hands[current].clone();
+        hands[current][card]--;
+        hands[recipient] = hands[recipient].clone();
+        hands[recipient][card]++;
+        return new GameState(rules, hands, pantry, deck, discard, discardSize, layers, slots, statuses, customerDeck,
+            current, actionsUsed + 1, served, garnished, walkedOut, seed);
+    }
+
+    // Mirrors MagicBakery.bakeLayer: the recipe goes to the discard pile, with ducks in place of missing ingredients
+    private GameState bake(int layer) {
+        int[][] hands = this.hands.clone();
+        int[] hand = hands[current].clone();
+        hands[current] = hand;
+        int[] discard = this.discard.clone();
+        for (int card : rules.layerRecipes[layer]) {
+            int taken = hand[card] > 0 ? card : rules.duck;
+            hand[taken]--;
+            discard[taken]++;
+        }
+        hand[layer]++;
+        int[] layers = this.layers.clone();
+        layers[layer]--;
+        return new GameState(rules, hands, pantry, deck, discard, discardSize + rules.layerRecipes[layer].length, layers,
+            slots, statuses, customerDeck, current, actionsUsed + 1, served, garnished, walkedOut, seed);
+    }
+
+    // Mirrors MagicBakery.fulfillOrder: a used layer goes back to the table if a copy of it is still there, and to the
+    // discard pile like every other card if not
+    private GameState fulfil(int slot, boolean garnish) {
+        int id = slots[slot] - 1;
+        int[][] hands = this.hands.clone();
+        int[] hand = hands[current].clone();
+        hands[current] = hand;
+        List<Integer> used = used(hand.clone(), id, garnish);
+        boolean garnished = used.size() > rules.customerRecipes.get(id).length;
+        int[] layers = this.layers;
+        Dealer dealer = new Dealer();
+        for (int card : used) {
+            hand[card]--;
+            if (rules.isLayer(card) && layers[card] > 0) {
+                if (layers == this.layers) {
+                    layers = layers.clone();
+                }
+                layers[card]++;
+            } else {
+                dealer.discard(card);
+            }
+        }
+        if (garnish) {
+            hand[dealer.deal()]++;
+            hand[dealer.deal()]++;
+        }
+
+        byte[] slots = this.slots.clone();
+        byte[] statuses = this.statuses.clone();
+        slots[slot] = 0;
+        if (!willLeaveSoon(slots, statuses, customerDeck == null) && occupied(slots) > 0 && slots[slots.length - 1] != 0) {
+            statuses[slots.length - 1] = WAITING;
+        }
+        return new GameState(rules, hands, pantry, dealer.deck, dealer.discard, dealer.discardSize, layers, slots,
+            statuses, customerDeck, current, actionsUsed + 1, served + 1, this.garnished + (garnished ? 1 : 0), walkedOut,
+            dealer.seed);
+    }
+
+    // Mirrors MagicBakery.refreshPantry: the discard pile is shuffled into the deck but also keeps its cards, and the old
+    // pantry joins it
+    private GameState refresh() {
+        int[] cards = discard.clone();
+        for (Pile pile = deck; pile != null; pile = pile.next) {
+            cards[pile.card]++;
+        }
+        Random random = new Random(seed);
+        Dealer dealer = new Dealer();
+        dealer.deck = shuffled(cards, null, random);
+        dealer.seed = random.nextLong();
+        for (int card = 0; card < rules.kinds; card++) {
+            for (int copy = 0; copy < pantry[card]; copy++) {
+                dealer.discard(card);
+            }
+        }
+        int[] pantry = new int[rules.kinds];
+        for (int i = 0; i < rules.pantrySize; i++) {
+            pantry[dealer.deal()]++;
+        }
+        return new GameState(rules, hands, pantry, dealer.deck, dealer.discard, dealer.discardSize, layers, slots,
+            statuses, customerDeck, current, actionsUsed + 1, served, garnished, walkedOut, dealer.seed);
+    }
+
+    // Draws from the pantry deck for one move, copying the discard pile only if the move changes it
+    private final class Dealer {
+        Pile deck = GameState.this.deck;
+        int[] discard = GameState.this.discard;
+        int discardSize = GameState.this.discardSize;
+        long seed = GameState.this.seed;
+
+        void discard(int card) {
+            if (discard == GameState.this.discard) {
+                discard = discard.clone();
+            }
+            discard[card]++;
+            discardSize++;
+        }
+
+        int deal() {
+            if (deck == null) {
+                Random random = new Random(seed);
+                deck = shuffled(discard, null, random);
+                seed = random.nextLong();
+                discard = new int[rules.kinds];
+                discardSize = 0;
+            }
+            int card = deck.card;
+            deck = deck.next;
+            return card;
+        }
+    }
+
+    // Mirrors Customers.timePasses: everyone ahead of the first gap in the row moves along into it, and with no gap the
+    // whole row moves along and the customer in the last slot leaves
+    private static boolean timePasses(byte[] slots, byte[] statuses, boolean deckEmpty) {
+        willLeaveSoon(slots, statuses, deckEmpty);
+        int last = slots.length - 1;
+        int gap = firstGap(slots, deckEmpty);
+        boolean left = gap < 0 && slots[last] != 0;
+        for (int slot = gap < 0 ? last : gap; slot > 0; slot--) {
+            slots[slot] = slots[slot - 1];
+            statuses[slot] = statuses[slot - 1];
+        }
+        slots[0] = 0;
+        return left;
+    }
+
+    // Mirrors Customers.firstGap: the first empty slot, or while no more customers are coming the first one behind a customer
+    private static int firstGap(byte[] slots, boolean deckEmpty) {
+        boolean customerAhead = false;
+        for (int slot = 0; slot < slots.length; slot++) {
+            if (slots[slot] == 0 && (customerAhead || !deckEmpty)) {
+                return slot;
+            }
+            customerAhead |= slots[slot] != 0;
+        }
+        return -1;
+    }
+
+    // Mirrors Customers.customerWillLeaveSoon: the customer in the last slot grows impatient when it is due to leave
+    private static boolean willLeaveSoon(byte[] slots, byte[] statuses, boolean deckEmpty) {
+        int last = slots.length - 1;
+        if (slots[last] != 0 && firstGap(slots, deckEmpty) < 0) {
+            statuses[last] = IMPATIENT;
+            return true;
+        }
+        return false;
+    }
+
+    private static int occupied(byte[] slots) {
+        int occupied = 0;
+        for (byte slot : slots) {
+            if (slot != 0) {
+                occupied++;
+            }
+        }
+        return occupied;
+    }
+
+    private static int total(int[] counts) {
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    // Deals the counted cards into a random order on top of a pile
+    private static Pile shuffled(int[] counts, Pile onto, Random random) {
+        int[] cards = new int[total(counts)];
+        int n = 0;
+        for (int card = 0; card < counts.length; card++) {
+            for (int copy = 0; copy < counts[card]; copy++) {
+                cards[n++] = card;
+            }
+        }
+        for (int i = cards.length; i > 1; i--) {
+            int j = random.nextInt(i);
+            int swap = cards[i - 1];
+            cards[i - 1] = cards[j];
+            cards[j] = swap;
+        }
+        Pile pile = onto;
+        for (int i = cards.length - 1; i >= 0; i--) {
+            pile = new Pile(cards[i], pile);
+        }
+        return pile;
+    }
+
+    @Override
+    public String toString() {
+        List<String> customers = new ArrayList<>();
+        for (int slot = 0; slot < rules.slots; slot++) {
+            customers.add(slots[slot] == 0 ? "-" : getCustomer(slot) + " " + getCustomerStatus(slot));
+        }
+        return "Player " + (current + 1) + ", " + getActionsRemaining() + " actions left, customers "
+            + Collections.unmodifiableList(customers) + ", " + served + " served";
+    }
+}
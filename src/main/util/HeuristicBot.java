@@ -0,0 +1,284 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import bakery.CustomerOrder;
+import bakery.Ingredient;
+import bakery.Layer;
+import bakery.MagicBakery;
+import bakery.MagicBakery.ActionType;
+import bakery.Player;
+
+/**
+ * A cheap computer player for {@link MagicBakery}, for tables where searching ahead would be too slow. It looks one move
+ * ahead and picks the move that brings the players' hands closest to the waiting customers' orders.
+ *
+ * The distance from a hand to an order is the number of actions still needed before the order could be fulfilled: one
+ * draw for every missing ingredient and one bake for every missing layer, whose own recipe ingredients are then missing
+ * too. Helpful ducks stand in for missing ingredients but never for layers, as in the game. A hand is worth more the
+ * closer it is to each order, with a bonus for garnishes and more weight on customers who will leave soonest. Fulfilling
+ * an order always comes first; passing a card counts what it does for the recipient at half weight, since they cannot use
+ * it until their turn.
+ *
+ * Recipes are turned into arrays of card positions once, when the bot is created or a customer is first seen, and hands
+ * are counted into arrays indexed the same way, so a decision involves no searching through lists and takes microseconds.
+ * A bot reuses its working arrays between decisions and must only be used by one thread at a time.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public class HeuristicBot {
+    private static final double FULFIL_SCORE = 100;
+    private static final double GARNISH_WEIGHT = 0.25;
+    private static final double SLOT_WEIGHT = 0.5;
+    private static final double PASS_DISCOUNT = 0.5;
+    // Only worth refreshing the pantry when no card in it brings anyone closer to an order
+    private static final double REFRESH_SCORE = 1e-6;
+    private static final int UNREACHABLE = 1000;
+
+    private final SelfPlay moves;
+    private final int duck;
+    private final int[][] layerRecipes;
+    private final Map<String, int[][]> orders = new HashMap<>();
+
+    private final boolean[] available;
+    private final boolean[] seen;
+    private final int[] trial;
+    private final int[] work;
+    private int[][] hands = new int[0][];
+
+    /**
+     * Creates a bot for games using the given cards.
+     *
+     * @param moves the self-play helper whose move codes the bot returns.
+     * @param layers every layer in the game, for their recipes.
+     * @throws IllegalArgumentException if a layer or one of its ingredients is not in the vocabulary.
+     */
+    public HeuristicBot(SelfPlay moves, Collection<Layer> layers) throws IllegalArgumentException {
+        this.moves = moves;
+        int kinds = moves.getVocabulary().size();
+        this.duck = moves.getVocabulary().indexOf(Ingredient.HELPFUL_DUCK.toString());
+        this.layerRecipes = new int[kinds][];
+        for (Layer layer : layers) {
+            layerRecipes[moves.code(layer)] = codes(layer.getRecipe());
+        }
+        this.available = new boolean[kinds];
+        this.seen = new boolean[kinds];
+        this.trial = new int[kinds];
+        this.work = new int[kinds];
+    }
+
+    /**
+     * Picks a move for the current player.
+     *
+     * @param game the game to move in.
+     * @return the code of the chosen move, as used by {@link SelfPlay#play(MagicBakery, short)}.
+     * @throws IllegalStateException if the current player has no actions left this turn.
+     */
+    public short choose(MagicBakery game) throws IllegalStateException {
+        if (game.getActionsRemaining() <= 0) {
+            throw new IllegalStateException("The current player has no actions left this turn.");
+        }
+        List<Player> players = new ArrayList<>(game.getPlayers());
+        int current = players.indexOf(game.getCurrentPlayer());
+        if (hands.length != players.size()) {
+            hands = new int[players.size()][available.length];
+        }
+        for (int p = 0; p < players.size(); p++) {
+            Arrays.fill(hands[p], 0);
+            for (Ingredient card : players.get(p).getHand()) {
+                hands[p][moves.code(card)]++;
+            }
+        }
+        Arrays.fill(available, false);
+        for (Layer layer : game.getLayers()) {
+            available[moves.code(layer)] = true;
+        }
+        List<CustomerOrder> slots = new ArrayList<>(game.getCustomers().getActiveCustomers());
+        int[] hand = hands[current];
+        double before = value(hand, slots);
+
+        short best = (short) SelfPlay.move(ActionType.REFRESH_PANTRY, 0);
+        double bestScore = REFRESH_SCORE;
+
+        for (int slot = 0; slot < slots.size(); slot++) {
+            CustomerOrder customer = slots.get(slot);
+            if (customer == null) {
+                continue;
+            }
+            int[][] order = order(customer);
+            if (missing(hand, order[0], null) == 0) {
+                double score = FULFIL_SCORE + slot;
+                boolean garnish = order[1].length > 0 && more(order[1], null) == 0;
+                if (garnish) {
+                    score += GARNISH_WEIGHT;
+                }
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = (short) SelfPlay.move(ActionType.FULFIL_ORDER, slot << 1 | (garnish ? 1 : 0));
+                }
+            }
+        }
+        if (bestScore >= FULFIL_SCORE) {
+            return best;
+        }
+
+        for (int layer = 0; layer < layerRecipes.length; layer++) {
+            if (layerRecipes[layer] == null || !available[layer] || missing(hand, layerRecipes[layer], null) != 0) {
+                continue;
+            }
+            System.arraycopy(hand, 0, trial, 0, trial.length);
+            for (int card : layerRecipes[layer]) {
+                trial[trial[card] > 0 ? card : duck]--;
+            }
+            trial[layer]++;
+            double score = value(trial, slots) - before;
+            if (score > bestScore) {
+                bestScore = score;
+                best = (short) SelfPlay.move(ActionType.BAKE_LAYER, layer);
+            }
+        }
+
+        Arrays.fill(seen, false);
+        for (Ingredient card : game.getPantry()) {
+            int code = moves.code(card);
+            if (seen[code]) {
+                continue;
+            }
+            seen[code] = true;
+            System.arraycopy(hand, 0, trial, 0, trial.length);
+            trial[code]++;
+            double score = value(trial, slots) - before;
+            if (score > bestScore) {
+                bestScore = score;
+                best = (short) SelfPlay.move(ActionType.DRAW_INGREDIENT, code);
+            }
+        }
+
+        double[] worth = new double[players.size()];
+        for (int p = 0; p < players.size(); p++) {
+            worth[p] = p == current ? before : value(hands[p], slots);
+        }
+        for (int code = 0; code < hand.length; code++) {
+            if (hand[code] == 0) {
+                continue;
+            }
+            System.arraycopy(hand, 0, trial, 0, trial.length);
+            trial[code]--;
+            double loss = value(trial, slots) - before;
+            for (int p = 0; p < players.size(); p++) {
+                if (p == current) {
+                    continue;
+                }
+                hands[p][code]++;
+                double score = loss + PASS_DISCOUNT * (value(hands[p], slots) - worth[p]);
+                hands[p][code]--;
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = (short) SelfPlay.move(ActionType.PASS_INGREDIENT, code << 3 | p);
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns how many actions a hand is from being able to fulfil an order, assuming every layer can be baked.
+     *
+     * @param customer the customer whose order to measure against.
+     * @param hand the cards held.
+     * @return one for every ingredient that would have to be drawn plus one for every layer that would have to be baked.
+     */
+    public int distance(CustomerOrder customer, List<Ingredient> hand) {
+        int[] counts = new int[available.length];
+        for (Ingredient card : hand) {
+            counts[moves.code(card)]++;
+        }
+        boolean[] anyLayer = new boolean[available.length];
+        Arrays.fill(anyLayer, true);
+        return missing(counts, order(customer)[0], anyLayer);
+    }
+
+    // How close a hand is to every waiting order; 1 for an order it can fulfil, falling towards 0 with distance
+    private double value(int[] hand, List<CustomerOrder> slots) {
+        double value = 0;
+        for (int slot = 0; slot < slots.size(); slot++) {
+            CustomerOrder customer = slots.get(slot);
+            if (customer == null) {
+                continue;
+            }
+            int[][] order = order(customer);
+            int recipe = missing(hand, order[0], available);
+            if (recipe >= UNREACHABLE) {
+                continue;
+            }
+            double weight = 1 + slot * SLOT_WEIGHT;
+            value += weight / (1 + recipe);
+            if (order[1].length > 0) {
+                value += GARNISH_WEIGHT * weight / (1 + recipe + more(order[1], available));
+            }
+        }
+        return value;
+    }
+
+    // The actions needed to collect the cards from the hand, baking the layers marked in bakeable (none if it is null),
+    // leaving what is left of the hand in work
+    private int missing(int[] hand, int[] cards, boolean[] bakeable) {
+        System.arraycopy(hand, 0, work, 0, work.length);
+        return more(cards, bakeable);
+    }
+
+    // As missing, but carrying on from what is left in work
+    private int more(int[] cards, boolean[] bakeable) {
+        int ingredients = 0;
+        int bakes = 0;
+        for (int card : cards) {
+            if (work[card] > 0) {
+                work[card]--;
+            } else if (layerRecipes[card] == null) {
+                ingredients++;
+            } else if (bakeable != null && bakeable[card]) {
+                bakes++;
+                for (int inner : layerRecipes[card]) {
+                    if (work[inner] > 0) {
+                        work[inner]--;
+                    } else {
+                        ingredients++;
+                    }
+                }
+            } else {
+                return UNREACHABLE;
+            }
+        }
+        if (duck >= 0) {
+            int ducks = Math.min(work[duck], ingredients);
+            work[duck] -= ducks;
+            ingredients -= ducks;
+        }
+        return ingredients + bakes;
+    }
+
+    // The recipe and garnish of a customer as card positions, worked out the first time the customer is seen
+    private int[][] order(CustomerOrder customer) {
+        int[][] order = orders.get(customer.toString());
+        if (order == null) {
+            order = new int[][] {codes(customer.getRecipe()), codes(customer.getGarnish())};
+            orders.put(customer.toString(), order);
+        }
+        return order;
+    }
+
+    private int[] codes(List<Ingredient> cards) {
+        int[] codes = new int[cards.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = moves.code(cards.get(i));
+        }
+        return codes;
+    }
+}
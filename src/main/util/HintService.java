@@ -0,0 +1,422 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import bakery.CustomerOrder;
+import bakery.Ingredient;
+import bakery.Layer;
+import bakery.MagicBakery;
+import bakery.MagicBakery.ActionType;
+import bakery.Player;
+
+/**
+ * Suggests a move for the current player without holding up the caller (typically the JavaFX application thread). The
+ * game is copied on the calling thread and searched on a background thread for as long as the caller allows. The search
+ * is an anytime one: the heuristic bot's choice is suggested straight away, and a better suggestion is sent whenever the
+ * search changes its mind, so the caller can stop waiting at any point and still have the best move found so far.
+ *
+ * The search plays the rest of the round and the next one out many times from every legal move, with the
+ * {@link HeuristicBot} making the moves and an occasional random move for variety, and keeps the move after which the
+ * most customers were served on average. The hidden pantry deck is shuffled before every playout so the suggestion never
+ * depends on cards the player cannot see. Moves are chosen for playouts by the UCB1 rule, which spends most playouts on
+ * the moves that look best so far without giving up on the others. A customer served later in a playout counts for a
+ * little less than one served sooner.
+ *
+ * Only one hint is worked on at a time: asking for a new one cancels the old one. A hint also cancels itself as soon as
+ * the game it was asked about changes, since its suggestions no longer apply.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public class HintService {
+    private static final double EXPLORATION = 1.4;
+    private static final double RANDOM_MOVE_CHANCE = 0.1;
+    private static final double GARNISH_BONUS = 0.25;
+    // Customers served sooner count for more, so an order that can be fulfilled now is not put off
+    private static final double DISCOUNT = 0.95;
+    private static final int ROUNDS_AHEAD = 2;
+
+    private static HintService instance;
+
+    private final ExecutorService executor;
+    private Hint current;
+
+    /**
+     * A suggested move and how it was arrived at.
+     *
+     * @author Adam Aly
+     * @version 1.0
+     * @since 2024
+     */
+    public static final class Suggestion {
+        private final short move;
+        private final String description;
+        private final double score;
+        private final int playouts;
+        private final boolean finished;
+
+        private Suggestion(short move, String description, double score, int playouts, boolean finished) {
+            this.move = move;
+            this.description = description;
+            this.score = score;
+            this.playouts = playouts;
+            this.finished = finished;
+        }
+
+        /**
+         * Returns the suggested move as a {@link SelfPlay} move code, using the card names in the order
+         * {@link SelfPlay#vocabulary(MagicBakery)} lists them for a game dealt from the same files.
+         *
+         * @return the move code.
+         */
+        public short getMove() {
+            return move;
+        }
+
+        /**
+         * Returns the suggested move in words, such as "Draw eggs" or "Pass sugar to Player 2".
+         *
+         * @return the description of the move.
+         */
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * Returns the average number of customers served in the playouts after this move, counting a garnish as a quarter
+         * of a customer and each customer for a little less the more moves it took. It is 0 for the first suggestion,
+         * which comes before any playouts.
+         *
+         * @return the average playout score.
+         */
+        public double getScore() {
+            return score;
+        }
+
+        /**
+         * Returns the number of playouts the search had made when it gave this suggestion.
+         *
+         * @return the number of playouts.
+         */
+        public int getPlayouts() {
+            return playouts;
+        }
+
+        /**
+         * Tells whether this is the last suggestion, given when the time allowed ran out.
+         *
+         * @return true for the final suggestion.
+         */
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public String toString() {
+            return playouts == 0 ? description : String.format("%s (%.2f from %d playouts)", description, score, playouts);
+        }
+    }
+
+    /**
+     * A hint being worked on, which can be cancelled and whose final suggestion can be waited for.
+     *
+     * @author Adam Aly
+     * @version 1.0
+     * @since 2024
+     */
+    public static final class Hint {
+        private final MagicBakery game;
+        private final long version;
+        private final CompletableFuture<Suggestion> result = new CompletableFuture<>();
+        private volatile boolean cancelled;
+
+        private Hint(MagicBakery game) {
+            this.game = game;
+            this.version = game.getStateVersion();
+        }
+
+        /**
+         * Stops working on the hint. No more suggestions are sent and the result is cancelled.
+         */
+        public void cancel() {
+            cancelled = true;
+            result.cancel(false);
+        }
+
+        /**
+         * Tells whether the hint still applies: it has not been cancelled and the game has not changed since it was asked
+         * for. Suggestions should be checked with this before they are shown, as one may arrive just after a move.
+         *
+         * @return true if the hint still applies.
+         */
+        public boolean isCurrent() {
+            return !cancelled && game.getStateVersion() == version;
+        }
+
+        /**
+         * Returns the final suggestion, once the time allowed has run out. The future is cancelled if the hint is
+         * cancelled or the game changes first, and completed with null if the current player has no moves.
+         *
+         * @return the future final suggestion.
+         */
+        public CompletableFuture<Suggestion> getResult() {
+            return result;
+        }
+    }
+
+    // Statistics for one root move
+    private static final class Candidate {
+        private final short move;
+        private double total;
+        private int playouts;
+
+        private Candidate(short move) {
+            this.move = move;
+        }
+
+        private double mean() {
+            return playouts == 0 ? 0 : total / playouts;
+        }
+    }
+
+    /**
+     * Creates a hint service with its own background thread. The thread does not keep the application alive.
+     */
+    public HintService() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bakery-hint");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the hint service shared by the whole application.
+     *
+     * @return the shared hint service.
+     */
+    public static synchronized HintService getInstance() {
+        if (instance == null) {
+            instance = new HintService();
+        }
+        return instance;
+    }
+
+    /**
+     * Starts working out a move for the current player, cancelling any hint still being worked on.
+     *
+     * @param game the game to suggest a move in; it is copied before this method returns and is never changed.
+     * @param budgetMillis how long to search for, in milliseconds.
+     * @param deliverOn where to run the listener, such as Platform::runLater for the JavaFX application thread.
+     * @param listener receives each improved suggestion, the last of them marked as finished.
+     * @return the hint, for cancelling it or waiting for its final suggestion.
+     * @throws IllegalArgumentException if the game has more players or cards than move codes have room for (see
+     * {@link SelfPlay#MAX_PLAYERS}); any hint still being worked on carries on.
+     */
+    public synchronized Hint suggest(MagicBakery game, long budgetMillis, Executor deliverOn, Consumer<Suggestion> listener) throws IllegalArgumentException {
+        SelfPlay.checkPlayers(game.getPlayers().size());
+        SelfPlay moves = new SelfPlay(vocabulary(game));
+        if (current != null) {
+            current.cancel();
+        }
+        Hint hint = new Hint(game);
+        current = hint;
+        Random random = new Random(hint.version);
+        MagicBakery root = game.copy(random);
+        long deadline = System.nanoTime() + budgetMillis * 1_000_000L;
+        executor.execute(() -> {
+            try {
+                search(hint, root, moves, random, deadline, deliverOn, listener);
+            } catch (RuntimeException e) {
+                hint.result.completeExceptionally(e);
+            }
+        });
+        return hint;
+    }
+
+    /**
+     * Cancels the hint being worked on, if any.
+     */
+    public synchronized void cancel() {
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    /**
+     * Cancels the hint being worked on and stops the background thread.
+     */
+    public void shutdown() {
+        cancel();
+        executor.shutdown();
+    }
+
+    // The root is a copy of the game taken when the hint was asked for; every playout starts from a copy of it
+    private static void search(Hint hint, MagicBakery root, SelfPlay moves, Random random, long deadline, Executor deliverOn, Consumer<Suggestion> listener) {
+        if (!hint.isCurrent()) {
+            hint.cancel();
+            return;
+        }
+        HeuristicBot bot = new HeuristicBot(moves, layers(root));
+        short[] legal = moves.legalMoves(root);
+        if (legal.length == 0) {
+            hint.result.complete(null);
+            return;
+        }
+
+        Candidate[] candidates = new Candidate[legal.length];
+        for (int i = 0; i < legal.length; i++) {
+            candidates[i] = new Candidate(legal[i]);
+        }
+        short best = bot.choose(root);
+        deliver(hint, new Suggestion(best, describe(root, moves, best), 0, 0, false), deliverOn, listener);
+
+        int playouts = 0;
+        double bestScore = 0;
+        while (System.nanoTime() < deadline) {
+            if (!hint.isCurrent() || Thread.currentThread().isInterrupted()) {
+                hint.cancel();
+                return;
+            }
+            Candidate candidate = select(candidates, playouts);
+            candidate.total += playout(root, moves, bot, candidate.move, random);
+            candidate.playouts++;
+            playouts++;
+
+            Candidate leader = leader(candidates);
+            if (leader.move != best && leader.playouts > 1) {
+                best = leader.move;
+                bestScore = leader.mean();
+                deliver(hint, new Suggestion(best, describe(root, moves, best), bestScore, playouts, false), deliverOn, listener);
+            }
+        }
+        Candidate leader = leader(candidates);
+        if (leader.playouts > 0) {
+            best = leader.move;
+            bestScore = leader.mean();
+        }
+        Suggestion last = new Suggestion(best, describe(root, moves, best), bestScore, playouts, true);
+        deliver(hint, last, deliverOn, listener);
+        hint.result.complete(last);
+    }
+
+    private static void deliver(Hint hint, Suggestion suggestion, Executor deliverOn, Consumer<Suggestion> listener) {
+        deliverOn.execute(() -> {
+            if (hint.isCurrent()) {
+                listener.accept(suggestion);
+            }
+        });
+    }
+
+    // Moves not yet tried come first, then the one with the highest upper confidence bound
+    private static Candidate select(Candidate[] candidates, int playouts) {
+        Candidate chosen = null;
+        double bound = Double.NEGATIVE_INFINITY;
+        for (Candidate candidate : candidates) {
+            if (candidate.playouts == 0) {
+                return candidate;
+            }
+            double value = candidate.mean() + EXPLORATION * Math.sqrt(Math.log(playouts) / candidate.playouts);
+            if (value > bound) {
+                bound = value;
+                chosen = candidate;
+            }
+        }
+        return chosen;
+    }
+
+    // The most played move is the most trusted; ties go to the better average
+    private static Candidate leader(Candidate[] candidates) {
+        Candidate leader = candidates[0];
+        for (Candidate candidate : candidates) {
+            if (candidate.playouts > leader.playouts || candidate.playouts == leader.playouts && candidate.mean() > leader.mean()) {
+                leader = candidate;
+            }
+        }
+        return leader;
+    }
+
+    private static double playout(MagicBakery root, SelfPlay moves, HeuristicBot bot, short first, Random random) {
+        MagicBakery game = root.copy(random);
+        game.getPantryDeck().shuffle(random);
+        double served = 0;
+        double worth = 1;
+        short move = first;
+        int turnsLeft = game.getPlayers().size() * ROUNDS_AHEAD;
+        while (true) {
+            CustomerOrder customer = SelfPlay.customerFor(game, move);
+            if (moves.play(game, move)) {
+                served += worth * (1 + (SelfPlay.isGarnish(move) && customer != null ? GARNISH_BONUS : 0));
+            }
+            worth *= DISCOUNT;
+            while (game.getActionsRemaining() <= 0) {
+                game.endTurn();
+                if (--turnsLeft <= 0 || SelfPlay.isOver(game)) {
+                    return served;
+                }
+            }
+            if (random.nextDouble() < RANDOM_MOVE_CHANCE) {
+                short[] legal = moves.legalMoves(game);
+                move = legal[random.nextInt(legal.length)];
+            } else {
+                move = bot.choose(game);
+            }
+        }
+    }
+
+    private static String describe(MagicBakery game, SelfPlay moves, short move) {
+        ActionType type = ActionType.values()[move >> 10];
+        int argument = move & 0x3ff;
+        List<String> names = moves.getVocabulary();
+        switch (type) {
+            case DRAW_INGREDIENT:
+                return "Draw " + names.get(argument);
+            case PASS_INGREDIENT:
+                return "Pass " + names.get(argument >> 3) + " to " + new ArrayList<>(game.getPlayers()).get(argument & 7);
+            case BAKE_LAYER:
+                return "Bake " + names.get(argument);
+            case FULFIL_ORDER:
+                return "Fulfil " + SelfPlay.customerFor(game, move) + ((argument & 1) == 1 ? " and garnish it" : "");
+            default:
+                return "Refresh the pantry";
+        }
+    }
+
+    // Every card the game has dealt with, so that any card a playout meets has a move code. The ingredients come in the
+    // order they were first counted, which is deck file order, and then the layers by name, as SelfPlay.vocabulary has them
+    private static List<String> vocabulary(MagicBakery game) {
+        Set<String> names = new LinkedHashSet<>();
+        Set<String> layers = new TreeSet<>();
+        for (Ingredient card : game.getIngredientCounts().getKinds()) {
+            (card instanceof Layer ? layers : names).add(card.toString());
+        }
+        for (Layer layer : game.getLayers()) {
+            layers.add(layer.toString());
+        }
+        names.addAll(layers);
+        return new ArrayList<>(names);
+    }
+
+    private static List<Layer> layers(MagicBakery game) {
+        List<Layer> layers = new ArrayList<>(game.getLayers());
+        for (Player player : game.getPlayers()) {
+            for (Ingredient card : player.getHand()) {
+                if (card instanceof Layer && !layers.contains(card)) {
+                    layers.add((Layer) card);
+                }
+            }
+        }
+        return layers;
+    }
+}
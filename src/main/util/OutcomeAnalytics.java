@@ -0,0 +1,516 @@
+package util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import bakery.CustomerOrder;
+import bakery.CustomerOrder.CustomerOrderStatus;
+import bakery.EmptyPantryException;
+import bakery.MagicBakery;
+
+/**
+ * Gathers statistics about how simulated games turn out: for each number of players, how often each customer card is
+ * fulfilled, garnished or lost, how long games last, how many actions each fulfilment takes, and how often the pantry
+ * has to be restored from the discard pile.
+ *
+ * Games are fed in as they are played, through a {@link GameTracker}, so nothing about a game is kept once it has been
+ * counted. Memory stays bounded however many games are played: counters are kept per card and per number of players, and
+ * distributions are kept in {@link QuantileSketch}es of fixed maximum size. Each worker thread gathers into its own
+ * instance and the instances are combined with {@link #merge(OutcomeAnalytics)}; merging gives exactly the statistics a
+ * single instance would have gathered from all of the games.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public class OutcomeAnalytics {
+    private final Map<Integer, Configuration> configurations = new TreeMap<>();
+
+    /**
+     * What can happen to a customer card during a game. Every order that is garnished is also counted as fulfilled.
+     */
+    public enum CardOutcome {
+        SEEN, FULFILLED, GARNISHED, LOST
+    }
+
+    // Everything gathered for one number of players
+    private static final class Configuration {
+        private long games;
+        private long abandoned;
+        private long pantryRestores;
+        private final QuantileSketch gameLength = new QuantileSketch();
+        private final QuantileSketch actionsPerFulfilment = new QuantileSketch();
+        private final Map<String, long[]> cards = new TreeMap<>();
+
+        private long[] card(String name) {
+            return cards.computeIfAbsent(name, key -> new long[CardOutcome.values().length]);
+        }
+
+        private void merge(Configuration other) {
+            games += other.games;
+            abandoned += other.abandoned;
+            pantryRestores += other.pantryRestores;
+            gameLength.merge(other.gameLength);
+            actionsPerFulfilment.merge(other.actionsPerFulfilment);
+            for (Map.Entry<String, long[]> entry : other.cards.entrySet()) {
+                long[] counts = card(entry.getKey());
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += entry.getValue()[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * A mergeable summary of a distribution of non-negative values that answers quantile queries to within 1% of the true
+     * value. Values are counted in buckets whose bounds grow geometrically by 2%, so the sketch never holds more than about
+     * a thousand counters for values up to a billion, and two sketches are merged by adding their counters. Values below 1
+     * are counted as 0. The smallest and largest values are kept exactly.
+     *
+     * @author Adam Aly
+     * @version 1.0
+     */
+    public static final class QuantileSketch {
+        private static final double GAMMA = 1.02;
+        private static final double LOG_GAMMA = Math.log(GAMMA);
+
+        private long[] buckets = new long[64];
+        private long zeros;
+        private long count;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        /**
+         * Creates an empty sketch.
+         */
+        public QuantileSketch() {
+        }
+
+        /**
+         * Counts one value.
+         *
+         * @param value the value to count.
+         * @throws IllegalArgumentException if the value is negative or not a number.
+         */
+        public void add(double value) throws IllegalArgumentException {
+            if (!(value >= 0)) {
+                throw new IllegalArgumentException("Sketch values must be non-negative: " + value);
+            }
+            if (value < 1) {
+                zeros++;
+            } else {
+                int bucket = (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+                if (bucket >= buckets.length) {
+                    buckets = Arrays.copyOf(buckets, Math.max(bucket + 1, buckets.length * 2));
+                }
+                buckets[bucket]++;
+            }
+            count++;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        /**
+         * Adds every value counted by another sketch to this one.
+         *
+         * @param other the sketch to merge in; it is not changed.
+         */
+        public void merge(QuantileSketch other) {
+            if (other.buckets.length > buckets.length) {
+                buckets = Arrays.copyOf(buckets, other.buckets.length);
+            }
+            for (int i = 0; i < other.buckets.length; i++) {
+                buckets[i] += other.buckets[i];
+            }
+            zeros += other.zeros;
+            count += other.count;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+
+        /**
+         * Returns the number of values counted.
+         *
+         * @return the number of values.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Estimates a quantile of the values counted.
+         *
+         * @param q the quantile, from 0 (the smallest value) to 1 (the largest).
+         * @return the estimated value at that quantile, or NaN if nothing has been counted.
+         */
+        public double quantile(double q) {
+            if (count == 0) {
+                return Double.NaN;
+            }
+            long rank = (long) Math.floor(Math.min(Math.max(q, 0), 1) * (count - 1));
+            if (rank < zeros) {
+                return min;
+            }
+            long seen = zeros;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen > rank) {
+                    // The middle of the bucket (in relative terms) is within 1% of every value in it
+                    double estimate = 2 * Math.pow(GAMMA, i) / (GAMMA + 1);
+                    return Math.min(Math.max(estimate, min), max);
+                }
+            }
+            return max;
+        }
+    }
+
+    /**
+     * Follows one game as it is played and adds it to the statistics when it ends. A tracker is used by one thread only.
+     *
+     * @author Adam Aly
+     * @version 1.0
+     */
+    public final class GameTracker {
+        private final MagicBakery game;
+        private final int playerCount;
+        private final Map<CustomerOrder, Boolean> served = new IdentityHashMap<>();
+        private final List<Integer> actionsPerFulfilment = new ArrayList<>();
+        private int actionsSinceFulfilment;
+
+        private GameTracker(MagicBakery game) {
+            this.game = game;
+            this.playerCount = game.getPlayers().size();
+        }
+
+        /**
+         * Notes that an action other than fulfilling an order has been taken.
+         */
+        public void action() {
+            actionsSinceFulfilment++;
+        }
+
+        /**
+         * Notes that an order has been fulfilled. Call this before or after the fulfil action itself, but not together
+         * with {@link #action()} for the same action.
+         *
+         * @param customer the customer whose order was fulfilled.
+         * @param garnished true if the order was garnished too.
+         */
+        public void fulfilled(CustomerOrder customer, boolean garnished) {
+            served.put(customer, garnished);
+            actionsPerFulfilment.add(actionsSinceFulfilment + 1);
+            actionsSinceFulfilment = 0;
+        }
+
+        /**
+         * Adds the finished game to the statistics. Customers who left the bakery without being served count as lost;
+         * customers still waiting count as seen only.
+         *
+         * @param turns the number of turns the game lasted.
+         */
+        public void finish(int turns) {
+            Configuration configuration = configuration(playerCount);
+            configuration.games++;
+            configuration.pantryRestores += game.getPantryRestoreCount();
+            configuration.gameLength.add(turns);
+            for (int actions : actionsPerFulfilment) {
+                configuration.actionsPerFulfilment.add(actions);
+            }
+            // The engine marks every customer that leaves as given up, served or not, so the tracker's record decides
+            List<CustomerOrder> departed = new ArrayList<>();
+            for (CustomerOrderStatus status : CustomerOrderStatus.values()) {
+                departed.addAll(game.getCustomers().getInactiveCustomersWithStatus(status));
+            }
+            for (CustomerOrder customer : departed) {
+                long[] counts = configuration.card(customer.toString());
+                counts[CardOutcome.SEEN.ordinal()]++;
+                Boolean garnished = served.get(customer);
+                if (garnished == null) {
+                    counts[CardOutcome.LOST.ordinal()]++;
+                } else {
+                    counts[CardOutcome.FULFILLED.ordinal()]++;
+                    if (garnished) {
+                        counts[CardOutcome.GARNISHED.ordinal()]++;
+                    }
+                }
+            }
+            for (CustomerOrder customer : game.getCustomers().getActiveCustomers()) {
+                if (customer != null) {
+                    configuration.card(customer.toString())[CardOutcome.SEEN.ordinal()]++;
+                }
+            }
+        }
+
+        /**
+         * Records that the game could not be finished. Only the number of abandoned games is kept.
+         */
+        public void abandon() {
+            configuration(playerCount).abandoned++;
+        }
+    }
+
+    /**
+     * Creates an empty set of statistics.
+     */
+    public OutcomeAnalytics() {
+    }
+
+    /**
+     * Starts following a game. The game should already have been started.
+     *
+     * @param game the game to follow.
+     * @return the tracker to report the game's events to.
+     */
+    public GameTracker track(MagicBakery game) {
+        return new GameTracker(game);
+    }
+
+    /**
+     * Adds the statistics gathered by another instance, typically one filled by another worker thread.
+     *
+     * @param other the statistics to add; they are not changed.
+     */
+    public synchronized void merge(OutcomeAnalytics other) {
+        synchronized (other) {
+            for (Map.Entry<Integer, Configuration> entry : other.configurations.entrySet()) {
+                configuration(entry.getKey()).merge(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Returns the numbers of players for which games have been recorded.
+     *
+     * @return the player counts, in increasing order.
+     */
+    public synchronized List<Integer> getPlayerCounts() {
+        return Collections.unmodifiableList(new ArrayList<>(configurations.keySet()));
+    }
+
+    /**
+     * Returns the number of games finished with a given number of players.
+     *
+     * @param playerCount the number of players.
+     * @return the number of finished games.
+     */
+    public synchronized long getGames(int playerCount) {
+        Configuration configuration = configurations.get(playerCount);
+        return configuration == null ? 0 : configuration.games;
+    }
+
+    /**
+     * Returns the number of games with a given number of players that could not be finished.
+     *
+     * @param playerCount the number of players.
+     * @return the number of abandoned games.
+     */
+    public synchronized long getAbandonedGames(int playerCount) {
+        Configuration configuration = configurations.get(playerCount);
+        return configuration == null ? 0 : configuration.abandoned;
+    }
+
+    /**
+     * Returns how many times the pantry was restored from the discard pile in finished games with a given number of
+     * players.
+     *
+     * @param playerCount the number of players.
+     * @return the total number of pantry restores.
+     */
+    public synchronized long getPantryRestores(int playerCount) {
+        Configuration configuration = configurations.get(playerCount);
+        return configuration == null ? 0 : configuration.pantryRestores;
+    }
+
+    /**
+     * Returns how many times a customer card had a given outcome in finished games with a given number of players.
+     *
+     * @param playerCount the number of players.
+     * @param card the name of the customer card.
+     * @param outcome the outcome to count.
+     * @return the number of times the card had that outcome.
+     */
+    public synchronized long getCardCount(int playerCount, String card, CardOutcome outcome) {
+        Configuration configuration = configurations.get(playerCount);
+        long[] counts = configuration == null ? null : configuration.cards.get(card);
+        return counts == null ? 0 : counts[outcome.ordinal()];
+    }
+
+    /**
+     * Returns the distribution of game lengths, in turns, for a given number of players.
+     *
+     * @param playerCount the number of players.
+     * @return a copy of the game length sketch; empty if no games have been recorded.
+     */
+    public synchronized QuantileSketch getGameLength(int playerCount) {
+        QuantileSketch copy = new QuantileSketch();
+        Configuration configuration = configurations.get(playerCount);
+        if (configuration != null) {
+            copy.merge(configuration.gameLength);
+        }
+        return copy;
+    }
+
+    /**
+     * Returns the distribution of the number of actions taken for each order fulfilled (counting the fulfil itself), for a
+     * given number of players.
+     *
+     * @param playerCount the number of players.
+     * @return a copy of the actions per fulfilment sketch; empty if no orders have been fulfilled.
+     */
+    public synchronized QuantileSketch getActionsPerFulfilment(int playerCount) {
+        QuantileSketch copy = new QuantileSketch();
+        Configuration configuration = configurations.get(playerCount);
+        if (configuration != null) {
+            copy.merge(configuration.actionsPerFulfilment);
+        }
+        return copy;
+    }
+
+    /**
+     * Writes a text report: a summary line for each number of players followed by a table of customer cards, the cards
+     * lost most often first.
+     *
+     * @param out where to write the report.
+     * @throws IOException if the report cannot be written.
+     */
+    public synchronized void writeReport(Appendable out) throws IOException {
+        for (Map.Entry<Integer, Configuration> entry : configurations.entrySet()) {
+            Configuration c = entry.getValue();
+            out.append(String.format("%d players: %d games (%d abandoned)%n", entry.getKey(), c.games, c.abandoned));
+            out.append(String.format("  game length (turns)      p50 %6.1f  p90 %6.1f  p99 %6.1f%n",
+                c.gameLength.quantile(0.5), c.gameLength.quantile(0.9), c.gameLength.quantile(0.99)));
+            out.append(String.format("  actions per fulfilment   p50 %6.1f  p90 %6.1f  p99 %6.1f%n",
+                c.actionsPerFulfilment.quantile(0.5), c.actionsPerFulfilment.quantile(0.9),
+                c.actionsPerFulfilment.quantile(0.99)));
+            out.append(String.format("  pantry restores          %.2f per game%n",
+                c.games == 0 ? 0.0 : (double) c.pantryRestores / c.games));
+            out.append(String.format("  %-32s %7s %10s %10s %7s%n", "Customer", "Seen", "Fulfilled", "Garnished", "Lost"));
+
+            List<Map.Entry<String, long[]>> cards = new ArrayList<>(c.cards.entrySet());
+            cards.sort((a, b) -> Double.compare(rate(b.getValue(), CardOutcome.LOST), rate(a.getValue(), CardOutcome.LOST)));
+            for (Map.Entry<String, long[]> card : cards) {
+                long[] counts = card.getValue();
+                out.append(String.format("  %-32s %7d %9.1f%% %9.1f%% %6.1f%%%n", card.getKey(),
+                    counts[CardOutcome.SEEN.ordinal()], 100 * rate(counts, CardOutcome.FULFILLED),
+                    100 * rate(counts, CardOutcome.GARNISHED), 100 * rate(counts, CardOutcome.LOST)));
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        try {
+            writeReport(report);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // a StringBuilder never throws
+        }
+        return report.toString();
+    }
+
+    /**
+     * Plays games against itself on several threads (see {@link SelfPlay}) and gathers their statistics. Each thread
+     * gathers into its own instance, which is merged into the result when the thread finishes. Game n is dealt from seed
+     * + n with the player count at position n modulo the number of player counts given, so the result does not depend on
+     * the number of threads.
+     *
+     * @param games the number of games to play.
+     * @param threads the number of worker threads.
+     * @param seed the seed of the first game.
+     * @param playerCounts the numbers of players to cycle through.
+     * @return the gathered statistics.
+     * @throws IOException if the deck files cannot be read.
+     * @throws IllegalArgumentException if a player count is more than {@link SelfPlay#MAX_PLAYERS}.
+     */
+    public static OutcomeAnalytics simulate(int games, int threads, long seed, int... playerCounts) throws IOException, IllegalArgumentException {
+        for (int playerCount : playerCounts) {
+            SelfPlay.checkPlayers(playerCount);
+        }
+        SelfPlay selfPlay = new SelfPlay(SelfPlay.vocabulary(SelfPlay.newGame(seed, 0)));
+        OutcomeAnalytics result = new OutcomeAnalytics();
+        AtomicInteger nextGame = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(pool.submit(() -> {
+                    OutcomeAnalytics local = new OutcomeAnalytics();
+                    int game;
+                    while ((game = nextGame.getAndIncrement()) < games) {
+                        local.play(selfPlay, seed + game, playerCounts[game % playerCounts.length]);
+                    }
+                    result.merge(local);
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while simulating.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Simulation failed.", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return result;
+    }
+
+    private void play(SelfPlay selfPlay, long seed, int playerCount) throws IOException {
+        MagicBakery game = SelfPlay.newGame(seed, playerCount);
+        GameTracker tracker = track(game);
+        Random policy = new Random(seed);
+        int turns = 0;
+        try {
+            while (turns < SelfPlay.MAX_TURNS && !SelfPlay.isOver(game)) {
+                while (game.getActionsRemaining() > 0 && !SelfPlay.isOver(game)) {
+                    short move = SelfPlay.choose(selfPlay.legalMoves(game), policy);
+                    CustomerOrder customer = SelfPlay.customerFor(game, move);
+                    selfPlay.play(game, move);
+                    if (customer != null) {
+                        tracker.fulfilled(customer, SelfPlay.isGarnish(move));
+                    } else {
+                        tracker.action();
+                    }
+                }
+                game.endTurn();
+                turns++;
+            }
+        } catch (EmptyPantryException e) {
+            // A game that runs out of ingredients cannot be finished; any other failure is a bug and fails the simulation
+            tracker.abandon();
+            return;
+        }
+        if (SelfPlay.isOver(game)) {
+            tracker.finish(turns);
+        } else {
+            tracker.abandon();
+        }
+    }
+
+    private synchronized Configuration configuration(int playerCount) {
+        return configurations.computeIfAbsent(playerCount, key -> new Configuration());
+    }
+
+    private static double rate(long[] counts, CardOutcome outcome) {
+        long seen = counts[CardOutcome.SEEN.ordinal()];
+        return seen == 0 ? 0 : (double) counts[outcome.ordinal()] / seen;
+    }
+}
@@ -0,0 +1,196 @@
+package util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import bakery.MagicBakery;
+
+/**
+ * Saves and loads games on a background thread so the caller (typically the JavaFX application thread) never waits for
+ * the disk. A save captures the game in memory straight away, on the calling thread, so later moves cannot leak into it;
+ * only writing the captured bytes happens in the background. Files are written to a temporary file next to the target
+ * and then renamed over it, so a crash or power cut part way through a save leaves the previous save intact.
+ *
+ * Saves to the same file are coalesced: if a save is still waiting to be written when another is requested, only the newer
+ * state is written and both requests complete together. Writes happen one at a time, in the order they were requested.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public class SaveService {
+    private static SaveService instance;
+
+    private final ExecutorService executor;
+    private final Map<File, PendingSave> pending = new HashMap<>();
+
+    // The most recent state waiting to be written to a file, and the future every request for it is waiting on
+    private static final class PendingSave {
+        private byte[] snapshot;
+        private final CompletableFuture<File> done = new CompletableFuture<>();
+
+        private PendingSave(byte[] snapshot) {
+            this.snapshot = snapshot;
+        }
+    }
+
+    /**
+     * Creates a save service with its own background thread. The thread does not keep the application alive.
+     */
+    public SaveService() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bakery-save");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the save service shared by the whole application.
+     *
+     * @return the shared save service.
+     */
+    public static synchronized SaveService getInstance() {
+        if (instance == null) {
+            instance = new SaveService();
+        }
+        return instance;
+    }
+
+    /**
+     * Captures the state of a game and writes it to a file in the background.
+     *
+     * @param game the game to save; it is captured before this method returns.
+     * @param file the file to save to.
+     * @return a future completed with the file once it has been written, or exceptionally if the save failed.
+     */
+    public CompletableFuture<File> saveAsync(MagicBakery game, File file) {
+        byte[] snapshot;
+        try {
+            snapshot = snapshot(game);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        File target = file.getAbsoluteFile();
+        synchronized (pending) {
+            PendingSave save = pending.get(target);
+            if (save != null) {
+                save.snapshot = snapshot;
+                return save.done;
+            }
+            save = new PendingSave(snapshot);
+            pending.put(target, save);
+            executor.execute(() -> write(target));
+            return save.done;
+        }
+    }
+
+    /**
+     * Reads a saved game in the background.
+     *
+     * @param file the file to load from.
+     * @return a future completed with the loaded game, or exceptionally if it could not be read.
+     */
+    public CompletableFuture<MagicBakery> loadAsync(File file) {
+        CompletableFuture<MagicBakery> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                result.complete(MagicBakery.loadState(file));
+            } catch (IOException | ClassNotFoundException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Serialises a game into memory, in the same format {@link MagicBakery#saveState(File)} writes to disk.
+     *
+     * @param game the game to capture.
+     * @return the serialised game.
+     * @throws IOException if the game cannot be serialised.
+     */
+    public static byte[] snapshot(MagicBakery game) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 * 1024);
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(game);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Rebuilds a game from a snapshot taken with {@link #snapshot(MagicBakery)}.
+     *
+     * @param snapshot the serialised game.
+     * @return a new game equal to the one that was captured.
+     * @throws IOException if the snapshot cannot be read.
+     * @throws ClassNotFoundException if the snapshot refers to classes that do not exist.
+     */
+    public static MagicBakery restore(byte[] snapshot) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(snapshot))) {
+            return (MagicBakery) ois.readObject();
+        }
+    }
+
+    /**
+     * Writes data to a file so that the file always holds either its old contents or all of the new ones. The data is
+     * written and flushed to disk in a temporary file in the same folder, which is then renamed over the target.
+     *
+     * @param data the bytes to write.
+     * @param file the file to replace.
+     * @throws IOException if the data cannot be written.
+     */
+    public static void writeAtomically(byte[] data, File file) throws IOException {
+        Path target = file.getAbsoluteFile().toPath();
+        Path temp = target.resolveSibling(
+            "." + target.getFileName() + "." + Thread.currentThread().getId() + "." + System.nanoTime() + ".tmp");
+        try {
+            // FileOutputStream reports a missing folder as FileNotFoundException, like the plain save always has
+            try (FileOutputStream out = new FileOutputStream(temp.toFile())) {
+                out.write(data);
+                out.getFD().sync();
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Finishes any saves already requested and stops the background thread.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void write(File target) {
+        PendingSave save;
+        synchronized (pending) {
+            save = pending.remove(target);
+        }
+        try {
+            writeAtomically(save.snapshot, target);
+            save.done.complete(target);
+        } catch (IOException | RuntimeException e) {
+            save.done.completeExceptionally(e);
+        }
+    }
+}
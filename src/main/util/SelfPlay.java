@@ -0,0 +1,359 @@
+package util;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import bakery.CustomerOrder;
+import bakery.GameRules;
+import bakery.Ingredient;
+import bakery.Layer;
+import bakery.MagicBakery;
+import bakery.MagicBakery.ActionType;
+import bakery.Player;
+
+/**
+ * Plays {@link MagicBakery} games against itself, for generating training data and gathering statistics. Moves are
+ * identified by compact 16-bit codes so they can be listed, stored and compared cheaply.
+ *
+ * A move code holds the {@link ActionType} ordinal in its top bits and an argument in its low ten bits: the position of
+ * the card in the vocabulary for a draw or bake, that position shifted left by three plus the recipient's position for a
+ * pass, and the customer slot shifted left by one plus a garnish flag for a fulfil. The vocabulary is every card name in
+ * the game, ingredients and layers alike, in a fixed order.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public class SelfPlay {
+    /**
+     * The number of turns after which a self-play game is abandoned if it has not finished.
+     */
+    public static final int MAX_TURNS = 500;
+
+    /**
+     * The most players a game can have for its moves to fit in move codes, which have three bits for the player a card is
+     * passed to. Larger games, such as those played by {@link GameRules#LARGE_TABLE}, cannot be self-played or hinted.
+     */
+    public static final int MAX_PLAYERS = 8;
+
+    /**
+     * The most card names a vocabulary can hold for a pass, which shifts the card's position left by three, to fit in the
+     * ten bits of a move code's argument.
+     */
+    public static final int MAX_CARDS = 127;
+
+    private final List<String> vocabulary;
+    private final Map<String, Integer> index = new HashMap<>();
+
+    /**
+     * Creates a self-play helper for games using the given cards.
+     *
+     * @param vocabulary every card name that can appear in the games, in the order move codes use them.
+     * @throws IllegalArgumentException if there are more than {@link #MAX_CARDS} names, which would not fit in a move code.
+     */
+    public SelfPlay(List<String> vocabulary) throws IllegalArgumentException {
+        if (vocabulary.size() > MAX_CARDS) {
+            throw new IllegalArgumentException("Move codes have room for " + MAX_CARDS + " card names, not "
+                + vocabulary.size() + ".");
+        }
+        this.vocabulary = Collections.unmodifiableList(new ArrayList<>(vocabulary));
+        for (int i = 0; i < vocabulary.size(); i++) {
+            index.put(vocabulary.get(i), i);
+        }
+    }
+
+    /**
+     * Returns the card names in the order move codes use them.
+     *
+     * @return the vocabulary, read only.
+     */
+    public List<String> getVocabulary() {
+        return vocabulary;
+    }
+
+    /**
+     * Lists every card name used by a game: its ingredients and its layers, in the order they appear in the deck files.
+     *
+     * @param game a game that has not started yet, so that every ingredient is still in the pantry deck.
+     * @return the card names.
+     */
+    public static List<String> vocabulary(MagicBakery game) {
+        Set<String> names = new LinkedHashSet<>();
+        for (Ingredient card : game.getPantryDeck()) {
+            names.add(card.toString());
+        }
+        for (Ingredient card : game.getPantry()) {
+            names.add(card.toString());
+        }
+        for (Layer layer : game.getLayers()) {
+            names.add(layer.toString());
+        }
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * Lists the codes of every move the current player could make.
+     *
+     * @param game the game to examine.
+     * @return the legal move codes.
+     * @throws IllegalArgumentException if the game has more than {@link #MAX_PLAYERS} players.
+     */
+    public short[] legalMoves(MagicBakery game) throws IllegalArgumentException {
+        checkPlayers(game.getPlayers().size());
+        Set<Integer> moves = new LinkedHashSet<>();
+        if (game.getActionsRemaining() > 0) {
+            for (Ingredient card : game.getPantry()) {
+                moves.add(move(ActionType.DRAW_INGREDIENT, code(card)));
+            }
+            List<Player> players = new ArrayList<>(game.getPlayers());
+            int current = playerIndex(game);
+            for (Ingredient card : game.getCurrentPlayer().getHand()) {
+                for (int p = 0; p < players.size(); p++) {
+                    if (p != current) {
+                        moves.add(move(ActionType.PASS_INGREDIENT, code(card) << 3 | p));
+                    }
+                }
+            }
+            for (Layer layer : game.getBakeableLayers()) {
+                if (canBake(layer, game.getCurrentPlayer().getHand())) {
+                    moves.add(move(ActionType.BAKE_LAYER, code(layer)));
+                }
+            }
+            List<CustomerOrder> slots = new ArrayList<>(game.getCustomers().getActiveCustomers());
+            Collection<CustomerOrder> fulfilable = game.getFulfilableCustomers();
+            for (int slot = 0; slot < slots.size(); slot++) {
+                CustomerOrder customer = slots.get(slot);
+                if (customer != null && fulfilable.contains(customer)) {
+                    moves.add(move(ActionType.FULFIL_ORDER, slot << 1));
+                    if (!customer.getGarnish().isEmpty() && canGarnishAfter(customer, game.getCurrentPlayer().getHand())) {
+                        moves.add(move(ActionType.FULFIL_ORDER, slot << 1 | 1));
+                    }
+                }
+            }
+            moves.add(move(ActionType.REFRESH_PANTRY, 0));
+        }
+        short[] result = new short[moves.size()];
+        int i = 0;
+        for (int move : moves) {
+            result[i++] = (short) move;
+        }
+        return result;
+    }
+
+    /**
+     * Makes the move with the given code for the current player.
+     *
+     * @param game the game to play the move in.
+     * @param move the move code, as returned by {@link #legalMoves(MagicBakery)}.
+     * @return true if the move fulfilled a customer's order.
+     */
+    public boolean play(MagicBakery game, short move) {
+        ActionType type = ActionType.values()[move >> 10];
+        int argument = move & 0x3ff;
+        switch (type) {
+            case DRAW_INGREDIENT:
+                game.drawFromPantry(vocabulary.get(argument));
+                return false;
+            case PASS_INGREDIENT:
+                Ingredient card = find(game.getCurrentPlayer().getHand(), vocabulary.get(argument >> 3));
+                game.passCard(card, new ArrayList<>(game.getPlayers()).get(argument & 7));
+                return false;
+            case BAKE_LAYER:
+                for (Layer layer : game.getBakeableLayers()) {
+                    if (layer.toString().equals(vocabulary.get(argument))) {
+                        game.bakeLayer(layer);
+                        return false;
+                    }
+                }
+                throw new IllegalArgumentException("Layer not bakeable: " + vocabulary.get(argument));
+            case FULFIL_ORDER:
+                CustomerOrder customer = new ArrayList<>(game.getCustomers().getActiveCustomers()).get(argument >> 1);
+                game.fulfillOrder(customer, (argument & 1) == 1);
+                return true;
+            default:
+                game.refreshPantry();
+                return false;
+        }
+    }
+
+    /**
+     * Returns the customer a fulfil move serves.
+     *
+     * @param game the game the move is for.
+     * @param move the move code.
+     * @return the customer whose order the move fulfils, or null if the move is not a fulfil.
+     */
+    public static CustomerOrder customerFor(MagicBakery game, short move) {
+        if (move >> 10 != ActionType.FULFIL_ORDER.ordinal()) {
+            return null;
+        }
+        return new ArrayList<>(game.getCustomers().getActiveCustomers()).get((move & 0x3ff) >> 1);
+    }
+
+    /**
+     * Tells whether a move garnishes the order it fulfils.
+     *
+     * @param move the move code.
+     * @return true for a fulfil move that also garnishes.
+     */
+    public static boolean isGarnish(short move) {
+        return move >> 10 == ActionType.FULFIL_ORDER.ordinal() && (move & 1) == 1;
+    }
+
+    /**
+     * Picks a move the way self-play players do: fulfil an order whenever possible, otherwise bake a layer whenever
+     * possible, otherwise make a random legal move.
+     *
+     * @param legal the legal move codes; there must be at least one.
+     * @param policy the source of randomness for the random moves.
+     * @return the chosen move code.
+     */
+    public static short choose(short[] legal, Random policy) {
+        for (ActionType preferred : new ActionType[] {ActionType.FULFIL_ORDER, ActionType.BAKE_LAYER}) {
+            for (short move : legal) {
+                if (move >> 10 == preferred.ordinal()) {
+                    return move;
+                }
+            }
+        }
+        return legal[policy.nextInt(legal.length)];
+    }
+
+    /**
+     * Tells whether a game has finished: no customers are waiting and none are left to arrive.
+     *
+     * @param game the game to examine.
+     * @return true if the game is over.
+     */
+    public static boolean isOver(MagicBakery game) {
+        return game.getCustomers().isEmpty() && game.getCustomers().getCustomerDeck().isEmpty();
+    }
+
+    /**
+     * Deals a game from the standard deck files in the io folder, with players named "Player 1", "Player 2" and so on.
+     *
+     * @param seed the seed for the game's randomness.
+     * @param playerCount the number of players, or 0 for a game that has not started.
+     * @return the new game.
+     * @throws FileNotFoundException if the deck files cannot be found.
+     */
+    public static MagicBakery newGame(long seed, int playerCount) throws FileNotFoundException {
+        return newGame(seed, playerCount, GameRules.STANDARD);
+    }
+
+    /**
+     * Deals a game from the standard deck files in the io folder, played by the given rules.
+     *
+     * @param seed the seed for the game's randomness.
+     * @param playerCount the number of players, or 0 for a game that has not started.
+     * @param rules the sizes the game is played with.
+     * @return the new game.
+     * @throws FileNotFoundException if the deck files cannot be found.
+     */
+    public static MagicBakery newGame(long seed, int playerCount, GameRules rules) throws FileNotFoundException {
+        MagicBakery game = new MagicBakery(seed, "io/ingredients.csv", "io/layers.csv", rules);
+        List<String> names = new ArrayList<>();
+        for (int i = 1; i <= playerCount; i++) {
+            names.add("Player " + i);
+        }
+        if (playerCount > 0) {
+            game.startGame(names, "io/customers.csv");
+        }
+        return game;
+    }
+
+    // bakeLayer takes recipe cards from the hand one at a time and only lets a helpful duck stand in for a plain ingredient
+    private static boolean canBake(Layer layer, List<Ingredient> hand) {
+        Map<Ingredient, Integer> counts = new HashMap<>();
+        for (Ingredient card : hand) {
+            counts.merge(card, 1, Integer::sum);
+        }
+        int ducks = counts.getOrDefault(Ingredient.HELPFUL_DUCK, 0);
+        for (Ingredient card : layer.getRecipe()) {
+            int have = counts.getOrDefault(card, 0);
+            if (have > 0) {
+                counts.put(card, have - 1);
+                if (card.equals(Ingredient.HELPFUL_DUCK)) {
+                    ducks--;
+                }
+            } else if (ducks >= 1 && !(card instanceof Layer)) {
+                ducks--;
+                counts.merge(Ingredient.HELPFUL_DUCK, -1, Integer::sum);
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Whether the garnish can still be made from what is left of the hand once the order itself has been fulfilled
+    private static boolean canGarnishAfter(CustomerOrder customer, List<Ingredient> hand) {
+        List<Ingredient> left = new ArrayList<>(hand);
+        for (Ingredient card : customer.getRecipe()) {
+            if (!left.remove(card)) {
+                left.remove(Ingredient.HELPFUL_DUCK);
+            }
+        }
+        return customer.canGarnish(left);
+    }
+
+    /**
+     * Returns the position of a card in the vocabulary.
+     *
+     * @param card the card to look up.
+     * @return the card's position.
+     * @throws IllegalArgumentException if the card is not in the vocabulary.
+     */
+    public int code(Ingredient card) throws IllegalArgumentException {
+        Integer code = index.get(card.toString());
+        if (code == null) {
+            throw new IllegalArgumentException("Card not in vocabulary: " + card);
+        }
+        return code;
+    }
+
+    /**
+     * Checks that games of a given size fit in move codes, so that a search or a batch of games can refuse them before
+     * it starts rather than part of the way through.
+     *
+     * @param playerCount the number of players.
+     * @throws IllegalArgumentException if there are more than {@link #MAX_PLAYERS} players.
+     */
+    public static void checkPlayers(int playerCount) throws IllegalArgumentException {
+        if (playerCount > MAX_PLAYERS) {
+            throw new IllegalArgumentException("Move codes have room for " + MAX_PLAYERS + " players, not " + playerCount
+                + "; larger games cannot be played by the computer.");
+        }
+    }
+
+    static int move(ActionType type, int argument) {
+        return type.ordinal() << 10 | argument;
+    }
+
+    /**
+     * Returns the position of the current player in the turn order.
+     *
+     * @param game the game to examine.
+     * @return the current player's position, counting from 0.
+     */
+    public static int playerIndex(MagicBakery game) {
+        return new ArrayList<>(game.getPlayers()).indexOf(game.getCurrentPlayer());
+    }
+
+    private static Ingredient find(List<Ingredient> cards, String name) {
+        for (Ingredient card : cards) {
+            if (card.toString().equals(name)) {
+                return card;
+            }
+        }
+        throw new IllegalArgumentException("Card not in hand: " + name);
+    }
+}
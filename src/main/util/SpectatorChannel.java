@@ -0,0 +1,398 @@
+package util;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import bakery.CustomerOrder;
+import bakery.CustomerOrder.CustomerOrderStatus;
+import bakery.Ingredient;
+import bakery.Layer;
+import bakery.MagicBakery;
+import bakery.Player;
+
+/**
+ * Streams a live game to any number of spectators (commentators, coaches, dashboards) without each of them reading the whole
+ * game through the {@link MagicBakery} getters. After every action the channel captures a compact view of the table, works
+ * out what changed since the last action and sends only that: a delta frame. Every so often, and whenever a spectator
+ * joins or falls behind, a keyframe holding the whole view is sent instead so the spectator can start again from it.
+ *
+ * The view is a flat list of keys and values, such as {@code pantry.2=sugar}, {@code hand.0=butter,eggs} or
+ * {@code customer.1=Chocolate Cake IMPATIENT}. A keyframe has one {@code key=value} line per key. A delta has a
+ * {@code key=value} line for each key that was added or changed and a {@code -key} line for each key that went away. A
+ * spectator rebuilds the table by applying frames in order to a {@link View}.
+ *
+ * Each frame is encoded once and the same object is handed to every subscriber. Every subscriber has its own bounded
+ * queue: a spectator that stops reading never holds up the game or the other spectators, it just loses its backlog and is
+ * sent a fresh keyframe in its place.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public class SpectatorChannel {
+    private static final int DEFAULT_KEYFRAME_INTERVAL = 50;
+    private static final int DEFAULT_BUFFER_SIZE = 64;
+
+    private final int keyframeInterval;
+    private final int bufferSize;
+    private final List<Subscription> subscribers = new CopyOnWriteArrayList<>();
+    private Map<String, String> view = Collections.emptyMap();
+    private long sequence;
+    private Frame keyframe;
+
+    /**
+     * One update sent to spectators.
+     *
+     * @author Adam Aly
+     * @version 1.0
+     */
+    public static final class Frame {
+        private final long sequence;
+        private final boolean keyframe;
+        private final String text;
+
+        private Frame(long sequence, boolean keyframe, String text) {
+            this.sequence = sequence;
+            this.keyframe = keyframe;
+            this.text = text;
+        }
+
+        /**
+         * Returns the position of this frame in the stream. Frames are numbered from 1.
+         *
+         * @return the sequence number of the frame.
+         */
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * Tells whether this frame holds the whole view rather than the changes since the previous frame.
+         *
+         * @return true for a keyframe, false for a delta.
+         */
+        public boolean isKeyframe() {
+            return keyframe;
+        }
+
+        /**
+         * Returns the encoded frame, one change per line.
+         *
+         * @return the text of the frame.
+         */
+        public String getText() {
+            return text;
+        }
+
+        @Override
+        public String toString() {
+            return "#" + sequence + (keyframe ? " K\n" : " D\n") + text;
+        }
+    }
+
+    /**
+     * A spectator's connection to the channel: a bounded queue of the frames it has not read yet.
+     *
+     * @author Adam Aly
+     * @version 1.0
+     */
+    public final class Subscription {
+        private final ArrayDeque<Frame> queue = new ArrayDeque<>();
+        private long resyncs;
+
+        private Subscription() {
+        }
+
+        /**
+         * Takes the next frame without waiting.
+         *
+         * @return the next frame, or null if there is none yet.
+         */
+        public synchronized Frame poll() {
+            return queue.poll();
+        }
+
+        /**
+         * Takes the next frame, waiting for one to arrive if necessary.
+         *
+         * @param timeoutMillis the longest time to wait, in milliseconds.
+         * @return the next frame, or null if none arrived in time.
+         * @throws InterruptedException if the thread is interrupted while waiting.
+         */
+        public synchronized Frame take(long timeoutMillis) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            while (queue.isEmpty()) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return null;
+                }
+                wait(remaining);
+            }
+            return queue.poll();
+        }
+
+        /**
+         * Returns how many frames are waiting to be read.
+         *
+         * @return the number of queued frames.
+         */
+        public synchronized int size() {
+            return queue.size();
+        }
+
+        /**
+         * Returns how many times this spectator fell so far behind that its queued frames were thrown away and replaced
+         * with a keyframe.
+         *
+         * @return the number of times the spectator was resynchronised.
+         */
+        public synchronized long getResyncs() {
+            return resyncs;
+        }
+
+        /**
+         * Stops receiving frames from the channel.
+         */
+        public void close() {
+            subscribers.remove(this);
+        }
+
+        // Called by the publishing thread only
+        private synchronized void offer(Frame frame) {
+            if (queue.size() >= bufferSize) {
+                // The spectator has fallen behind: its backlog is no use any more, one keyframe replaces all of it
+                queue.clear();
+                resyncs++;
+                if (!frame.keyframe) {
+                    frame = keyframe();
+                }
+            }
+            queue.add(frame);
+            notifyAll();
+        }
+    }
+
+    /**
+     * A spectator's copy of the table, rebuilt from the frames it receives.
+     *
+     * @author Adam Aly
+     * @version 1.0
+     */
+    public static final class View {
+        private final Map<String, String> entries = new LinkedHashMap<>();
+
+        /**
+         * Creates an empty view, ready for the first keyframe.
+         */
+        public View() {
+        }
+
+        /**
+         * Applies the next frame. A keyframe replaces the whole view.
+         *
+         * @param frame the frame to apply.
+         */
+        public void apply(Frame frame) {
+            if (frame.keyframe) {
+                entries.clear();
+            }
+            String text = frame.text;
+            int start = 0;
+            while (start < text.length()) {
+                int end = text.indexOf('\n', start);
+                if (end < 0) {
+                    end = text.length();
+                }
+                if (text.charAt(start) == '-') {
+                    entries.remove(text.substring(start + 1, end));
+                } else {
+                    int equals = text.indexOf('=', start);
+                    entries.put(text.substring(start, equals), text.substring(equals + 1, end));
+                }
+                start = end + 1;
+            }
+        }
+
+        /**
+         * Returns the value of one key, such as {@code pantry.0} or {@code turn}.
+         *
+         * @param key the key to look up.
+         * @return the value, or null if the table has no such key.
+         */
+        public String get(String key) {
+            return entries.get(key);
+        }
+
+        /**
+         * Returns the whole view.
+         *
+         * @return the keys and values of the view, read only.
+         */
+        public Map<String, String> asMap() {
+            return Collections.unmodifiableMap(entries);
+        }
+    }
+
+    /**
+     * Creates a channel that sends a keyframe every 50 actions and lets each spectator fall up to 64 frames behind.
+     */
+    public SpectatorChannel() {
+        this(DEFAULT_KEYFRAME_INTERVAL, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a channel.
+     *
+     * @param keyframeInterval the number of frames between keyframes sent to every spectator.
+     * @param bufferSize the number of unread frames each spectator may have before it is resynchronised.
+     * @throws IllegalArgumentException if either value is less than 1.
+     */
+    public SpectatorChannel(int keyframeInterval, int bufferSize) throws IllegalArgumentException {
+        if (keyframeInterval < 1 || bufferSize < 1) {
+            throw new IllegalArgumentException("Keyframe interval and buffer size must be at least 1.");
+        }
+        this.keyframeInterval = keyframeInterval;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Adds a spectator. If anything has been published already, the spectator's first frame is a keyframe of the table as
+     * it stands, so it can follow along straight away.
+     *
+     * @return the new spectator's subscription.
+     */
+    public synchronized Subscription subscribe() {
+        Subscription subscription = new Subscription();
+        if (sequence > 0) {
+            subscription.offer(keyframe());
+        }
+        subscribers.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Returns how many spectators are subscribed.
+     *
+     * @return the number of subscriptions.
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Returns the sequence number of the last frame published.
+     *
+     * @return the last sequence number, or 0 if nothing has been published.
+     */
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Sends spectators whatever changed in a game since the last call. Nothing is sent if the table looks the same.
+     *
+     * @param game the game being watched.
+     */
+    public synchronized void publish(MagicBakery game) {
+        Map<String, String> next = capture(game);
+        StringBuilder delta = new StringBuilder(128);
+        for (Map.Entry<String, String> entry : next.entrySet()) {
+            if (!entry.getValue().equals(view.get(entry.getKey()))) {
+                delta.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+            }
+        }
+        for (String key : view.keySet()) {
+            if (!next.containsKey(key)) {
+                delta.append('-').append(key).append('\n');
+            }
+        }
+        if (delta.length() == 0) {
+            return;
+        }
+
+        boolean first = sequence == 0;
+        view = next;
+        sequence++;
+        keyframe = null;
+        Frame frame = first || sequence % keyframeInterval == 0 ? keyframe() : new Frame(sequence, false, delta.toString());
+        for (Subscription subscriber : subscribers) {
+            subscriber.offer(frame);
+        }
+    }
+
+    /**
+     * Captures the view of a game that spectators see: whose turn it is, every hand, the pantry, the layers, the customers
+     * and the size of each deck.
+     *
+     * @param game the game to capture.
+     * @return the view, as keys and values in a stable order.
+     */
+    public static Map<String, String> capture(MagicBakery game) {
+        Map<String, String> view = new LinkedHashMap<>();
+        int index = 0;
+        int current = -1;
+        Player currentPlayer = game.getPlayers().isEmpty() ? null : game.getCurrentPlayer();
+        for (Player player : game.getPlayers()) {
+            if (player == currentPlayer) {
+                current = index;
+            }
+            view.put("player." + index, player.toString());
+            view.put("hand." + index, join(player.getHand()));
+            index++;
+        }
+        view.put("turn", current + " " + (currentPlayer == null ? 0 : game.getActionsRemaining()));
+
+        index = 0;
+        for (Ingredient ingredient : game.getPantry()) {
+            view.put("pantry." + index++, ingredient.toString());
+        }
+        view.put("deck.pantry", Integer.toString(game.getPantryDeck().size()));
+
+        StringBuilder layers = new StringBuilder();
+        for (Layer layer : game.getLayers()) {
+            layers.append(layers.length() == 0 ? "" : ",").append(layer.toString());
+        }
+        view.put("layers", layers.toString());
+
+        if (game.getCustomers() != null) {
+            index = 0;
+            for (CustomerOrder customer : game.getCustomers().getActiveCustomers()) {
+                view.put("customer." + index++, customer == null ? "-" : customer.toString() + " " + customer.getStatus());
+            }
+            view.put("deck.customers", Integer.toString(game.getCustomers().getCustomerDeck().size()));
+            view.put("served", game.getCustomers().getInactiveCount(CustomerOrderStatus.FULFILLED)
+                + " " + game.getCustomers().getInactiveCount(CustomerOrderStatus.GARNISHED)
+                + " " + game.getCustomers().getInactiveCount(CustomerOrderStatus.GIVEN_UP));
+        }
+        return view;
+    }
+
+    // The keyframe for the current view, encoded at most once per sequence number however many spectators need it
+    private Frame keyframe() {
+        if (keyframe == null) {
+            StringBuilder text = new StringBuilder(1024);
+            for (Map.Entry<String, String> entry : view.entrySet()) {
+                text.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+            }
+            keyframe = new Frame(sequence, true, text.toString());
+        }
+        return keyframe;
+    }
+
+    private static String join(List<Ingredient> cards) {
+        StringBuilder text = new StringBuilder();
+        Iterator<Ingredient> iterator = cards.iterator();
+        while (iterator.hasNext()) {
+            text.append(iterator.next().toString());
+            if (iterator.hasNext()) {
+                text.append(',');
+            }
+        }
+        return text.toString();
+    }
+}
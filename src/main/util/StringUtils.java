@@ -1,11 +1,11 @@
 package util;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
 import java.util.List;
-import java.util.LinkedList;
 import java.util.stream.Collectors;
 
 import bakery.CustomerOrder;
@@ -14,11 +14,9 @@ import bakery.Layer;
 
 public final class StringUtils {
 
-    private static final String INDENT = "  ";
-    private static final String CARD_HORIZONTAL = "-";
-    private static final String CARD_VERTICAL = "|";
-    private static final String CARD_VERTICAL_LEFT = CARD_VERTICAL + " ";
-    private static final String CARD_VERTICAL_RIGHT = " " + CARD_VERTICAL;
+    // Renderers keep a cache of formatted cards, so each thread reuses its own
+    private static final ThreadLocal<CardRenderer> RENDERER =
+        ThreadLocal.withInitial(CardRenderer::new);
 
     private StringUtils() {
         // Used to ensure that there is no public/default constructor.
@@ -26,20 +24,6 @@ public final class StringUtils {
         // instantiated.
     }
 
-    private static String centreString(int width, final String s) {
-        if (s.endsWith("⌛")) {
-            width--;
-        }
-        if (s.equals(Ingredient.HELPFUL_DUCK.toString())) {
-            ++width;
-        }
-        return String.format(
-            "%-" + width  + "s", String.format(
-                "%" + (s.length() + (width - s.length()) / 2) + "s", s
-            )
-        );
-    }
-
     /**
      * Gets a multi-line String representation of the specified CustomerOrders.
      *
@@ -49,129 +33,13 @@ public final class StringUtils {
     public static List<String> customerOrdersToStrings(
         final Collection<CustomerOrder> customerOrders
     ) {
-        final int CUSTOMER_CARD_WIDTH_INNER = 36;
-
-        List<String> rtn = new ArrayList<String>();
-        List<String> names = new ArrayList<String>();
-        List<String> recipeHeads = new ArrayList<String>();
-        ArrayList<ArrayList<String>> recipes = new ArrayList<ArrayList<String>>();
-        List<String> garnishHeads = new ArrayList<String>();
-        List<String> garnishes = new ArrayList<String>();
-
-        // Figure out how long the longest recipe is (i.e. number of lines)
-        int maxNumberOfRecipeLines = 0;
-        for (CustomerOrder customer : customerOrders) {
-            if (customer == null) {
-                continue;
-            }
-            maxNumberOfRecipeLines = Math.max(
-                maxNumberOfRecipeLines, StringUtils.splitString(
-                    CUSTOMER_CARD_WIDTH_INNER,
-                    customer.getRecipeDescription(), ","
-                ).size()
-            );
-        }
-        for (int lineNo = 0; lineNo < maxNumberOfRecipeLines; ++lineNo) {
-            recipes.add(new ArrayList<String>());
-        }
-
-        // Build each block of card content (name, recipe header, recipe,
-        // garnish header, garnish)
-        Iterator<CustomerOrder> iterator = (
-            (LinkedList<CustomerOrder>) customerOrders
-        ).descendingIterator();
-        while (iterator.hasNext()) {
-            CustomerOrder customer = iterator.next();
-            String orderName = "";
-            String recipeHead = "";
-            String recipe = "";
-            String garnishHead = "";
-            String garnish = "";
-            if (customer != null) {
-                orderName = customer.toString().toUpperCase();
-                if (customer.getStatus().equals(
-                    CustomerOrder.CustomerOrderStatus.IMPATIENT
-                )) {
-                    orderName += "⌛";
-                }
-                recipe = StringUtils.toTitleCase(
-                    customer.getRecipeDescription()
-                );
-                if (customer.getRecipeDescription().length() > 0) {
-                    recipeHead = "Recipe: ";
-                }
-                if (customer.getGarnishDescription().length() > 0) {
-                    garnishHead = "Garnish: ";
-                    garnish = StringUtils.toTitleCase(
-                        customer.getGarnishDescription()
-                    );
-                }
-            }
-            names.add(
-                StringUtils.centreString(CUSTOMER_CARD_WIDTH_INNER, orderName)
-            );
-            recipeHeads.add(
-                StringUtils.padString(CUSTOMER_CARD_WIDTH_INNER, recipeHead)
-            );
-            garnishHeads.add(padString(CUSTOMER_CARD_WIDTH_INNER, garnishHead));
-            List<String> recipeLines = StringUtils.splitString(
-                CUSTOMER_CARD_WIDTH_INNER, recipe, ","
-            );
-            while (recipeLines.size() < maxNumberOfRecipeLines) {
-                recipeLines.add("");
-            }
-            for (int lineNo = 0; lineNo < maxNumberOfRecipeLines; ++lineNo) {
-                String recipeLine = centreString(
-                    CUSTOMER_CARD_WIDTH_INNER, recipeLines.get(lineNo)
-                );
-                recipes.get(lineNo).add(recipeLine);
-            }
-            garnishes.add(
-                StringUtils.centreString(CUSTOMER_CARD_WIDTH_INNER, garnish)
-            );
-        }
-
-        // Turn each block into one or more Strings representing lines of
-        // card content
-        rtn.add(StringUtils.formatTextAsCardsString(
-            customerOrders.size(), StringUtils.CARD_HORIZONTAL.repeat(
-                CUSTOMER_CARD_WIDTH_INNER
-            )
-        ));
-        rtn.add(StringUtils.formatTextAsCardsString(names));
-        rtn.add(StringUtils.formatTextAsCardsString(recipeHeads));
-        for (ArrayList<String> recipe : recipes) {
-            rtn.add(StringUtils.formatTextAsCardsString(recipe));
-        }
-        rtn.add(StringUtils.formatTextAsCardsString(garnishHeads));
-        rtn.add(StringUtils.formatTextAsCardsString(garnishes));
-        rtn.add(StringUtils.formatTextAsCardsString(
-            customerOrders.size(), StringUtils.CARD_HORIZONTAL.repeat(
-                CUSTOMER_CARD_WIDTH_INNER
-            )
-        ));
-
-        return rtn;
-    }
-
-    private static String formatTextAsCardsString(
-        final List<String> cardTexts
-    ) {
-        String out = StringUtils.INDENT;
-        for (String cardText : cardTexts) {
-            out += StringUtils.CARD_VERTICAL_LEFT + cardText;
-            out += StringUtils.CARD_VERTICAL_RIGHT;
+        StringBuilder out = new StringBuilder();
+        try {
+            StringUtils.RENDERER.get().appendCustomerOrders(out, customerOrders);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // a StringBuilder never throws
         }
-        return out;
-    }
-
-    private static String formatTextAsCardsString(
-        final int n, final String cardText
-    ) {
-        return StringUtils.INDENT + (
-            StringUtils.CARD_VERTICAL_LEFT + cardText +
-            StringUtils.CARD_VERTICAL_RIGHT
-        ).repeat(n);
+        return StringUtils.toLines(out);
     }
 
     /**
@@ -183,33 +51,13 @@ public final class StringUtils {
     public static List<String> ingredientsToStrings(
         final Collection<Ingredient> ingredients
     ) {
-        final int INGREDIENT_CARD_WIDTH_INNER = 20;
-
-        List<String> rtn = new ArrayList<String>();
-        List<String> names = new ArrayList<String>();
-
-        // Build each block of card content (name)
-        for (Ingredient ing : ingredients) {
-            names.add(StringUtils.centreString(
-                INGREDIENT_CARD_WIDTH_INNER, ing.toString()
-            ).toUpperCase());
+        StringBuilder out = new StringBuilder();
+        try {
+            StringUtils.RENDERER.get().appendIngredients(out, ingredients);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // a StringBuilder never throws
         }
-
-        // Turn each block into one or more Strings representing lines of
-        // card content
-        rtn.add(StringUtils.formatTextAsCardsString(
-            ingredients.size(), StringUtils.CARD_HORIZONTAL.repeat(
-                INGREDIENT_CARD_WIDTH_INNER
-            )
-        ));
-        rtn.add(StringUtils.formatTextAsCardsString(names));
-        rtn.add(StringUtils.formatTextAsCardsString(
-            ingredients.size(), StringUtils.CARD_HORIZONTAL.repeat(
-                INGREDIENT_CARD_WIDTH_INNER
-            )
-        ));
-
-        return rtn;
+        return StringUtils.toLines(out);
     }
 
     /**
@@ -219,79 +67,27 @@ public final class StringUtils {
      * @return The multi-line String representation.
      */
     public static List<String> layersToStrings(final Collection<Layer> layers) {
-        final int LAYER_CARD_WIDTH_INNER = 16;
-
-        List<String> rtn = new ArrayList<String>();
-        List<String> names = new ArrayList<String>();
-        ArrayList<ArrayList<String>> recipes = new ArrayList<ArrayList<String>>();
-
-        ArrayList<Layer> layersOrd = new ArrayList<Layer>(layers);
-        layersOrd.sort((o1, o2) -> o1.toString().compareTo(o2.toString()));
-
-        // Figure out how long the longest recipe is (i.e. number of lines)
-        int maxNumberOfRecipeLines = 0;
-        for (Layer layer : layersOrd) {
-            maxNumberOfRecipeLines = Math.max(
-                maxNumberOfRecipeLines, StringUtils.splitString(
-                    LAYER_CARD_WIDTH_INNER, layer.getRecipeDescription(), ","
-                ).size()
-            );
-        }
-        for (int lineNo = 0; lineNo < maxNumberOfRecipeLines; ++lineNo) {
-            recipes.add(new ArrayList<String>());
+        StringBuilder out = new StringBuilder();
+        try {
+            StringUtils.RENDERER.get().appendLayers(out, layers);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // a StringBuilder never throws
         }
+        return StringUtils.toLines(out);
+    }
 
-        // Build each block of card content (name, recipe header, recipe)
-        for (Layer layer : layersOrd) {
-            names.add(StringUtils.centreString(
-                    LAYER_CARD_WIDTH_INNER, layer.toString().toUpperCase()
-            ));
-
-            List<String> recipeLines = StringUtils.splitString(
-                LAYER_CARD_WIDTH_INNER, layer.getRecipeDescription(), ","
-            );
-            while (recipeLines.size() < maxNumberOfRecipeLines) {
-                recipeLines.add("");
-            }
-            for (int lineNo = 0; lineNo < maxNumberOfRecipeLines; ++lineNo) {
-                String recipeLine = centreString(
-                    LAYER_CARD_WIDTH_INNER, StringUtils.toTitleCase(
-                        recipeLines.get(lineNo)
-                    )
-                );
-                recipes.get(lineNo).add(recipeLine);
+    private static List<String> toLines(final CharSequence text) {
+        List<String> rtn = new ArrayList<String>();
+        int start = 0;
+        for (int i = 0; i < text.length(); ++i) {
+            if (text.charAt(i) == '\n') {
+                rtn.add(text.subSequence(start, i).toString());
+                start = i + 1;
             }
         }
-
-        // Turn each block into one or more Strings representing lines of
-        // card content
-        rtn.add(StringUtils.formatTextAsCardsString(
-            layersOrd.size(), StringUtils.CARD_HORIZONTAL.repeat(
-                LAYER_CARD_WIDTH_INNER
-            )
-        ));
-        rtn.add(StringUtils.formatTextAsCardsString(names));
-        rtn.add(StringUtils.formatTextAsCardsString(
-            layersOrd.size(), StringUtils.padString(
-                LAYER_CARD_WIDTH_INNER, "Recipe: "
-            )
-        ));
-        for (ArrayList<String> recipe : recipes) {
-            rtn.add(StringUtils.formatTextAsCardsString(recipe));
-        }
-        rtn.add(StringUtils.formatTextAsCardsString(
-            layersOrd.size(), StringUtils.CARD_HORIZONTAL.repeat(
-                LAYER_CARD_WIDTH_INNER
-            )
-        ));
-
         return rtn;
     }
 
-    private static String padString(final int width, final String s) {
-        return s + " ".repeat(width - s.length()); // left align
-    }
-
     /**
      * Splits a String into mutiple substring chunks where the longest chunk
      * is not more than width characters in length.
@@ -0,0 +1,144 @@
+package util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import bakery.MagicBakery;
+
+/**
+ * Paints the console view of the game onto an ANSI terminal, redrawing only what changed since the previous frame.
+ * The renderer remembers the lines of the last frame it painted. When the next frame arrives, only the lines that differ
+ * are rewritten, each by moving the cursor straight to that row; lines left over from a longer previous frame are erased.
+ * Everything for one frame goes through a single buffered writer and is flushed once, so a repaint is one write to the
+ * terminal however many lines changed. This keeps console play responsive over slow links such as SSH sessions.
+ *
+ * The frame is anchored to the top left of the screen. Anything printed below it (prompts, menus) is cleared by the next
+ * repaint. If the terminal scrolls, for example because a prompt ran past the bottom of the screen, call
+ * {@link #invalidate()} so the next frame is painted from scratch. When the output is not an ANSI terminal every frame is
+ * written out in full instead.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public class TerminalRenderer {
+    private static final String ESC = "\u001b[";
+    private static final String CLEAR_SCREEN = ESC + "H" + ESC + "2J";
+    private static final String ERASE_LINE_END = ESC + "K";
+    private static final String ERASE_BELOW = ESC + "J";
+
+    private final Writer out;
+    private final boolean ansi;
+    private final CardRenderer cards = new CardRenderer();
+    private final StringBuilder frame = new StringBuilder(4096);
+    private List<String> previous = new ArrayList<>();
+    private List<String> current = new ArrayList<>();
+    private boolean invalid = true;
+
+    /**
+     * Creates a renderer that paints to standard output. ANSI repainting is used when a console is attached and the
+     * terminal is not declared as dumb.
+     */
+    public TerminalRenderer() {
+        this(new OutputStreamWriter(System.out, StandardCharsets.UTF_8),
+            System.console() != null && !"dumb".equals(System.getenv("TERM")));
+    }
+
+    /**
+     * Creates a renderer that paints to the given writer.
+     *
+     * @param out the destination for the frames; it is wrapped in a buffer so each frame is written in one go.
+     * @param ansi true to repaint only changed lines using ANSI cursor movement, false to write every frame in full.
+     */
+    public TerminalRenderer(Writer out, boolean ansi) {
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out, 8192);
+        this.ansi = ansi;
+    }
+
+    /**
+     * Paints the console view of a game: its layers, pantry, waiting customers, service record and the current hand.
+     *
+     * @param bakery the game to paint.
+     * @throws IOException if the frame cannot be written.
+     */
+    public void paintGameState(MagicBakery bakery) throws IOException {
+        frame.setLength(0);
+        cards.appendGameState(frame, bakery);
+        frame.append('\n');
+        paint(frame);
+    }
+
+    /**
+     * Paints a frame of text. Lines are separated by newline characters.
+     *
+     * @param text the complete contents of the frame.
+     * @throws IOException if the frame cannot be written.
+     */
+    public void paint(CharSequence text) throws IOException {
+        splitLines(text, current);
+        if (!ansi) {
+            out.append(text);
+            if (text.length() > 0 && text.charAt(text.length() - 1) != '\n') {
+                out.append('\n');
+            }
+        } else if (invalid) {
+            out.write(CLEAR_SCREEN);
+            for (String line : current) {
+                out.write(line);
+                out.write('\n');
+            }
+        } else {
+            for (int row = 0; row < current.size(); row++) {
+                String line = current.get(row);
+                if (row >= previous.size() || !line.equals(previous.get(row))) {
+                    moveTo(row);
+                    out.write(line);
+                    out.write(ERASE_LINE_END);
+                }
+            }
+            // Park the cursor below the frame and wipe any shorter-lived lines and prompts left there
+            moveTo(current.size());
+            out.write(ERASE_BELOW);
+        }
+        out.flush();
+
+        List<String> swap = previous;
+        previous = current;
+        current = swap;
+        invalid = false;
+    }
+
+    /**
+     * Forgets the previously painted frame so the next one is painted in full, for example after the screen has scrolled
+     * or been cleared by something else.
+     */
+    public void invalidate() {
+        invalid = true;
+        previous.clear();
+    }
+
+    private void moveTo(int row) throws IOException {
+        out.write(ESC);
+        out.write(Integer.toString(row + 1));
+        out.write(";1H");
+    }
+
+    private static void splitLines(CharSequence text, List<String> lines) {
+        lines.clear();
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lines.add(text.subSequence(start, i).toString());
+                start = i + 1;
+            }
+        }
+        if (start < text.length()) {
+            lines.add(text.subSequence(start, text.length()).toString());
+        }
+    }
+}
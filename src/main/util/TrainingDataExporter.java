@@ -0,0 +1,610 @@
+package util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import bakery.CustomerOrder;
+import bakery.CustomerOrder.CustomerOrderStatus;
+import bakery.EmptyPantryException;
+import bakery.GameRules;
+import bakery.Ingredient;
+import bakery.Layer;
+import bakery.MagicBakery;
+
+/**
+ * Writes self-play training data: one row for every decision a player makes, holding the state of the table as fixed-width
+ * features, the moves that were legal, the move that was chosen and how the game finally turned out.
+ *
+ * <b>Features.</b> Every card name in the game (ingredients and layers) has a fixed position in the vocabulary, and each
+ * row holds one byte per feature: how many of each card are in the current player's hand and in the pantry, which layers
+ * are still in stock, the recipe of each customer slot as card counts plus the customer's status, and the actions the
+ * player has left.
+ *
+ * <b>Moves.</b> Moves are stored as the 16-bit codes described in {@link SelfPlay}.
+ *
+ * <b>File layout.</b> The file is columnar and split into chunks of rows. Each chunk holds every column in turn, each
+ * compressed on its own with Deflate, so the mostly-zero feature columns shrink to a few bytes. A header lists the columns
+ * and a footer indexes the chunks; {@link #readColumnNames(Path)} and {@link #readColumn(Path, String)} read them back.
+ *
+ * <b>Parallel producers.</b> Each thread writing rows gets its own {@link Producer}, which builds and compresses whole
+ * chunks privately. A finished chunk claims its place in the file with a single atomic add and is written there directly,
+ * so producers never wait on each other or on a shared writer.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public class TrainingDataExporter implements Closeable {
+    private static final int MAGIC = 0x424b5444; // "BKTD"
+    private static final int VERSION = 1;
+    private static final int DEFAULT_CHUNK_ROWS = 4096;
+
+    private final FileChannel channel;
+    private final List<String> vocabulary;
+    private final SelfPlay moves;
+    private final List<String> columnNames = new ArrayList<>();
+    private final List<Integer> columnWidths = new ArrayList<>();
+    private final int customerSlots;
+    private final int featureCount;
+    private final int chunkRows;
+    private final AtomicLong endOfFile = new AtomicLong();
+    private final ConcurrentLinkedQueue<long[]> chunks = new ConcurrentLinkedQueue<>();
+    private final AtomicLong rowsWritten = new AtomicLong();
+
+    /**
+     * Creates an exporter writing to a new file for games with the standard row of customers, with 4096 rows to a chunk.
+     *
+     * @param file the file to create; an existing file is replaced.
+     * @param vocabulary every card name that can appear in the games, in the order the features use them.
+     * @throws IOException if the file cannot be created.
+     */
+    public TrainingDataExporter(Path file, List<String> vocabulary) throws IOException {
+        this(file, vocabulary, DEFAULT_CHUNK_ROWS);
+    }
+
+    /**
+     * Creates an exporter writing to a new file for games with the standard row of customers.
+     *
+     * @param file the file to create; an existing file is replaced.
+     * @param vocabulary every card name that can appear in the games, in the order the features use them.
+     * @param chunkRows the number of rows each producer gathers before compressing and writing them as a chunk.
+     * @throws IOException if the file cannot be created.
+     */
+    public TrainingDataExporter(Path file, List<String> vocabulary, int chunkRows) throws IOException {
+        this(file, vocabulary, chunkRows, GameRules.STANDARD.getCustomerSlots());
+    }
+
+    /**
+     * Creates an exporter writing to a new file, with a column for each place in a row of customers of the given width.
+     *
+     * @param file the file to create; an existing file is replaced.
+     * @param vocabulary every card name that can appear in the games, in the order the features use them.
+     * @param chunkRows the number of rows each producer gathers before compressing and writing them as a chunk.
+     * @param customerSlots the number of places in the row of customers of the games to be recorded.
+     * @throws IOException if the file cannot be created.
+     * @throws IllegalArgumentException if the row has no places.
+     */
+    public TrainingDataExporter(Path file, List<String> vocabulary, int chunkRows, int customerSlots) throws IOException, IllegalArgumentException {
+        if (customerSlots < 1) {
+            throw new IllegalArgumentException("The row of customers needs at least one place");
+        }
+        this.moves = new SelfPlay(vocabulary);
+        this.vocabulary = moves.getVocabulary();
+        this.chunkRows = chunkRows;
+        this.customerSlots = customerSlots;
+
+        addColumn("game", 4);
+        addColumn("decision", 2);
+        addColumn("player", 1);
+        for (String name : vocabulary) {
+            addColumn("hand." + name, 1);
+        }
+        for (String name : vocabulary) {
+            addColumn("pantry." + name, 1);
+        }
+        for (String name : vocabulary) {
+            addColumn("layers." + name, 1);
+        }
+        for (int slot = 0; slot < customerSlots; slot++) {
+            for (String name : vocabulary) {
+                addColumn("customer" + slot + "." + name, 1);
+            }
+            addColumn("customer" + slot + ".status", 1);
+        }
+        addColumn("actionsRemaining", 1);
+        featureCount = columnNames.size() - 3;
+        addColumn("legalCount", 2);
+        addColumn("legalMoves", 2);
+        addColumn("chosen", 2);
+        addColumn("outcome", 2);
+
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(header);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(columnNames.size());
+        for (int i = 0; i < columnNames.size(); i++) {
+            out.writeUTF(columnNames.get(i));
+            out.writeByte(columnWidths.get(i));
+        }
+        out.flush();
+        writeFully(ByteBuffer.wrap(header.toByteArray()), 0);
+        endOfFile.set(header.size());
+    }
+
+    /**
+     * Collects the rows of one thread's games and writes them to the file a chunk at a time. A producer must only be used
+     * by one thread at a time, and must be closed when its thread is done to write its last rows and free its
+     * compressor.
+     *
+     * @author Adam Aly
+     * @version 1.0
+     */
+    public final class Producer implements Closeable {
+        private final List<byte[]> gameFeatures = new ArrayList<>();
+        private final List<short[]> gameLegal = new ArrayList<>();
+        private final List<Short> gameChosen = new ArrayList<>();
+        private final List<Integer> gamePlayers = new ArrayList<>();
+        private final ColumnBuffer[] columns = new ColumnBuffer[columnNames.size()];
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private int rows;
+
+        private Producer() {
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = new ColumnBuffer(chunkRows * columnWidths.get(i));
+            }
+        }
+
+        /**
+         * Records a decision made by the current player. The row is held back until {@link #endGame(int, int)} supplies
+         * the outcome.
+         *
+         * @param game the game, as it stands before the move is made.
+         * @param legal the codes of every move the player could make.
+         * @param chosen the code of the move the player made.
+         * @throws IllegalArgumentException if the game's row of customers is wider than the exporter has columns for.
+         */
+        public void record(MagicBakery game, short[] legal, short chosen) throws IllegalArgumentException {
+            gameFeatures.add(features(game));
+            gameLegal.add(legal.clone());
+            gameChosen.add(chosen);
+            gamePlayers.add(SelfPlay.playerIndex(game));
+        }
+
+        /**
+         * Finishes a game, writing out all of its recorded decisions with the final outcome.
+         *
+         * @param gameId the number identifying the game in the file.
+         * @param outcome the result of the game, such as the number of orders fulfilled.
+         * @throws IOException if a finished chunk cannot be written.
+         */
+        public void endGame(int gameId, int outcome) throws IOException {
+            int featureStart = 3;
+            for (int row = 0; row < gameFeatures.size(); row++) {
+                columns[0].putInt(gameId);
+                columns[1].putShort(row);
+                columns[2].put(gamePlayers.get(row));
+                byte[] features = gameFeatures.get(row);
+                for (int f = 0; f < featureCount; f++) {
+                    columns[featureStart + f].put(features[f]);
+                }
+                short[] legal = gameLegal.get(row);
+                columns[featureStart + featureCount].putShort(legal.length);
+                for (short move : legal) {
+                    columns[featureStart + featureCount + 1].putShort(move);
+                }
+                columns[featureStart + featureCount + 2].putShort(gameChosen.get(row));
+                columns[featureStart + featureCount + 3].putShort(outcome);
+                if (++rows >= chunkRows) {
+                    flush();
+                }
+            }
+            discardGame();
+        }
+
+        /**
+         * Throws away the decisions recorded since the last finished game, for example because the game was abandoned.
+         */
+        public void discardGame() {
+            gameFeatures.clear();
+            gameLegal.clear();
+            gameChosen.clear();
+            gamePlayers.clear();
+        }
+
+        /**
+         * Writes out any finished rows that have not filled a chunk yet.
+         *
+         * @throws IOException if the chunk cannot be written.
+         */
+        public void flush() throws IOException {
+            if (rows == 0) {
+                return;
+            }
+            ByteArrayOutputStream chunk = new ByteArrayOutputStream(1024);
+            DataOutputStream out = new DataOutputStream(chunk);
+            out.writeInt(rows);
+            byte[] compressed = new byte[1024];
+            for (ColumnBuffer column : columns) {
+                deflater.reset();
+                deflater.setInput(column.bytes, 0, column.size);
+                deflater.finish();
+                int length = 0;
+                while (!deflater.finished()) {
+                    if (length == compressed.length) {
+                        compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                    }
+                    length += deflater.deflate(compressed, length, compressed.length - length);
+                }
+                out.writeInt(column.size);
+                out.writeInt(length);
+                out.write(compressed, 0, length);
+                column.size = 0;
+            }
+            out.flush();
+
+            // Claim a region at the end of the file; nothing else touches it, so the write needs no lock
+            long offset = endOfFile.getAndAdd(chunk.size());
+            writeFully(ByteBuffer.wrap(chunk.toByteArray()), offset);
+            chunks.add(new long[] {offset, rows});
+            rowsWritten.addAndGet(rows);
+            rows = 0;
+        }
+
+        /**
+         * Writes out any finished rows that have not filled a chunk yet and releases the producer's compressor. The
+         * producer cannot be used afterwards.
+         *
+         * @throws IOException if the chunk cannot be written.
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * Creates a producer for one thread's rows.
+     *
+     * @return a new producer.
+     */
+    public Producer newProducer() {
+        return new Producer();
+    }
+
+    /**
+     * Returns the number of rows written to the file so far.
+     *
+     * @return the number of rows in written chunks.
+     */
+    public long getRowsWritten() {
+        return rowsWritten.get();
+    }
+
+    /**
+     * Returns the card names in the order the features use them.
+     *
+     * @return the vocabulary, read only.
+     */
+    public List<String> getVocabulary() {
+        return vocabulary;
+    }
+
+    /**
+     * Encodes the table as the current player sees it, one byte per feature.
+     *
+     * @param game the game to encode.
+     * @return the features, in column order after the game, decision and player columns.
+     * @throws IllegalArgumentException if the game's row of customers is wider than the exporter has columns for.
+     */
+    public byte[] features(MagicBakery game) throws IllegalArgumentException {
+        Collection<CustomerOrder> row = game.getCustomers().getActiveCustomers();
+        if (row.size() > customerSlots) {
+            throw new IllegalArgumentException("The exporter has columns for " + customerSlots
+                + " customers, but the row has " + row.size());
+        }
+        byte[] features = new byte[featureCount];
+        int v = vocabulary.size();
+        for (Ingredient card : game.getCurrentPlayer().getHand()) {
+            features[moves.code(card)]++;
+        }
+        for (Ingredient card : game.getPantry()) {
+            features[v + moves.code(card)]++;
+        }
+        for (Layer layer : game.getLayers()) {
+            features[2 * v + moves.code(layer)] = 1;
+        }
+        int slot = 0;
+        for (CustomerOrder customer : row) {
+            int base = 3 * v + slot * (v + 1);
+            if (customer != null) {
+                for (Ingredient card : customer.getRecipe()) {
+                    features[base + moves.code(card)]++;
+                }
+                features[base + v] = (byte) (customer.getStatus() == CustomerOrderStatus.IMPATIENT ? 2 : 1);
+            }
+            slot++;
+        }
+        features[featureCount - 1] = (byte) game.getActionsRemaining();
+        return features;
+    }
+
+    /**
+     * Plays games of the given size against itself on several threads and records every decision. Each game is dealt
+     * from its own seed, so the same arguments always produce the same rows, although chunks from different threads may
+     * land in the file in any order. Players fulfil an order whenever they can, otherwise bake a layer whenever they can,
+     * otherwise make a random legal move (see {@link SelfPlay}).
+     *
+     * @param file the file to write.
+     * @param games the number of games to play.
+     * @param threads the number of producer threads.
+     * @param seed the seed of the first game; game n uses seed + n.
+     * @param playerCount the number of players in each game.
+     * @return the number of rows written.
+     * @throws IOException if the deck files cannot be read or the file cannot be written.
+     * @throws IllegalArgumentException if there are more players than {@link SelfPlay#MAX_PLAYERS}.
+     */
+    public static long exportSelfPlay(Path file, int games, int threads, long seed, int playerCount) throws IOException, IllegalArgumentException {
+        SelfPlay.checkPlayers(playerCount);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (TrainingDataExporter exporter = new TrainingDataExporter(file, SelfPlay.vocabulary(SelfPlay.newGame(seed, 0)))) {
+            AtomicInteger nextGame = new AtomicInteger();
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(pool.submit(() -> {
+                    try (Producer producer = exporter.newProducer()) {
+                        int game;
+                        while ((game = nextGame.getAndIncrement()) < games) {
+                            exporter.selfPlay(producer, game, seed + game, playerCount);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                try {
+                    worker.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while exporting.", e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    throw new IOException("Self-play failed.", e.getCause());
+                }
+            }
+            return exporter.getRowsWritten();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads the names of the columns in a file written by an exporter.
+     *
+     * @param file the file to read.
+     * @return the column names, in file order.
+     * @throws IOException if the file cannot be read or is not a training data file.
+     */
+    public static List<String> readColumnNames(Path file) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<String> names = new ArrayList<>();
+            readHeader(in, names, new ArrayList<>());
+            return names;
+        }
+    }
+
+    /**
+     * Reads every value of one column from a file written by an exporter, chunk by chunk in file order.
+     *
+     * @param file the file to read.
+     * @param column the name of the column.
+     * @return the values of the column.
+     * @throws IOException if the file cannot be read, is not a training data file or has no such column.
+     */
+    public static int[] readColumn(Path file, String column) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<String> names = new ArrayList<>();
+            List<Integer> widths = new ArrayList<>();
+            readHeader(in, names, widths);
+            int wanted = names.indexOf(column);
+            if (wanted < 0) {
+                throw new IOException("No column named " + column);
+            }
+            int width = widths.get(wanted);
+
+            ByteBuffer tail = ByteBuffer.allocate(12);
+            in.read(tail, in.size() - 12);
+            tail.flip();
+            long footer = tail.getLong();
+            if (tail.getInt() != MAGIC) {
+                throw new IOException("Training data file was not closed properly.");
+            }
+            DataInputStream index = new DataInputStream(new ByteArrayInputStream(read(in, footer, (int) (in.size() - 12 - footer))));
+            int chunkCount = index.readInt();
+            List<long[]> chunks = new ArrayList<>();
+            for (int i = 0; i < chunkCount; i++) {
+                chunks.add(new long[] {index.readLong(), index.readInt()});
+            }
+            Collections.sort(chunks, (a, b) -> Long.compare(a[0], b[0]));
+
+            ByteArrayOutputStream values = new ByteArrayOutputStream();
+            Inflater inflater = new Inflater();
+            for (long[] chunk : chunks) {
+                long position = chunk[0] + 4;
+                for (int c = 0; c < names.size(); c++) {
+                    ByteBuffer sizes = ByteBuffer.allocate(8);
+                    in.read(sizes, position);
+                    sizes.flip();
+                    int raw = sizes.getInt();
+                    int compressed = sizes.getInt();
+                    if (c == wanted) {
+                        byte[] decoded = new byte[raw];
+                        inflater.reset();
+                        inflater.setInput(read(in, position + 8, compressed));
+                        try {
+                            inflater.inflate(decoded);
+                        } catch (DataFormatException e) {
+                            throw new IOException("Corrupt chunk at " + chunk[0], e);
+                        }
+                        values.write(decoded);
+                        break;
+                    }
+                    position += 8 + compressed;
+                }
+            }
+            inflater.end();
+
+            ByteBuffer bytes = ByteBuffer.wrap(values.toByteArray());
+            int[] result = new int[bytes.remaining() / width];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = width == 1 ? bytes.get() : width == 2 ? bytes.getShort() : bytes.getInt();
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Writes the chunk index and closes the file. Every producer must have been closed or flushed first.
+     *
+     * @throws IOException if the index cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            List<long[]> written = new ArrayList<>(chunks);
+            ByteArrayOutputStream footer = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(footer);
+            out.writeInt(written.size());
+            for (long[] chunk : written) {
+                out.writeLong(chunk[0]);
+                out.writeInt((int) chunk[1]);
+            }
+            long offset = endOfFile.get();
+            out.writeLong(offset);
+            out.writeInt(MAGIC);
+            out.flush();
+            writeFully(ByteBuffer.wrap(footer.toByteArray()), offset);
+            channel.truncate(offset + footer.size());
+        } finally {
+            channel.close();
+        }
+    }
+
+    // Plays one game to the end, recording each decision with the number of orders fulfilled as its outcome
+    private void selfPlay(Producer producer, int gameId, long seed, int playerCount) throws IOException {
+        MagicBakery game = SelfPlay.newGame(seed, playerCount);
+        Random policy = new Random(seed);
+        int fulfilled = 0;
+        try {
+            for (int turn = 0; turn < SelfPlay.MAX_TURNS && !SelfPlay.isOver(game); turn++) {
+                while (game.getActionsRemaining() > 0 && !SelfPlay.isOver(game)) {
+                    short[] legal = moves.legalMoves(game);
+                    short chosen = SelfPlay.choose(legal, policy);
+                    producer.record(game, legal, chosen);
+                    if (moves.play(game, chosen)) {
+                        fulfilled++;
+                    }
+                }
+                game.endTurn();
+            }
+        } catch (EmptyPantryException e) {
+            // A game that runs out of ingredients is left out rather than recorded half-played; any other failure is a bug
+            producer.discardGame();
+            return;
+        }
+        producer.endGame(gameId, fulfilled);
+    }
+
+    private void addColumn(String name, int width) {
+        columnNames.add(name);
+        columnWidths.add(width);
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void readHeader(FileChannel in, List<String> names, List<Integer> widths) throws IOException {
+        DataInputStream header = new DataInputStream(Channels.newInputStream(in.position(0)));
+        if (header.readInt() != MAGIC || header.readInt() != VERSION) {
+            throw new IOException("Not a training data file.");
+        }
+        int columns = header.readInt();
+        for (int i = 0; i < columns; i++) {
+            names.add(header.readUTF());
+            widths.add((int) header.readByte());
+        }
+    }
+
+    private static byte[] read(FileChannel in, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of training data file.");
+            }
+        }
+        return buffer.array();
+    }
+
+    // A growable byte array holding one column of the chunk being built, big-endian like DataOutputStream
+    private static final class ColumnBuffer {
+        private byte[] bytes;
+        private int size;
+
+        private ColumnBuffer(int capacity) {
+            bytes = new byte[Math.max(capacity, 16)];
+        }
+
+        private void put(int value) {
+            if (size == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        private void putShort(int value) {
+            put(value >> 8);
+            put(value);
+        }
+
+        private void putInt(int value) {
+            putShort(value >> 16);
+            putShort(value);
+        }
+    }
+}
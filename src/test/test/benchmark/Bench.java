@@ -0,0 +1,42 @@
+package test.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Shared helpers for the benchmark programs: allocation counting for the current thread and a common report format, so
+ * every benchmark prints lines that can be compared across runs in bench_output.txt.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public final class Bench {
+
+    private Bench() {
+    }
+
+    /**
+     * Returns the number of bytes allocated so far by the current thread, or 0 if the JVM cannot report it.
+     *
+     * @return the bytes allocated by the current thread.
+     */
+    public static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    /**
+     * Prints one benchmark result line.
+     *
+     * @param name the name of the measurement.
+     * @param unit what one operation is, e.g. "renders".
+     * @param result the operations per second followed by the bytes allocated per operation.
+     */
+    public static void report(String name, String unit, double[] result) {
+        System.out.printf("%-40s %14.0f %s/s %12.1f B/op%n", name, result[0], unit, result[1]);
+    }
+}
@@ -0,0 +1,94 @@
+package test.benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import bakery.GameRules;
+import bakery.MagicBakery;
+import util.DeckGenerator;
+import util.SaveService;
+
+/**
+ * Measures how the cost of loading and playing a game grows with the size of its decks, using decks written by
+ * {@link DeckGenerator}: reading the deck files and starting a game, listing the bakeable layers, listing the garnishable
+ * customers, and saving and restoring the game.
+ *
+ * Every deck size prints one line per measurement, so the rate for each can be read off against the deck size.
+ *
+ * Run with bench.sh; results are printed and appended to bench_output.txt.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public class DeckScalingBenchmark {
+
+    // Each scale has six ingredients, six layers, 24 customers and 100 ingredient cards for every step
+    private static final int[] SCALES = {1, 10, 100, 1000};
+    private static final long BUDGET_NANOS = 1_000_000_000L;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args unused.
+     * @throws Exception if the decks cannot be written or read, or a game cannot be saved or restored.
+     */
+    public static void main(String[] args) throws Exception {
+        for (int scale : SCALES) {
+            Path directory = Files.createTempDirectory("decks");
+            new DeckGenerator(6 * scale, 6 * scale, 4).writeDecks(directory, scale, 100 * scale, 24 * scale);
+            String ingredients = directory.resolve("ingredients.csv").toString();
+            String layers = directory.resolve("layers.csv").toString();
+            String customers = directory.resolve("customers.csv").toString();
+            String size = 100 * scale + " cards";
+
+            MagicBakery game = newGame(ingredients, layers, customers);
+            byte[] saved = SaveService.snapshot(game);
+            Bench.report("decks/parse " + size, "games", measure(() -> sink += newGame(ingredients, layers, customers).getActionsRemaining()));
+            Bench.report("decks/getBakeableLayers " + size, "calls", measure(() -> sink += game.getBakeableLayers().size()));
+            Bench.report("decks/getGarnishableCustomers " + size, "calls", measure(() -> sink += game.getGarnishableCustomers().size()));
+            Bench.report("decks/save " + size, "saves", measure(() -> sink += SaveService.snapshot(game).length));
+            Bench.report("decks/load " + size, "loads", measure(() -> sink += SaveService.restore(saved).getActionsRemaining()));
+
+            for (Path file : Files.newDirectoryStream(directory)) {
+                Files.delete(file);
+            }
+            Files.delete(directory);
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static long sink;
+
+    private interface Operation {
+        void run() throws Exception;
+    }
+
+    private static MagicBakery newGame(String ingredients, String layers, String customers) throws Exception {
+        MagicBakery game = new MagicBakery(1, ingredients, layers, GameRules.STANDARD);
+        game.startGame(Arrays.asList("Alice", "Bob", "Carol"), customers);
+        return game;
+    }
+
+    // Runs the operation for about a second to warm up, then counts how many runs fit in another second
+    private static double[] measure(Operation operation) throws Exception {
+        long warmupEnd = System.nanoTime() + BUDGET_NANOS;
+        while (System.nanoTime() < warmupEnd) {
+            operation.run();
+        }
+        int runs = 0;
+        long bytesBefore = Bench.allocatedBytes();
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            operation.run();
+            runs++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < BUDGET_NANOS);
+        long bytes = Bench.allocatedBytes() - bytesBefore;
+        return new double[] {runs / (elapsed / 1e9), (double) bytes / runs};
+    }
+}
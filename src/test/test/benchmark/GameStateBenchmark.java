@@ -0,0 +1,124 @@
+package test.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import bakery.MagicBakery;
+import util.GameState;
+import util.SaveService;
+import util.SelfPlay;
+
+/**
+ * Measures how many random playouts per second a search can run from one position: by copying the game for every
+ * playout, and by playing out from a shared {@link GameState}, first on one thread and then on every core.
+ *
+ * Each playout makes random legal moves for a few turns, which is what a search does when it explores a branch.
+ *
+ * Run with bench.sh; results are printed and appended to bench_output.txt.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public class GameStateBenchmark {
+
+    private static final int TURNS = 8;
+    private static final int WARMUP_PLAYOUTS = 2000;
+    private static final int MEASURED_PLAYOUTS = 10000;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args unused.
+     * @throws Exception if the game files cannot be found or a playout fails.
+     */
+    public static void main(String[] args) throws Exception {
+        SelfPlay selfPlay = new SelfPlay(SelfPlay.vocabulary(SelfPlay.newGame(1, 0)));
+        MagicBakery game = SelfPlay.newGame(1, 4);
+        byte[] saved = SaveService.snapshot(game);
+        GameState root = GameState.of(game, selfPlay, 1);
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        Bench.report("branch/copy game", "playouts", measure(seed -> copyPlayout(selfPlay, saved, seed)));
+        Bench.report("branch/game state", "playouts", measure(seed -> statePlayout(root, seed)));
+        for (int round = 0; round < 3; round++) {
+            parallel(root, threads, WARMUP_PLAYOUTS);
+        }
+        long start = System.nanoTime();
+        parallel(root, threads, MEASURED_PLAYOUTS * 4);
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-40s %14.0f playouts/s %8d thread(s)%n", "branch/game state parallel", MEASURED_PLAYOUTS * 4 / (elapsed / 1e9), threads);
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static long sink;
+
+    private interface Playout {
+        void run(long seed) throws Exception;
+    }
+
+    private static void copyPlayout(SelfPlay selfPlay, byte[] saved, long seed) throws Exception {
+        MagicBakery game = SaveService.restore(saved);
+        Random policy = new Random(seed);
+        for (int turn = 0; turn < TURNS && !SelfPlay.isOver(game); turn++) {
+            while (game.getActionsRemaining() > 0) {
+                selfPlay.play(game, SelfPlay.choose(selfPlay.legalMoves(game), policy));
+            }
+            game.endTurn();
+        }
+        sink += game.getActionsRemaining();
+    }
+
+    private static void statePlayout(GameState state, long seed) {
+        Random policy = new Random(seed);
+        for (int turn = 0; turn < TURNS && !state.isOver(); turn++) {
+            short[] legal = state.legalMoves();
+            while (legal.length > 0) {
+                state = state.apply(SelfPlay.choose(legal, policy));
+                legal = state.legalMoves();
+            }
+            state = state.endTurn();
+        }
+        sink += state.getServed();
+    }
+
+    private static void parallel(GameState root, int threads, int playouts) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> results = new ArrayList<Future<?>>();
+            for (int t = 0; t < threads; t++) {
+                int first = t;
+                results.add(pool.submit(() -> {
+                    for (int seed = first; seed < playouts; seed += threads) {
+                        statePlayout(root, seed);
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static double[] measure(Playout playout) throws Exception {
+        for (int seed = 0; seed < WARMUP_PLAYOUTS; seed++) {
+            playout.run(seed);
+        }
+        long bytesBefore = Bench.allocatedBytes();
+        long start = System.nanoTime();
+        for (int seed = 0; seed < MEASURED_PLAYOUTS; seed++) {
+            playout.run(seed);
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = Bench.allocatedBytes() - bytesBefore;
+        return new double[] {MEASURED_PLAYOUTS / (elapsed / 1e9), (double) bytes / MEASURED_PLAYOUTS};
+    }
+}
@@ -0,0 +1,128 @@
+package test.benchmark;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import bakery.MagicBakery;
+import util.HeuristicBot;
+import util.SelfPlay;
+
+/**
+ * Measures how many moves per second the heuristic bot can decide, next to the self-play policy that just lists the legal
+ * moves and picks one, and how many customers each serves in an average game.
+ *
+ * Decisions are timed on positions recorded from real games, so the figures cover the whole of a game rather than just
+ * its opening.
+ *
+ * Run with bench.sh; results are printed and appended to bench_output.txt.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public class HeuristicBotBenchmark {
+
+    private static final int GAMES = 40;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 10;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args unused.
+     * @throws FileNotFoundException if the game files cannot be found.
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        SelfPlay selfPlay = new SelfPlay(SelfPlay.vocabulary(SelfPlay.newGame(1, 0)));
+        for (int players = 2; players <= 5; players += 3) {
+            List<MagicBakery> positions = new ArrayList<MagicBakery>();
+            for (long seed = 1; seed <= 5; seed++) {
+                positions.addAll(positions(selfPlay, seed, players));
+            }
+            HeuristicBot bot = new HeuristicBot(selfPlay, positions.get(0).getLayers());
+            Random policy = new Random(1);
+            Bench.report("bot/heuristic " + players + " players", "decisions", measure(positions, game -> bot.choose(game)));
+            Bench.report("bot/self-play " + players + " players", "decisions", measure(positions, game -> SelfPlay.choose(selfPlay.legalMoves(game), policy)));
+            System.out.printf("%-40s %14.2f heuristic %8.2f self-play customers/game%n", "bot/served " + players + " players", served(selfPlay, players, true), served(selfPlay, players, false));
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static long sink;
+
+    private interface Policy {
+        short choose(MagicBakery game);
+    }
+
+    // Snapshots of a game at the start of every turn, taken by replaying the same seed
+    private static List<MagicBakery> positions(SelfPlay selfPlay, long seed, int players) throws FileNotFoundException {
+        List<MagicBakery> positions = new ArrayList<MagicBakery>();
+        MagicBakery game = SelfPlay.newGame(seed, players);
+        HeuristicBot bot = new HeuristicBot(selfPlay, game.getLayers());
+        int turns = 0;
+        while (!SelfPlay.isOver(game) && turns < SelfPlay.MAX_TURNS) {
+            MagicBakery snapshot = SelfPlay.newGame(seed, players);
+            replay(selfPlay, snapshot, turns);
+            positions.add(snapshot);
+            while (game.getActionsRemaining() > 0) {
+                selfPlay.play(game, bot.choose(game));
+            }
+            game.endTurn();
+            turns++;
+        }
+        return positions;
+    }
+
+    private static void replay(SelfPlay selfPlay, MagicBakery game, int turns) {
+        HeuristicBot bot = new HeuristicBot(selfPlay, game.getLayers());
+        for (int turn = 0; turn < turns; turn++) {
+            while (game.getActionsRemaining() > 0) {
+                selfPlay.play(game, bot.choose(game));
+            }
+            game.endTurn();
+        }
+    }
+
+    private static double[] measure(List<MagicBakery> positions, Policy policy) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (MagicBakery game : positions) {
+                sink += policy.choose(game);
+            }
+        }
+        long bytesBefore = Bench.allocatedBytes();
+        long start = System.nanoTime();
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            for (MagicBakery game : positions) {
+                sink += policy.choose(game);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = Bench.allocatedBytes() - bytesBefore;
+        long decisions = (long) MEASURED_ROUNDS * positions.size();
+        return new double[] {decisions / (elapsed / 1e9), (double) bytes / decisions};
+    }
+
+    private static double served(SelfPlay selfPlay, int players, boolean heuristic) throws FileNotFoundException {
+        long served = 0;
+        for (long seed = 1; seed <= GAMES; seed++) {
+            MagicBakery game = SelfPlay.newGame(seed, players);
+            HeuristicBot bot = new HeuristicBot(selfPlay, game.getLayers());
+            Random policy = new Random(seed);
+            int turns = 0;
+            while (!SelfPlay.isOver(game) && turns++ < SelfPlay.MAX_TURNS) {
+                while (game.getActionsRemaining() > 0) {
+                    short move = heuristic ? bot.choose(game) : SelfPlay.choose(selfPlay.legalMoves(game), policy);
+                    if (selfPlay.play(game, move)) {
+                        served++;
+                    }
+                }
+                game.endTurn();
+            }
+        }
+        return (double) served / GAMES;
+    }
+}
@@ -0,0 +1,110 @@
+package test.benchmark;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+
+import bakery.EmptyPantryException;
+import bakery.Ingredient;
+import bakery.Layer;
+import bakery.MagicBakery;
+import bakery.Player;
+import bakery.TooManyActionsException;
+import bakery.WrongIngredientsException;
+import util.SelfPlay;
+
+/**
+ * Measures how many illegal actions per second a player probing the game can be told about: by catching the exceptions
+ * the actions throw, by catching them with stack traces turned off, and by the {@code try} versions of the actions, which
+ * return a result instead.
+ *
+ * Every action tried is illegal: drawing a card that is not in the pantry, passing a card that is not held, baking a
+ * layer the hand cannot make and acting with no actions left.
+ *
+ * Run with bench.sh; results are printed and appended to bench_output.txt.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public class InvalidActionBenchmark {
+
+    private static final int WARMUP_ROUNDS = 20000;
+    private static final int MEASURED_ROUNDS = 100000;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args unused.
+     * @throws FileNotFoundException if the game files cannot be found.
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        MagicBakery game = SelfPlay.newGame(1, 3);
+        MagicBakery spent = SelfPlay.newGame(1, 3);
+        while (spent.getActionsRemaining() > 0) {
+            spent.refreshPantry();
+        }
+        Ingredient missing = new Ingredient("no such card");
+        Player recipient = new ArrayList<Player>(game.getPlayers()).get(1);
+        Layer unbakeable = null;
+        for (Layer layer : game.getLayers()) {
+            if (!game.getBakeableLayers().contains(layer)) {
+                unbakeable = layer;
+            }
+        }
+        Layer layer = unbakeable;
+        Ingredient held = spent.getCurrentPlayer().getHand().get(0);
+
+        List<Action> throwing = new ArrayList<Action>();
+        throwing.add(() -> game.drawFromPantry(missing.toString()));
+        throwing.add(() -> game.passCard(missing, recipient));
+        throwing.add(() -> game.bakeLayer(layer));
+        throwing.add(() -> spent.passCard(held, recipient));
+        List<Action> trying = new ArrayList<Action>();
+        trying.add(() -> sink += game.tryDrawFromPantry(missing.toString()).ordinal());
+        trying.add(() -> sink += game.tryPassCard(missing, recipient).ordinal());
+        trying.add(() -> sink += game.tryBakeLayer(layer).ordinal());
+        trying.add(() -> sink += spent.tryPassCard(held, recipient).ordinal());
+
+        MagicBakery.setExceptionStackTraces(true);
+        Bench.report("invalid/throw", "actions", measure(throwing));
+        MagicBakery.setExceptionStackTraces(false);
+        Bench.report("invalid/throw stackless", "actions", measure(throwing));
+        MagicBakery.setExceptionStackTraces(true);
+        Bench.report("invalid/try", "actions", measure(trying));
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static long sink;
+
+    private interface Action {
+        void run();
+    }
+
+    private static void attempt(List<Action> actions) {
+        for (Action action : actions) {
+            try {
+                action.run();
+            } catch (TooManyActionsException | WrongIngredientsException | EmptyPantryException e) {
+                sink++;
+            }
+        }
+    }
+
+    private static double[] measure(List<Action> actions) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            attempt(actions);
+        }
+        long bytesBefore = Bench.allocatedBytes();
+        long start = System.nanoTime();
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            attempt(actions);
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = Bench.allocatedBytes() - bytesBefore;
+        long attempts = (long) MEASURED_ROUNDS * actions.size();
+        return new double[] {attempts / (elapsed / 1e9), (double) bytes / attempts};
+    }
+}
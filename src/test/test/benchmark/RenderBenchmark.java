@@ -0,0 +1,85 @@
+package test.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import bakery.CustomerOrder;
+import bakery.MagicBakery;
+import util.CardRenderer;
+import util.StringUtils;
+
+/**
+ * Measures how many complete game-state renders per second the console renderer manages, and how many bytes each render
+ * allocates. The StringUtils path (one list of lines per row of cards) is compared with rendering the whole frame straight
+ * into a reused StringBuilder.
+ *
+ * Run with bench.sh; results are printed and appended to bench_output.txt.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public class RenderBenchmark {
+
+    private static final int WARMUP_RENDERS = 20_000;
+    private static final int MEASURED_RENDERS = 200_000;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args unused.
+     * @throws IOException if the game files cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        MagicBakery bakery = new MagicBakery(12345, "./io/ingredients.csv", "./io/layers.csv");
+        List<String> players = new ArrayList<String>(List.of("PlayerA", "PlayerB", "PlayerC"));
+        bakery.startGame(players, "./io/customers.csv");
+        bakery.endTurn();
+        bakery.endTurn();
+        bakery.endTurn();
+
+        LinkedList<CustomerOrder> customers = new LinkedList<CustomerOrder>(bakery.getCustomers().getActiveCustomers());
+        Runnable viaStringUtils = () -> {
+            List<String> lines = new ArrayList<String>();
+            lines.addAll(StringUtils.layersToStrings(bakery.getLayers()));
+            lines.addAll(StringUtils.ingredientsToStrings(bakery.getPantry()));
+            lines.addAll(StringUtils.customerOrdersToStrings(customers));
+            sink += String.join("\n", lines).length();
+        };
+        CardRenderer renderer = new CardRenderer();
+        StringBuilder frame = new StringBuilder(8192);
+        Runnable viaRenderer = () -> {
+            frame.setLength(0);
+            try {
+                renderer.appendGameState(frame, bakery);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            sink += frame.length();
+        };
+
+        Bench.report("render/StringUtils lines", "renders", measure(viaStringUtils));
+        Bench.report("render/CardRenderer frame", "renders", measure(viaRenderer));
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static long sink;
+
+    private static double[] measure(Runnable render) {
+        for (int i = 0; i < WARMUP_RENDERS; i++) {
+            render.run();
+        }
+        long bytesBefore = Bench.allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RENDERS; i++) {
+            render.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = Bench.allocatedBytes() - bytesBefore;
+        return new double[] {MEASURED_RENDERS / (elapsed / 1e9), (double) bytes / MEASURED_RENDERS};
+    }
+}
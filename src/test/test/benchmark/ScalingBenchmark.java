@@ -0,0 +1,115 @@
+package test.benchmark;
+
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import bakery.GameRules;
+import bakery.Ingredient;
+import bakery.MagicBakery;
+import bakery.Player;
+
+/**
+ * Measures the cost of an action as the table and the ingredient deck grow, played under {@link GameRules#LARGE_TABLE}.
+ * Each turn draws a card from the pantry and passes a card to the next player, so only a couple of cards change per
+ * action; the rate should stay roughly flat however many players and cards the game holds.
+ *
+ * The decks are the shipped ingredient deck with every count multiplied, from about ten thousand to about a hundred
+ * thousand cards.
+ *
+ * Run with bench.sh; results are printed and appended to bench_output.txt.
+ *
+ * @author Adam Aly
+ * @version 1.0
+ * @since 2024
+ */
+public class ScalingBenchmark {
+
+    private static final int[] PLAYERS = {4, 16, 48};
+    private static final int[] DECK_MULTIPLES = {160, 1600};
+    private static final int WARMUP_TURNS = 1000;
+    private static final int MEASURED_TURNS = 3000;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args unused.
+     * @throws Exception if the game files cannot be found or written.
+     */
+    public static void main(String[] args) throws Exception {
+        for (int times : DECK_MULTIPLES) {
+            String deck = biggerDeck(times);
+            for (int players : PLAYERS) {
+                Bench.report("scaling/" + players + " players, deck x" + times, "actions", measure(deck, players));
+            }
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static long sink;
+
+    // The shipped ingredient deck with every count multiplied, written to a temporary file
+    private static String biggerDeck(int times) throws Exception {
+        Path file = Files.createTempFile("ingredients", ".csv");
+        file.toFile().deleteOnExit();
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            for (String line : Files.readAllLines(Path.of("io/ingredients.csv"))) {
+                if (line.startsWith("NAME")) {
+                    out.println(line);
+                } else {
+                    String[] nameCount = line.split(",");
+                    out.println(nameCount[0] + ", " + Integer.parseInt(nameCount[1].strip()) * times);
+                }
+            }
+        }
+        return file.toString();
+    }
+
+    private static MagicBakery newGame(String deck, int players) throws Exception {
+        List<String> names = new ArrayList<>();
+        for (int i = 1; i <= players; i++) {
+            names.add("Player " + i);
+        }
+        MagicBakery game = new MagicBakery(1, deck, "io/layers.csv", GameRules.LARGE_TABLE);
+        game.startGame(names, "io/customers.csv");
+        return game;
+    }
+
+    // Draws a card and passes one on until the turn is over, returning the number of actions taken
+    private static int turn(MagicBakery game) {
+        int actions = 0;
+        List<Player> players = new ArrayList<>(game.getPlayers());
+        Player next = players.get((players.indexOf(game.getCurrentPlayer()) + 1) % players.size());
+        while (game.getActionsRemaining() > 0) {
+            List<Ingredient> hand = game.getCurrentPlayer().getHand();
+            if (actions % 2 == 1 && !hand.isEmpty()) {
+                game.passCard(hand.get(0), next);
+            } else {
+                game.drawFromPantry(game.getPantry().iterator().next());
+            }
+            actions++;
+        }
+        game.endTurn();
+        return actions;
+    }
+
+    private static double[] measure(String deck, int players) throws Exception {
+        MagicBakery game = newGame(deck, players);
+        for (int t = 0; t < WARMUP_TURNS; t++) {
+            sink += turn(game);
+        }
+        int actions = 0;
+        long bytesBefore = Bench.allocatedBytes();
+        long start = System.nanoTime();
+        for (int t = 0; t < MEASURED_TURNS; t++) {
+            actions += turn(game);
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = Bench.allocatedBytes() - bytesBefore;
+        return new double[] {actions / (elapsed / 1e9), (double) bytes / actions};
+    }
+}
@@ -0,0 +1,230 @@
+package test.functional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EmptyStackException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import bakery.CardPile;
+import bakery.Ingredient;
+
+@Tag("functional")
+@Tag("CardPile")
+public class CardPileTest {
+
+	private List<Ingredient> ingredients(String... names) {
+		List<Ingredient> result = new ArrayList<Ingredient>();
+		for (String name : names) {
+			result.add(new Ingredient(name));
+		}
+		return result;
+	}
+
+	@Test
+	public void testPushPopPeek() {
+		CardPile<Ingredient> pile = new CardPile<Ingredient>();
+		assertNull(pile.peek());
+		pile.push(new Ingredient("flour"));
+		pile.push(new Ingredient("eggs"));
+		assertEquals(new Ingredient("eggs"), pile.peek());
+		assertEquals(2, pile.size());
+		assertEquals(new Ingredient("eggs"), pile.pop());
+		assertEquals(new Ingredient("flour"), pile.pop());
+		assertTrue(pile.isEmpty());
+		assertThrows(EmptyStackException.class, () -> { pile.pop(); });
+	}
+
+	@Test
+	public void testIterationIsBottomToTop() {
+		CardPile<Ingredient> pile = new CardPile<Ingredient>(ingredients("a", "b", "c"));
+		pile.push(new Ingredient("d"));
+		assertEquals(ingredients("a", "b", "c", "d"), new ArrayList<Ingredient>(pile));
+	}
+
+	@Test
+	public void testGrowsBeyondInitialCapacity() {
+		CardPile<Ingredient> pile = new CardPile<Ingredient>();
+		for (int i = 0; i < 1000; i++) {
+			pile.push(new Ingredient("card" + i));
+		}
+		assertEquals(1000, pile.size());
+		assertEquals(new Ingredient("card999"), pile.pop());
+	}
+
+	@Test
+	public void testRemoveKeepsOrder() {
+		CardPile<Ingredient> pile = new CardPile<Ingredient>(ingredients("a", "b", "a", "c"));
+		assertTrue(pile.remove(new Ingredient("a")));
+		assertEquals(ingredients("b", "a", "c"), new ArrayList<Ingredient>(pile));
+		assertFalse(pile.remove(new Ingredient("z")));
+		assertTrue(pile.contains(new Ingredient("c")));
+		assertFalse(pile.contains(new Ingredient("z")));
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		CardPile<Ingredient> pile = new CardPile<Ingredient>(ingredients("a", "b", "c"));
+		Iterator<Ingredient> it = pile.iterator();
+		while (it.hasNext()) {
+			if (it.next().equals(new Ingredient("b"))) {
+				it.remove();
+			}
+		}
+		assertEquals(ingredients("a", "c"), new ArrayList<Ingredient>(pile));
+	}
+
+	@Test
+	public void testTransferTo() {
+		CardPile<Ingredient> discard = new CardPile<Ingredient>(ingredients("a", "b"));
+		CardPile<Ingredient> deck = new CardPile<Ingredient>(ingredients("x"));
+		discard.transferTo(deck);
+		assertTrue(discard.isEmpty());
+		assertEquals(ingredients("x", "a", "b"), new ArrayList<Ingredient>(deck));
+		assertEquals(new Ingredient("b"), deck.peek());
+	}
+
+	@Test
+	public void testAddAllCopiesWithoutEmptyingSource() {
+		CardPile<Ingredient> discard = new CardPile<Ingredient>(ingredients("a", "b"));
+		CardPile<Ingredient> deck = new CardPile<Ingredient>();
+		deck.addAll(discard);
+		assertEquals(2, discard.size());
+		assertEquals(discard, deck);
+	}
+
+	@Test
+	public void testShuffleMatchesCollectionsShuffle() {
+		List<Ingredient> cards = new ArrayList<Ingredient>();
+		for (int i = 0; i < 50; i++) {
+			cards.add(new Ingredient("card" + i));
+		}
+		CardPile<Ingredient> pile = new CardPile<Ingredient>(cards);
+		pile.shuffle(new Random(12854));
+		Collections.shuffle(cards, new Random(12854));
+		assertEquals(cards, new ArrayList<Ingredient>(pile));
+	}
+
+	@Test
+	public void testEqualsAndHashCode() {
+		CardPile<Ingredient> first = new CardPile<Ingredient>(ingredients("a", "b"));
+		CardPile<Ingredient> second = new CardPile<Ingredient>(ingredients("a", "b"));
+		CardPile<Ingredient> reversed = new CardPile<Ingredient>(ingredients("b", "a"));
+		assertEquals(first, second);
+		assertEquals(first.hashCode(), second.hashCode());
+		assertFalse(first.equals(reversed));
+	}
+
+	@Test
+	public void testLazyShuffleDrawsMatchEagerShuffle() {
+		List<Ingredient> cards = new ArrayList<Ingredient>();
+		for (int i = 0; i < 63; i++) {
+			cards.add(new Ingredient("card" + i));
+		}
+		CardPile<Ingredient> eager = new CardPile<Ingredient>(cards);
+		CardPile<Ingredient> lazy = new CardPile<Ingredient>(cards);
+		eager.shuffle(new Random(314159265));
+		lazy.shuffleLazily(new Random(314159265));
+		while (!eager.isEmpty()) {
+			assertEquals(eager.pop(), lazy.pop());
+		}
+		assertTrue(lazy.isEmpty());
+	}
+
+	@Test
+	public void testLazyShuffleOrderMatchesEagerShuffleOnceObserved() {
+		List<Ingredient> cards = new ArrayList<Ingredient>();
+		for (int i = 0; i < 40; i++) {
+			cards.add(new Ingredient("card" + i));
+		}
+		CardPile<Ingredient> eager = new CardPile<Ingredient>(cards);
+		CardPile<Ingredient> lazy = new CardPile<Ingredient>(cards);
+		eager.shuffle(new Random(271828));
+		lazy.shuffleLazily(new Random(271828));
+		for (int i = 0; i < 5; i++) {
+			assertEquals(eager.pop(), lazy.pop());
+		}
+		assertEquals(new ArrayList<Ingredient>(eager), new ArrayList<Ingredient>(lazy));
+	}
+
+	@Test
+	public void testLazyShuffleSharingItsGeneratorDealsRepeatably() {
+		List<Ingredient> cards = new ArrayList<Ingredient>();
+		for (int i = 0; i < 20; i++) {
+			cards.add(new Ingredient("card" + i));
+		}
+		List<List<Ingredient>> deals = new ArrayList<List<Ingredient>>();
+		for (int run = 0; run < 2; run++) {
+			CardPile<Ingredient> pile = new CardPile<Ingredient>(cards);
+			Random random = new Random(1);
+			pile.shuffleLazily(random);
+			List<Ingredient> drawn = new ArrayList<Ingredient>();
+			for (int i = 0; i < 5; i++) {
+				drawn.add(pile.pop());
+				random.nextInt(7); // something else using the generator between draws
+			}
+			deals.add(drawn);
+		}
+		assertEquals(deals.get(0), deals.get(1));
+		assertEquals("[card5, card17, card8, card10, card15]", deals.get(0).toString());
+
+		// Sharing the generator changes the deal from the one an eager shuffle makes
+		CardPile<Ingredient> eager = new CardPile<Ingredient>(cards);
+		eager.shuffle(new Random(1));
+		List<Ingredient> eagerDeal = new ArrayList<Ingredient>();
+		for (int i = 0; i < 5; i++) {
+			eagerDeal.add(eager.pop());
+		}
+		assertFalse(eagerDeal.equals(deals.get(0)));
+	}
+
+	@Test
+	public void testLazyShuffleKeepsPushedCardsOnTop() {
+		CardPile<Ingredient> pile = new CardPile<Ingredient>(ingredients("a", "b", "c", "d"));
+		pile.shuffleLazily(new Random(1));
+		pile.push(new Ingredient("top"));
+		assertEquals(new Ingredient("top"), pile.pop());
+		assertEquals(4, pile.size());
+	}
+
+	@Test
+	public void testLazyShuffleIsUniform() {
+		// Every card should be equally likely to turn up at every draw position: a chi-squared test over
+		// the 5x5 table of (card, position) counts, with a critical value for 16 degrees of freedom at p = 0.001
+		final int CARDS = 5;
+		final int TRIALS = 50000;
+		List<Ingredient> cards = new ArrayList<Ingredient>();
+		for (int i = 0; i < CARDS; i++) {
+			cards.add(new Ingredient(Integer.toString(i)));
+		}
+		int[][] counts = new int[CARDS][CARDS];
+		Random random = new Random(12854);
+		for (int trial = 0; trial < TRIALS; trial++) {
+			CardPile<Ingredient> pile = new CardPile<Ingredient>(cards);
+			pile.shuffleLazily(random);
+			for (int position = 0; position < CARDS; position++) {
+				counts[Integer.parseInt(pile.pop().toString())][position]++;
+			}
+		}
+		double expected = (double) TRIALS / CARDS;
+		double chiSquared = 0;
+		for (int card = 0; card < CARDS; card++) {
+			for (int position = 0; position < CARDS; position++) {
+				double diff = counts[card][position] - expected;
+				chiSquared += diff * diff / expected;
+			}
+		}
+		assertTrue(chiSquared < 39.25, "chi-squared statistic too large: " + chiSquared);
+	}
+
+}
@@ -0,0 +1,126 @@
+package test.functional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import bakery.CustomerOrder;
+import bakery.CustomerOrder.CustomerOrderStatus;
+import bakery.Ingredient;
+import bakery.Layer;
+import util.CardRenderer;
+import util.StringUtils;
+
+@Tag("functional")
+@Tag("CardRenderer")
+public class CardRendererTest {
+
+	private List<Ingredient> ingredients(String... names) {
+		List<Ingredient> result = new ArrayList<Ingredient>();
+		for (String name : names) {
+			result.add(new Ingredient(name));
+		}
+		return result;
+	}
+
+	private List<Layer> layers() {
+		List<Layer> layers = new ArrayList<Layer>();
+		layers.add(new Layer("sponge", ingredients("butter", "eggs", "flour", "sugar")));
+		layers.add(new Layer("biscuit", ingredients("eggs", "flour", "sugar")));
+		layers.add(new Layer("icing", ingredients("butter", "sugar")));
+		return layers;
+	}
+
+	@Test
+	public void testAppendLayers() throws IOException {
+		String expected = """
+				  | ---------------- || ---------------- || ---------------- |
+				  |     BISCUIT      ||      ICING       ||      SPONGE      |
+				  | Recipe:          || Recipe:          || Recipe:          |
+				  |   Eggs, Flour,   ||  Butter, Sugar   ||  Butter, Eggs,   |
+				  |      Sugar       ||                  ||   Flour, Sugar   |
+				  | ---------------- || ---------------- || ---------------- |
+				""";
+		StringBuilder out = new StringBuilder();
+		new CardRenderer().appendLayers(out, layers());
+		assertEquals(expected, out.toString());
+	}
+
+	@Test
+	public void testAppendIngredients() throws IOException {
+		String expected = """
+				  | -------------------- || -------------------- || -------------------- |
+				  |        FLOUR         ||         EGGS         ||    HELPFUL DUCK 𓅭    |
+				  | -------------------- || -------------------- || -------------------- |
+				""";
+		List<Ingredient> pantry = ingredients("flour", "eggs");
+		pantry.add(Ingredient.HELPFUL_DUCK);
+		StringBuilder out = new StringBuilder();
+		new CardRenderer().appendIngredients(out, pantry);
+		assertEquals(expected, out.toString());
+	}
+
+	@Test
+	public void testAppendCustomerOrders() throws IOException {
+		String expected = """
+				  | ------------------------------------ || ------------------------------------ || ------------------------------------ |
+				  |                                      ||       MILLIONAIRE'S SHORTBREAD       ||      ALMOND & CHOCOLATE TORTE⌛      |
+				  |                                      || Recipe:                              || Recipe:                              |
+				  |                                      ||  Biscuit, Butter, Chocolate, Sugar   ||       Icing, Sponge, Chocolate       |
+				  |                                      ||                                      || Garnish:                             |
+				  |                                      ||                                      ||              Chocolate               |
+				  | ------------------------------------ || ------------------------------------ || ------------------------------------ |
+				""";
+		CustomerOrder shortbread = new CustomerOrder("millionaire's shortbread", ingredients("biscuit", "butter", "chocolate", "sugar"), new ArrayList<Ingredient>(), 1);
+		CustomerOrder torte = new CustomerOrder("almond & chocolate torte", ingredients("icing", "sponge", "chocolate"), ingredients("chocolate"), 3);
+		torte.setStatus(CustomerOrderStatus.IMPATIENT);
+		List<CustomerOrder> customers = new ArrayList<CustomerOrder>(Arrays.asList(torte, shortbread, null));
+
+		StringBuilder out = new StringBuilder();
+		new CardRenderer().appendCustomerOrders(out, customers);
+		assertEquals(expected, out.toString());
+	}
+
+	@Test
+	public void testCachedCardsFollowStatusChanges() throws IOException {
+		CardRenderer renderer = new CardRenderer();
+		CustomerOrder crumpets = new CustomerOrder("crumpets", ingredients("butter", "eggs"), ingredients("jam"), 1);
+		List<CustomerOrder> customers = new ArrayList<CustomerOrder>(Arrays.asList(crumpets));
+
+		StringBuilder first = new StringBuilder();
+		renderer.appendCustomerOrders(first, customers);
+		crumpets.setStatus(CustomerOrderStatus.IMPATIENT);
+		assertThrows(UnsupportedOperationException.class, () -> crumpets.getRecipe().add(new Ingredient("flour")));
+		StringBuilder second = new StringBuilder();
+		renderer.appendCustomerOrders(second, customers);
+
+		StringBuilder fresh = new StringBuilder();
+		new CardRenderer().appendCustomerOrders(fresh, customers);
+		assertEquals(fresh.toString(), second.toString());
+		assertEquals(false, first.toString().equals(second.toString()));
+	}
+
+	@Test
+	public void testStringUtilsMatchesRenderer() throws IOException {
+		LinkedList<CustomerOrder> customers = new LinkedList<CustomerOrder>();
+		customers.add(new CustomerOrder("jaffa cakes", ingredients("chocolate", "jam", "sponge"), new ArrayList<Ingredient>(), 2));
+		customers.add(null);
+
+		StringBuilder out = new StringBuilder();
+		new CardRenderer().appendCustomerOrders(out, customers);
+		assertEquals(out.toString(), String.join("\n", StringUtils.customerOrdersToStrings(customers)) + "\n");
+
+		out.setLength(0);
+		new CardRenderer().appendLayers(out, layers());
+		assertEquals(out.toString(), String.join("\n", StringUtils.layersToStrings(layers())) + "\n");
+	}
+
+}
@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -17,6 +18,7 @@ import org.junit.jupiter.api.BeforeAll;
 import bakery.CustomerOrder;
 import bakery.Ingredient;
 import bakery.Layer;
+import bakery.WrongIngredientsException;
 
 @Tag("functional")
 @Tag("CustomOrder")
@@ -83,11 +85,11 @@ public class CustomerOrderTest {
 
 		@SuppressWarnings("unchecked")
 		List<Ingredient> recipe = (List<Ingredient>)FunctionalHelper.getFieldValue(order_multi, "recipe");
-		assertSame(recipe_multi, recipe);
+		assertEquals(recipe_multi, recipe);
 
 		@SuppressWarnings("unchecked")
 		List<Ingredient> garnish = (List<Ingredient>)FunctionalHelper.getFieldValue(order_multi, "garnish");
-		assertSame(garnish_multi, garnish);
+		assertEquals(garnish_multi, garnish);
 	}
 
 	@Test
@@ -98,11 +100,11 @@ public class CustomerOrderTest {
 
 		@SuppressWarnings("unchecked")
 		List<Ingredient> recipe = (List<Ingredient>)FunctionalHelper.getFieldValue(order_single, "recipe");
-		assertSame(recipe_single, recipe);
+		assertEquals(recipe_single, recipe);
 
 		@SuppressWarnings("unchecked")
 		List<Ingredient> garnish = (List<Ingredient>)FunctionalHelper.getFieldValue(order_single, "garnish");
-		assertSame(garnish_single, garnish);
+		assertEquals(garnish_single, garnish);
 	}
 
 	@Test
@@ -114,7 +116,7 @@ public class CustomerOrderTest {
 
 		@SuppressWarnings("unchecked")
 		List<Ingredient> recipe = (List<Ingredient>)FunctionalHelper.getFieldValue(order, "recipe");
-		assertSame(recipe_multi, recipe);
+		assertEquals(recipe_multi, recipe);
 
 		@SuppressWarnings("unchecked")
 		List<Ingredient> garnish = (List<Ingredient>)FunctionalHelper.getFieldValue(order, "garnish");
@@ -560,5 +562,27 @@ public class CustomerOrderTest {
 		assertTrue(used.equals(Arrays.asList(shouldUse)));
 		assertEquals(CustomerOrder.CustomerOrderStatus.GARNISHED, order.getStatus());
 	}
-}
 
+	@Test
+	public void testRecipeAndGarnishCannotBeChanged() {
+		List<Ingredient> recipe = new ArrayList<Ingredient>(recipe_multi);
+		List<Ingredient> garnish = new ArrayList<Ingredient>(garnish_multi);
+		CustomerOrder order = new CustomerOrder("some recipe", recipe, garnish, 2);
+		recipe.clear();
+		garnish.clear();
+		assertEquals(recipe_multi, order.getRecipe());
+		assertEquals(garnish_multi, order.getGarnish());
+		assertThrows(UnsupportedOperationException.class, () -> order.getRecipe().add(new Ingredient("butter")));
+		assertThrows(UnsupportedOperationException.class, () -> order.getGarnish().remove(0));
+		order.setStatus(CustomerOrder.CustomerOrderStatus.IMPATIENT);
+		assertEquals(CustomerOrder.CustomerOrderStatus.IMPATIENT, order.getStatus());
+	}
+
+	@Test
+	public void testNoGarnish() {
+		CustomerOrder order = new CustomerOrder("some recipe", recipe_multi, null, 1);
+		assertTrue(order.getGarnish().isEmpty());
+		assertEquals("", order.getGarnishDescription());
+		assertThrows(WrongIngredientsException.class, () -> new CustomerOrder("some recipe", Arrays.asList(new Ingredient("butter"), null), null, 1));
+	}
+}
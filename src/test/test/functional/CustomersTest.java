@@ -9,8 +9,12 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
@@ -2722,6 +2726,82 @@ public class CustomersTest {
 		assertEquals(1, customers.getInactiveCustomersWithStatus(CustomerOrderStatus.WAITING).size());
 	}
 
+	@Test
+	public void testGetInactiveCount__FollowsCustomersLeaving() throws NoSuchFieldException, IllegalAccessException, IOException, FileNotFoundException, InvocationTargetException {
+		Customers customers = getDeterministicCustomers();
+
+		customers.addCustomerOrder();
+		customers.addCustomerOrder();
+		customers.addCustomerOrder();
+		for (CustomerOrderStatus status : CustomerOrderStatus.values()) {
+			assertEquals(0, customers.getInactiveCount(status));
+		}
+
+		assertEquals(order1, customers.addCustomerOrder());
+		assertEquals(1, customers.getInactiveCount(CustomerOrderStatus.GIVEN_UP));
+		Collection<CustomerOrder> givenUp = customers.getInactiveCustomersWithStatus(CustomerOrderStatus.GIVEN_UP);
+		assertTrue(givenUp == customers.getInactiveCustomersWithStatus(CustomerOrderStatus.GIVEN_UP));
+		assertThrows(UnsupportedOperationException.class, () -> givenUp.clear());
+
+		customers.remove(order3);
+		assertEquals(2, customers.getInactiveCount(CustomerOrderStatus.GIVEN_UP));
+		assertEquals(List.of(order1, order3), new ArrayList<>(customers.getInactiveCustomersWithStatus(CustomerOrderStatus.GIVEN_UP)));
+		assertEquals(0, customers.getInactiveCount(CustomerOrderStatus.FULFILLED));
+		assertEquals(1, givenUp.size());
+	}
+
+	@Test
+	public void testGetInactiveCount__FollowsChangesToTheList() throws NoSuchFieldException, IllegalAccessException, IOException, FileNotFoundException, InvocationTargetException {
+		Customers customers = getDeterministicCustomers();
+
+		@SuppressWarnings("unchecked")
+		List<CustomerOrder> inactiveCustomers = (List<CustomerOrder>)FunctionalHelper.getFieldValue(customers, "inactiveCustomers");
+		order1.setStatus(CustomerOrderStatus.FULFILLED);
+		order2.setStatus(CustomerOrderStatus.GARNISHED);
+		order3.setStatus(CustomerOrderStatus.FULFILLED);
+		inactiveCustomers.addAll(List.of(order1, order2, order3));
+		assertEquals(2, customers.getInactiveCount(CustomerOrderStatus.FULFILLED));
+		assertEquals(1, customers.getInactiveCount(CustomerOrderStatus.GARNISHED));
+
+		inactiveCustomers.remove(order1);
+		assertEquals(1, customers.getInactiveCount(CustomerOrderStatus.FULFILLED));
+		assertEquals(List.of(order3), new ArrayList<>(customers.getInactiveCustomersWithStatus(CustomerOrderStatus.FULFILLED)));
+
+		customers.addCustomerOrder();
+		customers.addCustomerOrder();
+		customers.addCustomerOrder();
+		CustomerOrder leaving = customers.addCustomerOrder();
+		assertEquals(1, customers.getInactiveCount(CustomerOrderStatus.GIVEN_UP));
+		assertEquals(List.of(leaving), new ArrayList<>(customers.getInactiveCustomersWithStatus(CustomerOrderStatus.GIVEN_UP)));
+
+		inactiveCustomers.clear();
+		for (CustomerOrderStatus status : CustomerOrderStatus.values()) {
+			assertEquals(0, customers.getInactiveCount(status));
+			assertTrue(customers.getInactiveCustomersWithStatus(status).isEmpty());
+		}
+	}
+
+	@Test
+	public void testGetInactiveCount__LoadedGame() throws NoSuchFieldException, IllegalAccessException, IOException, FileNotFoundException, InvocationTargetException, ClassNotFoundException {
+		Customers customers = getDeterministicCustomers();
+
+		order1.setStatus(CustomerOrderStatus.GARNISHED);
+		order2.setStatus(CustomerOrderStatus.GIVEN_UP);
+		FunctionalHelper.setFieldValue(customers, "inactiveCustomers", new ArrayList<>(List.of(order1, order2)));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(customers);
+		}
+		Customers loaded;
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			loaded = (Customers)in.readObject();
+		}
+
+		assertEquals(1, loaded.getInactiveCount(CustomerOrderStatus.GARNISHED));
+		assertEquals(1, loaded.getInactiveCount(CustomerOrderStatus.GIVEN_UP));
+		assertEquals(order1.toString(), loaded.getInactiveCustomersWithStatus(CustomerOrderStatus.GARNISHED).iterator().next().toString());
+	}
+
 
     @Test
 	public void testCustomerDeckIsShuffledCorrectly__TwoPlayers__EulerSeed() throws NoSuchFieldException, IllegalAccessException, IOException, FileNotFoundException, InvocationTargetException {
@@ -0,0 +1,156 @@
+package test.functional;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import bakery.CustomerOrder;
+import bakery.Ingredient;
+import bakery.IngredientCounts;
+import bakery.IngredientCounts.Zone;
+import bakery.Layer;
+import bakery.MagicBakery;
+import util.CardUtils;
+import util.DeckGenerator;
+import util.SaveService;
+
+@Tag("functional")
+@Tag("DeckGenerator")
+public class DeckGeneratorTest {
+
+	@TempDir
+	Path tempDir;
+
+	private String file(String name) {
+		return tempDir.resolve(name).toString();
+	}
+
+	@Test
+	public void testIngredientDeckHasTheCardsAskedFor() throws Exception {
+		new DeckGenerator(7, 3, 3).writeIngredientFile(tempDir.resolve("ingredients.csv"), 1000);
+		List<Ingredient> deck = CardUtils.readIngredientFile(file("ingredients.csv"));
+		assertEquals(1000, deck.size());
+		Map<Ingredient, Integer> counts = new HashMap<>();
+		for (Ingredient card : deck) {
+			counts.merge(card, 1, Integer::sum);
+		}
+		assertEquals(8, counts.size());
+		assertEquals(1000 / 64, counts.get(Ingredient.HELPFUL_DUCK));
+		for (int i = 1; i <= 7; i++) {
+			int count = counts.get(new Ingredient("ingredient " + i));
+			assertTrue(count == (1000 - 1000 / 64) / 7 || count == (1000 - 1000 / 64) / 7 + 1);
+		}
+	}
+
+	@Test
+	public void testLayersAreBakedFromTheIngredients() throws Exception {
+		DeckGenerator generator = new DeckGenerator(5, 40, 4);
+		generator.writeIngredientFile(tempDir.resolve("ingredients.csv"), 200);
+		generator.writeLayerFile(tempDir.resolve("layers.csv"), 1);
+		Set<Ingredient> ingredients = new HashSet<>(CardUtils.readIngredientFile(file("ingredients.csv")));
+		List<Layer> layers = CardUtils.readLayerFile(file("layers.csv"), 1);
+		assertEquals(40, layers.size());
+		for (Layer layer : layers) {
+			List<Ingredient> recipe = layer.getRecipe();
+			assertTrue(recipe.size() >= 2 && recipe.size() <= 4, layer.toString());
+			assertEquals(recipe.size(), new HashSet<>(recipe).size());
+			assertTrue(ingredients.containsAll(recipe), layer.toString());
+			assertFalse(recipe.contains(Ingredient.HELPFUL_DUCK));
+		}
+	}
+
+	@Test
+	public void testCustomersWantLayersAndGarnishes() throws Exception {
+		DeckGenerator generator = new DeckGenerator(6, 10, 5);
+		generator.writeLayerFile(tempDir.resolve("layers.csv"), 2);
+		generator.writeCustomerFile(tempDir.resolve("customers.csv"), 3, 300);
+		List<Layer> layers = CardUtils.readLayerFile(file("layers.csv"), 1);
+		List<CustomerOrder> customers = CardUtils.readCustomerFile(file("customers.csv"), layers);
+		assertEquals(300, customers.size());
+		int[] levels = new int[4];
+		int garnished = 0;
+		boolean layerGarnish = false;
+		for (CustomerOrder customer : customers) {
+			levels[customer.getLevel()]++;
+			assertTrue(customer.getRecipe().get(0) instanceof Layer, customer.toString());
+			assertTrue(customer.getRecipe().size() <= 5);
+			assertTrue(customer.getGarnish().size() <= 2);
+			if (!customer.getGarnish().isEmpty()) {
+				garnished++;
+			}
+			for (Ingredient card : customer.getGarnish()) {
+				layerGarnish |= card instanceof Layer;
+			}
+		}
+		assertEquals(Arrays.asList(100, 100, 100), Arrays.asList(levels[1], levels[2], levels[3]));
+		assertEquals(150, garnished);
+		assertTrue(layerGarnish);
+	}
+
+	@Test
+	public void testSameSeedWritesTheSameDecks() throws Exception {
+		DeckGenerator generator = new DeckGenerator(20, 20, 4);
+		Path first = Files.createDirectory(tempDir.resolve("first"));
+		Path second = Files.createDirectory(tempDir.resolve("second"));
+		Path third = Files.createDirectory(tempDir.resolve("third"));
+		generator.writeDecks(first, 5, 500, 60);
+		generator.writeDecks(second, 5, 500, 60);
+		generator.writeDecks(third, 6, 500, 60);
+		for (String name : Arrays.asList("ingredients.csv", "layers.csv", "customers.csv")) {
+			assertEquals(Files.readAllLines(first.resolve(name)), Files.readAllLines(second.resolve(name)), name);
+		}
+		assertNotEquals(Files.readAllLines(first.resolve("customers.csv")), Files.readAllLines(third.resolve("customers.csv")));
+	}
+
+	@Test
+	public void testImpossibleDecksAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> new DeckGenerator(1, 3, 3));
+		assertThrows(IllegalArgumentException.class, () -> new DeckGenerator(3, 0, 3));
+		assertThrows(IllegalArgumentException.class, () -> new DeckGenerator(3, 3, 1));
+		DeckGenerator generator = new DeckGenerator(10, 3, 3);
+		assertThrows(IllegalArgumentException.class, () -> generator.writeIngredientFile(tempDir.resolve("i.csv"), 10));
+		assertThrows(IllegalArgumentException.class,
+			() -> generator.writeCustomerFile(tempDir.resolve("c.csv"), 1, DeckGenerator.MIN_CUSTOMERS - 1));
+	}
+
+	@Test
+	public void testGameIsPlayedWithGeneratedDecks() throws Exception {
+		new DeckGenerator(2000, 500, 4).writeDecks(tempDir, 7, 20000, 2000);
+		MagicBakery game = new MagicBakery(1, file("ingredients.csv"), file("layers.csv"));
+		game.startGame(Arrays.asList("Alice", "Bob", "Carol"), file("customers.csv"));
+		assertEquals(500, game.getLayers().size());
+		IngredientCounts counts = game.getIngredientCounts();
+		assertEquals(2001, counts.getKinds().size());
+		assertEquals(20000, counts.getTotal(Zone.DECK) + counts.getTotal(Zone.PANTRY) + counts.getTotal(Zone.HANDS));
+		Map<Ingredient, Integer> deck = new HashMap<>();
+		for (Ingredient card : game.getPantryDeck()) {
+			deck.merge(card, 1, Integer::sum);
+		}
+		for (Ingredient kind : counts.getKinds()) {
+			assertEquals(deck.getOrDefault(kind, 0), counts.getCount(Zone.DECK, kind), kind.toString());
+		}
+
+		// Only one customer has arrived, so the row still has empty places
+		assertNull(new ArrayList<>(game.getCustomers().getActiveCustomers()).get(2));
+		assertDoesNotThrow(() -> game.getGarnishableCustomers());
+		assertEquals(game.getBakeableLayers(), SaveService.restore(SaveService.snapshot(game)).getBakeableLayers());
+	}
+}
@@ -0,0 +1,199 @@
+package test.functional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import bakery.CustomerOrder;
+import bakery.GameRules;
+import bakery.MagicBakery;
+import util.EndgameSolver;
+import util.EndgameTablebase;
+import util.SelfPlay;
+
+@Tag("functional")
+@Tag("EndgameSolver")
+public class EndgameSolverTest {
+
+	@TempDir
+	Path tempDir;
+
+	private SelfPlay selfPlay() throws FileNotFoundException {
+		return new SelfPlay(SelfPlay.vocabulary(SelfPlay.newGame(1, 0)));
+	}
+
+	// Plays a self-play game until the last customer has been drawn from the deck
+	private MagicBakery endgame(SelfPlay selfPlay, long seed, int players) throws FileNotFoundException {
+		return endgame(selfPlay, seed, players, GameRules.STANDARD);
+	}
+
+	private MagicBakery endgame(SelfPlay selfPlay, long seed, int players, GameRules rules) throws FileNotFoundException {
+		MagicBakery game = SelfPlay.newGame(seed, players, rules);
+		Random policy = new Random(seed);
+		while (!game.getCustomers().getCustomerDeck().isEmpty()) {
+			while (game.getActionsRemaining() > 0) {
+				selfPlay.play(game, SelfPlay.choose(selfPlay.legalMoves(game), policy));
+			}
+			game.endTurn();
+		}
+		return game;
+	}
+
+	@Test
+	public void testRejectsGameWithCustomersToCome() throws FileNotFoundException {
+		EndgameSolver solver = new EndgameSolver(selfPlay());
+		assertThrows(IllegalArgumentException.class, () -> solver.solve(SelfPlay.newGame(1, 2)));
+		assertThrows(IllegalArgumentException.class, () -> solver.solve(SelfPlay.newGame(1, 0)));
+	}
+
+	@Test
+	public void testFollowingTheSolutionAchievesIt() throws FileNotFoundException {
+		SelfPlay selfPlay = selfPlay();
+		int served = 0;
+		for (int players = 2; players <= 3; players++) {
+			for (long seed = 1; seed <= 8; seed++) {
+				MagicBakery game = endgame(selfPlay, seed, players);
+				EndgameSolver solver = new EndgameSolver(selfPlay);
+				EndgameSolver.Solution solution = solver.solve(game, 100000);
+				if (solution == null) {
+					continue;
+				}
+				int promised = solution.getFulfilled() * 4 + solution.getGarnished();
+
+				// Cards drawn along the way can only help, so the real game does at least as well as promised
+				int achieved = 0;
+				while (!SelfPlay.isOver(game)) {
+					EndgameSolver.Solution next = solver.solve(game, 100000);
+					if (next == null) {
+						break;
+					}
+					short move = next.getBestMove();
+					if (move == EndgameSolver.END_TURN || game.getActionsRemaining() == 0) {
+						game.endTurn();
+					} else {
+						CustomerOrder customer = SelfPlay.customerFor(game, move);
+						selfPlay.play(game, move);
+						if (customer != null) {
+							achieved += SelfPlay.isGarnish(move) ? 5 : 4;
+						}
+					}
+				}
+				if (!SelfPlay.isOver(game)) {
+					continue;
+				}
+				assertTrue(achieved >= promised, players + " players, seed " + seed);
+				served += solution.getFulfilled();
+			}
+		}
+		assertTrue(served > 0);
+	}
+
+	@Test
+	public void testWiderRowsAreSolved() throws FileNotFoundException {
+		SelfPlay selfPlay = selfPlay();
+		int solved = 0;
+		for (int slots = 4; slots <= 5; slots++) {
+			for (long seed = 1; seed <= 4; seed++) {
+				MagicBakery game = endgame(selfPlay, seed, 2, GameRules.STANDARD.withCustomerSlots(slots));
+				int waiting = game.getCustomers().size();
+				EndgameSolver solver = new EndgameSolver(selfPlay);
+				EndgameSolver.Solution solution = solver.solve(game, 200000);
+				if (solution == null) {
+					continue;
+				}
+				solved++;
+				assertTrue(solution.getFulfilled() <= waiting, slots + " slots, seed " + seed);
+				assertTrue(solution.getGarnished() <= solution.getFulfilled(), slots + " slots, seed " + seed);
+
+				int achieved = 0;
+				int garnished = 0;
+				while (!SelfPlay.isOver(game)) {
+					EndgameSolver.Solution next = solver.solve(game, 200000);
+					if (next == null) {
+						break;
+					}
+					short move = next.getBestMove();
+					if (move == EndgameSolver.END_TURN || game.getActionsRemaining() == 0) {
+						game.endTurn();
+					} else {
+						CustomerOrder customer = SelfPlay.customerFor(game, move);
+						selfPlay.play(game, move);
+						if (customer != null) {
+							achieved++;
+							garnished += SelfPlay.isGarnish(move) ? 1 : 0;
+						}
+					}
+				}
+				if (SelfPlay.isOver(game)) {
+					assertTrue(achieved > solution.getFulfilled()
+						|| achieved == solution.getFulfilled() && garnished >= solution.getGarnished(), slots + " slots, seed " + seed);
+				}
+			}
+		}
+		assertTrue(solved > 0);
+	}
+
+	@Test
+	public void testRejectsRowsTooWideToSolve() throws FileNotFoundException {
+		SelfPlay selfPlay = selfPlay();
+		MagicBakery game = endgame(selfPlay, 1, 2, GameRules.STANDARD.withCustomerSlots(9));
+		assertThrows(IllegalArgumentException.class, () -> new EndgameSolver(selfPlay).solve(game));
+	}
+
+	@Test
+	public void testFinishedGameSolvesToNothing() throws FileNotFoundException {
+		SelfPlay selfPlay = selfPlay();
+		MagicBakery game = endgame(selfPlay, 2, 2);
+		while (!SelfPlay.isOver(game)) {
+			game.endTurn();
+		}
+		EndgameSolver.Solution solution = new EndgameSolver(selfPlay).solve(game);
+		assertEquals(0, solution.getFulfilled());
+		assertEquals(0, solution.getGarnished());
+		assertEquals(EndgameSolver.END_TURN, solution.getBestMove());
+	}
+
+	@Test
+	public void testBudgetCanRunOut() throws FileNotFoundException {
+		SelfPlay selfPlay = selfPlay();
+		MagicBakery game = endgame(selfPlay, 6, 2);
+		EndgameSolver limited = new EndgameSolver(selfPlay);
+		assertNull(limited.solve(game, 10));
+
+		EndgameSolver.Solution expected = new EndgameSolver(selfPlay).solve(game);
+		EndgameSolver.Solution resumed = limited.solve(game, Long.MAX_VALUE);
+		assertNotNull(resumed);
+		assertEquals(expected.toString(), resumed.toString());
+		assertEquals(expected.getBestMove(), resumed.getBestMove());
+	}
+
+	@Test
+	public void testTablebaseServesLaterSolvers() throws IOException {
+		SelfPlay selfPlay = selfPlay();
+		MagicBakery game = endgame(selfPlay, 6, 2);
+		Path file = tempDir.resolve("endgame.tb");
+		EndgameSolver.Solution first;
+		try (EndgameTablebase tablebase = EndgameTablebase.open(file, 1 << 12, selfPlay.getVocabulary())) {
+			first = new EndgameSolver(selfPlay, tablebase, 1000).solve(game);
+			assertTrue(tablebase.size() > 0);
+		}
+		try (EndgameTablebase tablebase = EndgameTablebase.open(file, 1 << 12, selfPlay.getVocabulary())) {
+			EndgameSolver solver = new EndgameSolver(selfPlay, tablebase, 1000);
+			EndgameSolver.Solution second = solver.solve(game);
+			assertEquals(1, solver.getTablebaseHits());
+			assertEquals(first.toString(), second.toString());
+			assertEquals(first.getBestMove(), second.getBestMove());
+		}
+	}
+}
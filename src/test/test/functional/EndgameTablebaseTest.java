@@ -0,0 +1,97 @@
+package test.functional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import util.EndgameTablebase;
+
+@Tag("functional")
+@Tag("EndgameTablebase")
+public class EndgameTablebaseTest {
+
+	private static final List<String> CARDS = List.of("flour", "sugar", "sponge");
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	public void testPutAndGet() throws IOException {
+		try (EndgameTablebase tablebase = EndgameTablebase.open(tempDir.resolve("t.tb"), 16, CARDS)) {
+			assertEquals(-1, tablebase.get(42, 5));
+			assertTrue(tablebase.put(42, 5, 7));
+			assertTrue(tablebase.put(0, 5, 3));
+			assertTrue(tablebase.put(42 + 16, 5, 9));
+			assertEquals(7, tablebase.get(42, 5));
+			assertEquals(3, tablebase.get(0, 5));
+			assertEquals(9, tablebase.get(42 + 16, 5));
+			assertTrue(tablebase.put(42, 5, 8));
+			assertEquals(8, tablebase.get(42, 5));
+			assertEquals(3, tablebase.size());
+		}
+	}
+
+	@Test
+	public void testEntriesSurviveReopening() throws IOException {
+		Path file = tempDir.resolve("t.tb");
+		try (EndgameTablebase tablebase = EndgameTablebase.open(file, 64, CARDS)) {
+			for (long key = 1; key <= 20; key++) {
+				tablebase.put(key * 0x9e3779b97f4a7c15L, 5, (int) key);
+			}
+		}
+		assertEquals(32 + 64 * 24, Files.size(file));
+		try (EndgameTablebase tablebase = EndgameTablebase.open(file, 1024, CARDS)) {
+			assertEquals(64, tablebase.getCapacity());
+			assertEquals(20, tablebase.size());
+			for (long key = 1; key <= 20; key++) {
+				assertEquals((int) key, tablebase.get(key * 0x9e3779b97f4a7c15L, 5));
+			}
+		}
+	}
+
+	@Test
+	public void testSharedFingerprintIsNotMistakenForAnotherPosition() throws IOException {
+		try (EndgameTablebase tablebase = EndgameTablebase.open(tempDir.resolve("t.tb"), 16, CARDS)) {
+			assertTrue(tablebase.put(42, 1, 7));
+			assertEquals(-1, tablebase.get(42, 2));
+			assertTrue(tablebase.put(42, 2, 9));
+			assertEquals(7, tablebase.get(42, 1));
+			assertEquals(9, tablebase.get(42, 2));
+			assertEquals(2, tablebase.size());
+		}
+	}
+
+	@Test
+	public void testRefusesToOverfill() throws IOException {
+		try (EndgameTablebase tablebase = EndgameTablebase.open(tempDir.resolve("t.tb"), 8, CARDS)) {
+			for (long key = 1; key <= 6; key++) {
+				assertTrue(tablebase.put(key, 5, 1));
+			}
+			assertFalse(tablebase.put(7, 5, 1));
+			assertEquals(-1, tablebase.get(7, 5));
+			assertTrue(tablebase.put(3, 5, 2));
+		}
+	}
+
+	@Test
+	public void testRejectsOtherCardsAndBadCapacity() throws IOException {
+		Path file = tempDir.resolve("t.tb");
+		EndgameTablebase.open(file, 16, CARDS).close();
+		assertThrows(IOException.class, () -> EndgameTablebase.open(file, 16, List.of("flour", "sugar")));
+		assertThrows(IllegalArgumentException.class, () -> EndgameTablebase.open(tempDir.resolve("u.tb"), 12, CARDS));
+
+		Path other = tempDir.resolve("other.tb");
+		Files.write(other, new byte[64]);
+		assertThrows(IOException.class, () -> EndgameTablebase.open(other, 16, CARDS));
+	}
+}
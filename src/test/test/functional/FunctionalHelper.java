@@ -1,7 +1,13 @@
 package test.functional;
 
+import java.io.FileNotFoundException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import bakery.MagicBakery;
+import util.SpectatorChannel;
 
 public class FunctionalHelper {
 
@@ -57,6 +63,21 @@ public class FunctionalHelper {
 		return mtd;
 	}
 
+	// A two-player game, PlayerA and PlayerB, dealt from seed 12345 and started
+	public static MagicBakery startedBakery() throws FileNotFoundException {
+		return startedBakery(null);
+	}
 
-
+	// The same game, publishing to the channel from the start when one is given
+	public static MagicBakery startedBakery(SpectatorChannel channel) throws FileNotFoundException {
+		MagicBakery bakery = new MagicBakery(12345, "./io/ingredients.csv", "./io/layers.csv");
+		List<String> players = new ArrayList<String>();
+		players.add("PlayerA");
+		players.add("PlayerB");
+		if (channel != null) {
+			bakery.setSpectatorChannel(channel);
+		}
+		bakery.startGame(players, "./io/customers.csv");
+		return bakery;
+	}
 }
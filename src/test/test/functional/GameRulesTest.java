@@ -0,0 +1,256 @@
+package test.functional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import bakery.CustomerOrder;
+import bakery.CustomerOrder.CustomerOrderStatus;
+import bakery.Customers;
+import bakery.GameRules;
+import bakery.GameSnapshot;
+import bakery.Ingredient;
+import bakery.Layer;
+import bakery.MagicBakery;
+import bakery.Player;
+import util.GameState;
+import util.SaveService;
+import util.SelfPlay;
+
+@Tag("functional")
+@Tag("GameRules")
+public class GameRulesTest {
+
+	@TempDir
+	Path tempDir;
+
+	// The standard ingredient deck with every count multiplied, for tables too large for the standard deck
+	private String biggerDeck(int times) throws Exception {
+		Path file = tempDir.resolve("ingredients" + times + ".csv");
+		try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+			for (String line : Files.readAllLines(Path.of("io/ingredients.csv"))) {
+				if (line.startsWith("NAME")) {
+					out.println(line);
+				} else {
+					String[] nameCount = line.split(",");
+					out.println(nameCount[0] + ", " + Integer.parseInt(nameCount[1].strip()) * times);
+				}
+			}
+		}
+		return file.toString();
+	}
+
+	private static List<String> names(int players) {
+		List<String> names = new ArrayList<>();
+		for (int i = 1; i <= players; i++) {
+			names.add("Player " + i);
+		}
+		return names;
+	}
+
+	@Test
+	public void testStandardRules() {
+		GameRules rules = GameRules.STANDARD;
+		assertEquals(2, rules.getMinPlayers());
+		assertEquals(5, rules.getMaxPlayers());
+		assertEquals(3, rules.getCustomerSlots());
+		assertEquals(5, rules.getPantrySize());
+		assertEquals(4, rules.getLayerCopies());
+		assertEquals(3, rules.getHandSize());
+		assertEquals(3, rules.getActionsPermitted(2));
+		assertEquals(3, rules.getActionsPermitted(3));
+		assertEquals(2, rules.getActionsPermitted(4));
+		assertEquals(2, rules.getActionsPermitted(5));
+	}
+
+	@Test
+	public void testWithMethodsLeaveTheRulesUnchanged() {
+		GameRules rules = GameRules.STANDARD.withCustomerSlots(6).withPantrySize(9).withLayerCopies(2).withHandSize(0)
+			.withPlayers(3, 40).withActions(4, 1, 10);
+		assertEquals(6, rules.getCustomerSlots());
+		assertEquals(9, rules.getPantrySize());
+		assertEquals(2, rules.getLayerCopies());
+		assertEquals(0, rules.getHandSize());
+		assertEquals(3, rules.getMinPlayers());
+		assertEquals(40, rules.getMaxPlayers());
+		assertEquals(4, rules.getActionsPermitted(9));
+		assertEquals(1, rules.getActionsPermitted(10));
+		assertEquals(3, GameRules.STANDARD.getCustomerSlots());
+		assertNotSame(GameRules.STANDARD, GameRules.STANDARD.withPantrySize(5));
+	}
+
+	@Test
+	public void testImpossibleRulesAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> GameRules.STANDARD.withPlayers(1, 5));
+		assertThrows(IllegalArgumentException.class, () -> GameRules.STANDARD.withPlayers(6, 5));
+		assertThrows(IllegalArgumentException.class, () -> GameRules.STANDARD.withCustomerSlots(0));
+		assertThrows(IllegalArgumentException.class, () -> GameRules.STANDARD.withPantrySize(0));
+		assertThrows(IllegalArgumentException.class, () -> GameRules.STANDARD.withLayerCopies(0));
+		assertThrows(IllegalArgumentException.class, () -> GameRules.STANDARD.withHandSize(-1));
+		assertThrows(IllegalArgumentException.class, () -> GameRules.STANDARD.withActions(0, 2, 4));
+	}
+
+	@Test
+	public void testGameIsSetUpByItsRules() throws Exception {
+		GameRules rules = GameRules.STANDARD.withCustomerSlots(5).withPantrySize(7).withLayerCopies(2).withHandSize(4);
+		MagicBakery game = SelfPlay.newGame(1, 3, rules);
+		assertSame(rules, game.getRules());
+		assertEquals(7, game.getPantry().size());
+		assertEquals(5, game.getCustomers().getActiveCustomers().size());
+		for (Player player : game.getPlayers()) {
+			assertEquals(4, player.getHand().size());
+		}
+		for (Layer layer : game.getLayers()) {
+			assertEquals(2, game.getLayerCount(layer));
+		}
+		game.refreshPantry();
+		assertEquals(7, game.getPantry().size());
+		assertEquals(GameRules.STANDARD, SelfPlay.newGame(1, 3).getRules());
+	}
+
+	@Test
+	public void testPlayerLimitsComeFromTheRules() throws Exception {
+		MagicBakery standard = new MagicBakery(1, "io/ingredients.csv", "io/layers.csv");
+		assertThrows(IllegalArgumentException.class, () -> standard.startGame(names(6), "io/customers.csv"));
+		MagicBakery large = new MagicBakery(1, biggerDeck(10), "io/layers.csv", GameRules.LARGE_TABLE);
+		large.startGame(names(40), "io/customers.csv");
+		assertEquals(40, large.getPlayers().size());
+		assertEquals(2, large.getActionsPermitted());
+		assertEquals(GameRules.LARGE_TABLE.getCustomerSlots(), large.getCustomers().getActiveCustomers().size());
+		MagicBakery tooLarge = new MagicBakery(1, biggerDeck(10), "io/layers.csv", GameRules.LARGE_TABLE);
+		assertThrows(IllegalArgumentException.class, () -> tooLarge.startGame(names(65), "io/customers.csv"));
+	}
+
+	@Test
+	public void testWideRowClosesUpBeforeAnyoneLeaves() throws Exception {
+		MagicBakery game = new MagicBakery(1, "io/ingredients.csv", "io/layers.csv");
+		Customers customers = new Customers("io/customers.csv", new Random(1), game.getLayers(), 2, 5);
+		List<CustomerOrder> arrived = new ArrayList<>();
+		for (int round = 0; round < 5; round++) {
+			assertNull(customers.addCustomerOrder());
+			arrived.add(0, new ArrayList<>(customers.getActiveCustomers()).get(0));
+		}
+		assertEquals(arrived, new ArrayList<>(customers.getActiveCustomers()));
+		assertTrue(customers.customerWillLeaveSoon());
+		assertEquals(CustomerOrderStatus.IMPATIENT, arrived.get(4).getStatus());
+
+		// Serving a customer in the middle leaves a gap that the customers ahead of it move into
+		customers.remove(arrived.get(2));
+		assertNull(customers.addCustomerOrder());
+		List<CustomerOrder> row = new ArrayList<>(customers.getActiveCustomers());
+		assertEquals(Arrays.asList(arrived.get(0), arrived.get(1), arrived.get(3), arrived.get(4)), row.subList(1, 5));
+
+		// With the row full again the last customer leaves
+		CustomerOrder last = row.get(4);
+		assertSame(last, customers.addCustomerOrder());
+		assertEquals(CustomerOrderStatus.GIVEN_UP, last.getStatus());
+		assertEquals(5, customers.getActiveCustomers().size());
+	}
+
+	// Serves a customer or bakes a layer when it can, and otherwise draws or passes a card at random
+	private static void act(MagicBakery game, Random policy) {
+		for (CustomerOrder customer : game.getFulfilableCustomers()) {
+			game.fulfillOrder(customer, false);
+			return;
+		}
+		for (Layer layer : game.getBakeableLayers()) {
+			if (game.tryBakeLayer(layer) == MagicBakery.ActionResult.OK) {
+				return;
+			}
+		}
+		List<Ingredient> pantry = new ArrayList<>(game.getPantry());
+		List<Ingredient> hand = game.getCurrentPlayer().getHand();
+		if (hand.isEmpty() || policy.nextBoolean()) {
+			game.drawFromPantry(pantry.get(policy.nextInt(pantry.size())));
+		} else {
+			List<Player> players = new ArrayList<>(game.getPlayers());
+			players.remove(game.getCurrentPlayer());
+			game.passCard(hand.get(policy.nextInt(hand.size())), players.get(policy.nextInt(players.size())));
+		}
+	}
+
+	@Test
+	public void testLargeTablePlaysToTheEnd() throws Exception {
+		MagicBakery game = new MagicBakery(2, biggerDeck(20), "io/layers.csv", GameRules.LARGE_TABLE);
+		game.startGame(names(24), "io/customers.csv");
+		Random policy = new Random(2);
+		int customers = game.getCustomers().getCustomerDeck().size() + game.getCustomers().size();
+		for (int turn = 0; turn < SelfPlay.MAX_TURNS && !SelfPlay.isOver(game); turn++) {
+			while (game.getActionsRemaining() > 0) {
+				act(game, policy);
+			}
+			game.endTurn();
+			assertEquals(GameRules.LARGE_TABLE.getPantrySize(), game.getPantry().size());
+			assertEquals(GameRules.LARGE_TABLE.getCustomerSlots(), game.getCustomers().getActiveCustomers().size());
+		}
+		assertTrue(SelfPlay.isOver(game));
+		int left = 0;
+		for (CustomerOrderStatus status : CustomerOrderStatus.values()) {
+			left += game.getCustomers().getInactiveCustomersWithStatus(status).size();
+		}
+		assertEquals(customers, left);
+		SelfPlay selfPlay = new SelfPlay(SelfPlay.vocabulary(SelfPlay.newGame(1, 0)));
+		assertThrows(IllegalArgumentException.class, () -> selfPlay.legalMoves(game));
+	}
+
+	@Test
+	public void testSnapshotsShareHandsThatDidNotChange() throws Exception {
+		MagicBakery game = new MagicBakery(3, biggerDeck(10), "io/layers.csv", GameRules.LARGE_TABLE);
+		game.startGame(names(30), "io/customers.csv");
+		GameSnapshot before = game.getSnapshot();
+		Ingredient card = game.getPantry().iterator().next();
+		game.drawFromPantry(card);
+		GameSnapshot after = game.getSnapshot();
+		assertNotSame(before.getHand(0), after.getHand(0));
+		assertEquals(before.getHand(0).size() + 1, after.getHand(0).size());
+		for (int player = 1; player < 30; player++) {
+			assertSame(before.getHand(player), after.getHand(player));
+		}
+		List<Player> players = new ArrayList<>(game.getPlayers());
+		game.passCard(card, players.get(7));
+		assertSame(after.getHand(6), game.getSnapshot().getHand(6));
+		assertEquals(players.get(7).getHand(), game.getSnapshot().getHand(7));
+	}
+
+	@Test
+	public void testRulesAreSavedWithTheGame() throws Exception {
+		GameRules rules = GameRules.STANDARD.withCustomerSlots(4).withPantrySize(6);
+		MagicBakery game = SaveService.restore(SaveService.snapshot(SelfPlay.newGame(4, 2, rules)));
+		assertEquals(4, game.getRules().getCustomerSlots());
+		assertEquals(6, game.getRules().getPantrySize());
+		game.refreshPantry();
+		assertEquals(6, game.getPantry().size());
+	}
+
+	@Test
+	public void testGameStateFollowsTheRules() throws Exception {
+		GameRules rules = GameRules.STANDARD.withCustomerSlots(6).withPantrySize(4);
+		SelfPlay selfPlay = new SelfPlay(SelfPlay.vocabulary(SelfPlay.newGame(1, 0)));
+		GameState state = GameState.of(SelfPlay.newGame(5, 3, rules), selfPlay, 5);
+		assertEquals(6, state.getCustomerSlots());
+		int pantry = 0;
+		for (int count : state.getPantry()) {
+			pantry += count;
+		}
+		assertEquals(4, pantry);
+		MagicBakery large = new MagicBakery(5, biggerDeck(10), "io/layers.csv", GameRules.LARGE_TABLE);
+		large.startGame(names(9), "io/customers.csv");
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> GameState.of(large, selfPlay, 5));
+		assertTrue(e.getMessage().contains(SelfPlay.MAX_PLAYERS + " players, not 9"), e.getMessage());
+	}
+}
@@ -0,0 +1,174 @@
+package test.functional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import bakery.CustomerOrder;
+import bakery.CustomerOrder.CustomerOrderStatus;
+import bakery.GameSnapshot;
+import bakery.Ingredient;
+import bakery.MagicBakery;
+import bakery.Player;
+import bakery.TurnAction;
+import util.SaveService;
+import util.SelfPlay;
+
+@Tag("functional")
+@Tag("GameSnapshot")
+public class GameSnapshotTest {
+
+	private static void assertMatches(MagicBakery game, GameSnapshot snapshot) {
+		assertEquals(game.getStateVersion(), snapshot.getVersion());
+		List<Player> players = new ArrayList<>(game.getPlayers());
+		assertEquals(players.size(), snapshot.getPlayerNames().size());
+		for (int i = 0; i < players.size(); i++) {
+			assertEquals(players.get(i).toString(), snapshot.getPlayerNames().get(i));
+			assertEquals(players.get(i).getHand(), snapshot.getHand(i));
+		}
+		assertEquals(players.indexOf(game.getCurrentPlayer()), snapshot.getCurrentPlayerIndex());
+		assertEquals(game.getActionsRemaining(), snapshot.getActionsRemaining());
+		assertEquals(new ArrayList<>(game.getPantry()), snapshot.getPantry());
+		assertEquals(game.getPantryDeck().size(), snapshot.getPantryDeckSize());
+		assertEquals(new ArrayList<>(game.getLayers()), snapshot.getLayers());
+		List<CustomerOrder> customers = new ArrayList<>(game.getCustomers().getActiveCustomers());
+		assertEquals(customers, snapshot.getActiveCustomers());
+		for (int slot = 0; slot < customers.size(); slot++) {
+			assertEquals(customers.get(slot) == null ? null : customers.get(slot).getStatus(), snapshot.getCustomerStatus(slot));
+		}
+		assertEquals(game.getCustomers().getCustomerDeck().size(), snapshot.getCustomerDeckSize());
+		for (CustomerOrderStatus status : CustomerOrderStatus.values()) {
+			assertEquals(game.getCustomers().getInactiveCustomersWithStatus(status).size(), snapshot.getInactiveCount(status));
+		}
+	}
+
+	@Test
+	public void testSnapshotFollowsEveryAction() throws Exception {
+		MagicBakery game = SelfPlay.newGame(3, 3);
+		SelfPlay selfPlay = new SelfPlay(SelfPlay.vocabulary(SelfPlay.newGame(1, 0)));
+		Random policy = new Random(3);
+		assertMatches(game, game.getSnapshot());
+		for (int turn = 0; turn < 30 && !SelfPlay.isOver(game); turn++) {
+			while (game.getActionsRemaining() > 0 && !SelfPlay.isOver(game)) {
+				selfPlay.play(game, SelfPlay.choose(selfPlay.legalMoves(game), policy));
+				assertMatches(game, game.getSnapshot());
+			}
+			game.endTurn();
+			assertMatches(game, game.getSnapshot());
+		}
+	}
+
+	@Test
+	public void testSnapshotNeverChanges() throws Exception {
+		MagicBakery game = SelfPlay.newGame(4, 2);
+		GameSnapshot before = game.getSnapshot();
+		List<Ingredient> pantry = new ArrayList<>(before.getPantry());
+		List<Ingredient> hand = new ArrayList<>(before.getHand(0));
+		long version = before.getVersion();
+
+		game.drawFromPantry(game.getPantry().iterator().next());
+		game.refreshPantry();
+
+		assertNotSame(before, game.getSnapshot());
+		assertEquals(version, before.getVersion());
+		assertEquals(pantry, before.getPantry());
+		assertEquals(hand, before.getHand(0));
+		assertTrue(game.getSnapshot().getVersion() > version);
+		assertThrows(UnsupportedOperationException.class, () -> before.getPantry().clear());
+		assertThrows(UnsupportedOperationException.class, () -> before.getHand(0).add(Ingredient.HELPFUL_DUCK));
+		assertThrows(UnsupportedOperationException.class, () -> before.getActiveCustomers().clear());
+	}
+
+	@Test
+	public void testSnapshotBeforeGameStarts() throws Exception {
+		MagicBakery game = new MagicBakery(1, "./io/ingredients.csv", "./io/layers.csv");
+		GameSnapshot snapshot = game.getSnapshot();
+		assertNotNull(snapshot);
+		assertEquals(-1, snapshot.getCurrentPlayerIndex());
+		assertTrue(snapshot.getPlayerNames().isEmpty());
+		assertTrue(snapshot.getActiveCustomers().isEmpty());
+	}
+
+	@Test
+	public void testLoadedGameHasSnapshot() throws Exception {
+		MagicBakery game = SelfPlay.newGame(5, 4);
+		game.refreshPantry();
+		MagicBakery loaded = SaveService.restore(SaveService.snapshot(game));
+		assertMatches(loaded, loaded.getSnapshot());
+	}
+
+	@Test
+	public void testSubmittedTurnIsPublishedWhole() throws Exception {
+		MagicBakery game = SelfPlay.newGame(6, 2);
+		List<TurnAction> actions = new ArrayList<>();
+		actions.add(TurnAction.refreshPantry());
+		actions.add(TurnAction.refreshPantry());
+		game.submitTurn(actions, false);
+		assertMatches(game, game.getSnapshot());
+		assertEquals(game.getActionsPermitted() - 2, game.getSnapshot().getActionsRemaining());
+	}
+
+	@Test
+	public void testReadersSeeConsistentSnapshotsWhileGameIsPlayed() throws Exception {
+		MagicBakery game = SelfPlay.newGame(7, 3);
+		SelfPlay selfPlay = new SelfPlay(SelfPlay.vocabulary(SelfPlay.newGame(1, 0)));
+		AtomicBoolean playing = new AtomicBoolean(true);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		List<Thread> readers = new ArrayList<>();
+		for (int r = 0; r < 3; r++) {
+			Thread reader = new Thread(() -> {
+				try {
+					long last = -1;
+					while (playing.get()) {
+						GameSnapshot snapshot = game.getSnapshot();
+						assertTrue(snapshot.getVersion() >= last);
+						last = snapshot.getVersion();
+						assertEquals(5, snapshot.getPantry().size());
+						assertEquals(3, snapshot.getPlayerNames().size());
+						for (int slot = 0; slot < snapshot.getActiveCustomers().size(); slot++) {
+							assertEquals(snapshot.getActiveCustomers().get(slot) == null, snapshot.getCustomerStatus(slot) == null);
+						}
+						for (int p = 0; p < 3; p++) {
+							for (Ingredient card : snapshot.getHand(p)) {
+								assertNotNull(card);
+							}
+						}
+					}
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			});
+			reader.start();
+			readers.add(reader);
+		}
+		Random policy = new Random(7);
+		try {
+			for (int turn = 0; turn < 60 && !SelfPlay.isOver(game); turn++) {
+				while (game.getActionsRemaining() > 0 && !SelfPlay.isOver(game)) {
+					selfPlay.play(game, SelfPlay.choose(selfPlay.legalMoves(game), policy));
+				}
+				game.endTurn();
+			}
+		} finally {
+			playing.set(false);
+			for (Thread reader : readers) {
+				reader.join();
+			}
+		}
+		if (failure.get() != null) {
+			throw new AssertionError(failure.get());
+		}
+		assertMatches(game, game.getSnapshot());
+	}
+}
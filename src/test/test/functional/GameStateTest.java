@@ -0,0 +1,308 @@
+package test.functional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import bakery.CustomerOrder;
+import bakery.GameRules;
+import bakery.Ingredient;
+import bakery.IngredientCounts.Zone;
+import bakery.Layer;
+import bakery.MagicBakery;
+import bakery.MagicBakery.ActionType;
+import bakery.Player;
+import util.GameState;
+import util.SaveService;
+import util.SelfPlay;
+
+@Tag("functional")
+@Tag("GameState")
+public class GameStateTest {
+
+	private static final short REFRESH = (short) (ActionType.REFRESH_PANTRY.ordinal() << 10);
+
+	private static SelfPlay selfPlay() throws Exception {
+		return new SelfPlay(SelfPlay.vocabulary(SelfPlay.newGame(1, 0)));
+	}
+
+	// The state of a game whose pantry deck has been turned over, dealt in the game's own order
+	private static GameState stateOf(MagicBakery game, SelfPlay selfPlay) {
+		List<String> topFirst = new ArrayList<>();
+		for (Ingredient card : game.getPantryDeck()) {
+			topFirst.add(card.toString());
+		}
+		Collections.reverse(topFirst);
+		return GameState.of(game, selfPlay, 1).withPantryDeck(topFirst);
+	}
+
+	private static int[] counts(SelfPlay selfPlay, Iterable<? extends Ingredient> cards) {
+		int[] counts = new int[selfPlay.getVocabulary().size()];
+		for (Ingredient card : cards) {
+			counts[selfPlay.code(card)]++;
+		}
+		return counts;
+	}
+
+	private static void assertMatches(MagicBakery game, SelfPlay selfPlay, GameState state) {
+		List<Player> players = new ArrayList<>(game.getPlayers());
+		for (int p = 0; p < players.size(); p++) {
+			assertArrayEquals(counts(selfPlay, players.get(p).getHand()), state.getHand(p), "hand " + p);
+		}
+		assertEquals(SelfPlay.playerIndex(game), state.getCurrentPlayer());
+		assertEquals(game.getActionsRemaining(), state.getActionsRemaining());
+		assertArrayEquals(counts(selfPlay, game.getPantry()), state.getPantry());
+		assertEquals(game.getPantryDeck().size(), state.getPantryDeckSize());
+		assertEquals(game.getIngredientCounts().getTotal(Zone.DISCARD), state.getDiscardSize());
+		for (Layer layer : game.getLayers()) {
+			assertEquals(game.getLayerCount(layer), state.getLayerCount(selfPlay.code(layer)), layer.toString());
+		}
+		List<CustomerOrder> slots = new ArrayList<>(game.getCustomers().getActiveCustomers());
+		for (int slot = 0; slot < slots.size(); slot++) {
+			CustomerOrder customer = slots.get(slot);
+			assertEquals(customer == null ? null : customer.toString(), state.getCustomer(slot), "slot " + slot);
+			assertEquals(customer == null ? null : customer.getStatus(), state.getCustomerStatus(slot), "status " + slot);
+		}
+		assertEquals(game.getCustomers().getCustomerDeck().size(), state.getCustomerDeckSize());
+		assertEquals(SelfPlay.isOver(game), state.isOver());
+	}
+
+	private static Set<Short> set(short[] moves) {
+		Set<Short> set = new HashSet<>();
+		for (short move : moves) {
+			set.add(move);
+		}
+		return set;
+	}
+
+	// Plays random moves in the game and the state side by side until the game reshuffles its discard pile, which the
+	// state does in its own order
+	private static void follow(MagicBakery game, SelfPlay selfPlay, long seed) {
+		GameState state = stateOf(game, selfPlay);
+		assertMatches(game, selfPlay, state);
+		Random policy = new Random(seed);
+		int restores = game.getPantryRestoreCount();
+		int served = 0;
+		for (int turn = 0; turn < 200 && !state.isOver() && game.getPantryRestoreCount() == restores; turn++) {
+			while (game.getActionsRemaining() > 0 && game.getPantryRestoreCount() == restores) {
+				short[] legal = state.legalMoves();
+				if (game.getPantryDeck().size() >= game.getRules().getPantrySize()) {
+					assertEquals(set(selfPlay.legalMoves(game)), set(legal));
+				}
+				// Refreshing shuffles the discard pile back in, which the state deals from its own seed
+				short move = SelfPlay.choose(withoutRefresh(legal), policy);
+				if (selfPlay.play(game, move)) {
+					served++;
+				}
+				state = state.apply(move);
+				if (game.getPantryRestoreCount() == restores) {
+					assertMatches(game, selfPlay, state);
+				}
+			}
+			if (game.getPantryRestoreCount() != restores) {
+				break;
+			}
+			game.endTurn();
+			state = state.endTurn();
+			assertMatches(game, selfPlay, state);
+		}
+		assertEquals(served, state.getServed());
+	}
+
+	@Test
+	public void testStateFollowsTheGame() throws Exception {
+		SelfPlay selfPlay = selfPlay();
+		for (long seed = 1; seed <= 6; seed++) {
+			for (int players = 2; players <= 5; players++) {
+				follow(SaveService.restore(SaveService.snapshot(SelfPlay.newGame(seed, players))), selfPlay, seed);
+			}
+		}
+	}
+
+	@Test
+	public void testStateFollowsAGameWithOtherRules() throws Exception {
+		SelfPlay selfPlay = selfPlay();
+		GameRules rules = GameRules.STANDARD.withCustomerSlots(5).withPantrySize(4).withLayerCopies(2);
+		for (long seed = 1; seed <= 6; seed++) {
+			follow(SaveService.restore(SaveService.snapshot(SelfPlay.newGame(seed, 2 + (int) (seed % 3), rules))), selfPlay, seed);
+		}
+	}
+
+	private static short[] withoutRefresh(short[] moves) {
+		short[] kept = new short[moves.length];
+		int count = 0;
+		for (short move : moves) {
+			if (move != REFRESH) {
+				kept[count++] = move;
+			}
+		}
+		return Arrays.copyOf(kept, count);
+	}
+
+	// Plays random moves to the end of the game, or as far as a turn limit
+	private static GameState playOut(GameState state, long seed) {
+		Random policy = new Random(seed);
+		for (int turn = 0; turn < SelfPlay.MAX_TURNS && !state.isOver(); turn++) {
+			short[] legal = state.legalMoves();
+			while (legal.length > 0) {
+				state = state.apply(SelfPlay.choose(legal, policy));
+				legal = state.legalMoves();
+			}
+			state = state.endTurn();
+		}
+		return state;
+	}
+
+	private static String describe(GameState state) {
+		StringBuilder description = new StringBuilder(state.toString());
+		for (int p = 0; p < state.getPlayerCount(); p++) {
+			description.append(Arrays.toString(state.getHand(p)));
+		}
+		description.append(Arrays.toString(state.getPantry())).append(state.getPantryDeckSize()).append(' ')
+			.append(state.getDiscardSize()).append(' ').append(state.getCustomerDeckSize()).append(' ')
+			.append(state.getWalkedOut()).append(' ').append(state.getGarnished());
+		return description.toString();
+	}
+
+	@Test
+	public void testMovesLeaveTheStateUnchanged() throws Exception {
+		GameState state = GameState.of(SelfPlay.newGame(2, 3), selfPlay(), 2);
+		String before = describe(state);
+		short[] legal = state.legalMoves();
+		assertTrue(legal.length > 0);
+		for (short move : legal) {
+			GameState next = state.apply(move);
+			assertNotSame(state, next);
+			assertEquals(describe(next), describe(state.apply(move)));
+			assertEquals(state.getActionsRemaining() - 1, next.getActionsRemaining());
+			next.endTurn();
+		}
+		state.endTurn();
+		assertEquals(before, describe(state));
+		assertArrayEquals(legal, state.legalMoves());
+	}
+
+	@Test
+	public void testGettersReturnCopies() throws Exception {
+		GameState state = GameState.of(SelfPlay.newGame(3, 2), selfPlay(), 3);
+		int[] hand = state.getHand(0);
+		int[] pantry = state.getPantry();
+		String before = describe(state);
+		Arrays.fill(hand, 9);
+		Arrays.fill(pantry, 9);
+		assertEquals(before, describe(state));
+	}
+
+	@Test
+	public void testIllegalMovesAreRejected() throws Exception {
+		GameState state = GameState.of(SelfPlay.newGame(4, 2), selfPlay(), 4);
+		Set<Short> legal = set(state.legalMoves());
+		for (int move = 0; move < Short.MAX_VALUE; move += 7) {
+			if (!legal.contains((short) move)) {
+				short illegal = (short) move;
+				assertThrows(IllegalArgumentException.class, () -> state.apply(illegal));
+			}
+		}
+		GameState spent = state;
+		while (spent.getActionsRemaining() > 0) {
+			spent = spent.apply(REFRESH);
+		}
+		assertEquals(0, spent.legalMoves().length);
+		GameState last = spent;
+		assertThrows(IllegalArgumentException.class, () -> last.apply(REFRESH));
+	}
+
+	@Test
+	public void testPantryDeckMustHoldTheSameCards() throws Exception {
+		MagicBakery game = SaveService.restore(SaveService.snapshot(SelfPlay.newGame(5, 2)));
+		GameState state = stateOf(game, selfPlay());
+		List<String> cards = new ArrayList<>();
+		for (Ingredient card : game.getPantryDeck()) {
+			cards.add(card.toString());
+		}
+		Collections.shuffle(cards, new Random(5));
+		assertEquals(cards.size(), state.withPantryDeck(cards).getPantryDeckSize());
+		cards.remove(0);
+		assertThrows(IllegalArgumentException.class, () -> state.withPantryDeck(cards));
+		cards.add(Ingredient.HELPFUL_DUCK.toString());
+		cards.add(Ingredient.HELPFUL_DUCK.toString());
+		assertThrows(IllegalArgumentException.class, () -> state.withPantryDeck(cards));
+	}
+
+	@Test
+	public void testEveryCustomerIsAccountedFor() throws Exception {
+		for (long seed = 1; seed <= 10; seed++) {
+			GameState start = GameState.of(SelfPlay.newGame(seed, 2 + (int) (seed % 4)), selfPlay(), seed);
+			int customers = start.getCustomerDeckSize();
+			for (int slot = 0; slot < start.getCustomerSlots(); slot++) {
+				customers += start.getCustomer(slot) == null ? 0 : 1;
+			}
+			GameState end = playOut(start, seed);
+			int waiting = 0;
+			for (int slot = 0; slot < end.getCustomerSlots(); slot++) {
+				waiting += end.getCustomer(slot) == null ? 0 : 1;
+				assertEquals(end.getCustomer(slot) == null, end.getCustomerStatus(slot) == null);
+			}
+			assertEquals(customers, end.getServed() + end.getWalkedOut() + end.getCustomerDeckSize() + waiting);
+			assertTrue(end.getGarnished() <= end.getServed());
+			assertFalse(start.getServed() + start.getWalkedOut() > 0);
+		}
+	}
+
+	@Test
+	public void testSameSeedPlaysOutTheSame() throws Exception {
+		MagicBakery game = SelfPlay.newGame(6, 3);
+		SelfPlay selfPlay = selfPlay();
+		assertEquals(describe(playOut(GameState.of(game, selfPlay, 6), 1)), describe(playOut(GameState.of(game, selfPlay, 6), 1)));
+	}
+
+	@Test
+	public void testThreadsShareOneState() throws Exception {
+		GameState root = GameState.of(SelfPlay.newGame(7, 4), selfPlay(), 7);
+		String before = describe(root);
+		List<String> expected = new ArrayList<>();
+		for (long seed = 0; seed < 32; seed++) {
+			expected.add(describe(playOut(root, seed)));
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (long seed = 0; seed < 32; seed++) {
+				long policy = seed;
+				results.add(pool.submit(() -> describe(playOut(root, policy))));
+			}
+			for (int i = 0; i < results.size(); i++) {
+				assertEquals(expected.get(i), results.get(i).get());
+			}
+		} finally {
+			pool.shutdown();
+		}
+		assertEquals(before, describe(root));
+	}
+
+	@Test
+	public void testEndingATurnPassesToTheNextPlayer() throws Exception {
+		GameState state = GameState.of(SelfPlay.newGame(8, 3), selfPlay(), 8);
+		GameState next = state.apply(state.legalMoves()[0]).endTurn();
+		assertEquals(1, next.getCurrentPlayer());
+		assertEquals(state.getActionsRemaining(), next.getActionsRemaining());
+		assertEquals(0, next.endTurn().endTurn().getCurrentPlayer());
+	}
+}
@@ -0,0 +1,133 @@
+package test.functional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import bakery.CustomerOrder;
+import bakery.Ingredient;
+import bakery.Layer;
+import bakery.MagicBakery;
+import bakery.MagicBakery.ActionType;
+import util.HeuristicBot;
+import util.SelfPlay;
+
+@Tag("functional")
+@Tag("HeuristicBot")
+public class HeuristicBotTest {
+
+	private final SelfPlay selfPlay;
+	private final List<Layer> layers;
+
+	public HeuristicBotTest() throws FileNotFoundException {
+		MagicBakery game = SelfPlay.newGame(1, 0);
+		selfPlay = new SelfPlay(SelfPlay.vocabulary(game));
+		layers = new ArrayList<>(game.getLayers());
+	}
+
+	private Layer layer(String name) {
+		for (Layer layer : layers) {
+			if (layer.toString().equals(name)) {
+				return layer;
+			}
+		}
+		throw new IllegalArgumentException(name);
+	}
+
+	// Plays whole games, returning the number of customers served
+	private int play(int players, long seed, boolean heuristic) throws FileNotFoundException {
+		MagicBakery game = SelfPlay.newGame(seed, players);
+		HeuristicBot bot = new HeuristicBot(selfPlay, layers);
+		Random policy = new Random(seed);
+		int served = 0;
+		for (int turn = 0; turn < SelfPlay.MAX_TURNS && !SelfPlay.isOver(game); turn++) {
+			while (game.getActionsRemaining() > 0) {
+				short move;
+				if (heuristic) {
+					move = bot.choose(game);
+					boolean legal = false;
+					for (short candidate : selfPlay.legalMoves(game)) {
+						legal |= candidate == move;
+					}
+					assertTrue(legal, "Illegal move " + move + " with " + players + " players, seed " + seed);
+				} else {
+					move = SelfPlay.choose(selfPlay.legalMoves(game), policy);
+				}
+				if (selfPlay.play(game, move)) {
+					served++;
+				}
+			}
+			game.endTurn();
+		}
+		return served;
+	}
+
+	@Test
+	public void testDistance() {
+		HeuristicBot bot = new HeuristicBot(selfPlay, layers);
+		Ingredient butter = new Ingredient("butter");
+		Ingredient eggs = new Ingredient("eggs");
+		Ingredient flour = new Ingredient("flour");
+		Ingredient sugar = new Ingredient("sugar");
+		CustomerOrder crumpets = new CustomerOrder("crumpets", List.of(butter, eggs, flour), List.of(layer("jam")), 1);
+		assertEquals(0, bot.distance(crumpets, List.of(butter, eggs, flour)));
+		assertEquals(1, bot.distance(crumpets, List.of(butter, eggs)));
+		assertEquals(0, bot.distance(crumpets, List.of(butter, eggs, Ingredient.HELPFUL_DUCK)));
+		assertEquals(3, bot.distance(crumpets, List.of()));
+
+		CustomerOrder cake = new CustomerOrder("cake", List.of(layer("sponge"), sugar), List.of(), 1);
+		assertEquals(0, bot.distance(cake, List.of(layer("sponge"), sugar)));
+		assertEquals(2, bot.distance(cake, List.of(butter, eggs, sugar, sugar)));
+		assertEquals(5, bot.distance(cake, List.of(Ingredient.HELPFUL_DUCK)));
+	}
+
+	@Test
+	public void testFulfilsWhenItCan() throws FileNotFoundException {
+		HeuristicBot bot = new HeuristicBot(selfPlay, layers);
+		MagicBakery game = SelfPlay.newGame(3, 2);
+		CustomerOrder customer = null;
+		int slot = 0;
+		for (CustomerOrder active : game.getCustomers().getActiveCustomers()) {
+			if (active != null) {
+				customer = active;
+				break;
+			}
+			slot++;
+		}
+		game.getCurrentPlayer().addToHand(new ArrayList<>(customer.getRecipe()));
+		short move = bot.choose(game);
+		assertEquals(ActionType.FULFIL_ORDER.ordinal(), move >> 10);
+		assertEquals(slot, (move & 0x3ff) >> 1);
+	}
+
+	@Test
+	public void testRejectsTurnWithoutActions() throws FileNotFoundException {
+		HeuristicBot bot = new HeuristicBot(selfPlay, layers);
+		MagicBakery game = SelfPlay.newGame(1, 2);
+		while (game.getActionsRemaining() > 0) {
+			selfPlay.play(game, bot.choose(game));
+		}
+		assertThrows(IllegalStateException.class, () -> bot.choose(game));
+	}
+
+	@Test
+	public void testPlaysLegallyAndBeatsSelfPlay() throws FileNotFoundException {
+		for (int players = 2; players <= 5; players++) {
+			int heuristic = 0;
+			int random = 0;
+			for (long seed = 1; seed <= 5; seed++) {
+				heuristic += play(players, seed, true);
+				random += play(players, seed, false);
+			}
+			assertTrue(heuristic > random, players + " players: " + heuristic + " against " + random);
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package test.functional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import bakery.CustomerOrder;
+import bakery.GameRules;
+import bakery.Ingredient;
+import bakery.MagicBakery;
+import bakery.MagicBakery.ActionType;
+import util.HintService;
+import util.HintService.Suggestion;
+import util.SaveService;
+import util.SelfPlay;
+
+@Tag("functional")
+@Tag("HintService")
+public class HintServiceTest {
+
+	private final HintService service = new HintService();
+
+	@AfterEach
+	public void tearDown() {
+		service.shutdown();
+	}
+
+	private static boolean isLegal(MagicBakery game, short move) throws IOException {
+		for (short legal : new SelfPlay(SelfPlay.vocabulary(SelfPlay.newGame(1, 0))).legalMoves(game)) {
+			if (legal == move) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Test
+	public void testSuggestsLegalMoveWithoutChangingTheGame() throws Exception {
+		MagicBakery game = SelfPlay.newGame(5, 3);
+		long version = game.getStateVersion();
+		byte[] before = SaveService.snapshot(game);
+		List<Suggestion> received = new CopyOnWriteArrayList<>();
+
+		HintService.Hint hint = service.suggest(game, 300, Runnable::run, received::add);
+		Suggestion last = hint.getResult().get(10, TimeUnit.SECONDS);
+		assertEquals(version, game.getStateVersion());
+		assertTrue(java.util.Arrays.equals(before, SaveService.snapshot(game)));
+
+		assertNotNull(last);
+		assertTrue(last.isFinished());
+		assertTrue(last.getPlayouts() > 0);
+		assertTrue(isLegal(game, last.getMove()));
+		assertFalse(last.getDescription().isEmpty());
+		assertTrue(received.size() >= 2);
+		assertEquals(0, received.get(0).getPlayouts());
+		assertTrue(received.get(received.size() - 1).isFinished());
+		for (Suggestion suggestion : received) {
+			assertTrue(isLegal(game, suggestion.getMove()));
+		}
+	}
+
+	@Test
+	public void testFirstSuggestionIsImmediate() throws Exception {
+		MagicBakery game = SelfPlay.newGame(3, 2);
+		CustomerOrder customer = null;
+		for (CustomerOrder active : game.getCustomers().getActiveCustomers()) {
+			if (active != null) {
+				customer = active;
+			}
+		}
+		game.getCurrentPlayer().addToHand(new ArrayList<Ingredient>(customer.getRecipe()));
+		List<Suggestion> received = new CopyOnWriteArrayList<>();
+		Suggestion last = service.suggest(game, 200, Runnable::run, received::add).getResult().get(10, TimeUnit.SECONDS);
+
+		// The first suggestion comes from the heuristic bot before any playouts, and it always fulfils when it can
+		Suggestion first = received.get(0);
+		assertEquals(0, first.getPlayouts());
+		assertEquals(ActionType.FULFIL_ORDER.ordinal(), first.getMove() >> 10);
+		assertTrue(first.getDescription().startsWith("Fulfil " + customer));
+		assertTrue(isLegal(game, last.getMove()));
+	}
+
+	@Test
+	public void testCancelsWhenTheGameChanges() throws Exception {
+		MagicBakery game = SelfPlay.newGame(5, 2);
+		List<Suggestion> received = new CopyOnWriteArrayList<>();
+		HintService.Hint hint = service.suggest(game, 60_000, Runnable::run, received::add);
+		assertTrue(hint.isCurrent());
+		game.refreshPantry();
+		assertFalse(hint.isCurrent());
+		assertThrows(CancellationException.class, () -> hint.getResult().get(10, TimeUnit.SECONDS));
+
+		// The worker notices and stops, so the next hint runs straight away
+		Suggestion next = service.suggest(game, 100, Runnable::run, suggestion -> { }).getResult().get(10, TimeUnit.SECONDS);
+		assertTrue(next.isFinished());
+		for (Suggestion suggestion : received) {
+			assertFalse(suggestion.isFinished());
+		}
+	}
+
+	@Test
+	public void testNewHintCancelsTheOldOne() throws Exception {
+		MagicBakery game = SelfPlay.newGame(5, 4);
+		HintService.Hint first = service.suggest(game, 60_000, Runnable::run, suggestion -> { });
+		HintService.Hint second = service.suggest(game, 100, Runnable::run, suggestion -> { });
+		assertTrue(first.getResult().isCancelled());
+		assertFalse(first.isCurrent());
+		assertTrue(second.getResult().get(10, TimeUnit.SECONDS).isFinished());
+	}
+
+	@Test
+	public void testNoSuggestionWithoutActions() throws Exception {
+		MagicBakery game = SelfPlay.newGame(5, 2);
+		while (game.getActionsRemaining() > 0) {
+			game.refreshPantry();
+		}
+		assertEquals(null, service.suggest(game, 100, Runnable::run, suggestion -> { }).getResult().get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testGameTooLargeForMoveCodesIsRefusedUpFront() throws Exception {
+		HintService.Hint first = service.suggest(SelfPlay.newGame(5, 4), 60_000, Runnable::run, suggestion -> { });
+		MagicBakery large = SelfPlay.newGame(5, SelfPlay.MAX_PLAYERS + 1, GameRules.LARGE_TABLE);
+		assertThrows(IllegalArgumentException.class, () -> service.suggest(large, 100, Runnable::run, suggestion -> { }));
+		assertTrue(first.isCurrent());
+		first.cancel();
+	}
+}
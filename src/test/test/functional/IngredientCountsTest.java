@@ -0,0 +1,171 @@
+package test.functional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import bakery.CustomerOrder;
+import bakery.GameRules;
+import bakery.Ingredient;
+import bakery.IngredientCounts;
+import bakery.IngredientCounts.Zone;
+import bakery.Layer;
+import bakery.MagicBakery;
+import bakery.Player;
+import util.SelfPlay;
+
+@Tag("functional")
+@Tag("IngredientCounts")
+public class IngredientCountsTest {
+
+	@TempDir
+	Path tempDir;
+
+	private static void assertCounts(IngredientCounts counts, Zone zone, Collection<? extends Ingredient> pile) {
+		Map<Ingredient, Integer> expected = new HashMap<>();
+		for (Ingredient card : pile) {
+			expected.merge(card, 1, Integer::sum);
+		}
+		assertEquals(pile.size(), counts.getTotal(zone), zone.toString());
+		for (Map.Entry<Ingredient, Integer> entry : expected.entrySet()) {
+			assertEquals(entry.getValue(), counts.getCount(zone, entry.getKey()), zone + " " + entry.getKey());
+		}
+	}
+
+	private static void assertMatchesGame(MagicBakery game) {
+		IngredientCounts counts = game.getIngredientCounts();
+		assertCounts(counts, Zone.DECK, game.getPantryDeck());
+		assertCounts(counts, Zone.PANTRY, game.getPantry());
+		List<Ingredient> hands = new ArrayList<>();
+		for (Player player : game.getPlayers()) {
+			hands.addAll(player.getHand());
+		}
+		assertCounts(counts, Zone.HANDS, hands);
+	}
+
+	private static double binomial(int n, int k) {
+		double result = 1;
+		for (int i = 1; i <= k; i++) {
+			result = result * (n - k + i) / i;
+		}
+		return result;
+	}
+
+	private static Layer layer(MagicBakery game, String name) {
+		for (Layer layer : game.getLayers()) {
+			if (layer.toString().equals(name)) {
+				return layer;
+			}
+		}
+		throw new IllegalArgumentException(name);
+	}
+
+	@Test
+	public void testCountsFollowEveryMove() throws IOException {
+		SelfPlay selfPlay = new SelfPlay(SelfPlay.vocabulary(SelfPlay.newGame(1, 0)));
+		for (int players = 2; players <= 5; players++) {
+			for (long seed = 1; seed <= 3; seed++) {
+				MagicBakery game = SelfPlay.newGame(seed, players);
+				assertMatchesGame(game);
+				Random policy = new Random(seed);
+				for (int turn = 0; turn < 60 && !SelfPlay.isOver(game); turn++) {
+					while (game.getActionsRemaining() > 0) {
+						selfPlay.play(game, SelfPlay.choose(selfPlay.legalMoves(game), policy));
+						assertMatchesGame(game);
+					}
+					game.endTurn();
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testCountsAreSaved() throws IOException, ClassNotFoundException {
+		MagicBakery game = SelfPlay.newGame(4, 3);
+		game.refreshPantry();
+		File file = tempDir.resolve("game.bin").toFile();
+		game.saveState(file);
+		MagicBakery loaded = MagicBakery.loadState(file);
+		assertMatchesGame(loaded);
+		assertEquals(game.getIngredientCounts().getTotal(Zone.DISCARD), loaded.getIngredientCounts().getTotal(Zone.DISCARD));
+	}
+
+	@Test
+	public void testCountsAreTakenForGamesSavedWithStackPiles() throws IOException, ClassNotFoundException {
+		MagicBakery loaded = MagicBakery.loadState(new File("./src/test/test/functional/saves/stack-piles.ser"));
+		assertMatchesGame(loaded);
+		loaded.refreshPantry();
+		assertMatchesGame(loaded);
+	}
+
+	@Test
+	public void testChanceToDrawIsHypergeometric() throws IOException {
+		MagicBakery game = SelfPlay.newGame(2, 2);
+		IngredientCounts counts = game.getIngredientCounts();
+		int deck = counts.getTotal(Zone.DECK);
+		Ingredient eggs = new Ingredient("eggs");
+		int copies = counts.getCount(Zone.DECK, eggs);
+		assertTrue(copies > 0);
+		for (int draws = 0; draws <= 6; draws++) {
+			double expected = 1 - binomial(deck - copies, draws) / binomial(deck, draws);
+			assertEquals(expected, counts.chanceToDraw(eggs, draws), 1e-9);
+		}
+		assertEquals(1, counts.chanceToDraw(eggs, deck), 1e-9);
+		assertEquals(0, counts.chanceToDraw(new Ingredient("not a card"), 3), 1e-9);
+	}
+
+	@Test
+	public void testChanceToComplete() throws IOException {
+		MagicBakery game = SelfPlay.newGame(2, 2);
+		IngredientCounts counts = game.getIngredientCounts();
+		int deck = counts.getTotal(Zone.DECK);
+		Ingredient butter = new Ingredient("butter");
+		Ingredient sugar = new Ingredient("sugar");
+		Layer icing = layer(game, "icing");
+
+		assertEquals(1, counts.chanceToComplete(icing, List.of(butter, sugar), 0), 1e-9);
+		assertEquals(1, counts.chanceToComplete(icing, List.of(butter, Ingredient.HELPFUL_DUCK), 0), 1e-9);
+		assertEquals(0, counts.chanceToComplete(icing, List.of(butter), 0), 1e-9);
+
+		// With one draw, either a sugar or a duck will do
+		double oneDraw = (counts.getCount(Zone.DECK, sugar) + counts.getCount(Zone.DECK, Ingredient.HELPFUL_DUCK)) / (double) deck;
+		assertEquals(oneDraw, counts.chanceToComplete(icing, List.of(butter), 1), 1e-9);
+		assertTrue(counts.chanceToComplete(icing, List.of(butter), 3) > oneDraw);
+		assertTrue(counts.chanceToComplete(icing, List.of(), 3) < counts.chanceToComplete(icing, List.of(butter), 3));
+
+		CustomerOrder needsLayer = new CustomerOrder("cake", List.of(icing, sugar), List.of(), 1);
+		assertEquals(0, counts.chanceToComplete(needsLayer, List.of(sugar), 10), 1e-9);
+		assertEquals(1, counts.chanceToComplete(needsLayer, List.of(icing, sugar), 0), 1e-9);
+		double needsSugar = counts.chanceToComplete(needsLayer, List.of(icing), 2);
+		assertTrue(needsSugar > 0 && needsSugar < 1);
+	}
+
+	@Test
+	public void testChanceInRefreshedPantry() throws IOException {
+		MagicBakery game = SelfPlay.newGame(2, 2);
+		IngredientCounts counts = game.getIngredientCounts();
+		Ingredient eggs = new Ingredient("eggs");
+		// Nothing has been discarded yet, so a refresh deals from the deck alone
+		assertEquals(0, counts.getTotal(Zone.DISCARD));
+		assertEquals(counts.chanceToDraw(eggs, 5), counts.chanceInRefreshedPantry(eggs), 1e-9);
+
+		// A bigger pantry deals more cards on a refresh
+		MagicBakery wide = SelfPlay.newGame(2, 2, GameRules.STANDARD.withPantrySize(8));
+		IngredientCounts wideCounts = wide.getIngredientCounts();
+		assertEquals(wideCounts.chanceToDraw(eggs, 8), wideCounts.chanceInRefreshedPantry(eggs), 1e-9);
+		assertTrue(wideCounts.chanceInRefreshedPantry(eggs) > wideCounts.chanceToDraw(eggs, 5));
+	}
+}
@@ -3,8 +3,15 @@ package test.functional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.jupiter.api.Tag;
@@ -13,6 +20,7 @@ import org.junit.jupiter.api.BeforeAll;
 
 import bakery.Layer;
 import bakery.Ingredient;
+import bakery.WrongIngredientsException;
 
 @Tag("functional")
 @Tag("Layer")
@@ -187,4 +195,48 @@ public class LayerTest {
 		Layer layer = new Layer("some recipe", recipe);
 		assertFalse(layer.canBake(pantryWithTwoDucks));
 	}
+
+	@Test
+	public void testRecipeCannotBeChanged() {
+		ArrayList<Ingredient> recipe = new ArrayList<Ingredient>(recipe_multi);
+		Layer layer = new Layer("some recipe", recipe);
+		recipe.add(new Ingredient("butter"));
+		assertEquals(recipe_multi, layer.getRecipe());
+		assertThrows(UnsupportedOperationException.class, () -> layer.getRecipe().add(new Ingredient("butter")));
+		assertThrows(UnsupportedOperationException.class, () -> layer.getRecipe().sort(null));
+	}
+
+	@Test
+	public void testHashCodeLeavesTheRecipeInOrder() {
+		Layer layer = new Layer("some recipe", Arrays.asList(new Ingredient("sugar"), new Ingredient("butter")));
+		layer.hashCode();
+		assertEquals("sugar, butter", layer.getRecipeDescription());
+	}
+
+	@Test
+	public void testCopiesShareAnUnmodifiableRecipe() {
+		Layer first = new Layer("sponge", recipe_multi);
+		Layer second = new Layer("sponge", first.getRecipe());
+		assertSame(first.getRecipe(), second.getRecipe());
+	}
+
+	@Test
+	public void testHashCodeIsKeptAfterLoading() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(layer_multi);
+		}
+		Layer loaded;
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			loaded = (Layer) in.readObject();
+		}
+		assertEquals(layer_multi.hashCode(), loaded.hashCode());
+		assertEquals(layer_multi.getRecipe(), loaded.getRecipe());
+		assertThrows(UnsupportedOperationException.class, () -> loaded.getRecipe().clear());
+	}
+
+	@Test
+	public void testRecipeCannotHoldNull() {
+		assertThrows(WrongIngredientsException.class, () -> new Layer("some recipe", Arrays.asList(new Ingredient("butter"), null)));
+	}
 }
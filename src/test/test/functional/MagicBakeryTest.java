@@ -1,9 +1,13 @@
 package test.functional;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
@@ -31,10 +35,12 @@ import org.junit.jupiter.api.BeforeAll;
 import bakery.CustomerOrder;
 import bakery.Customers;
 import bakery.Ingredient;
+import bakery.IngredientCounts;
 import bakery.Layer;
 import bakery.MagicBakery;
 import bakery.Player;
 import bakery.CustomerOrder.CustomerOrderStatus;
+import util.SaveService;
 
 @Tag("functional")
 @Tag("MagicBakery")
@@ -418,6 +424,22 @@ public class MagicBakeryTest {
 		assertEquals("eggs", pantryDeck2.get(37).toString());
 	}
 
+	@Test
+	public void testRefreshPantry__SeededDealIsRepeatable() throws IOException {
+		// The deal for a seed is pinned, so any change to how the pantry deck is shuffled shows up here
+		for (int run = 0; run < 2; run++) {
+			MagicBakery bakery = new MagicBakery(1, "./io/ingredients.csv", "./io/layers.csv");
+			bakery.startGame(playerNames, "./io/customers.csv");
+			bakery.refreshPantry();
+			assertEquals("[fruit, chocolate, eggs, fruit, butter]", bakery.getPantry().toString());
+			List<Ingredient> next = new ArrayList<Ingredient>();
+			for (int i = 0; i < 6; i++) {
+				next.add(bakery.getPantryDeck().pop());
+			}
+			assertEquals("[eggs, butter, chocolate, sugar, eggs, butter]", next.toString());
+		}
+	}
+
 	@Test
 	public void testDrawFromPantry__EmptyInitialState() throws NoSuchFieldException, IllegalAccessException, IOException, FileNotFoundException, InvocationTargetException {
 		MagicBakery bakery = bakeryFactory();
@@ -2672,4 +2694,140 @@ public class MagicBakeryTest {
 
 		System.setOut(stdout);
 	}
+
+	@Test
+	public void testLayerCountsFollowBakingAndServing() throws IOException, NoSuchFieldException, IllegalAccessException {
+		MagicBakery bakery = bakeryFactory();
+		bakery.startGame(playerNames, "./io/customers.csv");
+		@SuppressWarnings("unchecked")
+		Collection<Layer> layers = (Collection<Layer>)FunctionalHelper.getFieldValue(bakery, "layers");
+		Layer sponge = (Layer)stringToIngredient(layers, "sponge");
+		assertEquals(4, bakery.getLayerCount(sponge));
+
+		setupCurrentHand(bakery, new String[] {"butter", "eggs", "flour", "sugar"});
+		bakery.bakeLayer(sponge);
+		assertEquals(3, bakery.getLayerCount(sponge));
+		assertEquals(23, layers.size());
+
+		CustomerOrder order = new CustomerOrder("swiss roll", List.of(sponge), null, 1);
+		setupActiveCustomers(bakery, List.of(order));
+		bakery.fulfillOrder(order, false);
+		assertEquals(4, bakery.getLayerCount(sponge));
+		assertEquals(24, layers.size());
+		assertFalse(bakery.getCurrentPlayer().getHand().contains(sponge));
+	}
+
+	@Test
+	public void testLayersAreKeptInNameOrderAsKindsRunOutAndComeBack() throws IOException, NoSuchFieldException, IllegalAccessException {
+		MagicBakery bakery = bakeryFactory();
+		@SuppressWarnings("unchecked")
+		Collection<Layer> layers = (Collection<Layer>)FunctionalHelper.getFieldValue(bakery, "layers");
+		Collection<Layer> before = bakery.getLayers();
+		assertSame(before, bakery.getLayers());
+		assertThrows(UnsupportedOperationException.class, () -> bakery.getLayers().clear());
+
+		Layer biscuit = (Layer)stringToIngredient(layers, "biscuit");
+		for (int i = 0; i < 4; i++) {
+			assertTrue(layers.remove(biscuit));
+		}
+		assertFalse(layers.remove(biscuit));
+		assertFalse(bakery.getLayers().contains(biscuit));
+		assertEquals(0, bakery.getLayerCount(biscuit));
+		assertEquals(5, bakery.getLayers().size());
+
+		layers.add(biscuit);
+		assertEquals(before, bakery.getLayers());
+		assertEquals("biscuit", bakery.getLayers().iterator().next().toString());
+		assertEquals(21, layers.size());
+		int copies = 0;
+		for (Layer layer : layers) {
+			assertTrue(layer.toString().compareTo("biscuit") >= 0);
+			copies += layer.equals(biscuit) ? 1 : 0;
+		}
+		assertEquals(1, copies);
+	}
+
+	// Written by the game before the piles were card piles, with stacks for the pantry, the pantry deck, the discard pile
+	// and the customer deck and the layers as a list of cards: seed 12345, PlayerA and PlayerB, eight turns of fulfilling
+	// the first order possible, otherwise baking the first layer possible, otherwise drawing the first card in the pantry
+	@Test
+	public void testLoadsGameSavedWithStackPiles() throws IOException, ClassNotFoundException {
+		MagicBakery bakery = MagicBakery.loadState(new File("./src/test/test/functional/saves/stack-piles.ser"));
+		assertEquals("PlayerA", bakery.getCurrentPlayer().toString());
+		assertEquals(3, bakery.getActionsRemaining());
+		List<Player> players = new ArrayList<>(bakery.getPlayers());
+		assertEquals("[chocolate, flour, flour, icing, icing, jam, jam]", players.get(0).getHand().toString());
+		assertEquals("[butter, butter, butter, butter, fruit, icing, pastry]", players.get(1).getHand().toString());
+		assertEquals("[sugar, sugar, butter, flour, butter]", bakery.getPantry().toString());
+		assertEquals(35, bakery.getPantryDeck().size());
+		assertEquals(6, bakery.getLayers().size());
+		assertEquals("[old fashioned trifle, crumpets, chocolate bombe]", bakery.getCustomers().getActiveCustomers().toString());
+		assertEquals(2, bakery.getCustomers().getInactiveCount(CustomerOrderStatus.GIVEN_UP));
+		assertEquals(35, bakery.getIngredientCounts().getTotal(IngredientCounts.Zone.DECK));
+		assertNotNull(bakery.getSnapshot());
+
+		// The game carries on from where it was saved
+		bakery.drawFromPantry("sugar");
+		assertTrue(bakery.getPantry().contains(new Ingredient("eggs")));
+		bakery.refreshPantry();
+		bakery.endTurn();
+		assertEquals("PlayerB", bakery.getCurrentPlayer().toString());
+		assertEquals(3, bakery.getCustomers().getActiveCustomers().size());
+		MagicBakery reloaded = SaveService.restore(SaveService.snapshot(bakery));
+		assertArrayEquals(SaveService.snapshot(bakery), SaveService.snapshot(reloaded));
+	}
+
+	@Test
+	public void testServedCustomersAreCountedAsServed() throws IOException {
+		MagicBakery bakery = bakeryFactory();
+		bakery.startGame(playerNames, "./io/customers.csv");
+		CustomerOrder served = null;
+		for (int turn = 0; turn < 20 && served == null; turn++) {
+			while (bakery.getActionsRemaining() > 0 && served == null) {
+				Collection<CustomerOrder> fulfilable = bakery.getFulfilableCustomers();
+				Collection<Layer> bakeable = bakery.getBakeableLayers();
+				if (!fulfilable.isEmpty()) {
+					served = fulfilable.iterator().next();
+					bakery.fulfillOrder(served, false);
+				} else if (!bakeable.isEmpty()) {
+					bakery.bakeLayer(bakeable.iterator().next());
+				} else {
+					bakery.drawFromPantry(bakery.getPantry().iterator().next());
+				}
+			}
+			if (served == null) {
+				bakery.endTurn();
+			}
+		}
+		assertNotNull(served);
+		assertEquals(CustomerOrderStatus.FULFILLED, served.getStatus());
+		assertEquals(1, bakery.getCustomers().getInactiveCount(CustomerOrderStatus.FULFILLED));
+		assertEquals(List.of(served), new ArrayList<>(bakery.getCustomers().getInactiveCustomersWithStatus(CustomerOrderStatus.FULFILLED)));
+		assertFalse(bakery.getCustomers().getInactiveCustomersWithStatus(CustomerOrderStatus.GIVEN_UP).contains(served));
+	}
+
+	@Test
+	public void testCopyIsPlayedApartFromTheGame() throws IOException {
+		MagicBakery bakery = bakeryFactory();
+		bakery.startGame(playerNames, "./io/customers.csv");
+		MagicBakery copy = bakery.copy(new Random(1));
+		assertEquals(bakery.getPantry().toString(), copy.getPantry().toString());
+		assertEquals(bakery.getCurrentPlayer().getHand(), copy.getCurrentPlayer().getHand());
+		assertEquals(bakery.getCustomers().getActiveCustomers().toString(), copy.getCustomers().getActiveCustomers().toString());
+		assertEquals(bakery.getLayers(), copy.getLayers());
+		assertEquals(bakery.getStateVersion(), copy.getStateVersion());
+		assertNull(copy.getSnapshot());
+		byte[] before = SaveService.snapshot(bakery);
+
+		// Customers come, grow impatient and leave in the copy while the game stands still
+		for (int turn = 0; turn < 6; turn++) {
+			while (copy.getActionsRemaining() > 0) {
+				copy.refreshPantry();
+			}
+			copy.endTurn();
+		}
+		assertTrue(copy.getCustomers().getInactiveCount(CustomerOrderStatus.GIVEN_UP) > 0);
+		assertEquals(0, bakery.getCustomers().getInactiveCount(CustomerOrderStatus.GIVEN_UP));
+		assertArrayEquals(before, SaveService.snapshot(bakery));
+	}
 }
@@ -0,0 +1,136 @@
+package test.functional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import bakery.CustomerOrder;
+import bakery.Ingredient;
+import bakery.Layer;
+import bakery.MagicBakery;
+import bakery.OrderPlanner;
+import bakery.OrderPlanner.Plan;
+
+@Tag("functional")
+@Tag("OrderPlanner")
+public class OrderPlannerTest {
+
+	private static final Ingredient FLOUR = new Ingredient("flour");
+	private static final Ingredient EGGS = new Ingredient("eggs");
+	private static final Ingredient SUGAR = new Ingredient("sugar");
+	private static final Ingredient BUTTER = new Ingredient("butter");
+	private static final Ingredient DUCK = Ingredient.HELPFUL_DUCK;
+	private static final Layer SPONGE = new Layer("sponge", List.of(FLOUR, EGGS));
+
+	private static CustomerOrder order(String name, List<Ingredient> recipe, List<Ingredient> garnish) {
+		return new CustomerOrder(name, recipe, garnish, 1);
+	}
+
+	@Test
+	public void testServesTheMostCustomersRatherThanTheFirst() {
+		CustomerOrder both = order("both", List.of(FLOUR, EGGS), null);
+		CustomerOrder flour = order("flour", List.of(FLOUR), null);
+		CustomerOrder eggs = order("eggs", List.of(EGGS), null);
+		Plan plan = new OrderPlanner().plan(List.of(FLOUR, EGGS), Arrays.asList(both, flour, eggs), 3);
+		assertEquals(List.of(flour, eggs), plan.getFulfilled());
+		assertTrue(plan.getGarnished().isEmpty());
+		assertEquals(2, plan.getCardsUsed());
+		assertEquals(0, plan.getDucksUsed());
+	}
+
+	@Test
+	public void testDucksStandInForIngredientsButNotLayers() {
+		CustomerOrder sugar = order("sugar", List.of(SUGAR), null);
+		CustomerOrder flour = order("flour", List.of(FLOUR), null);
+		CustomerOrder sponge = order("sponge", List.of(SPONGE), null);
+		Plan plan = new OrderPlanner().plan(List.of(FLOUR, DUCK, DUCK), Arrays.asList(sponge, sugar, flour), 3);
+		assertEquals(List.of(sugar, flour), plan.getFulfilled());
+		assertEquals(1, plan.getDucksUsed());
+
+		// A real card is spent before a duck, so the duck is kept for the order that needs it
+		CustomerOrder flourOrSugar = order("flour and sugar", List.of(FLOUR, SUGAR), null);
+		plan = new OrderPlanner().plan(List.of(FLOUR, SUGAR, DUCK), Arrays.asList(flourOrSugar, flour), 3);
+		assertEquals(List.of(flourOrSugar, flour), plan.getFulfilled());
+		assertEquals(1, plan.getDucksUsed());
+	}
+
+	@Test
+	public void testGarnishesOnlyWhatTheHandCanSpare() {
+		CustomerOrder garnished = order("garnished", List.of(FLOUR), List.of(SUGAR));
+		CustomerOrder sugar = order("sugar", List.of(SUGAR), null);
+		List<Ingredient> hand = List.of(FLOUR, SUGAR, EGGS);
+		List<CustomerOrder> row = Arrays.asList(sugar, null, garnished);
+
+		Plan plan = new OrderPlanner().plan(hand, row, 3);
+		assertEquals(List.of(sugar, garnished), plan.getFulfilled());
+		assertTrue(plan.getGarnished().isEmpty());
+		assertEquals(List.of(garnished), plan.getGarnishable());
+
+		plan = new OrderPlanner().plan(hand, row, 1);
+		assertEquals(List.of(garnished), plan.getFulfilled());
+		assertTrue(plan.isGarnished(garnished));
+		assertEquals(2, plan.getCardsUsed());
+
+		// The garnish cannot use the card the recipe has already taken
+		CustomerOrder twice = order("twice", List.of(FLOUR), List.of(FLOUR));
+		plan = new OrderPlanner().plan(List.of(FLOUR, EGGS), List.of(twice), 3);
+		assertEquals(List.of(twice), plan.getFulfilled());
+		assertFalse(plan.isGarnished(twice));
+		assertTrue(plan.getGarnishable().isEmpty());
+	}
+
+	@Test
+	public void testCustomersAboutToLeaveAreServedFirst() {
+		CustomerOrder newest = order("newest", List.of(FLOUR), null);
+		CustomerOrder oldest = order("oldest", List.of(FLOUR), null);
+		Plan plan = new OrderPlanner().plan(List.of(FLOUR), Arrays.asList(newest, null, oldest), 3);
+		assertEquals(List.of(oldest), plan.getFulfilled());
+		assertEquals(0, new OrderPlanner().plan(List.of(FLOUR), Arrays.asList(newest, oldest), 0).getFulfilled().size());
+	}
+
+	@Test
+	public void testPlansAreRememberedByHand() {
+		OrderPlanner planner = new OrderPlanner();
+		List<CustomerOrder> row = Arrays.asList(order("cake", List.of(FLOUR, EGGS), List.of(SUGAR)), null);
+		Plan plan = planner.plan(List.of(FLOUR, EGGS, SUGAR), row, 3);
+		assertSame(plan, planner.plan(List.of(SUGAR, FLOUR, EGGS), new ArrayList<>(row), 3));
+		assertNotSame(plan, planner.plan(List.of(SUGAR, FLOUR, EGGS), row, 2));
+		assertNotSame(plan, planner.plan(List.of(SUGAR, FLOUR, BUTTER), row, 3));
+
+		List<CustomerOrder> moved = Arrays.asList(null, row.get(0));
+		Plan again = planner.plan(List.of(FLOUR, EGGS, SUGAR), moved, 3);
+		assertNotSame(plan, again);
+		assertEquals(plan.getFulfilled(), again.getFulfilled());
+	}
+
+	@Test
+	public void testGameGarnishesTheBestPlanFound() throws Exception {
+		MagicBakery game = new MagicBakery(12854, "./io/ingredients.csv", "./io/layers.csv");
+		game.startGame(Arrays.asList("PlayerA", "PlayerB"), "./io/customers.csv");
+		Plan plan = game.getOrderPlan();
+		assertSame(plan, game.getOrderPlan());
+		assertTrue(plan.getFulfilled().size() <= game.getActionsRemaining());
+		for (CustomerOrder order : plan.getFulfilled()) {
+			assertTrue(game.getFulfilableCustomers().contains(order));
+		}
+		assertEquals(plan.getGarnishable(), game.getGarnishableCustomers());
+		for (CustomerOrder order : game.getGarnishableCustomers()) {
+			List<Ingredient> left = new ArrayList<>(game.getCurrentPlayer().getHand());
+			for (Ingredient card : order.getRecipe()) {
+				if (!left.remove(card)) {
+					assertTrue(left.remove(Ingredient.HELPFUL_DUCK));
+				}
+			}
+			assertTrue(order.canGarnish(left));
+		}
+	}
+}
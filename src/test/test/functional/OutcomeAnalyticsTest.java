@@ -0,0 +1,131 @@
+package test.functional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import bakery.CustomerOrder;
+import bakery.MagicBakery;
+import util.OutcomeAnalytics;
+import util.OutcomeAnalytics.CardOutcome;
+import util.OutcomeAnalytics.QuantileSketch;
+import util.SelfPlay;
+
+@Tag("functional")
+@Tag("OutcomeAnalytics")
+public class OutcomeAnalyticsTest {
+
+	@Test
+	public void testSketchQuantilesWithinOnePercent() {
+		QuantileSketch sketch = new QuantileSketch();
+		for (int i = 1; i <= 10000; i++) {
+			sketch.add(i);
+		}
+		assertEquals(10000, sketch.getCount());
+		assertEquals(5000, sketch.quantile(0.5), 50);
+		assertEquals(9000, sketch.quantile(0.9), 90);
+		assertEquals(1, sketch.quantile(0), 0);
+		assertEquals(10000, sketch.quantile(1), 0);
+	}
+
+	@Test
+	public void testSketchMergeMatchesSingleSketch() {
+		QuantileSketch all = new QuantileSketch();
+		QuantileSketch low = new QuantileSketch();
+		QuantileSketch high = new QuantileSketch();
+		for (int i = 0; i < 2000; i++) {
+			all.add(i);
+			(i % 2 == 0 ? low : high).add(i);
+		}
+		low.merge(high);
+		assertEquals(all.getCount(), low.getCount());
+		for (double q = 0; q <= 1; q += 0.1) {
+			assertEquals(all.quantile(q), low.quantile(q), 0);
+		}
+	}
+
+	@Test
+	public void testSketchRejectsNegativeValues() {
+		QuantileSketch sketch = new QuantileSketch();
+		assertThrows(IllegalArgumentException.class, () -> sketch.add(-1));
+		assertTrue(Double.isNaN(sketch.quantile(0.5)));
+	}
+
+	@Test
+	public void testTrackerCountsOutcomes() throws IOException {
+		MagicBakery game = SelfPlay.newGame(3, 2);
+		OutcomeAnalytics analytics = new OutcomeAnalytics();
+		OutcomeAnalytics.GameTracker tracker = analytics.track(game);
+		List<CustomerOrder> waiting = new ArrayList<>();
+		for (CustomerOrder customer : game.getCustomers().getActiveCustomers()) {
+			if (customer != null) {
+				waiting.add(customer);
+			}
+		}
+		tracker.action();
+		tracker.fulfilled(waiting.get(0), true);
+		tracker.finish(7);
+
+		String card = waiting.get(0).toString();
+		assertEquals(1, analytics.getGames(2));
+		assertEquals(7, analytics.getGameLength(2).quantile(0.5), 0.1);
+		assertEquals(2, analytics.getActionsPerFulfilment(2).quantile(0.5), 0.1);
+		analytics.getGameLength(2).add(100);
+		analytics.getActionsPerFulfilment(2).add(100);
+		assertEquals(1, analytics.getGameLength(2).getCount());
+		assertEquals(1, analytics.getActionsPerFulfilment(2).getCount());
+		// The order was never actually served, so it still counts as a waiting customer: seen only
+		assertEquals(1, analytics.getCardCount(2, card, CardOutcome.SEEN));
+		assertEquals(0, analytics.getCardCount(2, card, CardOutcome.LOST));
+		assertEquals(0, analytics.getGames(3));
+	}
+
+	@Test
+	public void testPantryRestoresAreCounted() throws IOException {
+		MagicBakery game = SelfPlay.newGame(3, 2);
+		assertEquals(0, game.getPantryRestoreCount());
+		game.restorePantry();
+		assertEquals(1, game.getPantryRestoreCount());
+	}
+
+	@Test
+	public void testSimulationDoesNotDependOnThreads() throws IOException {
+		OutcomeAnalytics single = OutcomeAnalytics.simulate(40, 1, 11, 2, 3);
+		OutcomeAnalytics parallel = OutcomeAnalytics.simulate(40, 4, 11, 2, 3);
+		assertEquals(single.toString(), parallel.toString());
+		assertEquals(List.of(2, 3), single.getPlayerCounts());
+		assertEquals(40, single.getGames(2) + single.getGames(3) + single.getAbandonedGames(2) + single.getAbandonedGames(3));
+	}
+
+	@Test
+	public void testSimulatedCardCountsAreConsistent() throws IOException {
+		OutcomeAnalytics analytics = OutcomeAnalytics.simulate(30, 2, 5, 4);
+		assertTrue(analytics.getGames(4) > 0);
+		String report = analytics.toString();
+		assertTrue(report.startsWith("4 players:"));
+		long seen = 0;
+		long served = 0;
+		for (String line : report.split("\n")) {
+			if (!line.startsWith("  ") || line.startsWith("  Customer") || line.contains(" p50 ") || line.contains("per game")) {
+				continue;
+			}
+			String card = line.substring(2, 34).trim();
+			long cardSeen = analytics.getCardCount(4, card, CardOutcome.SEEN);
+			long fulfilled = analytics.getCardCount(4, card, CardOutcome.FULFILLED);
+			assertTrue(cardSeen >= fulfilled + analytics.getCardCount(4, card, CardOutcome.LOST), card);
+			assertTrue(fulfilled >= analytics.getCardCount(4, card, CardOutcome.GARNISHED), card);
+			seen += cardSeen;
+			served += fulfilled;
+		}
+		assertTrue(seen > 0);
+		assertTrue(served > 0);
+		assertEquals(served, analytics.getActionsPerFulfilment(4).getCount());
+	}
+}
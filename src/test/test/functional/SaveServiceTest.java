@@ -0,0 +1,92 @@
+package test.functional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import bakery.MagicBakery;
+import util.SaveService;
+
+@Tag("functional")
+@Tag("SaveService")
+public class SaveServiceTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	public void testSaveAsyncThenLoadAsync() throws IOException, InterruptedException, ExecutionException {
+		SaveService service = new SaveService();
+		MagicBakery bakery = FunctionalHelper.startedBakery();
+		File file = tempDir.resolve("save.txt").toFile();
+
+		assertEquals(file.getAbsoluteFile(), service.saveAsync(bakery, file).get());
+		MagicBakery loaded = service.loadAsync(file).get();
+		assertArrayEquals(SaveService.snapshot(bakery), SaveService.snapshot(loaded));
+		service.shutdown();
+	}
+
+	@Test
+	public void testSaveCapturesStateWhenRequested() throws IOException, ClassNotFoundException, InterruptedException, ExecutionException {
+		SaveService service = new SaveService();
+		MagicBakery bakery = FunctionalHelper.startedBakery();
+		File file = tempDir.resolve("save.txt").toFile();
+
+		CompletableFuture<File> saved = service.saveAsync(bakery, file);
+		bakery.endTurn();
+		saved.get();
+
+		MagicBakery loaded = MagicBakery.loadState(file);
+		assertEquals("PlayerA", loaded.getCurrentPlayer().toString());
+		assertEquals("PlayerB", bakery.getCurrentPlayer().toString());
+		service.shutdown();
+	}
+
+	@Test
+	public void testRepeatedSavesKeepLatestState() throws IOException, ClassNotFoundException, InterruptedException, ExecutionException {
+		SaveService service = new SaveService();
+		MagicBakery bakery = FunctionalHelper.startedBakery();
+		File file = tempDir.resolve("save.txt").toFile();
+
+		CompletableFuture<File> first = service.saveAsync(bakery, file);
+		bakery.endTurn();
+		CompletableFuture<File> second = service.saveAsync(bakery, file);
+		first.get();
+		second.get();
+
+		assertEquals("PlayerB", MagicBakery.loadState(file).getCurrentPlayer().toString());
+		service.shutdown();
+	}
+
+	@Test
+	public void testWriteAtomicallyReplacesFileAndLeavesNoTemporaries() throws IOException {
+		File file = tempDir.resolve("save.txt").toFile();
+		SaveService.writeAtomically(new byte[] {1, 2, 3}, file);
+		SaveService.writeAtomically(new byte[] {4, 5}, file);
+
+		assertArrayEquals(new byte[] {4, 5}, Files.readAllBytes(file.toPath()));
+		assertEquals(1, tempDir.toFile().list().length);
+	}
+
+	@Test
+	public void testLoadAsyncOfMissingFileFails() {
+		SaveService service = new SaveService();
+		CompletableFuture<MagicBakery> loaded = service.loadAsync(tempDir.resolve("missing.txt").toFile());
+		ExecutionException e = assertThrows(ExecutionException.class, () -> { loaded.get(); });
+		assertTrue(e.getCause() instanceof IOException);
+		service.shutdown();
+	}
+
+}
@@ -0,0 +1,113 @@
+package test.functional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import bakery.CustomerOrder;
+import bakery.MagicBakery;
+import bakery.MagicBakery.ActionType;
+import util.OutcomeAnalytics;
+import util.SelfPlay;
+import util.TrainingDataExporter;
+
+@Tag("functional")
+@Tag("SelfPlay")
+public class SelfPlayTest {
+
+	@TempDir
+	Path tempDir;
+
+	private SelfPlay selfPlay() throws FileNotFoundException {
+		return new SelfPlay(SelfPlay.vocabulary(SelfPlay.newGame(1, 0)));
+	}
+
+	@Test
+	public void testVocabularyCoversIngredientsAndLayers() throws FileNotFoundException {
+		List<String> vocabulary = selfPlay().getVocabulary();
+		assertEquals(13, vocabulary.size());
+		assertTrue(vocabulary.contains("flour"));
+		assertTrue(vocabulary.contains("sponge"));
+	}
+
+	@Test
+	public void testNewGame() throws FileNotFoundException {
+		MagicBakery game = SelfPlay.newGame(1, 3);
+		assertEquals(3, game.getPlayers().size());
+		assertEquals(0, SelfPlay.playerIndex(game));
+		assertFalse(SelfPlay.isOver(game));
+	}
+
+	@Test
+	public void testLegalMovesCanBePlayed() throws FileNotFoundException {
+		SelfPlay selfPlay = selfPlay();
+		short[] legal = selfPlay.legalMoves(SelfPlay.newGame(1, 2));
+		assertTrue(legal.length >= 3);
+		for (short move : legal) {
+			MagicBakery game = SelfPlay.newGame(1, 2);
+			selfPlay.play(game, move);
+			assertEquals(2, game.getActionsRemaining());
+		}
+	}
+
+	@Test
+	public void testNoMovesWithoutActions() throws FileNotFoundException {
+		SelfPlay selfPlay = selfPlay();
+		MagicBakery game = SelfPlay.newGame(1, 2);
+		for (int i = 0; i < 3; i++) {
+			selfPlay.play(game, selfPlay.legalMoves(game)[0]);
+		}
+		assertEquals(0, selfPlay.legalMoves(game).length);
+	}
+
+	@Test
+	public void testChoosePrefersFulfilThenBake() {
+		short draw = (short) (ActionType.DRAW_INGREDIENT.ordinal() << 10);
+		short bake = (short) (ActionType.BAKE_LAYER.ordinal() << 10 | 3);
+		short fulfil = (short) (ActionType.FULFIL_ORDER.ordinal() << 10 | 1 << 1 | 1);
+		assertEquals(fulfil, SelfPlay.choose(new short[] {draw, bake, fulfil}, new Random(1)));
+		assertEquals(bake, SelfPlay.choose(new short[] {draw, bake}, new Random(1)));
+		assertEquals(draw, SelfPlay.choose(new short[] {draw}, new Random(1)));
+		assertTrue(SelfPlay.isGarnish(fulfil));
+		assertFalse(SelfPlay.isGarnish(bake));
+	}
+
+	@Test
+	public void testCustomerFor() throws FileNotFoundException {
+		MagicBakery game = SelfPlay.newGame(1, 2);
+		List<CustomerOrder> slots = new ArrayList<>(game.getCustomers().getActiveCustomers());
+		for (int slot = 0; slot < slots.size(); slot++) {
+			assertSame(slots.get(slot), SelfPlay.customerFor(game, (short) (ActionType.FULFIL_ORDER.ordinal() << 10 | slot << 1)));
+		}
+		assertNull(SelfPlay.customerFor(game, (short) 0));
+	}
+
+	@Test
+	public void testGamesTooLargeForMoveCodesAreRefusedUpFront() {
+		SelfPlay.checkPlayers(SelfPlay.MAX_PLAYERS);
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> SelfPlay.checkPlayers(SelfPlay.MAX_PLAYERS + 1));
+		assertTrue(e.getMessage().contains("9"));
+		assertThrows(IllegalArgumentException.class, () -> OutcomeAnalytics.simulate(1, 1, 1, 2, 9));
+		Path file = tempDir.resolve("large.bin");
+		assertThrows(IllegalArgumentException.class, () -> TrainingDataExporter.exportSelfPlay(file, 1, 1, 1, 9));
+		assertFalse(file.toFile().exists());
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i <= SelfPlay.MAX_CARDS; i++) {
+			names.add("card " + i);
+		}
+		assertThrows(IllegalArgumentException.class, () -> new SelfPlay(names));
+	}
+}
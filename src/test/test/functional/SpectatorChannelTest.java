@@ -0,0 +1,195 @@
+package test.functional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import bakery.Ingredient;
+import bakery.MagicBakery;
+import util.SpectatorChannel;
+import util.SpectatorChannel.Frame;
+import util.SpectatorChannel.Subscription;
+import util.SpectatorChannel.View;
+
+@Tag("functional")
+@Tag("SpectatorChannel")
+public class SpectatorChannelTest {
+
+	// Draws the first card in the pantry, ending the turn whenever the current player runs out of actions
+	private void play(MagicBakery bakery, int actions) {
+		for (int i = 0; i < actions; i++) {
+			if (bakery.getActionsRemaining() == 0) {
+				bakery.endTurn();
+			} else {
+				bakery.drawFromPantry(bakery.getPantry().iterator().next());
+			}
+		}
+	}
+
+	private Map<String, String> replay(Subscription subscription, View view) {
+		Frame frame;
+		while ((frame = subscription.poll()) != null) {
+			view.apply(frame);
+		}
+		return view.asMap();
+	}
+
+	@Test
+	public void testFramesRebuildTheTable() throws FileNotFoundException {
+		SpectatorChannel channel = new SpectatorChannel();
+		Subscription subscription = channel.subscribe();
+		MagicBakery bakery = FunctionalHelper.startedBakery(channel);
+		View view = new View();
+
+		for (int i = 0; i < 10; i++) {
+			play(bakery, 4);
+			assertEquals(SpectatorChannel.capture(bakery), replay(subscription, view));
+		}
+	}
+
+	@Test
+	public void testDrawSendsOnlyWhatChanged() throws FileNotFoundException {
+		SpectatorChannel channel = new SpectatorChannel();
+		MagicBakery bakery = FunctionalHelper.startedBakery(channel);
+		Subscription subscription = channel.subscribe();
+		Frame keyframe = subscription.poll();
+		assertTrue(keyframe.isKeyframe());
+
+		Ingredient drawn = bakery.getPantry().iterator().next();
+		bakery.drawFromPantry(drawn);
+		Frame delta = subscription.poll();
+		assertFalse(delta.isKeyframe());
+		assertEquals(keyframe.getSequence() + 1, delta.getSequence());
+		assertTrue(delta.getText().contains("hand.0=" + bakery.getCurrentPlayer().getHand().toString().replace("[", "").replace("]", "").replace(", ", ",")));
+		assertTrue(delta.getText().contains("turn=0 2"));
+		View view = new View();
+		view.apply(keyframe);
+		view.apply(delta);
+		assertEquals(drawn.toString(), view.get("hand.0").split(",")[3]);
+		assertFalse(delta.getText().contains("hand.1="));
+		assertFalse(delta.getText().contains("player."));
+		assertTrue(delta.getText().length() < keyframe.getText().length() / 2);
+	}
+
+	@Test
+	public void testLateJoinerStartsFromKeyframe() throws FileNotFoundException {
+		SpectatorChannel channel = new SpectatorChannel();
+		MagicBakery bakery = FunctionalHelper.startedBakery(channel);
+		play(bakery, 7);
+
+		Subscription late = channel.subscribe();
+		assertEquals(1, late.size());
+		Frame first = late.poll();
+		assertTrue(first.isKeyframe());
+		assertEquals(channel.getSequence(), first.getSequence());
+
+		View view = new View();
+		view.apply(first);
+		play(bakery, 3);
+		assertEquals(SpectatorChannel.capture(bakery), replay(late, view));
+	}
+
+	@Test
+	public void testNothingSentWhenNothingChanged() throws FileNotFoundException {
+		SpectatorChannel channel = new SpectatorChannel();
+		MagicBakery bakery = FunctionalHelper.startedBakery(channel);
+		Subscription subscription = channel.subscribe();
+		subscription.poll();
+		long sequence = channel.getSequence();
+
+		channel.publish(bakery);
+		assertEquals(sequence, channel.getSequence());
+		assertNull(subscription.poll());
+	}
+
+	@Test
+	public void testPeriodicKeyframes() throws FileNotFoundException {
+		SpectatorChannel channel = new SpectatorChannel(5, 100);
+		Subscription subscription = channel.subscribe();
+		MagicBakery bakery = FunctionalHelper.startedBakery(channel);
+		play(bakery, 12);
+
+		Frame frame;
+		while ((frame = subscription.poll()) != null) {
+			assertEquals(frame.getSequence() == 1 || frame.getSequence() % 5 == 0, frame.isKeyframe());
+		}
+	}
+
+	@Test
+	public void testSlowSpectatorIsResynchronised() throws FileNotFoundException {
+		SpectatorChannel channel = new SpectatorChannel(1000, 4);
+		Subscription slow = channel.subscribe();
+		Subscription fast = channel.subscribe();
+		MagicBakery bakery = FunctionalHelper.startedBakery(channel);
+		View fastView = new View();
+
+		for (int i = 0; i < 20; i++) {
+			play(bakery, 1);
+			replay(fast, fastView);
+			assertTrue(slow.size() <= 4);
+		}
+		assertEquals(0, fast.getResyncs());
+		assertTrue(slow.getResyncs() > 0);
+		assertEquals(SpectatorChannel.capture(bakery), fastView.asMap());
+		assertEquals(SpectatorChannel.capture(bakery), replay(slow, new View()));
+	}
+
+	@Test
+	public void testFramesAreSharedBetweenSpectators() throws FileNotFoundException {
+		SpectatorChannel channel = new SpectatorChannel();
+		List<Subscription> subscriptions = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			subscriptions.add(channel.subscribe());
+		}
+		MagicBakery bakery = FunctionalHelper.startedBakery(channel);
+		play(bakery, 1);
+
+		assertEquals(300, channel.getSubscriberCount());
+		List<Frame> frames = new ArrayList<>();
+		Frame frame;
+		while ((frame = subscriptions.get(0).poll()) != null) {
+			frames.add(frame);
+		}
+		assertEquals(channel.getSequence(), frames.size());
+		for (Subscription subscription : subscriptions.subList(1, 300)) {
+			for (Frame shared : frames) {
+				assertSame(shared, subscription.poll());
+			}
+		}
+
+		subscriptions.get(0).close();
+		assertEquals(299, channel.getSubscriberCount());
+		play(bakery, 1);
+		assertNull(subscriptions.get(0).poll());
+	}
+
+	@Test
+	public void testTakeWaitsForFrame() throws FileNotFoundException, InterruptedException {
+		SpectatorChannel channel = new SpectatorChannel();
+		Subscription subscription = channel.subscribe();
+		assertNull(subscription.take(10));
+
+		MagicBakery bakery = FunctionalHelper.startedBakery(channel);
+		Thread player = new Thread(() -> play(bakery, 1));
+		player.start();
+		assertTrue(subscription.take(5000).isKeyframe());
+		player.join();
+	}
+
+	@Test
+	public void testInvalidSettings() {
+		assertThrows(IllegalArgumentException.class, () -> new SpectatorChannel(0, 10));
+		assertThrows(IllegalArgumentException.class, () -> new SpectatorChannel(10, 0));
+	}
+}
@@ -0,0 +1,94 @@
+package test.functional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import util.TerminalRenderer;
+
+@Tag("functional")
+@Tag("TerminalRenderer")
+public class TerminalRendererTest {
+
+	private static final String ESC = "\u001b[";
+
+	@Test
+	public void testFirstFrameIsPaintedInFull() throws IOException {
+		StringWriter out = new StringWriter();
+		TerminalRenderer terminal = new TerminalRenderer(out, true);
+		terminal.paint("Layers:\nPantry:\n");
+		assertEquals(ESC + "H" + ESC + "2J" + "Layers:\nPantry:\n", out.toString());
+	}
+
+	@Test
+	public void testOnlyChangedLinesAreRepainted() throws IOException {
+		StringWriter out = new StringWriter();
+		TerminalRenderer terminal = new TerminalRenderer(out, true);
+		terminal.paint("one\ntwo\nthree\n");
+		out.getBuffer().setLength(0);
+
+		terminal.paint("one\nTWO\nthree\n");
+		assertEquals(ESC + "2;1H" + "TWO" + ESC + "K" + ESC + "4;1H" + ESC + "J", out.toString());
+	}
+
+	@Test
+	public void testUnchangedFrameOnlyClearsBelow() throws IOException {
+		StringWriter out = new StringWriter();
+		TerminalRenderer terminal = new TerminalRenderer(out, true);
+		terminal.paint("one\ntwo\n");
+		out.getBuffer().setLength(0);
+
+		terminal.paint("one\ntwo\n");
+		assertEquals(ESC + "3;1H" + ESC + "J", out.toString());
+	}
+
+	@Test
+	public void testShorterFrameErasesLeftoverLines() throws IOException {
+		StringWriter out = new StringWriter();
+		TerminalRenderer terminal = new TerminalRenderer(out, true);
+		terminal.paint("one\ntwo\nthree\n");
+		out.getBuffer().setLength(0);
+
+		terminal.paint("one\n");
+		assertEquals(ESC + "2;1H" + ESC + "J", out.toString());
+	}
+
+	@Test
+	public void testLongerFrameAppendsNewLines() throws IOException {
+		StringWriter out = new StringWriter();
+		TerminalRenderer terminal = new TerminalRenderer(out, true);
+		terminal.paint("one\n");
+		out.getBuffer().setLength(0);
+
+		terminal.paint("one\ntwo\n");
+		assertEquals(ESC + "2;1H" + "two" + ESC + "K" + ESC + "3;1H" + ESC + "J", out.toString());
+	}
+
+	@Test
+	public void testInvalidateRepaintsInFull() throws IOException {
+		StringWriter out = new StringWriter();
+		TerminalRenderer terminal = new TerminalRenderer(out, true);
+		terminal.paint("one\ntwo\n");
+		terminal.invalidate();
+		out.getBuffer().setLength(0);
+
+		terminal.paint("one\ntwo\n");
+		assertEquals(ESC + "H" + ESC + "2J" + "one\ntwo\n", out.toString());
+	}
+
+	@Test
+	public void testPlainOutputWritesEveryFrame() throws IOException {
+		StringWriter out = new StringWriter();
+		TerminalRenderer terminal = new TerminalRenderer(out, false);
+		terminal.paint("one\ntwo\n");
+		terminal.paint("one\ntwo");
+		assertEquals("one\ntwo\none\ntwo\n", out.toString());
+		assertTrue(out.toString().indexOf(ESC) < 0);
+	}
+
+}
@@ -0,0 +1,181 @@
+package test.functional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import bakery.CustomerOrder;
+import bakery.GameRules;
+import bakery.MagicBakery;
+import util.SelfPlay;
+import util.TrainingDataExporter;
+
+@Tag("functional")
+@Tag("TrainingDataExporter")
+public class TrainingDataExporterTest {
+
+	@TempDir
+	Path tempDir;
+
+	private List<String> vocabulary() throws FileNotFoundException {
+		return SelfPlay.vocabulary(new MagicBakery(12345, "./io/ingredients.csv", "./io/layers.csv"));
+	}
+
+	// Each row of the file keyed by game and decision, so files written by different numbers of threads can be compared
+	private Map<Long, String> rowsByDecision(Path file) throws IOException {
+		List<String> names = TrainingDataExporter.readColumnNames(file);
+		int[] games = TrainingDataExporter.readColumn(file, "game");
+		int[] decisions = TrainingDataExporter.readColumn(file, "decision");
+		List<int[]> columns = new ArrayList<>();
+		for (String name : names) {
+			if (!name.equals("legalMoves")) {
+				columns.add(TrainingDataExporter.readColumn(file, name));
+			}
+		}
+		Map<Long, String> rows = new TreeMap<>();
+		for (int row = 0; row < games.length; row++) {
+			StringBuilder text = new StringBuilder();
+			for (int[] column : columns) {
+				text.append(column[row]).append(' ');
+			}
+			rows.put((long) games[row] << 16 | decisions[row], text.toString());
+		}
+		return rows;
+	}
+
+	@Test
+	public void testFeaturesOfNewGame() throws IOException {
+		List<String> vocabulary = vocabulary();
+		int v = vocabulary.size();
+		try (TrainingDataExporter exporter = new TrainingDataExporter(tempDir.resolve("features.bin"), vocabulary)) {
+			byte[] features = exporter.features(FunctionalHelper.startedBakery());
+			int hand = 0;
+			int pantry = 0;
+			int layers = 0;
+			for (int i = 0; i < v; i++) {
+				hand += features[i];
+				pantry += features[v + i];
+				layers += features[2 * v + i];
+			}
+			assertEquals(3, hand);
+			assertEquals(5, pantry);
+			assertEquals(6, layers);
+			assertEquals(3, features[features.length - 1]);
+		}
+	}
+
+	@Test
+	public void testWiderRowsHaveAColumnForEveryPlace() throws IOException {
+		GameRules rules = GameRules.STANDARD.withCustomerSlots(5);
+		MagicBakery game = SelfPlay.newGame(7, 2, rules);
+		for (int turn = 0; turn < 8; turn++) {
+			game.endTurn();
+		}
+		List<String> vocabulary = vocabulary();
+		int v = vocabulary.size();
+		Path file = tempDir.resolve("wide.bin");
+		try (TrainingDataExporter exporter = new TrainingDataExporter(file, vocabulary, 16, 5)) {
+			byte[] features = exporter.features(game);
+			int slot = 0;
+			for (CustomerOrder customer : game.getCustomers().getActiveCustomers()) {
+				assertEquals(customer != null, features[3 * v + slot * (v + 1) + v] != 0);
+				slot++;
+			}
+			assertTrue(game.getCustomers().getActiveCustomers().stream().skip(3).anyMatch(c -> c != null));
+		}
+		assertTrue(TrainingDataExporter.readColumnNames(file).contains("customer4.status"));
+		try (TrainingDataExporter exporter = new TrainingDataExporter(tempDir.resolve("narrow.bin"), vocabulary)) {
+			assertThrows(IllegalArgumentException.class, () -> exporter.features(game));
+		}
+	}
+
+	@Test
+	public void testSelfPlayColumnsAreConsistent() throws IOException {
+		Path file = tempDir.resolve("selfplay.bin");
+		long rows = TrainingDataExporter.exportSelfPlay(file, 6, 3, 100, 2);
+		assertTrue(rows > 0);
+
+		int[] games = TrainingDataExporter.readColumn(file, "game");
+		int[] legalCount = TrainingDataExporter.readColumn(file, "legalCount");
+		int[] legalMoves = TrainingDataExporter.readColumn(file, "legalMoves");
+		int[] chosen = TrainingDataExporter.readColumn(file, "chosen");
+		int[] outcome = TrainingDataExporter.readColumn(file, "outcome");
+		assertEquals(rows, games.length);
+		assertEquals(rows, TrainingDataExporter.readColumn(file, "hand.flour").length);
+
+		int offset = 0;
+		Map<Integer, Integer> outcomes = new TreeMap<>();
+		for (int row = 0; row < rows; row++) {
+			boolean found = false;
+			for (int i = 0; i < legalCount[row]; i++) {
+				found |= legalMoves[offset + i] == chosen[row];
+			}
+			assertTrue(found);
+			offset += legalCount[row];
+			Integer previous = outcomes.put(games[row], outcome[row]);
+			assertTrue(previous == null || previous == outcome[row]);
+		}
+		assertEquals(legalMoves.length, offset);
+	}
+
+	@Test
+	public void testThreadCountDoesNotChangeRows() throws IOException {
+		Path single = tempDir.resolve("single.bin");
+		Path parallel = tempDir.resolve("parallel.bin");
+		TrainingDataExporter.exportSelfPlay(single, 5, 1, 7, 3);
+		TrainingDataExporter.exportSelfPlay(parallel, 5, 4, 7, 3);
+		assertEquals(rowsByDecision(single), rowsByDecision(parallel));
+	}
+
+	@Test
+	public void testColumnsAreCompressed() throws IOException {
+		Path file = tempDir.resolve("compressed.bin");
+		long rows = TrainingDataExporter.exportSelfPlay(file, 4, 2, 1, 2);
+		int columns = TrainingDataExporter.readColumnNames(file).size();
+		assertTrue(Files.size(file) < rows * columns / 2);
+	}
+
+	@Test
+	public void testSmallChunks() throws IOException {
+		Path file = tempDir.resolve("chunks.bin");
+		List<String> vocabulary = vocabulary();
+		try (TrainingDataExporter exporter = new TrainingDataExporter(file, vocabulary, 2)) {
+			try (TrainingDataExporter.Producer producer = exporter.newProducer()) {
+				MagicBakery bakery = FunctionalHelper.startedBakery();
+				for (int i = 0; i < 5; i++) {
+					short[] legal = new SelfPlay(vocabulary).legalMoves(bakery);
+					producer.record(bakery, legal, legal[legal.length - 1]);
+				}
+				producer.endGame(42, 3);
+			}
+			assertEquals(5, exporter.getRowsWritten());
+		}
+		int[] games = TrainingDataExporter.readColumn(file, "game");
+		int[] decisions = TrainingDataExporter.readColumn(file, "decision");
+		assertEquals(5, games.length);
+		for (int i = 0; i < 5; i++) {
+			assertEquals(42, games[i]);
+			assertEquals(i, decisions[i]);
+		}
+	}
+
+	@Test
+	public void testUnknownColumn() throws IOException {
+		Path file = tempDir.resolve("unknown.bin");
+		TrainingDataExporter.exportSelfPlay(file, 1, 1, 1, 2);
+		assertThrows(IOException.class, () -> TrainingDataExporter.readColumn(file, "nonsense"));
+	}
+}
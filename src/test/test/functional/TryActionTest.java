@@ -0,0 +1,232 @@
+package test.functional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import bakery.CustomerOrder;
+import bakery.EmptyPantryException;
+import bakery.Ingredient;
+import bakery.Layer;
+import bakery.MagicBakery;
+import bakery.MagicBakery.ActionResult;
+import bakery.Player;
+import bakery.TooManyActionsException;
+import bakery.WrongIngredientsException;
+import util.HeuristicBot;
+import util.SaveService;
+import util.SelfPlay;
+
+@Tag("functional")
+@Tag("TryAction")
+public class TryActionTest {
+
+	@AfterEach
+	public void tearDown() {
+		MagicBakery.setExceptionStackTraces(true);
+	}
+
+	// One action, run both through the throwing method and through its try version
+	private static class Attempt {
+		final String name;
+		final Function<MagicBakery, Object> act;
+		final Function<MagicBakery, ActionResult> attempt;
+
+		Attempt(String name, Function<MagicBakery, Object> act, Function<MagicBakery, ActionResult> attempt) {
+			this.name = name;
+			this.act = act;
+			this.attempt = attempt;
+		}
+	}
+
+	// Hands are sorted whenever they are read, so they are sorted before comparing snapshots
+	private static byte[] snapshot(MagicBakery game) throws Exception {
+		for (Player player : game.getPlayers()) {
+			player.getHand();
+		}
+		return SaveService.snapshot(game);
+	}
+
+	private static Layer layerNamed(MagicBakery game, String name) {
+		for (Layer layer : game.getLayers()) {
+			if (layer.toString().equals(name)) {
+				return layer;
+			}
+		}
+		for (Ingredient card : game.getCurrentPlayer().getHand()) {
+			if (card instanceof Layer && card.toString().equals(name)) {
+				return (Layer) card;
+			}
+		}
+		return null;
+	}
+
+	private static Player nextPlayer(MagicBakery game) {
+		List<Player> players = new ArrayList<>(game.getPlayers());
+		return players.get((players.indexOf(game.getCurrentPlayer()) + 1) % players.size());
+	}
+
+	private static List<Attempt> attempts(MagicBakery game, List<String> vocabulary, Collection<String> layerNames, Random random) {
+		List<Attempt> attempts = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			String name = vocabulary.get(random.nextInt(vocabulary.size()));
+			attempts.add(new Attempt("draw " + name, g -> { g.drawFromPantry(name); return null; }, g -> g.tryDrawFromPantry(name)));
+			Ingredient card = new Ingredient(name);
+			attempts.add(new Attempt("draw card " + name, g -> { g.drawFromPantry(card); return null; }, g -> g.tryDrawFromPantry(card)));
+			attempts.add(new Attempt("pass " + name, g -> { g.passCard(card, nextPlayer(g)); return null; }, g -> g.tryPassCard(card, nextPlayer(g))));
+		}
+		for (Ingredient card : new ArrayList<>(game.getCurrentPlayer().getHand())) {
+			attempts.add(new Attempt("pass held " + card, g -> { g.passCard(card, nextPlayer(g)); return null; }, g -> g.tryPassCard(card, nextPlayer(g))));
+		}
+		for (String name : layerNames) {
+			if (layerNamed(game, name) != null) {
+				attempts.add(new Attempt("bake " + name, g -> { g.bakeLayer(layerNamed(g, name)); return null; }, g -> g.tryBakeLayer(layerNamed(g, name))));
+			}
+		}
+		int slots = game.getCustomers().getActiveCustomers().size();
+		for (int slot = 0; slot < slots; slot++) {
+			int index = slot;
+			boolean garnish = random.nextBoolean();
+			if (new ArrayList<>(game.getCustomers().getActiveCustomers()).get(slot) != null) {
+				attempts.add(new Attempt("fulfil " + slot + " " + garnish, g -> g.fulfillOrder(customerAt(g, index), garnish), g -> g.tryFulfillOrder(customerAt(g, index), garnish)));
+			}
+		}
+		attempts.add(new Attempt("refresh", g -> { g.refreshPantry(); return null; }, g -> g.tryRefreshPantry()));
+		return attempts;
+	}
+
+	private static CustomerOrder customerAt(MagicBakery game, int slot) {
+		return new ArrayList<>(game.getCustomers().getActiveCustomers()).get(slot);
+	}
+
+	private static ActionResult expected(MagicBakery game, Attempt attempt) {
+		try {
+			attempt.act.apply(game);
+			return ActionResult.OK;
+		} catch (TooManyActionsException e) {
+			return ActionResult.TOO_MANY_ACTIONS;
+		} catch (WrongIngredientsException e) {
+			return ActionResult.WRONG_INGREDIENTS;
+		} catch (EmptyPantryException e) {
+			return ActionResult.EMPTY_PANTRY;
+		}
+	}
+
+	private static void checkAttempts(MagicBakery game, List<Attempt> attempts) throws Exception {
+		byte[] before = snapshot(game);
+		for (Attempt attempt : attempts) {
+			MagicBakery thrown = SaveService.restore(before);
+			MagicBakery tried = SaveService.restore(before);
+			ActionResult expected = expected(thrown, attempt);
+			assertEquals(expected, attempt.attempt.apply(tried), attempt.name);
+			if (expected == ActionResult.OK) {
+				assertTrue(Arrays.equals(snapshot(thrown), snapshot(tried)), attempt.name);
+			} else {
+				assertTrue(Arrays.equals(before, snapshot(tried)), attempt.name);
+			}
+		}
+	}
+
+	@Test
+	public void testTryActionsMatchThrowingActions() throws Exception {
+		for (long seed = 1; seed <= 3; seed++) {
+			for (int players = 2; players <= 4; players += 2) {
+				MagicBakery game = SelfPlay.newGame(seed, players);
+				SelfPlay selfPlay = new SelfPlay(SelfPlay.vocabulary(SelfPlay.newGame(1, 0)));
+				List<String> vocabulary = selfPlay.getVocabulary();
+				List<String> layerNames = new ArrayList<>();
+				for (Layer layer : game.getLayers()) {
+					layerNames.add(layer.toString());
+				}
+				HeuristicBot bot = new HeuristicBot(selfPlay, game.getLayers());
+				Random random = new Random(seed);
+				for (int turn = 0; turn < 12 && !SelfPlay.isOver(game); turn++) {
+					while (!SelfPlay.isOver(game)) {
+						checkAttempts(game, attempts(game, vocabulary, layerNames, random));
+						if (game.getActionsRemaining() == 0) {
+							break;
+						}
+						selfPlay.play(game, bot.choose(game));
+					}
+					game.endTurn();
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testNoActionsLeft() throws Exception {
+		MagicBakery game = SelfPlay.newGame(2, 3);
+		while (game.getActionsRemaining() > 0) {
+			game.refreshPantry();
+		}
+		long version = game.getStateVersion();
+		Ingredient card = game.getPantry().iterator().next();
+		assertEquals(ActionResult.TOO_MANY_ACTIONS, game.tryDrawFromPantry(card));
+		assertEquals(ActionResult.TOO_MANY_ACTIONS, game.tryDrawFromPantry(card.toString()));
+		assertEquals(ActionResult.TOO_MANY_ACTIONS, game.tryRefreshPantry());
+		assertEquals(ActionResult.TOO_MANY_ACTIONS, game.tryPassCard(game.getCurrentPlayer().getHand().get(0), nextPlayer(game)));
+		assertEquals(ActionResult.TOO_MANY_ACTIONS, game.tryBakeLayer(game.getLayers().iterator().next()));
+		assertEquals(ActionResult.TOO_MANY_ACTIONS, game.tryFulfillOrder(customerAt(game, 2), false));
+		assertEquals(version, game.getStateVersion());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testEmptyPantryLeavesGameUnchanged() throws Exception {
+		MagicBakery game = SelfPlay.newGame(4, 2);
+		game.getPantryDeck().clear();
+		Collection<Ingredient> discard = (Collection<Ingredient>) FunctionalHelper.getFieldValue(game, "pantryDiscard");
+		discard.clear();
+		Ingredient card = game.getPantry().iterator().next();
+		byte[] before = snapshot(game);
+
+		assertEquals(ActionResult.EMPTY_PANTRY, game.tryDrawFromPantry(card));
+		assertEquals(ActionResult.EMPTY_PANTRY, game.tryDrawFromPantry(card.toString()));
+		assertTrue(Arrays.equals(before, snapshot(game)));
+		assertThrows(EmptyPantryException.class, () -> game.drawFromPantry(card));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testDrawRestoresLargeDiscardPile() throws Exception {
+		MagicBakery game = SelfPlay.newGame(4, 2);
+		List<Ingredient> deck = new ArrayList<>(game.getPantryDeck());
+		game.getPantryDeck().clear();
+		Collection<Ingredient> discard = (Collection<Ingredient>) FunctionalHelper.getFieldValue(game, "pantryDiscard");
+		discard.clear();
+		discard.addAll(deck.subList(0, 6));
+		Ingredient card = game.getPantry().iterator().next();
+
+		assertEquals(ActionResult.OK, game.tryDrawFromPantry(card));
+		assertEquals(1, game.getPantryRestoreCount());
+		assertEquals(5, game.getPantryDeck().size());
+	}
+
+	@Test
+	public void testStacklessExceptions() {
+		MagicBakery.setExceptionStackTraces(false);
+		assertFalse(MagicBakery.isRecordingExceptionStackTraces());
+		assertEquals(0, new TooManyActionsException().getStackTrace().length);
+		assertEquals(0, new WrongIngredientsException("wrong").getStackTrace().length);
+		assertEquals(0, new EmptyPantryException("empty", null).getStackTrace().length);
+		assertEquals("wrong", new WrongIngredientsException("wrong").getMessage());
+
+		MagicBakery.setExceptionStackTraces(true);
+		assertTrue(new TooManyActionsException().getStackTrace().length > 0);
+		assertTrue(new WrongIngredientsException("wrong").getStackTrace().length > 0);
+		assertTrue(new EmptyPantryException("empty", null).getStackTrace().length > 0);
+	}
+}
@@ -0,0 +1,173 @@
+package test.functional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import bakery.CustomerOrder;
+import bakery.CustomerOrder.CustomerOrderStatus;
+import bakery.Ingredient;
+import bakery.MagicBakery;
+import bakery.MagicBakery.ActionType;
+import bakery.Player;
+import bakery.TooManyActionsException;
+import bakery.TurnAction;
+import bakery.TurnRejectedException;
+import bakery.WrongIngredientsException;
+import util.SaveService;
+import util.SpectatorChannel;
+import util.SpectatorChannel.Subscription;
+
+@Tag("functional")
+@Tag("TurnAction")
+public class TurnActionTest {
+
+	private Player otherPlayer(MagicBakery bakery) {
+		Iterator<Player> players = bakery.getPlayers().iterator();
+		players.next();
+		return players.next();
+	}
+
+	@Test
+	public void testFactories() {
+		Player player = new Player("PlayerA");
+		TurnAction pass = TurnAction.pass(Ingredient.HELPFUL_DUCK, player);
+		assertEquals(ActionType.PASS_INGREDIENT, pass.getType());
+		assertSame(Ingredient.HELPFUL_DUCK, pass.getIngredient());
+		assertSame(player, pass.getRecipient());
+		assertEquals(ActionType.DRAW_INGREDIENT, TurnAction.draw(Ingredient.HELPFUL_DUCK).getType());
+		assertEquals(ActionType.REFRESH_PANTRY, TurnAction.refreshPantry().getType());
+		assertTrue(TurnAction.fulfil(null, true).isGarnish());
+	}
+
+	@Test
+	public void testSubmitTurnMatchesSeparateActions() throws IOException {
+		MagicBakery separate = FunctionalHelper.startedBakery();
+		MagicBakery batched = FunctionalHelper.startedBakery();
+
+		Ingredient first = separate.getPantry().iterator().next();
+		separate.drawFromPantry(first);
+		separate.passCard(first, otherPlayer(separate));
+		separate.refreshPantry();
+		separate.endTurn();
+
+		Ingredient same = batched.getPantry().iterator().next();
+		List<TurnAction> turn = new ArrayList<>();
+		turn.add(TurnAction.draw(same));
+		turn.add(TurnAction.pass(same, otherPlayer(batched)));
+		turn.add(TurnAction.refreshPantry());
+		assertTrue(batched.submitTurn(turn, true));
+
+		assertArrayEquals(SaveService.snapshot(separate), SaveService.snapshot(batched));
+	}
+
+	@Test
+	public void testCardsDrawnDuringTurnCanBeUsed() throws IOException, ClassNotFoundException {
+		MagicBakery bakery = FunctionalHelper.startedBakery();
+		MagicBakery preview = SaveService.restore(SaveService.snapshot(bakery));
+		preview.drawFromPantry(preview.getPantry().iterator().next());
+		// The card that replaces the drawn one only reaches the pantry during the turn
+		List<Ingredient> pantry = new ArrayList<>(preview.getPantry());
+		Ingredient replacement = pantry.get(pantry.size() - 1);
+
+		List<TurnAction> turn = new ArrayList<>();
+		turn.add(TurnAction.draw(bakery.getPantry().iterator().next()));
+		turn.add(TurnAction.draw(replacement));
+		bakery.submitTurn(turn, false);
+		assertEquals(1, bakery.getActionsRemaining());
+		assertTrue(bakery.getCurrentPlayer().getHand().contains(replacement));
+	}
+
+	@Test
+	public void testTurnIsPlayedOnTheGameItself() throws IOException {
+		MagicBakery bakery = FunctionalHelper.startedBakery();
+		Player current = bakery.getCurrentPlayer();
+		Player other = otherPlayer(bakery);
+		int handSize = other.getHand().size();
+
+		Ingredient first = bakery.getPantry().iterator().next();
+		List<TurnAction> turn = new ArrayList<>();
+		turn.add(TurnAction.draw(first));
+		turn.add(TurnAction.pass(first, other));
+		bakery.submitTurn(turn, false);
+		assertSame(current, bakery.getCurrentPlayer());
+		assertSame(other, otherPlayer(bakery));
+		assertEquals(handSize + 1, other.getHand().size());
+	}
+
+	@Test
+	public void testCustomerNamedInTurnIsTheGamesOwn() throws IOException {
+		MagicBakery bakery = FunctionalHelper.startedBakery();
+		for (int step = 0; step < 100 && (bakery.getFulfilableCustomers().isEmpty() || bakery.getActionsRemaining() == 0); step++) {
+			if (bakery.getActionsRemaining() > 0) {
+				bakery.drawFromPantry(bakery.getPantry().iterator().next());
+			} else {
+				bakery.endTurn();
+			}
+		}
+		CustomerOrder customer = bakery.getFulfilableCustomers().iterator().next();
+		bakery.submitTurn(List.of(TurnAction.fulfil(customer, false)), false);
+		assertEquals(CustomerOrderStatus.FULFILLED, customer.getStatus());
+		assertFalse(bakery.getCustomers().getActiveCustomers().contains(customer));
+		assertEquals(List.of(customer), new ArrayList<>(bakery.getCustomers().getInactiveCustomersWithStatus(CustomerOrderStatus.FULFILLED)));
+	}
+
+	@Test
+	public void testRejectedTurnChangesNothing() throws IOException {
+		MagicBakery bakery = FunctionalHelper.startedBakery();
+		byte[] before = SaveService.snapshot(bakery);
+
+		Ingredient first = bakery.getPantry().iterator().next();
+		List<TurnAction> turn = new ArrayList<>();
+		turn.add(TurnAction.draw(first));
+		turn.add(TurnAction.pass(new Ingredient("caviar"), otherPlayer(bakery)));
+		turn.add(TurnAction.refreshPantry());
+		TurnRejectedException e = assertThrows(TurnRejectedException.class, () -> bakery.submitTurn(turn, true));
+		assertEquals(1, e.getStep());
+		assertSame(turn.get(1), e.getAction());
+		assertTrue(e.getCause() instanceof WrongIngredientsException);
+		assertArrayEquals(before, SaveService.snapshot(bakery));
+	}
+
+	@Test
+	public void testTooManyActionsRejected() throws IOException {
+		MagicBakery bakery = FunctionalHelper.startedBakery();
+		byte[] before = SaveService.snapshot(bakery);
+		List<TurnAction> turn = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			turn.add(TurnAction.refreshPantry());
+		}
+		TurnRejectedException e = assertThrows(TurnRejectedException.class, () -> bakery.submitTurn(turn, false));
+		assertEquals(3, e.getStep());
+		assertTrue(e.getCause() instanceof TooManyActionsException);
+		assertArrayEquals(before, SaveService.snapshot(bakery));
+	}
+
+	@Test
+	public void testSpectatorsSeeOneUpdatePerTurn() throws FileNotFoundException {
+		MagicBakery bakery = FunctionalHelper.startedBakery();
+		SpectatorChannel channel = new SpectatorChannel();
+		bakery.setSpectatorChannel(channel);
+		Subscription subscription = channel.subscribe();
+		subscription.poll();
+
+		List<TurnAction> turn = new ArrayList<>();
+		turn.add(TurnAction.refreshPantry());
+		turn.add(TurnAction.refreshPantry());
+		bakery.submitTurn(turn, true);
+		assertFalse(subscription.poll().isKeyframe());
+		assertEquals(0, subscription.size());
+	}
+}
@@ -0,0 +1,24 @@
+package test.javadoc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("javadoc")
+@Tag("CardPile")
+public class JavadocCardPileTest {
+
+    String FQCN = "bakery.CardPile";
+
+    @Test
+    public void testCardPileIsDocumented() {
+        assertTrue(JavadocHelper._testclassIsDocumented("bakery.CardPile"));
+    }
+
+    @Test
+    public void testAllMembersDocumented() {
+        assertTrue(JavadocHelper.allMembersAreDocumented(FQCN));
+    }
+
+}
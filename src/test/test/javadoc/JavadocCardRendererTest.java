@@ -0,0 +1,24 @@
+package test.javadoc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("javadoc")
+@Tag("CardRenderer")
+public class JavadocCardRendererTest {
+
+    String FQCN = "util.CardRenderer";
+
+    @Test
+    public void testCardRendererIsDocumented() {
+        assertTrue(JavadocHelper._testclassIsDocumented("util.CardRenderer"));
+    }
+
+    @Test
+    public void testAllMembersDocumented() {
+        assertTrue(JavadocHelper.allMembersAreDocumented(FQCN));
+    }
+
+}
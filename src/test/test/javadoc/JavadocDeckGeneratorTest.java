@@ -0,0 +1,24 @@
+package test.javadoc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("javadoc")
+@Tag("DeckGenerator")
+public class JavadocDeckGeneratorTest {
+
+    String FQCN = "util.DeckGenerator";
+
+    @Test
+    public void testDeckGeneratorIsDocumented() {
+        assertTrue(JavadocHelper._testclassIsDocumented("util.DeckGenerator"));
+    }
+
+    @Test
+    public void testAllMembersDocumented() {
+        assertTrue(JavadocHelper.allMembersAreDocumented(FQCN));
+    }
+
+}
@@ -0,0 +1,24 @@
+package test.javadoc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("javadoc")
+@Tag("EndgameSolver")
+public class JavadocEndgameSolverTest {
+
+    String FQCN = "util.EndgameSolver";
+
+    @Test
+    public void testEndgameSolverIsDocumented() {
+        assertTrue(JavadocHelper._testclassIsDocumented("util.EndgameSolver"));
+    }
+
+    @Test
+    public void testAllMembersDocumented() {
+        assertTrue(JavadocHelper.allMembersAreDocumented(FQCN));
+    }
+
+}
@@ -0,0 +1,24 @@
+package test.javadoc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("javadoc")
+@Tag("EndgameTablebase")
+public class JavadocEndgameTablebaseTest {
+
+    String FQCN = "util.EndgameTablebase";
+
+    @Test
+    public void testEndgameTablebaseIsDocumented() {
+        assertTrue(JavadocHelper._testclassIsDocumented("util.EndgameTablebase"));
+    }
+
+    @Test
+    public void testAllMembersDocumented() {
+        assertTrue(JavadocHelper.allMembersAreDocumented(FQCN));
+    }
+
+}
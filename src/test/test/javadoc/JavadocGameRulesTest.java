@@ -0,0 +1,24 @@
+package test.javadoc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("javadoc")
+@Tag("GameRules")
+public class JavadocGameRulesTest {
+
+    String FQCN = "bakery.GameRules";
+
+    @Test
+    public void testGameRulesIsDocumented() {
+        assertTrue(JavadocHelper._testclassIsDocumented("bakery.GameRules"));
+    }
+
+    @Test
+    public void testAllMembersDocumented() {
+        assertTrue(JavadocHelper.allMembersAreDocumented(FQCN));
+    }
+
+}
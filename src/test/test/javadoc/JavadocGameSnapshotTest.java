@@ -0,0 +1,24 @@
+package test.javadoc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("javadoc")
+@Tag("GameSnapshot")
+public class JavadocGameSnapshotTest {
+
+    String FQCN = "bakery.GameSnapshot";
+
+    @Test
+    public void testGameSnapshotIsDocumented() {
+        assertTrue(JavadocHelper._testclassIsDocumented("bakery.GameSnapshot"));
+    }
+
+    @Test
+    public void testAllMembersDocumented() {
+        assertTrue(JavadocHelper.allMembersAreDocumented(FQCN));
+    }
+
+}
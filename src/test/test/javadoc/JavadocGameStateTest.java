@@ -0,0 +1,24 @@
+package test.javadoc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("javadoc")
+@Tag("GameState")
+public class JavadocGameStateTest {
+
+    String FQCN = "util.GameState";
+
+    @Test
+    public void testGameStateIsDocumented() {
+        assertTrue(JavadocHelper._testclassIsDocumented("util.GameState"));
+    }
+
+    @Test
+    public void testAllMembersDocumented() {
+        assertTrue(JavadocHelper.allMembersAreDocumented(FQCN));
+    }
+
+}
@@ -0,0 +1,24 @@
+package test.javadoc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("javadoc")
+@Tag("HeuristicBot")
+public class JavadocHeuristicBotTest {
+
+    String FQCN = "util.HeuristicBot";
+
+    @Test
+    public void testHeuristicBotIsDocumented() {
+        assertTrue(JavadocHelper._testclassIsDocumented("util.HeuristicBot"));
+    }
+
+    @Test
+    public void testAllMembersDocumented() {
+        assertTrue(JavadocHelper.allMembersAreDocumented(FQCN));
+    }
+
+}
@@ -0,0 +1,24 @@
+package test.javadoc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("javadoc")
+@Tag("HintService")
+public class JavadocHintServiceTest {
+
+    String FQCN = "util.HintService";
+
+    @Test
+    public void testHintServiceIsDocumented() {
+        assertTrue(JavadocHelper._testclassIsDocumented("util.HintService"));
+    }
+
+    @Test
+    public void testAllMembersDocumented() {
+        assertTrue(JavadocHelper.allMembersAreDocumented(FQCN));
+    }
+
+}
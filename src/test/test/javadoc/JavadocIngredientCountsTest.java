@@ -0,0 +1,24 @@
+package test.javadoc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("javadoc")
+@Tag("IngredientCounts")
+public class JavadocIngredientCountsTest {
+
+    String FQCN = "bakery.IngredientCounts";
+
+    @Test
+    public void testIngredientCountsIsDocumented() {
+        assertTrue(JavadocHelper._testclassIsDocumented("bakery.IngredientCounts"));
+    }
+
+    @Test
+    public void testAllMembersDocumented() {
+        assertTrue(JavadocHelper.allMembersAreDocumented(FQCN));
+    }
+
+}
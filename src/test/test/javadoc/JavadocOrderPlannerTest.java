@@ -0,0 +1,24 @@
+package test.javadoc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("javadoc")
+@Tag("OrderPlanner")
+public class JavadocOrderPlannerTest {
+
+    String FQCN = "bakery.OrderPlanner";
+
+    @Test
+    public void testOrderPlannerIsDocumented() {
+        assertTrue(JavadocHelper._testclassIsDocumented("bakery.OrderPlanner"));
+    }
+
+    @Test
+    public void testAllMembersDocumented() {
+        assertTrue(JavadocHelper.allMembersAreDocumented(FQCN));
+    }
+
+}
@@ -0,0 +1,24 @@
+package test.javadoc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("javadoc")
+@Tag("OutcomeAnalytics")
+public class JavadocOutcomeAnalyticsTest {
+
+    String FQCN = "util.OutcomeAnalytics";
+
+    @Test
+    public void testOutcomeAnalyticsIsDocumented() {
+        assertTrue(JavadocHelper._testclassIsDocumented("util.OutcomeAnalytics"));
+    }
+
+    @Test
+    public void testAllMembersDocumented() {
+        assertTrue(JavadocHelper.allMembersAreDocumented(FQCN));
+    }
+
+}
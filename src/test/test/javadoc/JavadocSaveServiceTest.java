@@ -0,0 +1,24 @@
+package test.javadoc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("javadoc")
+@Tag("SaveService")
+public class JavadocSaveServiceTest {
+
+    String FQCN = "util.SaveService";
+
+    @Test
+    public void testSaveServiceIsDocumented() {
+        assertTrue(JavadocHelper._testclassIsDocumented("util.SaveService"));
+    }
+
+    @Test
+    public void testAllMembersDocumented() {
+        assertTrue(JavadocHelper.allMembersAreDocumented(FQCN));
+    }
+
+}
@@ -0,0 +1,24 @@
+package test.javadoc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("javadoc")
+@Tag("SelfPlay")
+public class JavadocSelfPlayTest {
+
+    String FQCN = "util.SelfPlay";
+
+    @Test
+    public void testSelfPlayIsDocumented() {
+        assertTrue(JavadocHelper._testclassIsDocumented("util.SelfPlay"));
+    }
+
+    @Test
+    public void testAllMembersDocumented() {
+        assertTrue(JavadocHelper.allMembersAreDocumented(FQCN));
+    }
+
+}
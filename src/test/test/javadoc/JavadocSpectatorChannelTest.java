@@ -0,0 +1,24 @@
+package test.javadoc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("javadoc")
+@Tag("SpectatorChannel")
+public class JavadocSpectatorChannelTest {
+
+    String FQCN = "util.SpectatorChannel";
+
+    @Test
+    public void testSpectatorChannelIsDocumented() {
+        assertTrue(JavadocHelper._testclassIsDocumented("util.SpectatorChannel"));
+    }
+
+    @Test
+    public void testAllMembersDocumented() {
+        assertTrue(JavadocHelper.allMembersAreDocumented(FQCN));
+    }
+
+}
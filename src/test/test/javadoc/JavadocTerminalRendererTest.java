@@ -0,0 +1,24 @@
+package test.javadoc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("javadoc")
+@Tag("TerminalRenderer")
+public class JavadocTerminalRendererTest {
+
+    String FQCN = "util.TerminalRenderer";
+
+    @Test
+    public void testTerminalRendererIsDocumented() {
+        assertTrue(JavadocHelper._testclassIsDocumented("util.TerminalRenderer"));
+    }
+
+    @Test
+    public void testAllMembersDocumented() {
+        assertTrue(JavadocHelper.allMembersAreDocumented(FQCN));
+    }
+
+}
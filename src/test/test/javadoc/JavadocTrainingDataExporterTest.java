@@ -0,0 +1,24 @@
+package test.javadoc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("javadoc")
+@Tag("TrainingDataExporter")
+public class JavadocTrainingDataExporterTest {
+
+    String FQCN = "util.TrainingDataExporter";
+
+    @Test
+    public void testTrainingDataExporterIsDocumented() {
+        assertTrue(JavadocHelper._testclassIsDocumented("util.TrainingDataExporter"));
+    }
+
+    @Test
+    public void testAllMembersDocumented() {
+        assertTrue(JavadocHelper.allMembersAreDocumented(FQCN));
+    }
+
+}
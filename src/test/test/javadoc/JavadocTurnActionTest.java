@@ -0,0 +1,24 @@
+package test.javadoc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("javadoc")
+@Tag("TurnAction")
+public class JavadocTurnActionTest {
+
+    String FQCN = "bakery.TurnAction";
+
+    @Test
+    public void testTurnActionIsDocumented() {
+        assertTrue(JavadocHelper._testclassIsDocumented("bakery.TurnAction"));
+    }
+
+    @Test
+    public void testAllMembersDocumented() {
+        assertTrue(JavadocHelper.allMembersAreDocumented(FQCN));
+    }
+
+}
@@ -0,0 +1,29 @@
+package test.javadoc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("javadoc")
+@Tag("TurnRejectedException")
+public class JavadocTurnRejectedExceptionTest {
+
+    String FQCN = "bakery.TurnRejectedException";
+
+    @Test
+    public void testTurnRejectedExceptionIsDocumented() {
+        assertTrue(JavadocHelper._testclassIsDocumented("bakery.TurnRejectedException"));
+    }
+
+    @Test
+    public void testAllMembersDocumented() {
+        assertTrue(JavadocHelper.allMembersAreDocumented(FQCN));
+    }
+
+    @Test
+    public void testConstructorDocumented() {
+        assertTrue(JavadocHelper._testmemberIsDocumented(FQCN, "TurnRejectedException\\s*\\(.*"));
+    }
+
+}